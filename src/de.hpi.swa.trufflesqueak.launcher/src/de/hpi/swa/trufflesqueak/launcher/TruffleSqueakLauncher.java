@@ -192,7 +192,7 @@ public final class TruffleSqueakLauncher extends AbstractLanguageLauncher {
 
     private static boolean isExistingImageFile(final String fileName) {
         try {
-            return fileName.endsWith(".image") && Files.exists(Paths.get(fileName));
+            return (fileName.endsWith(".image") || fileName.endsWith(".image.gz")) && Files.exists(Paths.get(fileName));
         } catch (final SecurityException | InvalidPathException e) {
             return false;
         }
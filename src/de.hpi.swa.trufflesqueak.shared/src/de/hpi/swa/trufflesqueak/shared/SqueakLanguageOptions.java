@@ -7,6 +7,16 @@
 package de.hpi.swa.trufflesqueak.shared;
 
 public final class SqueakLanguageOptions {
+    public static final String AST_EVICTION_IDLE_TIME = "ast-eviction-idle-time";
+    public static final String AST_EVICTION_IDLE_TIME_HELP = "Drop the ASTs and call targets of methods not executed for this many seconds and rebuild them on demand (0 to disable)";
+    public static final String BACKGROUND_SNAPSHOTS = "background-snapshots";
+    public static final String BACKGROUND_SNAPSHOTS_HELP = "Write image files on a background thread after a short pause that copies the object graph";
+    public static final String CONTEXT_MATERIALIZATION_PROFILING = "context-materialization-profiling";
+    public static final String CONTEXT_MATERIALIZATION_PROFILING_HELP = "Count materialized contexts per method and cause and report the methods with the most materializations in the resource summary";
+    public static final String DELTA_SNAPSHOTS = "delta-snapshots";
+    public static final String DELTA_SNAPSHOTS_HELP = "Save only objects modified since the last full snapshot and append them to a delta file next to the image";
+    public static final String EAGER_BYTECODE_DECODING = "eager-bytecode-decoding";
+    public static final String EAGER_BYTECODE_DECODING_HELP = "Decode all bytecodes reachable from the entry of each AST on its first execution instead of one bytecode at a time (decoded nodes are not shared between ASTs)";
     public static final String CODE_FLAG = "--code";
     public static final String CODE_FLAG_SHORT = "-c";
     public static final String CODE_HELP = "Smalltalk code to be executed without display";
@@ -16,14 +26,32 @@ public final class SqueakLanguageOptions {
     public static final String IMAGE_ARGUMENTS = "image-arguments";
     public static final String IMAGE_ARGUMENTS_FLAG = "--" + IMAGE_ARGUMENTS;
     public static final String IMAGE_ARGUMENTS_HELP = "Comma-separated list of image arguments";
+    public static final String IMAGE_CACHE = "image-cache";
+    public static final String IMAGE_CACHE_HELP = "Write class layouts to a file next to the image on save and reuse them on load if the image is unchanged";
     public static final String IMAGE_PATH = "image-path";
     public static final String IMAGE_PATH_FLAG = "--" + IMAGE_PATH;
     public static final String IMAGE_PATH_HELP = "Path to image";
+    public static final String INSTANCE_REGISTRY = "instance-registry";
+    public static final String INSTANCE_REGISTRY_HELP = "Keep a weak registry of instances per class to answer allInstances and someInstance without tracing the object graph";
     public static final String INTERCEPT_MESSAGES = "intercept-messages";
     public static final String INTERCEPT_MESSAGES_HELP = "Comma-separated list of messages to intercept with an instrument";
     public static final String INTERRUPTS = "disable-interrupts";
     public static final String INTERRUPTS_FLAG = "--" + INTERRUPTS;
     public static final String INTERRUPTS_HELP = "Disable interrupt handler";
+    public static final String LAZY_BECOME = "lazy-become";
+    public static final String LAZY_BECOME_HELP = "Turn objects into forwarders on one-way become and replace references to them in batches instead of on every become";
+    public static final String MAPPED_IMAGE_LOADING = "mapped-image-loading";
+    public static final String MAPPED_IMAGE_LOADING_HELP = "Load image through a memory-mapped file and parse its objects in parallel";
+    public static final String MEGAMORPHIC_CACHE_SIZE = "megamorphic-cache-size";
+    public static final String MEGAMORPHIC_CACHE_SIZE_HELP = "Number of entries of the per-send-site lookup caches of megamorphic sends (a power of two, 0 to disable)";
+    public static final String METHOD_CACHE_SIZE = "method-cache-size";
+    public static final String METHOD_CACHE_SIZE_HELP = "Initial number of entries of the global method cache (a power of two), which grows if misses evict too many recently filled entries";
+    public static final String PARALLEL_IMAGE_LOADING = "parallel-image-loading";
+    public static final String PARALLEL_IMAGE_LOADING_HELP = "Fill in loaded objects on multiple threads";
+    public static final String PARALLEL_OBJECT_TRACING = "parallel-object-tracing";
+    public static final String PARALLEL_OBJECT_TRACING_HELP = "Trace the object graph on multiple threads for allInstances, allInstancesOf, and become";
+    public static final String PRE_INITIALIZE_IMAGE = "pre-initialize-image";
+    public static final String PRE_INITIALIZE_IMAGE_HELP = "Load the image during context pre-initialization (e.g. into the heap of a native image)";
     public static final String PRINT_IMAGE_PATH_FLAG = "--print-image-path";
     public static final String PRINT_IMAGE_PATH_HELP = "Print the path to default Squeak/Smalltalk image";
     public static final String QUIET = "quiet";
@@ -32,6 +60,10 @@ public final class SqueakLanguageOptions {
     public static final String RESOURCE_SUMMARY = "resource-summary";
     public static final String RESOURCE_SUMMARY_FLAG = "--" + RESOURCE_SUMMARY;
     public static final String RESOURCE_SUMMARY_HELP = "Print resource summary on context exit";
+    public static final String SEND_INLINE_CACHE_SIZE = "send-inline-cache-size";
+    public static final String SEND_INLINE_CACHE_SIZE_HELP = "Number of receiver classes cached per send site before the send is considered megamorphic";
+    public static final String SEND_SITE_PROFILING = "send-site-profiling";
+    public static final String SEND_SITE_PROFILING_HELP = "Record receiver classes, inline cache transitions, and DNUs per send site and report the most polymorphic sites in the resource summary";
     public static final String SIGNAL_INPUT_SEMAPHORE = "signal-input-semaphore";
     public static final String SIGNAL_INPUT_SEMAPHORE_HELP = "Signal the input semaphore";
     public static final String STACK_DEPTH_PROTECTION = "stack-depth-protection";
@@ -122,7 +122,7 @@ public class AbstractSqueakTestCaseWithImage extends AbstractSqueakTestCase {
         Assume.assumeFalse("skipped on `mx gate`", runsOnMXGate());
     }
 
-    private static String getPathToTestImage() {
+    protected static String getPathToTestImage() {
         final String imagePath64bit = getPathToTestImage("test-64bit.image");
         if (imagePath64bit != null) {
             return imagePath64bit;
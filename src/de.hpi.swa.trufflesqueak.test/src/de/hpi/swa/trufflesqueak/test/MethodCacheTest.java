@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2017-2022 Software Architecture Group, Hasso Plattner Institute
+ * Copyright (c) 2021-2022 Oracle and/or its affiliates
+ *
+ * Licensed under the MIT License.
+ */
+package de.hpi.swa.trufflesqueak.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import de.hpi.swa.trufflesqueak.model.ClassObject;
+import de.hpi.swa.trufflesqueak.model.CompiledCodeObject;
+import de.hpi.swa.trufflesqueak.model.NativeObject;
+import de.hpi.swa.trufflesqueak.util.MethodCache;
+import de.hpi.swa.trufflesqueak.util.MethodCacheEntry;
+
+@SuppressWarnings("static-method")
+public final class MethodCacheTest extends AbstractSqueakTestCaseWithDummyImage {
+
+    @Test
+    public void testHitsAfterFill() {
+        final MethodCache cache = new MethodCache(64);
+        final ClassObject classObject = new ClassObject(image);
+        final NativeObject selector = image.asByteString("foo");
+        final MethodCacheEntry entry = cache.find(classObject, selector);
+        assertNull(entry.getResult());
+        final CompiledCodeObject method = newMethod();
+        entry.setResult(method);
+        for (int i = 0; i < 3; i++) {
+            assertSame(method, cache.find(classObject, selector).getResult());
+        }
+        /* Statistics are only updated on misses. */
+        assertEquals(64L, cache.getStatistics()[0]);
+        assertEquals(1L, cache.getStatistics()[1]);
+        assertEquals(0L, cache.getStatistics()[2]);
+        assertTrue(cache.isIndexConsistent());
+    }
+
+    @Test
+    public void testGrowsWhenWorkingSetDoesNotFit() {
+        final MethodCache cache = new MethodCache(16);
+        final ClassObject[] classes = newClasses(64);
+        final NativeObject[] selectors = newSelectors(4);
+        final CompiledCodeObject[] methods = {newMethod(), newMethod()};
+        for (int round = 0; round < 8; round++) {
+            fill(cache, classes, selectors, methods);
+            assertTrue(cache.isIndexConsistent());
+        }
+        final long[] statistics = cache.getStatistics();
+        assertTrue("cache did not grow", statistics[0] >= classes.length * selectors.length);
+        assertTrue(statistics[1] >= classes.length * selectors.length);
+        assertTrue(statistics[2] > 0);
+        /* Entries that are still cached answer the right lookup result. */
+        for (int i = 0; i < classes.length; i++) {
+            for (int j = 0; j < selectors.length; j++) {
+                final Object result = cache.find(classes[i], selectors[j]).getResult();
+                assertTrue(result == null || result == methods[(i + j) % methods.length]);
+            }
+        }
+        assertTrue(cache.isIndexConsistent());
+    }
+
+    @Test
+    public void testDoesNotGrowWhenWorkingSetFits() {
+        final MethodCache cache = new MethodCache(1024);
+        final ClassObject[] classes = newClasses(4);
+        final NativeObject[] selectors = newSelectors(2);
+        for (int round = 0; round < 8; round++) {
+            fill(cache, classes, selectors, new CompiledCodeObject[]{newMethod()});
+        }
+        assertEquals(1024L, cache.getStatistics()[0]);
+        assertTrue(cache.isIndexConsistent());
+    }
+
+    @Test
+    public void testFlushForSelector() {
+        final MethodCache cache = new MethodCache(1024);
+        final ClassObject[] classes = newClasses(8);
+        final NativeObject[] selectors = newSelectors(2);
+        final CompiledCodeObject[] methods = {newMethod()};
+        fill(cache, classes, selectors, methods);
+        cache.flushForSelector(selectors[0]);
+        assertTrue(cache.isIndexConsistent());
+        final long misses = cache.getStatistics()[1];
+        /* Check hits first, because misses may reuse entries of other selectors. */
+        for (final ClassObject classObject : classes) {
+            assertSame(methods[0], cache.find(classObject, selectors[1]).getResult());
+        }
+        assertEquals(misses, cache.getStatistics()[1]);
+        for (final ClassObject classObject : classes) {
+            assertNull(cache.find(classObject, selectors[0]).getResult());
+        }
+        assertEquals(misses + classes.length, cache.getStatistics()[1]);
+        assertTrue(cache.isIndexConsistent());
+        /* Flushing a selector that is not cached is a no-op. */
+        cache.flushForSelector(image.asByteString("notCached"));
+        assertTrue(cache.isIndexConsistent());
+    }
+
+    @Test
+    public void testFlushForMethod() {
+        final MethodCache cache = new MethodCache(1024);
+        final ClassObject[] classes = newClasses(8);
+        final NativeObject[] selectors = newSelectors(2);
+        final CompiledCodeObject[] methods = {newMethod(), newMethod()};
+        fill(cache, classes, selectors, methods);
+        cache.flushForMethod(methods[0]);
+        assertTrue(cache.isIndexConsistent());
+        final long misses = cache.getStatistics()[1];
+        for (int i = 0; i < classes.length; i++) {
+            for (int j = 0; j < selectors.length; j++) {
+                if ((i + j) % methods.length == 1) {
+                    assertSame(methods[1], cache.find(classes[i], selectors[j]).getResult());
+                }
+            }
+        }
+        assertEquals(misses, cache.getStatistics()[1]);
+        for (int i = 0; i < classes.length; i++) {
+            for (int j = 0; j < selectors.length; j++) {
+                if ((i + j) % methods.length == 0) {
+                    assertNull(cache.find(classes[i], selectors[j]).getResult());
+                }
+            }
+        }
+        assertTrue(cache.isIndexConsistent());
+        /* A full flush empties the index but keeps the statistics. */
+        final long missesBeforeFlush = cache.getStatistics()[1];
+        cache.flush();
+        assertTrue(cache.isIndexConsistent());
+        assertEquals(missesBeforeFlush, cache.getStatistics()[1]);
+        assertNull(cache.find(classes[0], selectors[1]).getResult());
+    }
+
+    /* Looks up all combinations, filling misses with one of the given methods. */
+    private static void fill(final MethodCache cache, final ClassObject[] classes, final NativeObject[] selectors, final CompiledCodeObject[] methods) {
+        for (int i = 0; i < classes.length; i++) {
+            for (int j = 0; j < selectors.length; j++) {
+                final MethodCacheEntry entry = cache.find(classes[i], selectors[j]);
+                if (entry.getResult() == null) {
+                    entry.setResult(methods[(i + j) % methods.length]);
+                }
+            }
+        }
+    }
+
+    private static ClassObject[] newClasses(final int count) {
+        final ClassObject[] classes = new ClassObject[count];
+        for (int i = 0; i < count; i++) {
+            classes[i] = new ClassObject(image);
+        }
+        return classes;
+    }
+
+    private static NativeObject[] newSelectors(final int count) {
+        final NativeObject[] selectors = new NativeObject[count];
+        for (int i = 0; i < count; i++) {
+            selectors[i] = image.asByteString("selector" + i);
+        }
+        return selectors;
+    }
+
+    private static CompiledCodeObject newMethod() {
+        return makeMethod(new Object[]{makeHeader(0, 0, 0, false, false)}, 0x78);
+    }
+}
@@ -7,27 +7,53 @@
 package de.hpi.swa.trufflesqueak.test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.io.IOException;
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
 
 import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.Engine;
 import org.graalvm.polyglot.Value;
+import org.junit.Assume;
 import org.junit.FixMethodOrder;
 import org.junit.Test;
 import org.junit.runners.MethodSorters;
 
 import com.oracle.truffle.api.TruffleFile;
 
+import de.hpi.swa.trufflesqueak.image.SqueakImageContext;
+import de.hpi.swa.trufflesqueak.model.AbstractSqueakObjectWithClassAndHash;
+import de.hpi.swa.trufflesqueak.model.ArrayObject;
 import de.hpi.swa.trufflesqueak.model.BooleanObject;
+import de.hpi.swa.trufflesqueak.model.ClassObject;
+import de.hpi.swa.trufflesqueak.model.CompiledCodeObject;
+import de.hpi.swa.trufflesqueak.model.NativeObject;
 import de.hpi.swa.trufflesqueak.shared.SqueakLanguageConfig;
 import de.hpi.swa.trufflesqueak.shared.SqueakLanguageOptions;
+import de.hpi.swa.trufflesqueak.util.HeapCensus;
+import de.hpi.swa.trufflesqueak.util.HeapEnumeration;
+import de.hpi.swa.trufflesqueak.util.IdleCodeEvictor;
+import de.hpi.swa.trufflesqueak.util.ObjectGraphUtils;
+import de.hpi.swa.trufflesqueak.util.SendSiteProfiler;
+import de.hpi.swa.trufflesqueak.util.SendSiteProfiler.SiteProfile;
 
 @SuppressWarnings("static-method")
 @FixMethodOrder(MethodSorters.NAME_ASCENDING)
 public final class SqueakBasicImageTest extends AbstractSqueakTestCaseWithImage {
+    private static final String OSR_COMPILATION_THRESHOLD = "engine.OSRCompilationThreshold";
 
     @Test
     public void test01AsSymbol() {
@@ -162,4 +188,507 @@ public final class SqueakBasicImageTest extends AbstractSqueakTestCaseWithImage
             }
         }
     }
+
+    @Test
+    public void test15ParallelObjectTracing() {
+        assertEquals(ObjectGraphUtils.allInstances(image, false).size(), ObjectGraphUtils.allInstances(image, true).size());
+    }
+
+    @Test
+    public void test17HeapCensus() {
+        final ArrayObject census = HeapCensus.take(image).toArray(image);
+        long numInstances = 0;
+        for (final Object row : census.getObjectStorage()) {
+            numInstances += (long) ((ArrayObject) row).getObject(2);
+        }
+        assertEquals(ObjectGraphUtils.allInstances(image).size(), numInstances);
+    }
+
+    @Test
+    public void test18InstanceRegistry() {
+        final Context newContext = newTestImageContext(SqueakLanguageOptions.INSTANCE_REGISTRY);
+        newContext.enter();
+        try {
+            final SqueakImageContext newImage = SqueakImageContext.getSlow();
+            newImage.ensureLoaded();
+            assertTrue(newImage.instanceRegistry.isEnabled());
+            assertFalse(image.instanceRegistry.isEnabled());
+            newContext.eval(SqueakLanguageConfig.ID, "Array new: 3");
+            final AbstractCollection<AbstractSqueakObjectWithClassAndHash> traced = ObjectGraphUtils.allInstances(newImage, false);
+            final Set<AbstractSqueakObjectWithClassAndHash> registered = Collections.newSetFromMap(new IdentityHashMap<>());
+            final AbstractCollection<AbstractSqueakObjectWithClassAndHash> allRegistered = ObjectGraphUtils.allInstances(newImage);
+            registered.addAll(allRegistered);
+            assertEquals("registry answers duplicates", registered.size(), allRegistered.size());
+            for (final AbstractSqueakObjectWithClassAndHash object : traced) {
+                assertTrue("reachable object not registered: " + object, registered.contains(object));
+            }
+            final Set<Object> arrays = Collections.newSetFromMap(new IdentityHashMap<>());
+            arrays.addAll(Arrays.asList(ObjectGraphUtils.allInstancesOf(newImage, newImage.arrayClass)));
+            for (final AbstractSqueakObjectWithClassAndHash object : traced) {
+                assertEquals(object.getSqueakClass() == newImage.arrayClass, arrays.contains(object));
+            }
+            /* Enumerating the registry must not interfere with tracing. */
+            assertEquals(traced.size(), ObjectGraphUtils.allInstances(newImage, false).size());
+        } finally {
+            newContext.leave();
+            newContext.close(true);
+        }
+    }
+
+    @Test
+    public void test19DeltaSnapshotModifiedObjects() {
+        final String newImageName = "test19DeltaSnapshot.image";
+        final Context newContext = newTestImageContext(SqueakLanguageOptions.DELTA_SNAPSHOTS);
+        newContext.enter();
+        SqueakImageContext newImage = null;
+        try {
+            newImage = SqueakImageContext.getSlow();
+            newImage.ensureLoaded();
+            /* The first snapshot is a full one and starts tracking modifications. */
+            newContext.eval(SqueakLanguageConfig.ID, String.format("Smalltalk saveAs: '%s'", newImageName));
+            assertTrue(newImage.isTrackingModifications());
+            newImage.drainModifiedObjects();
+
+            /* Reads, including lazy hash initialization, are not writes. */
+            final ArrayObject specialObjects = newImage.specialObjectsArray;
+            final Object firstSpecialObject = specialObjects.getObject(0);
+            specialObjects.getSqueakHash();
+            final ArrayObject newArray = newImage.asArrayOfObjects(firstSpecialObject);
+            assertTrue(newArray.needsSqueakHash());
+            newArray.getSqueakHash();
+            assertEquals(0, newImage.drainModifiedObjects().length);
+
+            /* Written objects are recorded exactly once. */
+            specialObjects.setObject(0, firstSpecialObject);
+            specialObjects.setObject(0, firstSpecialObject);
+            final AbstractSqueakObjectWithClassAndHash[] modified = newImage.drainModifiedObjects();
+            assertEquals(1, modified.length);
+            assertSame(specialObjects, modified[0]);
+
+            /* Draining unmarks objects, so that they are recorded again when written. */
+            specialObjects.setObject(0, firstSpecialObject);
+            assertEquals(1, newImage.drainModifiedObjects().length);
+        } finally {
+            newContext.leave();
+            final TruffleFile imageDirectory = newImage == null ? null : newImage.env.getInternalTruffleFile(newImage.getImagePath()).getParent();
+            newContext.close(true);
+            if (imageDirectory != null) {
+                for (final String fileName : new String[]{newImageName, "test19DeltaSnapshot.changes", newImageName + ".tsdelta"}) {
+                    final TruffleFile file = imageDirectory.resolve(fileName);
+                    try {
+                        if (file.exists()) {
+                            file.delete();
+                        }
+                    } catch (final IOException e) {
+                        fail(e.getMessage());
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void test20LazyBecome() {
+        final Context newContext = newTestImageContext(SqueakLanguageOptions.LAZY_BECOME);
+        newContext.enter();
+        try {
+            final SqueakImageContext newImage = SqueakImageContext.getSlow();
+            newImage.ensureLoaded();
+            assertTrue(newImage.options.isLazyBecome);
+            /* References from objects, temporaries, and the stack. */
+            assertLazyBecome(newContext, "| a b array | a := Array with: 1. b := Array with: 2. array := Array with: a. " +
+                            "a becomeForward: b. array first == b and: [a == b and: [a first = 2]]");
+            /* Copied values of closures (including writes through them). */
+            assertLazyBecome(newContext, "| a b block | a := Array with: 1. b := Array with: 2. block := [a at: 1 put: 3. a]. " +
+                            "a becomeForward: b. block value == b and: [b first = 3]");
+            /* Writes through primitives that operate on raw storage. */
+            assertLazyBecome(newContext, "| a b array | a := Array new: 3. b := Array new: 3. array := Array with: a. a becomeForward: b. " +
+                            "array first replaceFrom: 1 to: 3 with: #(4 5 6) startingAt: 1. a replaceFrom: 3 to: 3 with: #(7) startingAt: 1. b = #(4 5 7)");
+            assertLazyBecome(newContext, "| a b | a := String new: 2. b := String new: 2. a becomeForward: b. " +
+                            "(Array with: a) first replaceFrom: 1 to: 2 with: 'ab' startingAt: 1. b = 'ab'");
+            /* Class-side instance variables. */
+            newContext.eval(SqueakLanguageConfig.ID, "Object subclass: #TruffleSqueakLazyBecomeTest instanceVariableNames: '' classVariableNames: '' " +
+                            "poolDictionaries: '' category: 'TruffleSqueak-Tests'. TruffleSqueakLazyBecomeTest class instanceVariableNames: 'value'");
+            assertLazyBecome(newContext, "| a b | a := Array with: 1. b := Array with: 2. TruffleSqueakLazyBecomeTest instVarNamed: 'value' put: a. " +
+                            "a becomeForward: b. (TruffleSqueakLazyBecomeTest instVarNamed: 'value') == b");
+            /* Forwarders are gone after a flush. */
+            newImage.forwardingPointers.flush();
+            assertFalse(newImage.forwardingPointers.hasForwarders());
+            assertLazyBecome(newContext, "(TruffleSqueakLazyBecomeTest instVarNamed: 'value') first = 2");
+        } finally {
+            newContext.leave();
+            newContext.close(true);
+        }
+    }
+
+    @Test
+    public void test21ParallelImageLoading() {
+        assertEquals(loadHeapSignature(), loadHeapSignature(SqueakLanguageOptions.PARALLEL_IMAGE_LOADING));
+    }
+
+    @Test
+    public void test23BackgroundSnapshot() {
+        final String newImageName = "test23BackgroundSnapshot.image";
+        final Context newContext = newTestImageContext(SqueakLanguageOptions.BACKGROUND_SNAPSHOTS, SqueakLanguageOptions.IMAGE_CACHE);
+        newContext.enter();
+        SqueakImageContext newImage = null;
+        TruffleFile newImageFile = null;
+        try {
+            newImage = SqueakImageContext.getSlow();
+            newImage.ensureLoaded();
+            /* Invalid semaphore indices fail the primitive before anything is written. */
+            newContext.eval(SqueakLanguageConfig.ID, "SmalltalkImage compile: 'truffleSqueakSnapshotSignaling: index <primitive: 97> ^ #failed' classified: 'tests'");
+            assertEquals("failed", newContext.eval(SqueakLanguageConfig.ID, "Smalltalk truffleSqueakSnapshotSignaling: 0").asString());
+            newContext.eval(SqueakLanguageConfig.ID, String.format("Smalltalk saveAs: '%s'", newImageName));
+            newImage.waitForBackgroundSnapshot();
+            newImageFile = newImage.env.getInternalTruffleFile(newImage.getImagePath());
+            assertEquals(newImageName, newImageFile.getName());
+            assertTrue(newImageFile.resolveSibling(newImageName + ".tscache").exists());
+        } finally {
+            newContext.leave();
+            newContext.close(true);
+        }
+        /* Open the image written in the background (with its cached layouts) and run code in it. */
+        final Context savedContext = Context.newBuilder(SqueakLanguageConfig.ID).allowAllAccess(true).option(SqueakLanguageConfig.ID + "." + SqueakLanguageOptions.IMAGE_PATH,
+                        newImageFile.getPath()).option(SqueakLanguageConfig.ID + "." + SqueakLanguageOptions.HEADLESS, "true").option(
+                                        SqueakLanguageConfig.ID + "." + SqueakLanguageOptions.IMAGE_CACHE, "true").build();
+        savedContext.enter();
+        try {
+            assertEquals(9, savedContext.eval(SqueakLanguageConfig.ID, "1 + 2 * 3").asInt());
+            assertEquals("failed", savedContext.eval(SqueakLanguageConfig.ID, "Smalltalk truffleSqueakSnapshotSignaling: -1").asString());
+        } finally {
+            savedContext.leave();
+            savedContext.close(true);
+            for (final String fileName : new String[]{newImageName, "test23BackgroundSnapshot.changes", newImageName + ".tscache"}) {
+                final TruffleFile file = newImageFile.resolveSibling(fileName);
+                try {
+                    if (file.exists()) {
+                        file.delete();
+                    }
+                } catch (final IOException e) {
+                    fail(e.getMessage());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void test24HeapEnumeration() {
+        final HeapEnumeration enumeration = image.heapEnumeration;
+        final int numReachableObjects = ObjectGraphUtils.allInstances(image).size();
+        final Object first = enumeration.someObject();
+        Object current = first;
+        int numEnumerated = 0;
+        while (current instanceof AbstractSqueakObjectWithClassAndHash) {
+            numEnumerated++;
+            current = enumeration.nextObject((AbstractSqueakObjectWithClassAndHash) current);
+        }
+        /* nextObject answers 0 after the last object. */
+        assertEquals(0L, current);
+        assertTrue(numEnumerated >= numReachableObjects);
+        /* An enumeration abandoned across a GC continues after the receiver. */
+        enumeration.someObject();
+        evaluate("Smalltalk garbageCollect");
+        assertTrue(enumeration.nextObject((AbstractSqueakObjectWithClassAndHash) first) instanceof AbstractSqueakObjectWithClassAndHash);
+        assertEquals(BooleanObject.TRUE, evaluate("| object count | count := 0. object := self someObject. " +
+                        "[0 == object] whileFalse: [count := count + 1. object := object nextObject]. count > 0"));
+    }
+
+    @Test
+    public void test25FusedReturnsInBlocks() {
+        /* Fused push-and-return bytecodes in blocks return from their home method. */
+        assertEquals(2L, compilerEvaluate("#(1 2 3) do: [:x | x = 2 ifTrue: [^ x]]. 0"));
+        assertEquals(7L, compilerEvaluate("([:a | ^ 7] value: 1) + 1"));
+        assertEquals("fused", compilerEvaluate("| s | s := 'fused'. ([^ s] value) , 'unreachable'").toString());
+        /* Blocks end with blockReturn, which is not fused. */
+        assertEquals(3L, compilerEvaluate("| t | t := 3. [t] value"));
+    }
+
+    @Test
+    public void test26OnStackReplacement() {
+        assertOnStackReplacement(AbstractSqueakTestCaseWithImage::evaluate);
+        /* Compile the loops on stack (and fail on compilation errors) if a compiler is available. */
+        try (Engine engine = Engine.create()) {
+            Assume.assumeNotNull(engine.getOptions().get(OSR_COMPILATION_THRESHOLD));
+        }
+        final Context newContext = Context.newBuilder(SqueakLanguageConfig.ID).allowAllAccess(true).allowExperimentalOptions(true).option(
+                        SqueakLanguageConfig.ID + "." + SqueakLanguageOptions.IMAGE_PATH, getPathToTestImage()).option(SqueakLanguageConfig.ID + "." + SqueakLanguageOptions.HEADLESS,
+                                        "true").option(OSR_COMPILATION_THRESHOLD, "1000").option("engine.BackgroundCompilation", "false").option(
+                                                        "engine.CompilationFailureAction", "Throw").build();
+        newContext.enter();
+        try {
+            final SqueakImageContext newImage = SqueakImageContext.getSlow();
+            newImage.ensureLoaded();
+            assertOnStackReplacement(newImage::evaluate);
+        } finally {
+            newContext.leave();
+            newContext.close(true);
+        }
+    }
+
+    @Test
+    public void test27IdleCodeEviction() {
+        /* Long enough that no sweeps are requested by interrupt checks during the test. */
+        final Context newContext = Context.newBuilder(SqueakLanguageConfig.ID).allowAllAccess(true).option(SqueakLanguageConfig.ID + "." + SqueakLanguageOptions.IMAGE_PATH,
+                        getPathToTestImage()).option(SqueakLanguageConfig.ID + "." + SqueakLanguageOptions.HEADLESS, "true").option(
+                                        SqueakLanguageConfig.ID + "." + SqueakLanguageOptions.AST_EVICTION_IDLE_TIME, "3600").build();
+        newContext.enter();
+        try {
+            final SqueakImageContext newImage = SqueakImageContext.getSlow();
+            newImage.ensureLoaded();
+            final IdleCodeEvictor evictor = newImage.getCodeEvictor();
+            newImage.evaluate("Object compile: 'truffleSqueakEvictionTest: n ^ n < 2 ifTrue: [n] ifFalse: [(self truffleSqueakEvictionTest: n - 1) + (self truffleSqueakEvictionTest: n - 2)]' classified: 'tests'");
+            assertEquals(55L, newImage.evaluate("nil truffleSqueakEvictionTest: 10"));
+            final CompiledCodeObject method = (CompiledCodeObject) newImage.evaluate("Object >> #truffleSqueakEvictionTest:");
+            assertNotNull(method.getCallTargetOrNull());
+            /* Code used since the last sweep is kept. */
+            evictor.sweep();
+            assertNotNull(method.getCallTargetOrNull());
+            for (int i = 0; i < 8 && method.getCallTargetOrNull() != null; i++) {
+                evictor.sweep();
+            }
+            assertNull("idle method not evicted", method.getCallTargetOrNull());
+            /* Evicted code is rebuilt on its next activation (including recursive sends). */
+            assertEquals(6765L, newImage.evaluate("nil truffleSqueakEvictionTest: 20"));
+            assertNotNull(method.getCallTargetOrNull());
+            evictor.sweep();
+            assertNotNull(method.getCallTargetOrNull());
+        } finally {
+            newContext.leave();
+            newContext.close(true);
+        }
+    }
+
+    @Test
+    public void test28DeltaSnapshotRoundTrip() {
+        final String newImageName = "test28DeltaSnapshot.image";
+        final Context newContext = newTestImageContext(SqueakLanguageOptions.DELTA_SNAPSHOTS);
+        newContext.enter();
+        TruffleFile newImageFile = null;
+        try {
+            final SqueakImageContext newImage = SqueakImageContext.getSlow();
+            newImage.ensureLoaded();
+            newContext.eval(SqueakLanguageConfig.ID, "Smalltalk at: #TruffleSqueakDeltaTestArray put: (Array new: 3). Smalltalk at: #TruffleSqueakDeltaTestString put: (String new: 2)");
+            /* The first snapshot is a full one, the second one only writes modified objects. */
+            newContext.eval(SqueakLanguageConfig.ID, String.format("Smalltalk saveAs: '%s'", newImageName));
+            newImageFile = newImage.env.getInternalTruffleFile(newImage.getImagePath());
+            /* Writes through primitives that operate on raw storage. */
+            newContext.eval(SqueakLanguageConfig.ID, "(Smalltalk at: #TruffleSqueakDeltaTestArray) replaceFrom: 1 to: 3 with: #(4 5 6) startingAt: 1. " +
+                            "(Smalltalk at: #TruffleSqueakDeltaTestString) replaceFrom: 1 to: 2 with: 'ab' startingAt: 1");
+            newContext.eval(SqueakLanguageConfig.ID, "Smalltalk snapshot: true andQuit: false");
+            assertTrue(newImageFile.resolveSibling(newImageName + ".tsdelta").exists());
+        } finally {
+            newContext.leave();
+            newContext.close(true);
+        }
+        /* Open the saved image, which replays the delta, and check the mutations. */
+        final Context savedContext = Context.newBuilder(SqueakLanguageConfig.ID).allowAllAccess(true).option(SqueakLanguageConfig.ID + "." + SqueakLanguageOptions.IMAGE_PATH,
+                        newImageFile.getPath()).option(SqueakLanguageConfig.ID + "." + SqueakLanguageOptions.HEADLESS, "true").build();
+        savedContext.enter();
+        try {
+            assertTrue(savedContext.eval(SqueakLanguageConfig.ID, "(Smalltalk at: #TruffleSqueakDeltaTestArray) = #(4 5 6) and: [(Smalltalk at: #TruffleSqueakDeltaTestString) = 'ab']").asBoolean());
+        } finally {
+            savedContext.leave();
+            savedContext.close(true);
+            for (final String fileName : new String[]{newImageName, "test28DeltaSnapshot.changes", newImageName + ".tsdelta"}) {
+                final TruffleFile file = newImageFile.resolveSibling(fileName);
+                try {
+                    if (file.exists()) {
+                        file.delete();
+                    }
+                } catch (final IOException e) {
+                    fail(e.getMessage());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void test29SendSiteProfiling() {
+        final Context newContext = newTestImageContext(SqueakLanguageOptions.SEND_SITE_PROFILING);
+        newContext.enter();
+        try {
+            final SqueakImageContext newImage = SqueakImageContext.getSlow();
+            newImage.ensureLoaded();
+            final SendSiteProfiler profiler = newImage.getSendSiteProfiler();
+            assertNotNull(profiler);
+            newImage.evaluate("Object compile: 'truffleSqueakSendSiteTest: x ^ x printString' classified: 'tests'");
+            newImage.evaluate("#(1 $a 'b' #c 2.5) do: [:e | nil truffleSqueakSendSiteTest: e]");
+            final CompiledCodeObject method = (CompiledCodeObject) newImage.evaluate("Object >> #truffleSqueakSendSiteTest:");
+            int siteIndex = -1;
+            for (int i = 0; i < method.getBytes().length && siteIndex < 0; i++) {
+                if (profiler.getProfile(method, i) != null) {
+                    siteIndex = i;
+                }
+            }
+            assertTrue("send site not profiled", siteIndex >= 0);
+            final SiteProfile profile = profiler.getProfile(method, siteIndex);
+            assertEquals("printString", profile.getSelector());
+            assertEquals(5, profile.getNumReceiverClasses());
+            assertEquals(SendSiteProfiler.State.POLYMORPHIC, profile.getState());
+            /* Sites are registered once per code and bytecode index. */
+            assertSame(profile, profiler.register(method, siteIndex, newImage.asByteString("printString")));
+            newImage.evaluate("#(1 2 3) do: [:e | nil truffleSqueakSendSiteTest: e]");
+            assertEquals(5, profile.getNumReceiverClasses());
+        } finally {
+            newContext.leave();
+            newContext.close(true);
+        }
+    }
+
+    @Test
+    public void test30MegamorphicSends() {
+        assertMegamorphicSends(newTestImageContext());
+        final Context uncachedContext = Context.newBuilder(SqueakLanguageConfig.ID).allowAllAccess(true).option(SqueakLanguageConfig.ID + "." + SqueakLanguageOptions.IMAGE_PATH,
+                        getPathToTestImage()).option(SqueakLanguageConfig.ID + "." + SqueakLanguageOptions.HEADLESS, "true").option(
+                                        SqueakLanguageConfig.ID + "." + SqueakLanguageOptions.MEGAMORPHIC_CACHE_SIZE, "0").build();
+        assertMegamorphicSends(uncachedContext);
+    }
+
+    @Test
+    public void test31LargeMethodDictionaryLookup() {
+        final Context newContext = newTestImageContext();
+        newContext.enter();
+        try {
+            final SqueakImageContext newImage = SqueakImageContext.getSlow();
+            newImage.ensureLoaded();
+            newImage.evaluate("Object subclass: #TruffleSqueakMethodDictTest instanceVariableNames: '' classVariableNames: '' poolDictionaries: '' category: 'TruffleSqueak-Tests'. " +
+                            "1 to: 40 do: [:i | TruffleSqueakMethodDictTest compile: 'm', i printString, ' ^ ', i printString classified: 'tests']");
+            final ClassObject testClass = (ClassObject) newImage.evaluate("TruffleSqueakMethodDictTest");
+            final NativeObject selector = newImage.asByteSymbol("truffleSqueakExtra");
+            final NativeObject rawSelector = newImage.asByteSymbol("truffleSqueakRawExtra");
+            /* Lookups are repeated so that the method dictionary index is built. */
+            for (int i = 0; i < 3; i++) {
+                assertNotNull(testClass.lookupInMethodDictSlow(newImage.asByteSymbol("m40")));
+                assertNull(testClass.lookupInMethodDictSlow(selector));
+            }
+            newImage.evaluate("TruffleSqueakMethodDictTest compile: 'truffleSqueakExtra ^ #added' classified: 'tests'");
+            for (int i = 0; i < 3; i++) {
+                assertSame(newImage.evaluate("TruffleSqueakMethodDictTest >> #truffleSqueakExtra"), testClass.lookupInMethodDictSlow(selector));
+            }
+            assertEquals(BooleanObject.TRUE, newImage.evaluate("TruffleSqueakMethodDictTest new truffleSqueakExtra == #added"));
+            newImage.evaluate("TruffleSqueakMethodDictTest removeSelector: #truffleSqueakExtra");
+            for (int i = 0; i < 3; i++) {
+                assertNull(testClass.lookupInMethodDictSlow(selector));
+            }
+            assertEquals(BooleanObject.TRUE, newImage.evaluate("([TruffleSqueakMethodDictTest new truffleSqueakExtra] on: MessageNotUnderstood do: [:e | e return: #removed]) == #removed"));
+            /* Methods added directly to the method dictionary (without a cache flush) are found. */
+            newImage.evaluate("TruffleSqueakMethodDictTest methodDict at: #truffleSqueakRawExtra put: TruffleSqueakMethodDictTest >> #m1");
+            assertSame(newImage.evaluate("TruffleSqueakMethodDictTest >> #m1"), testClass.lookupInMethodDictSlow(rawSelector));
+            assertEquals(1L, newImage.evaluate("TruffleSqueakMethodDictTest new truffleSqueakRawExtra"));
+        } finally {
+            newContext.leave();
+            newContext.close(true);
+        }
+    }
+
+    @Test
+    public void test32EagerBytecodeDecoding() {
+        final String[] expressions = {
+                        "| sum | sum := 0. 1 to: 1000 do: [:i | sum := sum + (i odd ifTrue: [i] ifFalse: [i negated])]. sum",
+                        "(1 to: 20) inject: 0 into: [:a :b | a max: b * b \\\\ 17]",
+                        "#(3 1 2) asSortedCollection asArray",
+                        "[:x | x > 2 ifTrue: [#big] ifFalse: [#small]] value: 3",
+                        "[1/0] on: ZeroDivide do: [:e | e return: #caught]",
+                        "| r | r := OrderedCollection new. [r add: 1. r add: 2] ensure: [r add: 3]. r asArray",
+                        "thisContext method selector",
+                        "(Object >> #printString) printString",
+                        "(1 to: 5) collect: [:i | (1 to: i) detect: [:j | j * j >= i]]"};
+        assertEquals(evaluateAll(expressions), evaluateAll(expressions, SqueakLanguageOptions.EAGER_BYTECODE_DECODING));
+    }
+
+    /*
+     * Loads the test image and describes all reachable objects by class, hash, and size, and
+     * compiled code also by its literals and bytecodes.
+     */
+    private static List<String> loadHeapSignature(final String... enabledOptions) {
+        final Context newContext = newTestImageContext(enabledOptions);
+        newContext.enter();
+        try {
+            final SqueakImageContext newImage = SqueakImageContext.getSlow();
+            newImage.ensureLoaded();
+            final ArrayList<String> signature = new ArrayList<>();
+            for (final AbstractSqueakObjectWithClassAndHash object : ObjectGraphUtils.allInstances(newImage, false)) {
+                /* Objects without hash get one derived from their identity hash code on first use. */
+                final long hash = object.needsSqueakHash() ? AbstractSqueakObjectWithClassAndHash.HASH_UNINITIALIZED : object.getSqueakHash();
+                if (object instanceof CompiledCodeObject) {
+                    final CompiledCodeObject code = (CompiledCodeObject) object;
+                    signature.add(code.getSqueakClassName() + " " + hash + " " + code.getLiterals().length + " " + Arrays.toString(code.getBytes()));
+                } else {
+                    signature.add(object.getSqueakClassName() + " " + hash + " " + object.size());
+                }
+            }
+            Collections.sort(signature);
+            return signature;
+        } finally {
+            newContext.leave();
+            newContext.close(true);
+        }
+    }
+
+    /* Answers the print strings of the results of the expressions in a new context. */
+    private static List<String> evaluateAll(final String[] expressions, final String... enabledOptions) {
+        final Context newContext = newTestImageContext(enabledOptions);
+        newContext.enter();
+        try {
+            SqueakImageContext.getSlow().ensureLoaded();
+            final ArrayList<String> results = new ArrayList<>();
+            for (final String expression : expressions) {
+                results.add(newContext.eval(SqueakLanguageConfig.ID, "[" + expression + "] value printString").asString());
+            }
+            return results;
+        } finally {
+            newContext.leave();
+            newContext.close(true);
+        }
+    }
+
+    /* Runs hot loops, some of which materialize their context in the middle of the loop. */
+    private static void assertOnStackReplacement(final Function<String, Object> evaluator) {
+        /* Enough back edges to reach the OSR threshold if compilation is enabled. */
+        assertEquals(45000150000L, evaluator.apply("| sum | sum := 0. 1 to: 300000 do: [:i | sum := sum + i]. sum"));
+        /* Contexts materialized in the middle of a hot loop see and change the live temporaries. */
+        assertEquals(BooleanObject.TRUE, evaluator.apply("| sum ctx | sum := 0. 1 to: 300000 do: [:i | i = 150000 ifTrue: [ctx := thisContext]. sum := sum + i]. " +
+                        "(ctx tempAt: 1) = sum and: [sum = 45000150000]"));
+        assertEquals(45000150001L, evaluator.apply("| sum | sum := 0. 1 to: 300000 do: [:i | i = 150000 ifTrue: [thisContext tempAt: 1 put: sum + 1]. sum := sum + i]. sum"));
+    }
+
+    /* Sends over more receiver classes than inline caches hold, and changes methods in between. */
+    private static void assertMegamorphicSends(final Context newContext) {
+        newContext.enter();
+        try {
+            SqueakImageContext.getSlow().ensureLoaded();
+            newContext.eval(SqueakLanguageConfig.ID, "Object compile: 'truffleSqueakMegamorphicTest ^ self class name' classified: 'tests'. " +
+                            "Object compile: 'truffleSqueakMegamorphicReceivers ^ {1. $a. ''b''. #c. 2.5. nil. true. false. Object new. 1/2}' classified: 'tests'. " +
+                            "Object compile: 'truffleSqueakMegamorphicSend ^ self truffleSqueakMegamorphicReceivers collect: [:e | e truffleSqueakMegamorphicTest]' classified: 'tests'");
+            final String expected = "(nil truffleSqueakMegamorphicReceivers collect: [:e | e class == SmallInteger ifTrue: [#integer] ifFalse: [e class name]])";
+            final String unchanged = "nil truffleSqueakMegamorphicSend = (nil truffleSqueakMegamorphicReceivers collect: [:e | e class name])";
+            for (int i = 0; i < 3; i++) {
+                assertTrue(newContext.eval(SqueakLanguageConfig.ID, unchanged).asBoolean());
+            }
+            /* Adding and removing methods flushes the lookup caches of megamorphic sends. */
+            newContext.eval(SqueakLanguageConfig.ID, "SmallInteger compile: 'truffleSqueakMegamorphicTest ^ #integer' classified: 'tests'");
+            assertTrue(newContext.eval(SqueakLanguageConfig.ID, "nil truffleSqueakMegamorphicSend = " + expected).asBoolean());
+            newContext.eval(SqueakLanguageConfig.ID, "SmallInteger removeSelector: #truffleSqueakMegamorphicTest");
+            assertTrue(newContext.eval(SqueakLanguageConfig.ID, unchanged).asBoolean());
+        } finally {
+            newContext.leave();
+            newContext.close(true);
+        }
+    }
+
+    private static void assertLazyBecome(final Context newContext, final String expression) {
+        assertTrue(expression, newContext.eval(SqueakLanguageConfig.ID, expression).asBoolean());
+    }
+
+    /* Opens the test image in a new context with the given boolean options enabled. */
+    private static Context newTestImageContext(final String... enabledOptions) {
+        final Context.Builder builder = Context.newBuilder(SqueakLanguageConfig.ID).allowAllAccess(true);
+        builder.option(SqueakLanguageConfig.ID + "." + SqueakLanguageOptions.IMAGE_PATH, getPathToTestImage());
+        builder.option(SqueakLanguageConfig.ID + "." + SqueakLanguageOptions.HEADLESS, "true");
+        for (final String option : enabledOptions) {
+            builder.option(SqueakLanguageConfig.ID + "." + option, "true");
+        }
+        return builder.build();
+    }
 }
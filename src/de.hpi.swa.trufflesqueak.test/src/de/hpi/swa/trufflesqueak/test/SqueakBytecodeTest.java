@@ -38,6 +38,11 @@ import de.hpi.swa.trufflesqueak.model.layout.ObjectLayouts.CONTEXT;
 import de.hpi.swa.trufflesqueak.nodes.ExecuteTopLevelContextNode;
 import de.hpi.swa.trufflesqueak.nodes.accessing.SqueakObjectAt0Node;
 import de.hpi.swa.trufflesqueak.nodes.accessing.SqueakObjectSizeNode;
+import de.hpi.swa.trufflesqueak.nodes.bytecodes.AbstractBytecodeNode;
+import de.hpi.swa.trufflesqueak.nodes.bytecodes.ReturnBytecodes.ReturnLiteralConstantNode;
+import de.hpi.swa.trufflesqueak.nodes.bytecodes.ReturnBytecodes.ReturnReceiverVariableNode;
+import de.hpi.swa.trufflesqueak.nodes.bytecodes.ReturnBytecodes.ReturnTemporaryLocationNode;
+import de.hpi.swa.trufflesqueak.nodes.bytecodes.ReturnBytecodes.ReturnTopFromMethodNode;
 
 @SuppressWarnings("static-method")
 public final class SqueakBytecodeTest extends AbstractSqueakTestCaseWithDummyImage {
@@ -653,6 +658,61 @@ public final class SqueakBytecodeTest extends AbstractSqueakTestCaseWithDummyIma
                         114, 172, 0x14, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0x75, 0x7C));
     }
 
+    @Test
+    public void testBytecodeLengthsAndStackDependence() {
+        // 17 <76> pushConstant: 1
+        // 18 <77> pushConstant: 2
+        // 19 <B0> send: +
+        // 20 <A8 01> jumpTrue: 23
+        // 22 <87> pop
+        // 23 <84 20 00> doubleExtendedSend
+        // 26 <7C> returnTop
+        final CompiledCodeObject method = makeMethod(new Object[]{makeHeader(0, 5, 14, false, true)},
+                        0x76, 0x77, 0xB0, 0xA8, 0x01, 0x87, 0x84, 0x20, 0x00, 0x7C);
+        final int[] expectedNumBytes = {1, 1, 1, 2, -1, 1, 3, -1, -1, 1};
+        for (int pc = 0; pc < expectedNumBytes.length; pc++) {
+            if (expectedNumBytes[pc] > 0) {
+                assertEquals(expectedNumBytes[pc], method.bytecodeNumBytesAt(pc));
+                assertEquals(pc == 2, method.isStackDependentBytecodeAt(pc));
+            }
+        }
+    }
+
+    @Test
+    public void testFusedPushAndReturn() {
+        final AbstractSqueakObject rcvr = image.asArrayOfObjects(42L);
+        final long header = makeHeader(0, 5, 14, false, true);
+        // 17 <00/10/20> pushRcvr: 0/pushTemp: 0/pushConstant: 42
+        // 18 <7C> returnTop
+        final int[] pushBytecodes = {0x00, 0x10, 0x20};
+        final Class<?>[] expectedNodeClasses = {ReturnReceiverVariableNode.class, ReturnTemporaryLocationNode.class, ReturnLiteralConstantNode.class};
+        final Object[] expectedResults = {42L, NilObject.SINGLETON, 42L};
+        for (int i = 0; i < pushBytecodes.length; i++) {
+            final CompiledCodeObject method = makeMethod(new Object[]{header, 42L}, pushBytecodes[i], 0x7C);
+            final AbstractBytecodeNode node = method.bytecodeNodeAt(createTestFrame(method), 0);
+            assertSame(expectedNodeClasses[i], node.getClass());
+            assertEquals(2, node.getNumBytecodes());
+            assertEquals(method.getInitialPC() + 2, node.getSuccessorIndex());
+            assertSame(expectedResults[i], runMethod(method, rcvr));
+        }
+
+        // 17 <76> pushConstant: 1
+        // 18 <71/72> pushConstant: true/false
+        // 19 <98> jumpFalse: 21
+        // 20 <20> pushConstant: 42
+        // 21 <7C> returnTop
+        for (final boolean condition : new boolean[]{true, false}) {
+            final CompiledCodeObject method = makeMethod(new Object[]{header, 42L}, 0x76, condition ? 0x71 : 0x72, 0x98, 0x20, 0x7C);
+            final VirtualFrame frame = createTestFrame(method);
+            assertSame(ReturnLiteralConstantNode.class, method.bytecodeNodeAt(frame, 3).getClass());
+            /* The jump target is decoded on its own. */
+            final AbstractBytecodeNode jumpTarget = method.bytecodeNodeAt(frame, 4);
+            assertSame(ReturnTopFromMethodNode.class, jumpTarget.getClass());
+            assertEquals(1, jumpTarget.getNumBytecodes());
+            assertSame(condition ? 42L : 1L, runMethod(method, rcvr));
+        }
+    }
+
     // TODO: testSendSelector()
     // TODO: testSend()
 
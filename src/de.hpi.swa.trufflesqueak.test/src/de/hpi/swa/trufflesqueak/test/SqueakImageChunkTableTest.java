@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2017-2022 Software Architecture Group, Hasso Plattner Institute
+ * Copyright (c) 2021-2022 Oracle and/or its affiliates
+ *
+ * Licensed under the MIT License.
+ */
+package de.hpi.swa.trufflesqueak.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+import de.hpi.swa.trufflesqueak.image.SqueakImageChunk;
+import de.hpi.swa.trufflesqueak.image.SqueakImageChunkTable;
+import de.hpi.swa.trufflesqueak.util.ArrayUtils;
+
+@SuppressWarnings("static-method")
+public final class SqueakImageChunkTableTest extends AbstractSqueakTestCaseWithDummyImage {
+    private static final long BASE_ADDRESS = 0x10000000L;
+
+    @Test
+    public void testPutAndGet() {
+        final SqueakImageChunkTable table = new SqueakImageChunkTable(0);
+        final SqueakImageChunk[] chunks = new SqueakImageChunk[10_000];
+        for (int i = 0; i < chunks.length; i++) {
+            chunks[i] = newDummyChunk();
+            table.put(addressOf(i), chunks[i]);
+        }
+        assertEquals(chunks.length, table.size());
+        for (int i = 0; i < chunks.length; i++) {
+            assertSame(chunks[i], table.get(addressOf(i)));
+            assertSame("Insertion order must be preserved", chunks[i], table.getChunkAt(i));
+        }
+        assertNull(table.get(BASE_ADDRESS - 8));
+        assertNull(table.get(addressOf(chunks.length)));
+    }
+
+    @Test
+    public void testReplace() {
+        final SqueakImageChunkTable table = new SqueakImageChunkTable(4);
+        final SqueakImageChunk first = newDummyChunk();
+        final SqueakImageChunk second = newDummyChunk();
+        table.put(BASE_ADDRESS, first);
+        table.put(BASE_ADDRESS, second);
+        assertEquals(1, table.size());
+        assertSame(second, table.get(BASE_ADDRESS));
+        assertSame(second, table.getChunkAt(0));
+    }
+
+    @Test
+    public void testLookupByOop() {
+        /* Oops of a large image spread over several segments, in address order. */
+        final SqueakImageChunkTable table = new SqueakImageChunkTable(16);
+        final long[] oops = new long[5_000];
+        final SqueakImageChunk[] chunks = new SqueakImageChunk[oops.length];
+        long oop = BASE_ADDRESS;
+        for (int i = 0; i < oops.length; i++) {
+            oop += (i % 7 + 2) * 8L + (i % 1000 == 999 ? 1L << 32 : 0);
+            oops[i] = oop;
+            chunks[i] = newDummyChunk();
+            table.put(oop, chunks[i]);
+        }
+        assertEquals(oops.length, table.size());
+        for (int i = oops.length - 1; i >= 0; i--) {
+            assertSame(chunks[i], table.get(oops[i]));
+            assertEquals(oops[i], table.getKeyAt(i));
+            assertSame(chunks[i], table.getChunkAt(i));
+        }
+    }
+
+    @Test
+    public void testLookupOutOfRange() {
+        final SqueakImageChunkTable table = new SqueakImageChunkTable(16);
+        for (int i = 0; i < 100; i++) {
+            table.put(addressOf(i), newDummyChunk());
+        }
+        /* Below and above the loaded objects. */
+        assertNull(table.get(BASE_ADDRESS - 16));
+        assertNull(table.get(addressOf(100)));
+        assertNull(table.get(Long.MAX_VALUE & ~7L));
+        assertNull(table.get(-8L));
+        /* Within the range of loaded objects, but not the start of an object. */
+        assertNull(table.get(addressOf(42) + 8));
+        assertNull(table.get(addressOf(42) + 1));
+        /* Looking up missing oops must not add them. */
+        assertEquals(100, table.size());
+    }
+
+    private static SqueakImageChunk newDummyChunk() {
+        return SqueakImageChunk.createDummyChunk(image, ArrayUtils.EMPTY_ARRAY);
+    }
+
+    /* Objects are at least two words large and 64-bit aligned. */
+    private static long addressOf(final int index) {
+        return BASE_ADDRESS + index * 16L;
+    }
+}
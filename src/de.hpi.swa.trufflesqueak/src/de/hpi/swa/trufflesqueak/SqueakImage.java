@@ -37,7 +37,10 @@ public final class SqueakImage implements TruffleObject {
 
         @Override
         public Object execute(final VirtualFrame frame) {
-            SqueakImageReader.load(squeakImage.image);
+            final SqueakImageContext image = squeakImage.image;
+            if (!image.adoptPreInitializedImage(image.getImagePath())) {
+                SqueakImageReader.load(image);
+            }
             return squeakImage;
         }
     }
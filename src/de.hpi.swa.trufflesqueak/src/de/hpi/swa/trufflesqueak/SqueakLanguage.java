@@ -48,6 +48,14 @@ public final class SqueakLanguage extends TruffleLanguage<SqueakImageContext> {
         return new SqueakImageContext(this, env);
     }
 
+    @Override
+    protected void initializeContext(final SqueakImageContext context) {
+        if (context.env.isPreInitialization() && context.options.preInitializeImage) {
+            /* Load image into the native image heap (see SqueakImageContext#patchPreInitialized). */
+            context.ensureLoaded();
+        }
+    }
+
     @Override
     protected void finalizeContext(final SqueakImageContext context) {
         context.finalizeContext();
@@ -90,7 +98,7 @@ public final class SqueakLanguage extends TruffleLanguage<SqueakImageContext> {
 
     @Override
     protected boolean patchContext(final SqueakImageContext context, final Env newEnv) {
-        return context.patch(newEnv);
+        return context.patchPreInitialized(newEnv);
     }
 
     @Override
@@ -27,13 +27,56 @@ public final class SqueakOptions {
     @Option(name = SqueakLanguageOptions.IMAGE_ARGUMENTS, category = OptionCategory.USER, stability = OptionStability.EXPERIMENTAL, help = SqueakLanguageOptions.IMAGE_ARGUMENTS_HELP, usageSyntax = "'arg1 arg2 ...'")//
     public static final OptionKey<String> ImageArguments = new OptionKey<>("");
 
+    @Option(name = SqueakLanguageOptions.IMAGE_CACHE, category = OptionCategory.USER, stability = OptionStability.EXPERIMENTAL, help = SqueakLanguageOptions.IMAGE_CACHE_HELP, usageSyntax = "false|true")//
+    public static final OptionKey<Boolean> ImageCache = new OptionKey<>(false);
+
+    @Option(name = SqueakLanguageOptions.AST_EVICTION_IDLE_TIME, category = OptionCategory.EXPERT, stability = OptionStability.EXPERIMENTAL, help = SqueakLanguageOptions.AST_EVICTION_IDLE_TIME_HELP, usageSyntax = "0")//
+    public static final OptionKey<Integer> AstEvictionIdleTime = new OptionKey<>(0);
+
+    @Option(name = SqueakLanguageOptions.BACKGROUND_SNAPSHOTS, category = OptionCategory.USER, stability = OptionStability.EXPERIMENTAL, help = SqueakLanguageOptions.BACKGROUND_SNAPSHOTS_HELP, usageSyntax = "false|true")//
+    public static final OptionKey<Boolean> BackgroundSnapshots = new OptionKey<>(false);
+
+    @Option(name = SqueakLanguageOptions.CONTEXT_MATERIALIZATION_PROFILING, category = OptionCategory.EXPERT, stability = OptionStability.EXPERIMENTAL, help = SqueakLanguageOptions.CONTEXT_MATERIALIZATION_PROFILING_HELP, usageSyntax = "false|true")//
+    public static final OptionKey<Boolean> ContextMaterializationProfiling = new OptionKey<>(false);
+
+    @Option(name = SqueakLanguageOptions.DELTA_SNAPSHOTS, category = OptionCategory.USER, stability = OptionStability.EXPERIMENTAL, help = SqueakLanguageOptions.DELTA_SNAPSHOTS_HELP, usageSyntax = "false|true")//
+    public static final OptionKey<Boolean> DeltaSnapshots = new OptionKey<>(false);
+
+    @Option(name = SqueakLanguageOptions.EAGER_BYTECODE_DECODING, category = OptionCategory.EXPERT, stability = OptionStability.EXPERIMENTAL, help = SqueakLanguageOptions.EAGER_BYTECODE_DECODING_HELP, usageSyntax = "false|true")//
+    public static final OptionKey<Boolean> EagerBytecodeDecoding = new OptionKey<>(false);
+
     @Option(name = SqueakLanguageOptions.HEADLESS, category = OptionCategory.USER, stability = OptionStability.STABLE, help = SqueakLanguageOptions.HEADLESS_HELP, usageSyntax = "true|false")//
     public static final OptionKey<Boolean> Headless = new OptionKey<>(true);
 
+    @Option(name = SqueakLanguageOptions.INSTANCE_REGISTRY, category = OptionCategory.EXPERT, stability = OptionStability.EXPERIMENTAL, help = SqueakLanguageOptions.INSTANCE_REGISTRY_HELP, usageSyntax = "false|true")//
+    public static final OptionKey<Boolean> InstanceRegistry = new OptionKey<>(false);
+
     @Option(name = SqueakLanguageOptions.INTERCEPT_MESSAGES, category = OptionCategory.INTERNAL, stability = OptionStability.EXPERIMENTAL, help = SqueakLanguageOptions.INTERCEPT_MESSAGES_HELP, //
                     usageSyntax = "'Object>>becomeForward:,Behavior>>allInstances,...'")//
     public static final OptionKey<String> InterceptMessages = new OptionKey<>("");
 
+    @Option(name = SqueakLanguageOptions.LAZY_BECOME, category = OptionCategory.EXPERT, stability = OptionStability.EXPERIMENTAL, help = SqueakLanguageOptions.LAZY_BECOME_HELP, usageSyntax = "false|true")//
+    public static final OptionKey<Boolean> LazyBecome = new OptionKey<>(false);
+
+
+    @Option(name = SqueakLanguageOptions.MAPPED_IMAGE_LOADING, category = OptionCategory.USER, stability = OptionStability.EXPERIMENTAL, help = SqueakLanguageOptions.MAPPED_IMAGE_LOADING_HELP, usageSyntax = "false|true")//
+    public static final OptionKey<Boolean> MappedImageLoading = new OptionKey<>(false);
+
+    @Option(name = SqueakLanguageOptions.MEGAMORPHIC_CACHE_SIZE, category = OptionCategory.EXPERT, stability = OptionStability.EXPERIMENTAL, help = SqueakLanguageOptions.MEGAMORPHIC_CACHE_SIZE_HELP, usageSyntax = "32")//
+    public static final OptionKey<Integer> MegamorphicCacheSize = new OptionKey<>(32);
+
+    @Option(name = SqueakLanguageOptions.METHOD_CACHE_SIZE, category = OptionCategory.EXPERT, stability = OptionStability.EXPERIMENTAL, help = SqueakLanguageOptions.METHOD_CACHE_SIZE_HELP, usageSyntax = "8192")//
+    public static final OptionKey<Integer> MethodCacheSize = new OptionKey<>(8192);
+
+    @Option(name = SqueakLanguageOptions.PARALLEL_IMAGE_LOADING, category = OptionCategory.USER, stability = OptionStability.EXPERIMENTAL, help = SqueakLanguageOptions.PARALLEL_IMAGE_LOADING_HELP, usageSyntax = "false|true")//
+    public static final OptionKey<Boolean> ParallelImageLoading = new OptionKey<>(false);
+
+    @Option(name = SqueakLanguageOptions.PARALLEL_OBJECT_TRACING, category = OptionCategory.EXPERT, stability = OptionStability.EXPERIMENTAL, help = SqueakLanguageOptions.PARALLEL_OBJECT_TRACING_HELP, usageSyntax = "false|true")//
+    public static final OptionKey<Boolean> ParallelObjectTracing = new OptionKey<>(false);
+
+    @Option(name = SqueakLanguageOptions.PRE_INITIALIZE_IMAGE, category = OptionCategory.EXPERT, stability = OptionStability.EXPERIMENTAL, help = SqueakLanguageOptions.PRE_INITIALIZE_IMAGE_HELP, usageSyntax = "false|true")//
+    public static final OptionKey<Boolean> PreInitializeImage = new OptionKey<>(false);
+
     @Option(name = SqueakLanguageOptions.QUIET, category = OptionCategory.USER, stability = OptionStability.STABLE, help = SqueakLanguageOptions.QUIET_HELP, usageSyntax = "false|true")//
     public static final OptionKey<Boolean> Quiet = new OptionKey<>(false);
 
@@ -43,6 +86,12 @@ public final class SqueakOptions {
     @Option(name = SqueakLanguageOptions.RESOURCE_SUMMARY, category = OptionCategory.USER, stability = OptionStability.EXPERIMENTAL, help = SqueakLanguageOptions.RESOURCE_SUMMARY_HELP, usageSyntax = "false|true")//
     public static final OptionKey<Boolean> ResourceSummary = new OptionKey<>(false);
 
+    @Option(name = SqueakLanguageOptions.SEND_INLINE_CACHE_SIZE, category = OptionCategory.EXPERT, stability = OptionStability.EXPERIMENTAL, help = SqueakLanguageOptions.SEND_INLINE_CACHE_SIZE_HELP, usageSyntax = "6")//
+    public static final OptionKey<Integer> SendInlineCacheSize = new OptionKey<>(6);
+
+    @Option(name = SqueakLanguageOptions.SEND_SITE_PROFILING, category = OptionCategory.EXPERT, stability = OptionStability.EXPERIMENTAL, help = SqueakLanguageOptions.SEND_SITE_PROFILING_HELP, usageSyntax = "false|true")//
+    public static final OptionKey<Boolean> SendSiteProfiling = new OptionKey<>(false);
+
     @Option(name = SqueakLanguageOptions.SIGNAL_INPUT_SEMAPHORE, category = OptionCategory.INTERNAL, stability = OptionStability.EXPERIMENTAL, help = SqueakLanguageOptions.SIGNAL_INPUT_SEMAPHORE_HELP, usageSyntax = "false|true")//
     public static final OptionKey<Boolean> SignalInputSemaphore = new OptionKey<>(false);
 
@@ -62,23 +111,55 @@ public final class SqueakOptions {
     public static final class SqueakContextOptions {
         public final String imagePath;
         public final String[] imageArguments;
+        public final boolean isImageCache;
+        public final int astEvictionIdleTime;
+        public final boolean isBackgroundSnapshots;
+        public final boolean isContextMaterializationProfiling;
+        public final boolean isDeltaSnapshots;
+        public final boolean isEagerBytecodeDecoding;
         public final boolean printResourceSummary;
         public final boolean isHeadless;
+        public final boolean isInstanceRegistry;
+        public final boolean isLazyBecome;
+        public final boolean isMappedImageLoading;
+        public final int megamorphicCacheSize;
+        public final int methodCacheSize;
+        public final boolean isParallelImageLoading;
+        public final boolean isParallelObjectTracing;
+        public final boolean preInitializeImage;
         public final boolean isQuiet;
         public final boolean disableInterruptHandler;
         public final boolean disableStartup;
         public final boolean isTesting;
+        public final int sendInlineCacheSize;
+        public final boolean isSendSiteProfiling;
         public final boolean signalInputSemaphore;
 
         public SqueakContextOptions(final Env env) {
             final OptionValues options = env.getOptions();
             imagePath = options.get(ImagePath).isEmpty() ? null : options.get(ImagePath);
             imageArguments = options.get(ImageArguments).isEmpty() ? new String[0] : options.get(ImageArguments).split(",");
-            printResourceSummary = options.get(ResourceSummary);
+            isImageCache = options.get(ImageCache);
+            astEvictionIdleTime = options.get(AstEvictionIdleTime);
+            isBackgroundSnapshots = options.get(BackgroundSnapshots);
+            isContextMaterializationProfiling = options.get(ContextMaterializationProfiling);
+            isDeltaSnapshots = options.get(DeltaSnapshots);
+            isEagerBytecodeDecoding = options.get(EagerBytecodeDecoding);
+            printResourceSummary = options.get(ResourceSummary) || options.get(SendSiteProfiling) || options.get(ContextMaterializationProfiling);
             isHeadless = options.get(Headless);
+            isInstanceRegistry = options.get(InstanceRegistry);
+            isLazyBecome = options.get(LazyBecome);
+            isMappedImageLoading = options.get(MappedImageLoading);
+            megamorphicCacheSize = options.get(MegamorphicCacheSize);
+            methodCacheSize = options.get(MethodCacheSize);
+            isParallelImageLoading = options.get(ParallelImageLoading);
+            isParallelObjectTracing = options.get(ParallelObjectTracing);
+            preInitializeImage = options.get(PreInitializeImage);
             isQuiet = options.get(Quiet);
             disableInterruptHandler = options.get(Interrupts);
             disableStartup = options.get(Startup);
+            sendInlineCacheSize = options.get(SendInlineCacheSize);
+            isSendSiteProfiling = options.get(SendSiteProfiling);
             signalInputSemaphore = options.get(SignalInputSemaphore);
             isTesting = options.get(Testing);
         }
@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2017-2022 Software Architecture Group, Hasso Plattner Institute
+ * Copyright (c) 2021-2022 Oracle and/or its affiliates
+ *
+ * Licensed under the MIT License.
+ */
+package de.hpi.swa.trufflesqueak.image;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+
+import com.oracle.truffle.api.TruffleFile;
+
+import de.hpi.swa.trufflesqueak.exceptions.SqueakExceptions.SqueakException;
+import de.hpi.swa.trufflesqueak.model.ClassObject;
+import de.hpi.swa.trufflesqueak.model.layout.ObjectLayout;
+import de.hpi.swa.trufflesqueak.model.layout.SlotLocation;
+
+/**
+ * TruffleSqueak-specific sidecar file that is stored next to an image (see
+ * {@link #FILE_EXTENSION}). It contains the {@link ObjectLayout}s of all classes at the time the
+ * image was saved, so that the reader can install them before filling in objects. Pointers
+ * objects are then filled in with their final layouts instead of evolving the layouts of their
+ * classes slot by slot (and migrating all instances created so far).
+ *
+ * The cache is only used if size and modification time of the image match the values recorded
+ * when the cache was written. The image is not checksummed, because that would require reading the
+ * entire file on every save and load.
+ */
+final class SqueakImageCache {
+    static final String FILE_EXTENSION = ".tscache";
+    private static final int MAGIC = 0x54534943; /* "TSIC" */
+    private static final int VERSION = 2;
+
+    private final int[] classIndices;
+    private final int[][] encodedLocations;
+
+    private SqueakImageCache(final int[] classIndices, final int[][] encodedLocations) {
+        this.classIndices = classIndices;
+        this.encodedLocations = encodedLocations;
+    }
+
+    private static TruffleFile getImageFile(final SqueakImageContext image) {
+        return image.env.getPublicTruffleFile(image.getImagePath());
+    }
+
+    private static TruffleFile getCacheFile(final SqueakImageContext image) {
+        return image.env.getPublicTruffleFile(image.getImagePath() + FILE_EXTENSION);
+    }
+
+    /*
+     * Captures the layouts of classes while the object graph is paused, so that the cache can be
+     * written after Smalltalk processes have resumed (e.g., by the background snapshot thread).
+     */
+    static SqueakImageCache create(final List<ClassObject> classes) {
+        final ArrayList<ClassObject> classesWithLayout = new ArrayList<>();
+        for (final ClassObject classObject : classes) {
+            if (classObject.hasLayout() && classObject.getLayout().isValid()) {
+                classesWithLayout.add(classObject);
+            }
+        }
+        final int[] classIndices = new int[classesWithLayout.size()];
+        final int[][] encodedLocations = new int[classesWithLayout.size()][];
+        for (int i = 0; i < classIndices.length; i++) {
+            final ClassObject classObject = classesWithLayout.get(i);
+            final SlotLocation[] locations = classObject.getLayout().getLocations();
+            classIndices[i] = (int) classObject.getSqueakHash();
+            encodedLocations[i] = new int[locations.length];
+            for (int j = 0; j < locations.length; j++) {
+                encodedLocations[i][j] = SlotLocation.encode(locations[j]);
+            }
+        }
+        return new SqueakImageCache(classIndices, encodedLocations);
+    }
+
+    /* Writes the captured layouts next to the image that has just been saved. */
+    void write(final SqueakImageContext image) {
+        final TruffleFile imageFile = getImageFile(image);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(getCacheFile(image).newOutputStream()))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(imageFile.size());
+            out.writeLong(imageFile.getLastModifiedTime().toMillis());
+            out.writeInt(classIndices.length);
+            for (int i = 0; i < classIndices.length; i++) {
+                out.writeInt(classIndices[i]);
+                out.writeInt(encodedLocations[i].length);
+                for (final int encodedLocation : encodedLocations[i]) {
+                    out.writeInt(encodedLocation);
+                }
+            }
+        } catch (final IOException e) {
+            image.printToStdErr("Failed to write image cache:", e.getMessage());
+        }
+    }
+
+    /* Returns null if there is no cache or if it does not match the image. */
+    static SqueakImageCache read(final SqueakImageContext image) {
+        final TruffleFile cacheFile = getCacheFile(image);
+        if (!cacheFile.isRegularFile()) {
+            return null;
+        }
+        final TruffleFile imageFile = getImageFile(image);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(cacheFile.newInputStream()))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION || in.readLong() != imageFile.size() ||
+                            in.readLong() != imageFile.getLastModifiedTime().toMillis()) {
+                image.printToStdOut("Ignoring outdated image cache.");
+                return null;
+            }
+            final int numLayouts = in.readInt();
+            final int[] classIndices = new int[numLayouts];
+            final int[][] encodedLocations = new int[numLayouts][];
+            for (int i = 0; i < numLayouts; i++) {
+                classIndices[i] = in.readInt();
+                encodedLocations[i] = new int[in.readInt()];
+                for (int j = 0; j < encodedLocations[i].length; j++) {
+                    encodedLocations[i][j] = in.readInt();
+                }
+            }
+            return new SqueakImageCache(classIndices, encodedLocations);
+        } catch (final IOException e) {
+            image.printToStdErr("Failed to read image cache:", e.getMessage());
+            return null;
+        }
+    }
+
+    /* Installs cached layouts for all classes that do not have a layout yet. */
+    int installLayouts(final IntFunction<ClassObject> classLookup) {
+        int numInstalled = 0;
+        for (int i = 0; i < classIndices.length; i++) {
+            final ClassObject classObject = classLookup.apply(classIndices[i]);
+            if (classObject == null || classObject.hasLayout() || classObject.getBasicInstanceSize() != encodedLocations[i].length) {
+                continue;
+            }
+            final SlotLocation[] locations = new SlotLocation[encodedLocations[i].length];
+            try {
+                for (int j = 0; j < locations.length; j++) {
+                    locations[j] = SlotLocation.decode(encodedLocations[i][j]);
+                }
+            } catch (final SqueakException | ArrayIndexOutOfBoundsException e) {
+                continue; /* Skip corrupted entry. */
+            }
+            if (ObjectLayout.slotLocationsAreConsecutive(locations)) {
+                new ObjectLayout(classObject, locations);
+                numInstalled++;
+            }
+        }
+        return numInstalled;
+    }
+}
@@ -31,7 +31,7 @@ public final class SqueakImageChunk {
     private Object[] pointers;
 
     private final int classIndex;
-    private final int position;
+    private final long position;
 
     private final SqueakImageContext image;
     private final SqueakImageReader reader;
@@ -44,7 +44,7 @@ public final class SqueakImageChunk {
                     final int format,
                     final int classIndex,
                     final int hash,
-                    final int position,
+                    final long position,
                     final byte[] bytes) {
         this.reader = reader;
         this.image = image;
@@ -164,7 +164,7 @@ public final class SqueakImageChunk {
         return reader;
     }
 
-    public int getPosition() {
+    public long getPosition() {
         return position;
     }
 
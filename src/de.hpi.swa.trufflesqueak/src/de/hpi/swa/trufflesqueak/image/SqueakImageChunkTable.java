@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2017-2022 Software Architecture Group, Hasso Plattner Institute
+ * Copyright (c) 2021-2022 Oracle and/or its affiliates
+ *
+ * Licensed under the MIT License.
+ */
+package de.hpi.swa.trufflesqueak.image;
+
+import java.util.Arrays;
+
+/**
+ * Maps object addresses to {@link SqueakImageChunk}s during image loading. This is an
+ * open-addressing hash table with linear probing on primitive long keys, so that, unlike a
+ * <code>HashMap&lt;Long, SqueakImageChunk&gt;</code>, lookups neither box keys nor chase pointers
+ * through map entries. Chunks are additionally kept in insertion order (which is address order
+ * when reading an image) for fast iteration. Entries are never removed, but chunks can be replaced
+ * (e.g., by delta snapshots), which keeps their position in iteration order.
+ */
+public final class SqueakImageChunkTable {
+    /* Object addresses are never zero, so zero marks empty slots. */
+    private static final long EMPTY_KEY = 0;
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] keys;
+    /* Index of the chunk for each slot in iteration order. */
+    private int[] indices;
+    private int mask;
+    private int shift;
+
+    private long[] chunkKeys;
+    private SqueakImageChunk[] chunks;
+    private int size;
+
+    public SqueakImageChunkTable(final int expectedSize) {
+        allocateSlots(capacityFor(expectedSize));
+        chunkKeys = new long[Math.max(expectedSize, MIN_CAPACITY)];
+        chunks = new SqueakImageChunk[chunkKeys.length];
+    }
+
+    /* Keep the load factor at or below 0.5 for short probe sequences. */
+    private static int capacityFor(final int expectedSize) {
+        final int minimum = Math.max(expectedSize, MIN_CAPACITY / 2) * 2;
+        return Integer.highestOneBit(minimum - 1) << 1;
+    }
+
+    private void allocateSlots(final int capacity) {
+        keys = new long[capacity];
+        indices = new int[capacity];
+        mask = capacity - 1;
+        shift = Long.SIZE - Integer.numberOfTrailingZeros(capacity);
+    }
+
+    /* Fibonacci hashing spreads word-aligned addresses evenly over all slots. */
+    private int slotFor(final long key) {
+        return (int) (key * 0x9E3779B97F4A7C15L >>> shift) & mask;
+    }
+
+    public SqueakImageChunk get(final long key) {
+        int slot = slotFor(key);
+        long current;
+        while ((current = keys[slot]) != EMPTY_KEY) {
+            if (current == key) {
+                return chunks[indices[slot]];
+            }
+            slot = slot + 1 & mask;
+        }
+        return null;
+    }
+
+    public void put(final long key, final SqueakImageChunk chunk) {
+        assert key != EMPTY_KEY : "Unexpected null address";
+        assert chunk != null;
+        if ((size + 1) * 2 > keys.length) {
+            rehash(keys.length * 2);
+        }
+        int slot = slotFor(key);
+        long current;
+        while ((current = keys[slot]) != EMPTY_KEY) {
+            if (current == key) {
+                chunks[indices[slot]] = chunk; /* Replace existing chunk. */
+                return;
+            }
+            slot = slot + 1 & mask;
+        }
+        keys[slot] = key;
+        indices[slot] = size;
+        if (size == chunks.length) {
+            chunkKeys = Arrays.copyOf(chunkKeys, size * 2);
+            chunks = Arrays.copyOf(chunks, size * 2);
+        }
+        chunkKeys[size] = key;
+        chunks[size++] = chunk;
+    }
+
+    private void rehash(final int newCapacity) {
+        final long[] oldKeys = keys;
+        final int[] oldIndices = indices;
+        allocateSlots(newCapacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            final long key = oldKeys[i];
+            if (key != EMPTY_KEY) {
+                int slot = slotFor(key);
+                while (keys[slot] != EMPTY_KEY) {
+                    slot = slot + 1 & mask;
+                }
+                keys[slot] = key;
+                indices[slot] = oldIndices[i];
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /* Returns the chunk at index in insertion order. */
+    public SqueakImageChunk getChunkAt(final int index) {
+        assert 0 <= index && index < size;
+        return chunks[index];
+    }
+
+    /* Returns the address of the chunk at index in insertion order. */
+    public long getKeyAt(final int index) {
+        assert 0 <= index && index < size;
+        return chunkKeys[index];
+    }
+}
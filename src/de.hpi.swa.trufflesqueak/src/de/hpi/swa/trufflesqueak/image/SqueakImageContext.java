@@ -10,14 +10,18 @@ import java.io.PrintWriter;
 import java.lang.ref.ReferenceQueue;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 import org.graalvm.nativeimage.Platform;
 
+import com.oracle.truffle.api.Assumption;
 import com.oracle.truffle.api.CompilerAsserts;
 import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.Truffle;
 import com.oracle.truffle.api.TruffleFile;
 import com.oracle.truffle.api.TruffleLanguage.ContextReference;
 import com.oracle.truffle.api.TruffleLanguage.ParsingRequest;
@@ -25,7 +29,6 @@ import com.oracle.truffle.api.TruffleOptions;
 import com.oracle.truffle.api.instrumentation.AllocationReporter;
 import com.oracle.truffle.api.interop.InteropLibrary;
 import com.oracle.truffle.api.library.Message;
-import com.oracle.truffle.api.nodes.ExplodeLoop;
 import com.oracle.truffle.api.nodes.Node;
 import com.oracle.truffle.api.profiles.ConditionProfile;
 import com.oracle.truffle.api.source.Source;
@@ -71,13 +74,24 @@ import de.hpi.swa.trufflesqueak.nodes.plugins.Zip;
 import de.hpi.swa.trufflesqueak.shared.SqueakImageLocator;
 import de.hpi.swa.trufflesqueak.tools.SqueakMessageInterceptor;
 import de.hpi.swa.trufflesqueak.util.ArrayUtils;
+import de.hpi.swa.trufflesqueak.util.ContextMaterializationProfiler;
+import de.hpi.swa.trufflesqueak.util.ForwardingPointers;
+import de.hpi.swa.trufflesqueak.util.HeapEnumeration;
+import de.hpi.swa.trufflesqueak.util.IdleCodeEvictor;
+import de.hpi.swa.trufflesqueak.util.InstanceRegistry;
+import de.hpi.swa.trufflesqueak.util.MethodCache;
 import de.hpi.swa.trufflesqueak.util.MethodCacheEntry;
 import de.hpi.swa.trufflesqueak.util.MiscUtils;
+import de.hpi.swa.trufflesqueak.util.ObjectGraphUtils;
+import de.hpi.swa.trufflesqueak.util.SendSiteProfiler;
 
 public final class SqueakImageContext {
     private static final ContextReference<SqueakImageContext> REFERENCE = ContextReference.create(SqueakLanguage.class);
     private static final String PREPARE_HEADLESS_IMAGE_SCRIPT = "PrepareHeadlessImage.st";
 
+    /* Initialized first, objects register themselves once it is enabled. */
+    public final InstanceRegistry instanceRegistry = new InstanceRegistry();
+
     /* Special objects */
     public final ClassObject trueClass = new ClassObject(this);
     public final ClassObject falseClass = new ClassObject(this);
@@ -118,21 +132,22 @@ public final class SqueakImageContext {
     public final CompiledCodeObject dummyMethod = new CompiledCodeObject(this, null, new Object[]{CompiledCodeObject.makeHeader(true, 1, 0, 0, false, true)}, compiledMethodClass);
 
     /* Method Cache */
-    private static final int METHOD_CACHE_SIZE = 2 << 12;
-    private static final int METHOD_CACHE_MASK = METHOD_CACHE_SIZE - 1;
-    private static final int METHOD_CACHE_REPROBES = 4;
-    private int methodCacheRandomish;
-    @CompilationFinal(dimensions = 1) private final MethodCacheEntry[] methodCache = new MethodCacheEntry[METHOD_CACHE_SIZE];
+    /* Derived from options, so recreated when a pre-initialized context is patched. */
+    @CompilationFinal private MethodCache methodCache;
+    private int methodLookupEpoch;
+    @CompilationFinal private SendSiteProfiler sendSiteProfiler;
+    @CompilationFinal private IdleCodeEvictor codeEvictor;
+    @CompilationFinal private ContextMaterializationProfiler contextMaterializationProfiler;
 
     /* System Information */
     public final SqueakImageFlags flags = new SqueakImageFlags();
     private String imagePath;
     @CompilationFinal public int imageFormat = 0;
-    private final TruffleFile homePath;
+    @CompilationFinal private TruffleFile homePath;
     @CompilationFinal(dimensions = 1) private byte[] resourcesDirectoryBytes;
     @CompilationFinal(dimensions = 1) private byte[] resourcesPathBytes;
-    private final boolean isHeadless;
-    public final SqueakContextOptions options;
+    @CompilationFinal private boolean isHeadless;
+    @CompilationFinal public SqueakContextOptions options;
     private final SqueakSystemAttributes systemAttributes = new SqueakSystemAttributes(this);
 
     /* System */
@@ -142,11 +157,24 @@ public final class SqueakImageContext {
     private int globalClassCounter = -1;
     @CompilationFinal private SqueakDisplayInterface display;
     public final CheckForInterruptsState interrupt;
-    public final long startUpMillis = System.currentTimeMillis();
+    @CompilationFinal public long startUpMillis = System.currentTimeMillis();
     public final ReferenceQueue<AbstractSqueakObject> weakPointersQueue = new ReferenceQueue<>();
+    public final HeapEnumeration heapEnumeration = new HeapEnumeration(this);
+    public final ForwardingPointers forwardingPointers = new ForwardingPointers(this);
+    private Thread backgroundSnapshotThread;
+    /* Written by background image writers, read by primitiveLastSnapshotFailed. */
+    private volatile boolean lastSnapshotFailed;
+    /* Describes the image on disk if delta snapshots are enabled, null if a full snapshot is due. */
+    private SqueakImageDelta imageDelta;
+    /*
+     * Modification tracking for delta snapshots: once enabled, every object that is written to is
+     * recorded exactly once until the next snapshot drains the queue.
+     */
+    private final Assumption notTrackingModifications = Truffle.getRuntime().createAssumption("Not tracking modifications assumption");
+    private final ConcurrentLinkedQueue<AbstractSqueakObjectWithClassAndHash> modifiedObjects = new ConcurrentLinkedQueue<>();
 
     /* Truffle */
-    private final AllocationReporter allocationReporter;
+    @CompilationFinal private AllocationReporter allocationReporter;
     @CompilationFinal public SqueakLanguage.Env env;
     private final SqueakLanguage language;
     private Source lastParseRequestSource;
@@ -155,6 +183,8 @@ public final class SqueakImageContext {
     private final HashMap<Message, NativeObject> interopMessageToSelectorMap = new HashMap<>();
 
     @CompilationFinal private SqueakImage squeakImage;
+    /* Set if the image was loaded during context pre-initialization and has not been started. */
+    private boolean isStartUpPending;
 
     /* Stack Management */
     private ContextObject interopExceptionThrowingContextPrototype;
@@ -189,14 +219,27 @@ public final class SqueakImageContext {
         interrupt = new CheckForInterruptsState(this);
         allocationReporter = env.lookup(AllocationReporter.class);
         SqueakMessageInterceptor.enableIfRequested(environment);
+        homePath = findHomePath();
+        initializeFromOptions();
+    }
+
+    private void initializeFromOptions() {
+        methodCache = new MethodCache(options.methodCacheSize);
+        sendSiteProfiler = options.isSendSiteProfiling ? new SendSiteProfiler(options.sendInlineCacheSize) : null;
+        codeEvictor = options.astEvictionIdleTime > 0 ? new IdleCodeEvictor(options.astEvictionIdleTime) : null;
+        contextMaterializationProfiler = options.isContextMaterializationProfiling ? new ContextMaterializationProfiler() : null;
+    }
+
+    private TruffleFile findHomePath() {
+        final TruffleFile path;
         final String truffleLanguageHome = language.getTruffleLanguageHome();
         if (truffleLanguageHome != null) {
-            homePath = env.getInternalTruffleFile(truffleLanguageHome);
+            path = env.getInternalTruffleFile(truffleLanguageHome);
         } else { /* Fall back to image directory if language home is not set. */
-            homePath = env.getInternalTruffleFile(options.imagePath).getParent();
+            path = env.getInternalTruffleFile(options.imagePath).getParent();
         }
-        assert homePath.exists() : "Home directory does not exist: " + homePath;
-        initializeMethodCache();
+        assert path.exists() : "Home directory does not exist: " + path;
+        return path;
     }
 
     public static SqueakImageContext get(final Node node) {
@@ -212,22 +255,46 @@ public final class SqueakImageContext {
         if (squeakImage == null) {
             // Load image.
             SqueakImageReader.load(this);
-            if (options.disableStartup) {
-                printToStdOut("Skipping startup routine...");
+            if (env.isPreInitialization()) {
+                /* Start image up in the patched context (see patchPreInitialized). */
+                isStartUpPending = true;
                 return;
             }
+            startUp();
+        } else if (isStartUpPending) {
+            isStartUpPending = false;
+            startUp();
+        }
+    }
 
-            final String prepareHeadlessImageScript = MiscUtils.getStringResource(getClass(), PREPARE_HEADLESS_IMAGE_SCRIPT);
-            if (prepareHeadlessImageScript == null) {
-                printToStdErr("Unable to find " + PREPARE_HEADLESS_IMAGE_SCRIPT);
-                return;
-            }
-            try {
-                evaluate(prepareHeadlessImageScript);
-            } catch (final Exception e) {
-                printToStdErr("startUpList failed:");
-                printToStdErr(e);
-            }
+    /*
+     * Whether the image at path has been loaded during context pre-initialization. If so, it is
+     * run interactively instead of being started up headless on the next evaluation.
+     */
+    public boolean adoptPreInitializedImage(final String path) {
+        if (isStartUpPending && path.equals(imagePath)) {
+            isStartUpPending = false;
+            return true;
+        }
+        return false;
+    }
+
+    private void startUp() {
+        if (options.disableStartup) {
+            printToStdOut("Skipping startup routine...");
+            return;
+        }
+
+        final String prepareHeadlessImageScript = MiscUtils.getStringResource(getClass(), PREPARE_HEADLESS_IMAGE_SCRIPT);
+        if (prepareHeadlessImageScript == null) {
+            printToStdErr("Unable to find " + PREPARE_HEADLESS_IMAGE_SCRIPT);
+            return;
+        }
+        try {
+            evaluate(prepareHeadlessImageScript);
+        } catch (final Exception e) {
+            printToStdErr("startUpList failed:");
+            printToStdErr(e);
         }
     }
 
@@ -257,6 +324,37 @@ public final class SqueakImageContext {
         return true;
     }
 
+    /**
+     * Adopts a context that was pre-initialized while building a native image (see
+     * {@link SqueakLanguage#initializeContext}). Its image, if any, is part of the image heap and
+     * is reused unless a different image or display mode is requested. Everything derived from the
+     * build-time environment is recomputed.
+     */
+    public boolean patchPreInitialized(final SqueakLanguage.Env newEnv) {
+        final SqueakContextOptions newOptions = new SqueakContextOptions(newEnv);
+        if (squeakImage != null && (newOptions.isHeadless != options.isHeadless || newOptions.imagePath != null && !newOptions.imagePath.equals(getImagePath()))) {
+            return false; /* Let Truffle create a fresh context instead. */
+        }
+        patch(newEnv);
+        options = newOptions;
+        isHeadless = newOptions.isHeadless;
+        allocationReporter = env.lookup(AllocationReporter.class);
+        SqueakMessageInterceptor.enableIfRequested(newEnv);
+        homePath = findHomePath();
+        initializeFromOptions();
+        resourcesDirectoryBytes = null;
+        resourcesPathBytes = null;
+        startUpMillis = System.currentTimeMillis();
+        if (squeakImage != null && options.isInstanceRegistry && !instanceRegistry.isEnabled()) {
+            /* Images are loaded without instance registry during pre-initialization. */
+            instanceRegistry.enable();
+            for (final AbstractSqueakObjectWithClassAndHash object : ObjectGraphUtils.allInstances(this, false)) {
+                InstanceRegistry.register(object);
+            }
+        }
+        return true;
+    }
+
     @TruffleBoundary
     public ExecuteTopLevelContextNode getActiveContextNode() {
         final PointersObject activeProcess = getActiveProcessSlow();
@@ -543,6 +641,7 @@ public final class SqueakImageContext {
     }
 
     public void setSpecialObject(final int index, final Object value) {
+        specialObjectsArray.markModified();
         specialObjectsArray.getObjectStorage()[index] = value;
     }
 
@@ -636,11 +735,72 @@ public final class SqueakImageContext {
     }
 
     public void finalizeContext() {
+        waitForBackgroundSnapshot();
         if (options.printResourceSummary) {
             MiscUtils.printResourceSummary(this);
         }
     }
 
+    public void setBackgroundSnapshotThread(final Thread thread) {
+        backgroundSnapshotThread = thread;
+    }
+
+    public boolean isLastSnapshotFailed() {
+        return lastSnapshotFailed;
+    }
+
+    public void setLastSnapshotFailed(final boolean value) {
+        lastSnapshotFailed = value;
+    }
+
+    SqueakImageDelta getImageDelta() {
+        return imageDelta;
+    }
+
+    void setImageDelta(final SqueakImageDelta delta) {
+        imageDelta = delta;
+    }
+
+    public boolean isTrackingModifications() {
+        return !notTrackingModifications.isValid();
+    }
+
+    void startTrackingModifications() {
+        notTrackingModifications.invalidate();
+        drainModifiedObjects();
+    }
+
+    /* Called once per object until its modification is drained (see markModified). */
+    @TruffleBoundary
+    public void addModifiedObject(final AbstractSqueakObjectWithClassAndHash object) {
+        modifiedObjects.add(object);
+    }
+
+    /* Objects are unmarked before they are returned, so that writes from now on mark them again. */
+    @TruffleBoundary
+    public AbstractSqueakObjectWithClassAndHash[] drainModifiedObjects() {
+        final ArrayList<AbstractSqueakObjectWithClassAndHash> objects = new ArrayList<>();
+        AbstractSqueakObjectWithClassAndHash object;
+        while ((object = modifiedObjects.poll()) != null) {
+            object.unmarkModified();
+            objects.add(object);
+        }
+        return objects.toArray(new AbstractSqueakObjectWithClassAndHash[0]);
+    }
+
+    /* Waits until an image file that is written in the background is complete. */
+    @TruffleBoundary
+    public void waitForBackgroundSnapshot() {
+        if (backgroundSnapshotThread != null) {
+            try {
+                backgroundSnapshotThread.join();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            backgroundSnapshotThread = null;
+        }
+    }
+
     @TruffleBoundary
     public Object getScope() {
         ensureLoaded();
@@ -655,61 +815,53 @@ public final class SqueakImageContext {
      * METHOD CACHE
      */
 
-    private void initializeMethodCache() {
-        for (int i = 0; i < METHOD_CACHE_SIZE; i++) {
-            methodCache[i] = new MethodCacheEntry();
-        }
-    }
-
-    /*
-     * Probe the cache, and return the matching entry if found. Otherwise return one that can be
-     * used (selector and class set) with method == null. Initial probe is class xor selector,
-     * reprobe delta is selector. We do not try to optimize probe time -- all are equally 'fast'
-     * compared to lookup. Instead we randomize the reprobe so two or three very active conflicting
-     * entries will not keep dislodging each other.
-     */
-    @ExplodeLoop
     public MethodCacheEntry findMethodCacheEntry(final ClassObject classObject, final NativeObject selector) {
-        methodCacheRandomish = methodCacheRandomish + 1 & 3;
-        final int selectorHash = System.identityHashCode(selector);
-        int firstProbe = (System.identityHashCode(classObject) ^ selectorHash) & METHOD_CACHE_MASK;
-        int probe = firstProbe;
-        for (int i = 0; i < METHOD_CACHE_REPROBES; i++) {
-            final MethodCacheEntry entry = methodCache[probe];
-            if (entry.getClassObject() == classObject && entry.getSelector() == selector) {
-                return entry;
-            }
-            if (i == methodCacheRandomish) {
-                firstProbe = probe;
-            }
-            probe = probe + selectorHash & METHOD_CACHE_MASK;
-        }
-        return methodCache[firstProbe].reuseFor(classObject, selector);
+        return methodCache.find(classObject, selector);
     }
 
     /* Clear all cache entries (prim 89). */
     public void flushMethodCache() {
-        for (int i = 0; i < METHOD_CACHE_SIZE; i++) {
-            methodCache[i].freeAndRelease();
-        }
+        methodLookupEpoch++;
+        methodCache.flush();
     }
 
     /* Clear cache entries for selector (prim 119). */
     public void flushMethodCacheForSelector(final NativeObject selector) {
-        for (int i = 0; i < METHOD_CACHE_SIZE; i++) {
-            if (methodCache[i].getSelector() == selector) {
-                methodCache[i].freeAndRelease();
-            }
-        }
+        methodLookupEpoch++;
+        methodCache.flushForSelector(selector);
     }
 
     /* Clear cache entries for method (prim 116). */
     public void flushMethodCacheForMethod(final CompiledCodeObject method) {
-        for (int i = 0; i < METHOD_CACHE_SIZE; i++) {
-            if (methodCache[i].getResult() == method) {
-                methodCache[i].freeAndRelease();
-            }
-        }
+        methodLookupEpoch++;
+        methodCache.flushForMethod(method);
+    }
+
+    public long[] getMethodCacheStatistics() {
+        return methodCache.getStatistics();
+    }
+
+    /*
+     * Method dictionary indices (see ClassObject) and megamorphic lookup caches (see
+     * MegamorphicLookupNode) are rebuilt after each flush of the cache.
+     */
+    public int getMethodLookupEpoch() {
+        return methodLookupEpoch;
+    }
+
+    /* Returns the send site profiler, or null if send sites are not profiled. */
+    public SendSiteProfiler getSendSiteProfiler() {
+        return sendSiteProfiler;
+    }
+
+    /* Returns the evictor of idle ASTs, or null if ASTs are never evicted. */
+    public IdleCodeEvictor getCodeEvictor() {
+        return codeEvictor;
+    }
+
+    /* Returns the context materialization profiler, or null if materializations are not profiled. */
+    public ContextMaterializationProfiler getContextMaterializationProfiler() {
+        return contextMaterializationProfiler;
     }
 
     public void flushMethodCacheAfterBecome() {
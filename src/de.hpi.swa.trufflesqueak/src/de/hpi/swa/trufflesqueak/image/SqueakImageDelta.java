@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2017-2022 Software Architecture Group, Hasso Plattner Institute
+ * Copyright (c) 2021-2022 Oracle and/or its affiliates
+ *
+ * Licensed under the MIT License.
+ */
+package de.hpi.swa.trufflesqueak.image;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import com.oracle.truffle.api.TruffleFile;
+
+import de.hpi.swa.trufflesqueak.model.AbstractSqueakObjectWithClassAndHash;
+
+/**
+ * TruffleSqueak-specific file that is stored next to an image (see {@link #FILE_EXTENSION}) and
+ * contains delta snapshots. Each delta snapshot appends a section with all objects that have been
+ * modified (see {@link AbstractSqueakObjectWithClassAndHash#markModified()}) or created since the
+ * previous snapshot. Objects are stored in image format, each preceded by its oop. Modified
+ * objects keep the oops they have in the image (or in a previous section), new objects are
+ * assigned oops after the end of all objects so far. The reader replays all sections on top of
+ * the objects of the image, so that later sections replace objects of earlier ones.
+ *
+ * Sections record size and modification time of the image they are based on and are ignored if
+ * they do not match. Full snapshots delete the file.
+ *
+ * An instance of this class describes the objects of the image on disk including all sections
+ * written so far: it maps all of them to their oops. Since the table references objects strongly,
+ * objects that become garbage are kept alive until the next full snapshot.
+ */
+final class SqueakImageDelta {
+    static final String FILE_EXTENSION = ".tsdelta";
+    private static final int MAGIC = 0x54534453; /* "TSDS" */
+    private static final int VERSION = 1;
+    static final int SECTION_HEADER_SIZE = 2 * Integer.BYTES + 7 * Long.BYTES;
+    static final int SECTION_END_ADDRESS_POSITION = SECTION_HEADER_SIZE - 3 * Long.BYTES;
+    static final int SECTION_NUM_RECORDS_POSITION = SECTION_HEADER_SIZE - 2 * Long.BYTES;
+    static final int SECTION_LENGTH_POSITION = SECTION_HEADER_SIZE - Long.BYTES;
+    /* Delta files that exceed this fraction of the image size are replaced by a full snapshot. */
+    private static final int MAX_IMAGE_SIZE_FRACTION = 2;
+
+    private final SqueakImageOopTable oopTable;
+    private long endAddress;
+    private long fileSize;
+
+    SqueakImageDelta(final SqueakImageOopTable oopTable, final long endAddress, final long fileSize) {
+        this.oopTable = oopTable;
+        this.endAddress = endAddress;
+        this.fileSize = fileSize;
+    }
+
+    SqueakImageOopTable getOopTable() {
+        return oopTable;
+    }
+
+    /* Returns the address after the last object in the image and all sections. */
+    long getEndAddress() {
+        return endAddress;
+    }
+
+    long getFileSize() {
+        return fileSize;
+    }
+
+    void update(final long newEndAddress, final long newFileSize) {
+        endAddress = newEndAddress;
+        fileSize = newFileSize;
+    }
+
+    /* Delta snapshots are only worthwhile as long as they are small compared to the image. */
+    boolean isApplicable(final SqueakImageContext image) {
+        try {
+            return fileSize <= getImageFile(image).size() / MAX_IMAGE_SIZE_FRACTION;
+        } catch (final IOException e) {
+            return false;
+        }
+    }
+
+    private static TruffleFile getImageFile(final SqueakImageContext image) {
+        return image.env.getPublicTruffleFile(image.getImagePath());
+    }
+
+    private static TruffleFile getDeltaFile(final SqueakImageContext image) {
+        return image.env.getPublicTruffleFile(image.getImagePath() + FILE_EXTENSION);
+    }
+
+    static Path getDeltaPath(final SqueakImageContext image) {
+        return Paths.get(getDeltaFile(image).getAbsoluteFile().getPath());
+    }
+
+    static void delete(final SqueakImageContext image) {
+        try {
+            getDeltaFile(image).deleteIfExists();
+        } catch (final IOException e) {
+            image.printToStdErr("Failed to delete delta snapshots:", e.getMessage());
+        }
+    }
+
+    /* Returns the content of the delta file, or null if there is none. */
+    static ByteBuffer read(final SqueakImageContext image) {
+        final TruffleFile deltaFile = getDeltaFile(image);
+        if (!deltaFile.isRegularFile()) {
+            return null;
+        }
+        try {
+            return ByteBuffer.wrap(deltaFile.readAllBytes()).order(ByteOrder.LITTLE_ENDIAN);
+        } catch (final IOException e) {
+            image.printToStdErr("Failed to read delta snapshots:", e.getMessage());
+            return null;
+        }
+    }
+
+    static void writeSectionHeader(final SqueakImageWriter writer, final SqueakImageContext image, final long specialObjectsOop, final long hiddenRootsOop) {
+        final TruffleFile imageFile = getImageFile(image);
+        long imageSize = -1;
+        long imageLastModified = -1;
+        try {
+            imageSize = imageFile.size();
+            imageLastModified = imageFile.getLastModifiedTime().toMillis();
+        } catch (final IOException e) {
+            image.printToStdErr("Failed to determine image file attributes:", e.getMessage());
+        }
+        writer.writeInt(MAGIC);
+        writer.writeInt(VERSION);
+        writer.writeLong(imageSize);
+        writer.writeLong(imageLastModified);
+        writer.writeLong(specialObjectsOop);
+        writer.writeLong(hiddenRootsOop);
+        writer.writeLong(0); // end address (yet unknown)
+        writer.writeLong(0); // number of records (yet unknown)
+        writer.writeLong(0); // section length (yet unknown, incomplete sections are ignored)
+    }
+
+    /*
+     * Returns true if data contains another complete section for the image, which then starts at
+     * the current position of data.
+     */
+    static boolean hasSection(final ByteBuffer data, final SqueakImageContext image) {
+        if (data.remaining() < SECTION_HEADER_SIZE) {
+            return false;
+        }
+        final int start = data.position();
+        final long sectionLength = data.getLong(start + SECTION_LENGTH_POSITION);
+        if (data.getInt(start) != MAGIC || data.getInt(start + Integer.BYTES) != VERSION || sectionLength <= 0 || sectionLength > data.remaining() - SECTION_HEADER_SIZE) {
+            return false;
+        }
+        final TruffleFile imageFile = getImageFile(image);
+        try {
+            return data.getLong(start + 2 * Integer.BYTES) == imageFile.size() && data.getLong(start + 2 * Integer.BYTES + Long.BYTES) == imageFile.getLastModifiedTime().toMillis();
+        } catch (final IOException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2017-2022 Software Architecture Group, Hasso Plattner Institute
+ * Copyright (c) 2021-2022 Oracle and/or its affiliates
+ *
+ * Licensed under the MIT License.
+ */
+package de.hpi.swa.trufflesqueak.image;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.zip.GZIPInputStream;
+
+import com.oracle.truffle.api.TruffleFile;
+
+/**
+ * Decompresses a gzip-compressed image on a separate thread, so that inflation overlaps with
+ * parsing in {@link SqueakImageReader}. Inflated data is handed over in blocks through a bounded
+ * queue, which limits the memory needed for data that has not been parsed yet.
+ */
+final class SqueakImageInflaterStream extends InputStream {
+    private static final int GZIP_MAGIC_0 = 0x1f;
+    private static final int GZIP_MAGIC_1 = 0x8b;
+    private static final int BLOCK_SIZE = 1 << 20;
+    private static final int MAX_PENDING_BLOCKS = 16;
+    private static final byte[] END_OF_STREAM = new byte[0];
+
+    private final ArrayBlockingQueue<byte[]> blocks = new ArrayBlockingQueue<>(MAX_PENDING_BLOCKS);
+    private final Thread inflaterThread;
+    private volatile IOException inflaterException;
+
+    private byte[] currentBlock;
+    private int currentPosition;
+
+    SqueakImageInflaterStream(final InputStream compressedStream) {
+        inflaterThread = new Thread(() -> inflate(compressedStream), "TruffleSqueak image inflater");
+        inflaterThread.setDaemon(true);
+        inflaterThread.start();
+    }
+
+    static boolean isCompressed(final TruffleFile file) throws IOException {
+        try (InputStream in = file.newInputStream()) {
+            return in.read() == GZIP_MAGIC_0 && in.read() == GZIP_MAGIC_1;
+        }
+    }
+
+    private void inflate(final InputStream compressedStream) {
+        try (InputStream in = new GZIPInputStream(compressedStream, 1 << 16)) {
+            int length;
+            do {
+                final byte[] block = new byte[BLOCK_SIZE];
+                length = in.readNBytes(block, 0, BLOCK_SIZE);
+                if (length > 0) {
+                    blocks.put(length == BLOCK_SIZE ? block : Arrays.copyOf(block, length));
+                }
+            } while (length == BLOCK_SIZE);
+        } catch (final IOException e) {
+            inflaterException = e;
+        } catch (final InterruptedException e) {
+            return; /* Stream closed before all data was read. */
+        }
+        try {
+            blocks.put(END_OF_STREAM);
+        } catch (final InterruptedException e) {
+            /* Stream closed, nobody is waiting for the end. */
+        }
+    }
+
+    /* Returns false if the end of the stream has been reached. */
+    private boolean ensureData() throws IOException {
+        while (currentBlock == null || currentPosition == currentBlock.length) {
+            if (currentBlock == END_OF_STREAM) {
+                if (inflaterException != null) {
+                    throw inflaterException;
+                }
+                return false;
+            }
+            try {
+                currentBlock = blocks.take();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for inflated image data");
+            }
+            currentPosition = 0;
+        }
+        return true;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!ensureData()) {
+            return -1;
+        }
+        return Byte.toUnsignedInt(currentBlock[currentPosition++]);
+    }
+
+    @Override
+    public int read(final byte[] bytes, final int offset, final int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        if (!ensureData()) {
+            return -1;
+        }
+        final int numBytes = Math.min(length, currentBlock.length - currentPosition);
+        System.arraycopy(currentBlock, currentPosition, bytes, offset, numBytes);
+        currentPosition += numBytes;
+        return numBytes;
+    }
+
+    @Override
+    public void close() {
+        inflaterThread.interrupt();
+        blocks.clear();
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2017-2022 Software Architecture Group, Hasso Plattner Institute
+ * Copyright (c) 2021-2022 Oracle and/or its affiliates
+ *
+ * Licensed under the MIT License.
+ */
+package de.hpi.swa.trufflesqueak.image;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Read-only view of a memory-mapped image file with 64-bit offsets. A single
+ * {@link MappedByteBuffer} is limited to 2 GiB, so larger files are mapped as a sequence of
+ * regions. Words are 64-bit aligned in Spur images and regions are a multiple of the word size,
+ * so {@link #getLong(long)} never crosses a region boundary. Byte ranges that do are copied in
+ * parts.
+ *
+ * All accessors are absolute, so that multiple threads can read from the same instance.
+ */
+final class SqueakImageMappedFile {
+    private static final int REGION_SHIFT = 30;
+    private static final long REGION_SIZE = 1L << REGION_SHIFT;
+    private static final long REGION_MASK = REGION_SIZE - 1;
+
+    private final ByteBuffer[] regions;
+    private final long size;
+
+    private SqueakImageMappedFile(final ByteBuffer[] regions, final long size) {
+        this.regions = regions;
+        this.size = size;
+    }
+
+    static SqueakImageMappedFile map(final Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final long fileSize = channel.size();
+            final ByteBuffer[] regions = new ByteBuffer[(int) ((fileSize + REGION_MASK) >>> REGION_SHIFT)];
+            for (int i = 0; i < regions.length; i++) {
+                final long regionStart = i * REGION_SIZE;
+                final long regionSize = Math.min(REGION_SIZE, fileSize - regionStart);
+                /* Mappings remain valid after the channel has been closed. */
+                regions[i] = channel.map(FileChannel.MapMode.READ_ONLY, regionStart, regionSize).order(ByteOrder.LITTLE_ENDIAN);
+            }
+            return new SqueakImageMappedFile(regions, fileSize);
+        }
+    }
+
+    long size() {
+        return size;
+    }
+
+    long getLong(final long offset) {
+        assert (offset & REGION_MASK) + Long.BYTES <= REGION_SIZE : "Unaligned word crosses region boundary";
+        return regions[(int) (offset >>> REGION_SHIFT)].getLong((int) (offset & REGION_MASK));
+    }
+
+    void get(final long offset, final byte[] destination, final int destinationOffset, final int length) {
+        long current = offset;
+        int copied = 0;
+        while (copied < length) {
+            final int regionOffset = (int) (current & REGION_MASK);
+            final int partLength = (int) Math.min(length - copied, REGION_SIZE - regionOffset);
+            /* Duplicates share content, but have their own position. */
+            final ByteBuffer region = regions[(int) (current >>> REGION_SHIFT)].duplicate();
+            region.position(regionOffset);
+            region.get(destination, destinationOffset + copied, partLength);
+            copied += partLength;
+            current += partLength;
+        }
+    }
+}
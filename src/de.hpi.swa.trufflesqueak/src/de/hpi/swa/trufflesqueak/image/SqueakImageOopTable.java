@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2017-2022 Software Architecture Group, Hasso Plattner Institute
+ * Copyright (c) 2021-2022 Oracle and/or its affiliates
+ *
+ * Licensed under the MIT License.
+ */
+package de.hpi.swa.trufflesqueak.image;
+
+/**
+ * Maps objects to the oops they are assigned while writing an image. This is an open-addressing
+ * identity hash table with linear probing and primitive long values, so that, unlike a
+ * <code>HashMap&lt;Object, Long&gt;</code>, neither entries nor oops are boxed. Entries are never
+ * removed. Once tracing has finished, the table is only read and can be shared by multiple
+ * threads.
+ */
+final class SqueakImageOopTable {
+    /* Oops are never zero, so zero marks absent objects. */
+    static final long NO_OOP = 0;
+    private static final int MIN_CAPACITY = 16;
+
+    private Object[] keys;
+    private long[] values;
+    private int mask;
+    private int size;
+
+    SqueakImageOopTable(final int expectedSize) {
+        allocateSlots(capacityFor(expectedSize));
+    }
+
+    /* Keep the load factor at or below 0.5 for short probe sequences. */
+    private static int capacityFor(final int expectedSize) {
+        final int minimum = Math.max(expectedSize, MIN_CAPACITY / 2) * 2;
+        return Integer.highestOneBit(minimum - 1) << 1;
+    }
+
+    private void allocateSlots(final int capacity) {
+        keys = new Object[capacity];
+        values = new long[capacity];
+        mask = capacity - 1;
+    }
+
+    /* Identity hash codes are not well distributed in their low bits, so mix them first. */
+    private int slotFor(final Object key) {
+        final int hash = System.identityHashCode(key) * 0x9E3779B9;
+        return (hash ^ hash >>> 16) & mask;
+    }
+
+    boolean containsKey(final Object key) {
+        return get(key) != NO_OOP;
+    }
+
+    /* Returns NO_OOP if object has not been reserved. */
+    long get(final Object key) {
+        int slot = slotFor(key);
+        Object current;
+        while ((current = keys[slot]) != null) {
+            if (current == key) {
+                return values[slot];
+            }
+            slot = slot + 1 & mask;
+        }
+        return NO_OOP;
+    }
+
+    void put(final Object key, final long oop) {
+        assert key != null && oop != NO_OOP;
+        if ((size + 1) * 2 > keys.length) {
+            rehash(keys.length * 2);
+        }
+        int slot = slotFor(key);
+        Object current;
+        while ((current = keys[slot]) != null) {
+            if (current == key) {
+                values[slot] = oop;
+                return;
+            }
+            slot = slot + 1 & mask;
+        }
+        keys[slot] = key;
+        values[slot] = oop;
+        size++;
+    }
+
+    private void rehash(final int newCapacity) {
+        final Object[] oldKeys = keys;
+        final long[] oldValues = values;
+        allocateSlots(newCapacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            final Object key = oldKeys[i];
+            if (key != null) {
+                int slot = slotFor(key);
+                while (keys[slot] != null) {
+                    slot = slot + 1 & mask;
+                }
+                keys[slot] = key;
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    int size() {
+        return size;
+    }
+}
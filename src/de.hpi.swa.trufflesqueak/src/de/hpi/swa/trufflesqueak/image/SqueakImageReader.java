@@ -7,17 +7,25 @@
 package de.hpi.swa.trufflesqueak.image;
 
 import java.io.BufferedInputStream;
+import java.io.EOFException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.stream.IntStream;
 
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.TruffleFile;
 
 import de.hpi.swa.trufflesqueak.exceptions.SqueakExceptions.SqueakException;
+import de.hpi.swa.trufflesqueak.model.AbstractPointersObject;
 import de.hpi.swa.trufflesqueak.model.AbstractSqueakObjectWithClassAndHash;
 import de.hpi.swa.trufflesqueak.model.ArrayObject;
+import de.hpi.swa.trufflesqueak.model.BlockClosureObject;
 import de.hpi.swa.trufflesqueak.model.BooleanObject;
 import de.hpi.swa.trufflesqueak.model.ClassObject;
 import de.hpi.swa.trufflesqueak.model.ContextObject;
@@ -29,25 +37,40 @@ import de.hpi.swa.trufflesqueak.model.layout.ObjectLayouts.SPECIAL_OBJECT;
 import de.hpi.swa.trufflesqueak.model.layout.ObjectLayouts.SPECIAL_OBJECT_TAG;
 import de.hpi.swa.trufflesqueak.nodes.accessing.ArrayObjectNodes.ArrayObjectReadNode;
 import de.hpi.swa.trufflesqueak.util.ArrayUtils;
+import de.hpi.swa.trufflesqueak.util.InstanceRegistry;
 import de.hpi.swa.trufflesqueak.util.MiscUtils;
 import de.hpi.swa.trufflesqueak.util.UnsafeUtils;
 
 public final class SqueakImageReader {
+    /* Number of objects a worker turns into chunks at once when loading a mapped image. */
+    private static final int MAPPED_OBJECTS_BATCH_SIZE = 1 << 14;
+
     protected SqueakImageChunk hiddenRootsChunk;
 
     private final BufferedInputStream stream;
-    private final HashMap<Long, SqueakImageChunk> chunktable = new HashMap<>(750000);
+    private final SqueakImageMappedFile mappedFile;
+    /* Compressed images are saved uncompressed, so not to the file they are read from. */
+    private final boolean isCompressed;
+    private final SqueakImageChunkTable chunktable = new SqueakImageChunkTable(750000);
     private final SqueakImageContext image;
     private final byte[] byteArrayBuffer = new byte[Long.BYTES];
 
     private long oldBaseAddress;
     private long specialObjectsPointer;
     private long firstSegmentSize;
-    private int position;
+    private long position;
+    /* Absolute offset of the next byte to read from mappedFile. */
+    private long mappedFileOffset;
     private long currentAddressSwizzle;
+    /* Address after the last object of the image and all applied delta snapshots. */
+    private long objectsEndAddress;
+    /* Number of bytes of the delta file that have been applied. */
+    private long deltaFileSize;
     private final byte[] emptyBytes = new byte[0];
 
     private SqueakImageChunk freePageList;
+    private long freePageListPosition = -1;
+    private long hiddenRootsPosition = -1;
 
     private SqueakImageReader(final SqueakImageContext image) {
         final TruffleFile truffleFile = image.env.getPublicTruffleFile(image.getImagePath());
@@ -55,14 +78,28 @@ public final class SqueakImageReader {
             throw SqueakException.create(MiscUtils.format("Image at '%s' does not exist.", image.getImagePath()));
         }
         BufferedInputStream inputStream = null;
+        SqueakImageMappedFile mapped = null;
+        boolean compressed = false;
         try {
-            inputStream = new BufferedInputStream(truffleFile.newInputStream());
+            compressed = SqueakImageInflaterStream.isCompressed(truffleFile);
+            if (image.options.isMappedImageLoading && !compressed) {
+                mapped = SqueakImageMappedFile.map(Paths.get(truffleFile.getAbsoluteFile().getPath()));
+            } else {
+                InputStream fileStream = truffleFile.newInputStream();
+                if (compressed) {
+                    /* Inflate on another thread while this one parses. */
+                    fileStream = new SqueakImageInflaterStream(new BufferedInputStream(fileStream));
+                }
+                inputStream = new BufferedInputStream(fileStream);
+            }
         } catch (final IOException e) {
             if (!image.isTesting()) {
                 throw SqueakException.create(e);
             }
         }
         stream = inputStream;
+        mappedFile = mapped;
+        isCompressed = compressed;
         this.image = image;
     }
 
@@ -76,27 +113,151 @@ public final class SqueakImageReader {
     }
 
     private Object run() {
-        if (stream == null && image.isTesting()) {
+        if (stream == null && mappedFile == null && image.isTesting()) {
             return null;
         }
         SqueakImageContext.initializeBeforeLoadingImage();
         final long start = MiscUtils.currentTimeMillis();
         readHeader();
+        final long bodyStart = MiscUtils.currentTimeMillis();
         try {
-            readBody();
+            if (mappedFile != null) {
+                readBodyMapped();
+            } else {
+                readBody();
+            }
         } finally {
             closeStream();
         }
+        readDelta();
+        final long objectsStart = MiscUtils.currentTimeMillis();
         initObjects();
-        image.printToStdOut("Image loaded in", MiscUtils.currentTimeMillis() - start + "ms.");
+        final long end = MiscUtils.currentTimeMillis();
+        image.printToStdOut("Image loaded in", end - start + "ms", MiscUtils.format("(header: %sms, body: %sms, objects: %sms%s).",
+                        bodyStart - start, objectsStart - bodyStart, end - objectsStart, mappedFile != null ? ", mapped" : ""));
         image.initializeAfterLoadingImage((ArrayObject) hiddenRootsChunk.asObject());
+        if (image.options.isInstanceRegistry && !image.env.isPreInitialization()) {
+            initInstanceRegistry();
+        }
+        if (isCompressed) {
+            useUncompressedImagePath();
+        } else if (image.options.isDeltaSnapshots && !image.env.isPreInitialization()) {
+            initDeltaSnapshots();
+        }
         return image.getSqueakImage();
     }
 
+    /*
+     * Snapshots are written uncompressed, so they must not end up in a file with a .gz extension
+     * (e.g., Squeak.image.gz is saved as Squeak.image). Delta snapshots are not enabled, so the
+     * first snapshot is always a full one.
+     */
+    private void useUncompressedImagePath() {
+        final String path = image.getImagePath();
+        if (path.endsWith(".gz")) {
+            image.setImagePath(path.substring(0, path.length() - ".gz".length()));
+        }
+    }
+
+    /* Registers all loaded objects, all objects created from now on register themselves. */
+    private void initInstanceRegistry() {
+        image.instanceRegistry.enable();
+        for (int i = 0; i < chunktable.size(); i++) {
+            final Object object = chunktable.getChunkAt(i).asObject();
+            if (object instanceof AbstractSqueakObjectWithClassAndHash) {
+                InstanceRegistry.register((AbstractSqueakObjectWithClassAndHash) object);
+            }
+        }
+    }
+
+    /*
+     * Replays all sections of the delta file on top of the objects of the image (see
+     * SqueakImageDelta). Objects of later sections replace the chunks of earlier ones.
+     */
+    private void readDelta() {
+        final ByteBuffer data = SqueakImageDelta.read(image);
+        if (data == null) {
+            return;
+        }
+        int numSections = 0;
+        while (SqueakImageDelta.hasSection(data, image)) {
+            final int sectionStart = data.position();
+            data.position(sectionStart + 4 * Long.BYTES);
+            specialObjectsPointer = data.getLong();
+            final long hiddenRootsOop = data.getLong();
+            objectsEndAddress = data.getLong();
+            final long numRecords = data.getLong();
+            final long sectionLength = data.getLong();
+            for (long i = 0; i < numRecords; i++) {
+                final long oop = data.getLong();
+                chunktable.put(oop, readDeltaObject(data, oop));
+            }
+            assert data.position() == sectionStart + SqueakImageDelta.SECTION_HEADER_SIZE + sectionLength : "Unexpected delta section length";
+            hiddenRootsChunk = getChunk(hiddenRootsOop);
+            deltaFileSize = data.position();
+            numSections++;
+        }
+        if (numSections > 0) {
+            image.printToStdOut("Applied", numSections, "delta snapshots.");
+        }
+    }
+
+    private SqueakImageChunk readDeltaObject(final ByteBuffer data, final long oop) {
+        long headerWord = data.getLong();
+        int numSlots = SqueakImageConstants.ObjectHeader.getNumSlots(headerWord);
+        if (numSlots == SqueakImageConstants.OVERFLOW_SLOTS) {
+            numSlots = (int) (headerWord & ~SqueakImageConstants.SLOTS_MASK);
+            headerWord = data.getLong();
+        }
+        final int classIndex = SqueakImageConstants.ObjectHeader.getClassIndex(headerWord);
+        final int format = SqueakImageConstants.ObjectHeader.getFormat(headerWord);
+        final int hash = SqueakImageConstants.ObjectHeader.getHash(headerWord);
+        final byte[] objectData;
+        if (numSlots == 0) {
+            data.position(data.position() + SqueakImageConstants.WORD_SIZE); // skip alignment word
+            objectData = emptyBytes;
+        } else {
+            final int padding = calculateObjectPadding(format);
+            objectData = new byte[Math.toIntExact((long) numSlots * SqueakImageConstants.WORD_SIZE - padding)];
+            data.get(objectData);
+            data.position(data.position() + padding);
+        }
+        return new SqueakImageChunk(this, image, format, classIndex, hash, oop - oldBaseAddress, objectData);
+    }
+
+    /*
+     * Maps all objects loaded from the image and its delta file to their oops, so that subsequent
+     * delta snapshots can refer to them, and starts tracking modifications. Lazily initialized
+     * hashes are not tracked as writes, so if any object on disk has no hash yet (e.g., in images
+     * not saved by TruffleSqueak), the next snapshot must be a full one.
+     */
+    private void initDeltaSnapshots() {
+        final SqueakImageOopTable oopTable = new SqueakImageOopTable(chunktable.size());
+        for (int i = 0; i < chunktable.size(); i++) {
+            final Object object = chunktable.getChunkAt(i).asObject();
+            if (object instanceof AbstractSqueakObjectWithClassAndHash) {
+                if (((AbstractSqueakObjectWithClassAndHash) object).needsSqueakHash()) {
+                    return;
+                }
+                oopTable.put(object, chunktable.getKeyAt(i));
+            }
+        }
+        image.setImageDelta(new SqueakImageDelta(oopTable, objectsEndAddress, deltaFileSize));
+        image.startTrackingModifications();
+    }
+
     private long readBytes(final byte[] bytes, final int length) {
+        if (mappedFile != null) {
+            mappedFile.get(mappedFileOffset, bytes, 0, length);
+            mappedFileOffset += length;
+            return length;
+        }
         try {
-            final int readBytes = stream.read(bytes, 0, length);
-            assert readBytes == length : "Failed to read bytes";
+            /* Large objects may need more than one read from the underlying stream. */
+            final int readBytes = stream.readNBytes(bytes, 0, length);
+            if (readBytes < length) {
+                throw new EOFException("Image ended " + (length - readBytes) + " bytes early");
+            }
             return readBytes;
         } catch (final IOException e) {
             throw SqueakException.create("Failed to read next bytes:", e.getMessage());
@@ -123,32 +284,37 @@ public final class SqueakImageReader {
     }
 
     private byte[] nextObjectData(final int size, final int format) {
-        final int paddedObjectSize = size * SqueakImageConstants.WORD_SIZE;
+        final long paddedObjectSize = (long) size * SqueakImageConstants.WORD_SIZE;
         final int padding = calculateObjectPadding(format);
-        final int dataSize = paddedObjectSize - padding;
+        final int dataSize = Math.toIntExact(paddedObjectSize - padding);
         if (size == 0) {
             skipBytes(SqueakImageConstants.WORD_SIZE); // skip trailing alignment word
             return emptyBytes;
         }
         final byte[] bytes = new byte[dataSize];
         readBytes(bytes, dataSize);
-        try {
-            final long skipped = stream.skip(padding);
-            assert skipped == padding : "Failed to skip padding bytes";
-        } catch (final IOException e) {
-            throw SqueakException.create("Failed to skip next bytes:", e);
-        }
-        position += paddedObjectSize;
+        position += dataSize;
+        skipBytes(padding); /* Skips may be partial (e.g. for compressed images). */
         return bytes;
     }
 
     private void skipBytes(final long count) {
+        if (mappedFile != null) {
+            mappedFileOffset += count;
+            position += count;
+            return;
+        }
         long pending = count;
         try {
             while (pending > 0) {
                 final long skipped = stream.skip(pending);
-                assert skipped > 0 : "Nothing skipped, reached EOF?";
-                pending -= skipped;
+                if (skipped > 0) {
+                    pending -= skipped;
+                } else if (stream.read() >= 0) { /* skip() may skip nothing before EOF. */
+                    pending--;
+                } else {
+                    throw new EOFException("Image ended " + pending + " bytes early");
+                }
             }
         } catch (final IOException e) {
             throw SqueakException.create("Failed to skip next bytes:", e);
@@ -219,9 +385,156 @@ public final class SqueakImageReader {
             segmentEnd += nextSegmentSize;
             currentAddressSwizzle += bridgeSpan * SqueakImageConstants.WORD_SIZE;
         }
+        objectsEndAddress = currentAddressSwizzle + segmentEnd - SqueakImageConstants.IMAGE_BRIDGE_SIZE;
+    }
+
+    /**
+     * Reads the body of a memory-mapped image. A sequential pass only decodes object headers to
+     * find the objects of each segment, worker threads then turn all objects into
+     * {@link SqueakImageChunk}s in parallel. Finally, all chunks are registered in order.
+     */
+    private void readBodyMapped() {
+        final long bodyOffset = mappedFileOffset;
+        final ArrayList<MappedSegment> segments = new ArrayList<>();
+        position = 0;
+        long segmentEnd = firstSegmentSize;
+        long addressSwizzle = oldBaseAddress;
+        while (true) {
+            final MappedSegment segment = new MappedSegment(addressSwizzle);
+            scanMappedSegment(bodyOffset, segment, segmentEnd - SqueakImageConstants.IMAGE_BRIDGE_SIZE);
+            segments.add(segment);
+            final long bridge = mappedFile.getLong(bodyOffset + position);
+            long bridgeSpan = 0;
+            if ((bridge & SqueakImageConstants.SLOTS_MASK) != 0) {
+                bridgeSpan = bridge & ~SqueakImageConstants.SLOTS_MASK;
+            }
+            final long nextSegmentSize = mappedFile.getLong(bodyOffset + position + SqueakImageConstants.WORD_SIZE);
+            assert bridgeSpan >= 0;
+            assert nextSegmentSize >= 0;
+            position += SqueakImageConstants.IMAGE_BRIDGE_SIZE;
+            assert position == segmentEnd;
+            if (nextSegmentSize == 0) {
+                objectsEndAddress = addressSwizzle + segmentEnd - SqueakImageConstants.IMAGE_BRIDGE_SIZE;
+                break;
+            }
+            segmentEnd += nextSegmentSize;
+            addressSwizzle += bridgeSpan * SqueakImageConstants.WORD_SIZE;
+        }
+        assert hiddenRootsPosition >= 0 : "hiddenRootsChunk must be known from now on.";
+
+        /* Decode objects of all segments in parallel (in batches to keep scheduling overhead low). */
+        final ArrayList<int[]> batches = new ArrayList<>();
+        for (int s = 0; s < segments.size(); s++) {
+            final MappedSegment segment = segments.get(s);
+            for (int from = 0; from < segment.numObjects; from += MAPPED_OBJECTS_BATCH_SIZE) {
+                batches.add(new int[]{s, from, Math.min(from + MAPPED_OBJECTS_BATCH_SIZE, segment.numObjects)});
+            }
+        }
+        IntStream.range(0, batches.size()).parallel().forEach(i -> {
+            final int[] batch = batches.get(i);
+            final MappedSegment segment = segments.get(batch[0]);
+            for (int j = batch[1]; j < batch[2]; j++) {
+                segment.chunks[j] = readMappedObject(bodyOffset, segment.objectPositions[j]);
+            }
+        });
+
+        /* Register chunks in order. */
+        for (final MappedSegment segment : segments) {
+            currentAddressSwizzle = segment.addressSwizzle;
+            for (int j = 0; j < segment.numObjects; j++) {
+                final SqueakImageChunk chunk = segment.chunks[j];
+                if (chunk.getPosition() == freePageListPosition) {
+                    freePageList = chunk;
+                } else if (chunk.getPosition() == hiddenRootsPosition) {
+                    hiddenRootsChunk = chunk;
+                }
+                putChunk(chunk);
+            }
+        }
+    }
+
+    /* Collects the positions of all objects in a segment by decoding object headers only. */
+    private void scanMappedSegment(final long bodyOffset, final MappedSegment segment, final long objectsEnd) {
+        long[] objectPositions = new long[1024];
+        int numObjects = 0;
+        while (position < objectsEnd) {
+            assert position % SqueakImageConstants.WORD_SIZE == 0 : "every object must be 64-bit aligned: " + position % SqueakImageConstants.WORD_SIZE;
+            if (numObjects == objectPositions.length) {
+                objectPositions = Arrays.copyOf(objectPositions, numObjects * 2);
+            }
+            objectPositions[numObjects++] = position;
+            long pos = position;
+            long headerWord = mappedFile.getLong(bodyOffset + pos);
+            int numSlots = SqueakImageConstants.ObjectHeader.getNumSlots(headerWord);
+            if (numSlots == SqueakImageConstants.OVERFLOW_SLOTS) {
+                numSlots = (int) (headerWord & ~SqueakImageConstants.SLOTS_MASK);
+                pos += SqueakImageConstants.WORD_SIZE;
+                headerWord = mappedFile.getLong(bodyOffset + pos);
+            }
+            final int classIndex = SqueakImageConstants.ObjectHeader.getClassIndex(headerWord);
+            if (hiddenRootsPosition < 0 && isHiddenObject(classIndex)) {
+                if (freePageListPosition < 0) {
+                    assert classIndex == SqueakImageConstants.WORD_SIZE_CLASS_INDEX_PUN && numSlots == SqueakImageConstants.NUM_FREE_LISTS;
+                    freePageListPosition = pos; /* First hidden object. */
+                } else {
+                    assert classIndex == SqueakImageConstants.ARRAY_CLASS_INDEX_PUN &&
+                                    numSlots == SqueakImageConstants.CLASS_TABLE_ROOT_SLOTS + SqueakImageConstants.HIDDEN_ROOT_SLOTS : "hiddenRootsObj has unexpected size";
+                    hiddenRootsPosition = pos; /* Seconds hidden object. */
+                }
+            }
+            final int dataSlots = ignoreObjectData(headerWord, classIndex, numSlots) ? numSlots : Math.max(numSlots, 1 /* alignment word */);
+            position = pos + SqueakImageConstants.WORD_SIZE + (long) dataSlots * SqueakImageConstants.WORD_SIZE;
+        }
+        segment.objectPositions = objectPositions;
+        segment.numObjects = numObjects;
+        segment.chunks = new SqueakImageChunk[numObjects];
+    }
+
+    /* Decodes the object at objectPosition. Must not touch any shared state of the reader. */
+    private SqueakImageChunk readMappedObject(final long bodyOffset, final long objectPosition) {
+        long pos = objectPosition;
+        long headerWord = mappedFile.getLong(bodyOffset + pos);
+        int numSlots = SqueakImageConstants.ObjectHeader.getNumSlots(headerWord);
+        if (numSlots == SqueakImageConstants.OVERFLOW_SLOTS) {
+            numSlots = (int) (headerWord & ~SqueakImageConstants.SLOTS_MASK);
+            assert numSlots >= SqueakImageConstants.OVERFLOW_SLOTS;
+            pos += SqueakImageConstants.WORD_SIZE;
+            headerWord = mappedFile.getLong(bodyOffset + pos);
+            assert SqueakImageConstants.ObjectHeader.getNumSlots(headerWord) == SqueakImageConstants.OVERFLOW_SLOTS : "Objects with long header must have 255 in slot count";
+        }
+        final int classIndex = SqueakImageConstants.ObjectHeader.getClassIndex(headerWord);
+        final int format = SqueakImageConstants.ObjectHeader.getFormat(headerWord);
+        assert 0 <= format && format != 6 && format != 8 && format <= 31 : "Unexpected format";
+        assert format != 0 || classIndex == 0 || numSlots == 0 : "Empty objects must not have slots";
+        final int hash = SqueakImageConstants.ObjectHeader.getHash(headerWord);
+        final byte[] objectData;
+        if (ignoreObjectData(headerWord, classIndex, numSlots)) {
+            /* Skip some hidden objects for performance reasons. */
+            objectData = null;
+        } else if (numSlots == 0) {
+            objectData = emptyBytes;
+        } else {
+            objectData = new byte[Math.toIntExact((long) numSlots * SqueakImageConstants.WORD_SIZE - calculateObjectPadding(format))];
+            mappedFile.get(bodyOffset + pos + SqueakImageConstants.WORD_SIZE, objectData, 0, objectData.length);
+        }
+        return new SqueakImageChunk(this, image, format, classIndex, hash, pos, objectData);
+    }
+
+    private static final class MappedSegment {
+        private final long addressSwizzle;
+        private long[] objectPositions;
+        private int numObjects;
+        private SqueakImageChunk[] chunks;
+
+        private MappedSegment(final long addressSwizzle) {
+            this.addressSwizzle = addressSwizzle;
+        }
     }
 
     private void closeStream() {
+        if (stream == null) {
+            return; /* Nothing to close for mapped images. */
+        }
         try {
             stream.close();
         } catch (final IOException e) {
@@ -234,7 +547,7 @@ public final class SqueakImageReader {
     }
 
     private SqueakImageChunk readObject() {
-        int pos = position;
+        long pos = position;
         assert pos % SqueakImageConstants.WORD_SIZE == 0 : "every object must be 64-bit aligned: " + pos % SqueakImageConstants.WORD_SIZE;
         long headerWord = nextLong();
         int numSlots = SqueakImageConstants.ObjectHeader.getNumSlots(headerWord);
@@ -256,7 +569,7 @@ public final class SqueakImageReader {
         if (ignoreObjectData(headerWord, classIndex, size)) {
             /* Skip some hidden objects for performance reasons. */
             objectData = null;
-            skipBytes(size * SqueakImageConstants.WORD_SIZE);
+            skipBytes((long) size * SqueakImageConstants.WORD_SIZE);
         } else {
             objectData = nextObjectData(size, format);
         }
@@ -353,11 +666,35 @@ public final class SqueakImageReader {
     private void initObjects() {
         initPrebuiltConstant();
         fillInClassObjects();
+        if (image.options.isImageCache && deltaFileSize == 0) { /* Cached layouts may not match classes of delta snapshots. */
+            installCachedLayouts();
+        }
         fillInObjects();
         fillInContextObjects();
         fillInClassesFromCompactClassList();
     }
 
+    private void installCachedLayouts() {
+        final SqueakImageCache cache = SqueakImageCache.read(image);
+        if (cache != null) {
+            final int numInstalled = cache.installLayouts(this::lookupClassInClassTable);
+            image.printToStdOut("Installed", numInstalled, "class layouts from image cache.");
+        }
+    }
+
+    private ClassObject lookupClassInClassTable(final int classIndex) {
+        if (classIndex < 0 || SqueakImageConstants.majorClassIndexOf(classIndex) >= SqueakImageConstants.CLASS_TABLE_ROOT_SLOTS) {
+            return null;
+        }
+        final SqueakImageChunk classTablePage = getChunk(hiddenRootsChunk.getWord(SqueakImageConstants.majorClassIndexOf(classIndex)));
+        if (classTablePage == null || classTablePage.isNil()) {
+            return null;
+        }
+        final SqueakImageChunk classChunk = getChunk(classTablePage.getWord(SqueakImageConstants.minorClassIndexOf(classIndex)));
+        final Object classObject = classChunk == null ? null : classChunk.asObject();
+        return classObject instanceof ClassObject ? (ClassObject) classObject : null;
+    }
+
     /**
      * Fill in classes and ensure instances of Behavior and its subclasses use {@link ClassObject}.
      */
@@ -434,23 +771,84 @@ public final class SqueakImageReader {
     }
 
     private void fillInObjects() {
-        for (final SqueakImageChunk chunk : chunktable.values()) {
+        if (image.options.isParallelImageLoading) {
+            fillInObjectsInParallel();
+            return;
+        }
+        for (int i = 0; i < chunktable.size(); i++) {
+            final SqueakImageChunk chunk = chunktable.getChunkAt(i);
             final Object chunkObject = chunk.asObject();
             if (chunkObject instanceof AbstractSqueakObjectWithClassAndHash) {
                 final AbstractSqueakObjectWithClassAndHash obj = (AbstractSqueakObjectWithClassAndHash) chunkObject;
-                if (obj.needsSqueakClass()) {
-                    obj.setSqueakClass(chunk.getSqClass());
-                }
-                if (obj.needsSqueakHash()) {
-                    obj.setSqueakHash(chunk.getHash());
-                }
+                initializeClassAndHash(chunk, obj);
                 obj.fillin(chunk);
             }
         }
     }
 
+    /**
+     * Fills in objects on the common ForkJoinPool. All objects are instantiated sequentially first,
+     * so that workers only read chunks other than their own and constructors never run
+     * concurrently. Writing slots of pointers objects may evolve the layout of their class, so all
+     * instances of a class are filled in by the same worker. {@link ClassObject}s and
+     * {@link NativeObject}s may update the image (class hashes, debug selectors), and
+     * {@link CompiledCodeObject}s and {@link BlockClosureObject}s refer to other code and contexts,
+     * so they are filled in sequentially afterwards. {@link ContextObject}s are filled in later
+     * anyway (see {@link #fillInContextObjects()}).
+     */
+    private void fillInObjectsInParallel() {
+        final int numChunks = chunktable.size();
+        for (int i = 0; i < numChunks; i++) {
+            final SqueakImageChunk chunk = chunktable.getChunkAt(i);
+            final Object chunkObject = chunk.asObject();
+            if (chunkObject instanceof AbstractSqueakObjectWithClassAndHash) {
+                initializeClassAndHash(chunk, (AbstractSqueakObjectWithClassAndHash) chunkObject);
+            }
+        }
+
+        final int[] independentIndices = new int[numChunks];
+        int numIndependent = 0;
+        final IdentityHashMap<ClassObject, ArrayList<SqueakImageChunk>> pointersChunksByClass = new IdentityHashMap<>();
+        final ArrayList<SqueakImageChunk> sequentialChunks = new ArrayList<>();
+        for (int i = 0; i < numChunks; i++) {
+            final SqueakImageChunk chunk = chunktable.getChunkAt(i);
+            final Object chunkObject = chunk.asObject();
+            if (chunkObject instanceof AbstractPointersObject) {
+                pointersChunksByClass.computeIfAbsent(((AbstractPointersObject) chunkObject).getSqueakClass(), c -> new ArrayList<>()).add(chunk);
+            } else if (chunkObject instanceof ClassObject || chunkObject instanceof NativeObject || chunkObject instanceof CompiledCodeObject || chunkObject instanceof BlockClosureObject ||
+                            chunkObject instanceof ContextObject) {
+                sequentialChunks.add(chunk);
+            } else if (chunkObject instanceof AbstractSqueakObjectWithClassAndHash) {
+                independentIndices[numIndependent++] = i;
+            }
+        }
+
+        IntStream.range(0, numIndependent).parallel().forEach(j -> {
+            final SqueakImageChunk chunk = chunktable.getChunkAt(independentIndices[j]);
+            ((AbstractSqueakObjectWithClassAndHash) chunk.asObject()).fillin(chunk);
+        });
+        pointersChunksByClass.values().parallelStream().forEach(chunks -> {
+            for (final SqueakImageChunk chunk : chunks) {
+                ((AbstractSqueakObjectWithClassAndHash) chunk.asObject()).fillin(chunk);
+            }
+        });
+        for (final SqueakImageChunk chunk : sequentialChunks) {
+            ((AbstractSqueakObjectWithClassAndHash) chunk.asObject()).fillin(chunk);
+        }
+    }
+
+    private static void initializeClassAndHash(final SqueakImageChunk chunk, final AbstractSqueakObjectWithClassAndHash obj) {
+        if (obj.needsSqueakClass()) {
+            obj.setSqueakClass(chunk.getSqClass());
+        }
+        if (obj.needsSqueakHash()) {
+            obj.setSqueakHash(chunk.getHash());
+        }
+    }
+
     private void fillInContextObjects() {
-        for (final SqueakImageChunk chunk : chunktable.values()) {
+        for (int i = 0; i < chunktable.size(); i++) {
+            final SqueakImageChunk chunk = chunktable.getChunkAt(i);
             final Object chunkObject = chunk.asObject();
             if (chunkObject instanceof ContextObject) {
                 final ContextObject contextObject = (ContextObject) chunkObject;
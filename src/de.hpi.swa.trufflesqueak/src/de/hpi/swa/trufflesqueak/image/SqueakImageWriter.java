@@ -6,17 +6,19 @@
  */
 package de.hpi.swa.trufflesqueak.image;
 
-import java.io.BufferedOutputStream;
 import java.io.IOException;
 import java.math.BigInteger;
 import java.nio.ByteBuffer;
-import java.nio.channels.SeekableByteChannel;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.EnumSet;
-import java.util.HashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
 
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.TruffleFile;
@@ -38,18 +40,44 @@ import de.hpi.swa.trufflesqueak.model.layout.ObjectLayouts.PROCESS;
 import de.hpi.swa.trufflesqueak.nodes.accessing.AbstractPointersObjectNodes.AbstractPointersObjectWriteNode;
 import de.hpi.swa.trufflesqueak.util.MiscUtils;
 import de.hpi.swa.trufflesqueak.util.ObjectGraphUtils;
-import de.hpi.swa.trufflesqueak.util.UnsafeUtils;
 
+/**
+ * Traces all objects reachable from the special objects array, assigns their oops, and writes them
+ * to the image file. Traced objects are serialized in batches on worker threads, each into its own
+ * direct {@link ByteBuffer}, while the thread saving the image writes finished batches in order
+ * through a {@link FileChannel}. Batch writers are instances of this class that share the oop table
+ * of the writer that created them (see {@link #root}).
+ *
+ * With background snapshots, serialized buffers are kept in memory instead (see
+ * {@link #pendingWrites}). They are an immutable copy of the object graph at the time of the
+ * snapshot, so that a background thread can write them while Smalltalk processes resume.
+ *
+ * With delta snapshots, only objects that have been modified or created since the last snapshot
+ * are written to the delta file of the image (see {@link SqueakImageDelta}).
+ */
 public final class SqueakImageWriter {
+    private static final int BUFFER_SIZE = 1 << 22;
+    private static final int MAX_PENDING_BATCHES = ForkJoinPool.getCommonPoolParallelism() + 1;
+    public static final int NO_SEMAPHORE = -1;
+
     private final SqueakImageContext image;
-    private final NativeObject freeList;
-    private final BufferedOutputStream stream;
-    private final byte[] byteArrayBuffer = new byte[Long.BYTES];
-    private final HashMap<AbstractSqueakObjectWithClassAndHash, Long> oopMap = new HashMap<>(ObjectGraphUtils.getLastSeenObjects());
-    private final ArrayList<AbstractSqueakObjectWithClassAndHash> allTracedObjects = new ArrayList<>(ObjectGraphUtils.getLastSeenObjects());
-    private final ArrayDeque<AbstractSqueakObjectWithClassAndHash> traceQueue = new ArrayDeque<>();
-    private final ArrayList<AbstractSqueakObjectWithClassAndHash> additionalBoxedObjects = new ArrayList<>();
+    private final SqueakImageWriter root;
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private final SqueakImageOopTable oopTable;
 
+    /* Only used by the root writer. */
+    private final NativeObject freeList;
+    private final ArrayList<AbstractSqueakObjectWithClassAndHash> allTracedObjects;
+    private final ArrayDeque<AbstractSqueakObjectWithClassAndHash> traceQueue;
+    private final ArrayList<AbstractSqueakObjectWithClassAndHash> additionalBoxedObjects;
+    private final ArrayList<ClassObject> tracedClasses;
+    /* Serialized data that is written later, or null if data is written immediately. */
+    private final ArrayList<PendingWrite> pendingWrites;
+    /* Objects in the image file so far, or null if a full snapshot is written. */
+    private final SqueakImageDelta delta;
+
+    /* File position of the next byte written. */
     private long position;
     private long nextChunk;
     private long nextChunkAfterTracing;
@@ -61,11 +89,78 @@ public final class SqueakImageWriter {
     private long freeListOop;
     private long hiddenRootsOop;
 
-    private SqueakImageWriter(final SqueakImageContext image) throws IOException {
+    private static final class PendingWrite {
+        private final ByteBuffer data;
+        private final long filePosition;
+
+        private PendingWrite(final ByteBuffer data, final long filePosition) {
+            this.data = data;
+            this.filePosition = filePosition;
+        }
+    }
+
+    private SqueakImageWriter(final SqueakImageContext image, final boolean isBackground) throws IOException {
         this.image = image;
+        root = this;
         final TruffleFile truffleFile = image.env.getPublicTruffleFile(image.getImagePath());
-        stream = new BufferedOutputStream(truffleFile.newOutputStream());
+        channel = FileChannel.open(Paths.get(truffleFile.getAbsoluteFile().getPath()), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        buffer = newBuffer(BUFFER_SIZE, true);
+        final int expectedObjects = ObjectGraphUtils.getLastSeenObjects();
+        oopTable = new SqueakImageOopTable(expectedObjects);
         freeList = NativeObject.newNativeLongs(image, image.nilClass /* ignored */, SqueakImageConstants.NUM_FREE_LISTS);
+        allTracedObjects = new ArrayList<>(expectedObjects);
+        traceQueue = new ArrayDeque<>();
+        additionalBoxedObjects = new ArrayList<>();
+        tracedClasses = new ArrayList<>();
+        pendingWrites = isBackground ? new ArrayList<>() : null;
+        delta = null;
+    }
+
+    /* Creates a writer that appends a delta snapshot to the delta file. */
+    private SqueakImageWriter(final SqueakImageContext image, final SqueakImageDelta delta) throws IOException {
+        this.image = image;
+        root = this;
+        channel = FileChannel.open(SqueakImageDelta.getDeltaPath(image), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        /* Drop incomplete sections, if any. */
+        channel.truncate(delta.getFileSize());
+        buffer = newBuffer(BUFFER_SIZE, true);
+        oopTable = delta.getOopTable();
+        freeList = null;
+        allTracedObjects = new ArrayList<>();
+        traceQueue = new ArrayDeque<>();
+        additionalBoxedObjects = new ArrayList<>();
+        tracedClasses = new ArrayList<>();
+        pendingWrites = null;
+        this.delta = delta;
+    }
+
+    /* Creates a batch writer that serializes objects into buffer, starting at position. */
+    private SqueakImageWriter(final SqueakImageWriter root, final ByteBuffer buffer, final long position) {
+        image = root.image;
+        this.root = root;
+        channel = root.channel;
+        this.buffer = buffer;
+        this.position = position;
+        oopTable = root.oopTable;
+        freeList = null;
+        allTracedObjects = null;
+        traceQueue = null;
+        additionalBoxedObjects = null;
+        tracedClasses = null;
+        pendingWrites = null;
+        delta = null;
+        nilOop = root.nilOop;
+        falseOop = root.falseOop;
+        trueOop = root.trueOop;
+    }
+
+    /* Pending data may be as large as the image, so it is kept on the Java heap. */
+    private static ByteBuffer newBuffer(final int capacity, final boolean isDirect) {
+        return (isDirect ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity)).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private boolean isBackground() {
+        return root.pendingWrites != null;
     }
 
     /*
@@ -73,8 +168,27 @@ public final class SqueakImageWriter {
      */
     @TruffleBoundary
     public static void write(final SqueakImageContext image, final ContextObject thisContext) {
+        write(image, thisContext, NO_SEMAPHORE);
+    }
+
+    /*
+     * Signals the external semaphore at semaphoreIndex (unless it is NO_SEMAPHORE) once the image
+     * file is complete, which may be after this method has returned if background snapshots are
+     * enabled.
+     */
+    @TruffleBoundary
+    public static void write(final SqueakImageContext image, final ContextObject thisContext, final int semaphoreIndex) {
+        /* Never write the same file twice at the same time. */
+        image.waitForBackgroundSnapshot();
+        /* Forwarders must not end up in the image. */
+        image.forwardingPointers.flush();
         try {
-            new SqueakImageWriter(image).run(thisContext);
+            final SqueakImageDelta delta = image.getImageDelta();
+            if (delta != null && delta.isApplicable(image)) {
+                new SqueakImageWriter(image, delta).runDelta(thisContext, semaphoreIndex);
+            } else {
+                new SqueakImageWriter(image, image.options.isBackgroundSnapshots).run(thisContext, semaphoreIndex);
+            }
         } catch (final IOException e) {
             e.printStackTrace();
         }
@@ -84,24 +198,211 @@ public final class SqueakImageWriter {
         return image;
     }
 
-    private void run(final ContextObject thisContext) {
+    private void run(final ContextObject thisContext, final int semaphoreIndex) {
         final long start = MiscUtils.currentTimeMillis();
         nextChunk = image.flags.getOldBaseAddress();
         final PointersObject activeProcess = image.getActiveProcessSlow();
+        boolean isSerialized = false;
+        if (image.options.isDeltaSnapshots) {
+            /* Previous delta snapshots are part of this snapshot. */
+            image.setImageDelta(null);
+            SqueakImageDelta.delete(image);
+            image.startTrackingModifications();
+        }
+        /* Boxed objects created for writing are transient and must not be registered. */
+        image.instanceRegistry.pause();
         try {
             /* Mark thisContext as suspended during tracing and writing. */
             AbstractPointersObjectWriteNode.getUncached().execute(activeProcess, PROCESS.SUSPENDED_CONTEXT, thisContext);
             traceObjects();
             writeImageHeader();
             writeBody();
+            isSerialized = true;
+            if (image.options.isDeltaSnapshots) {
+                /* Next snapshots only write objects modified from now on. */
+                image.setImageDelta(new SqueakImageDelta(oopTable, nextChunk, 0));
+            }
         } finally {
             /* Unmark thisContext as suspended. */
             AbstractPointersObjectWriteNode.getUncached().executeNil(activeProcess, PROCESS.SUSPENDED_CONTEXT);
-            closeStream();
-            finalizeImageHeader();
+            image.instanceRegistry.resume();
+            if (!isSerialized) {
+                closeChannel();
+            }
+        }
+        /* Layouts may change as soon as Smalltalk processes resume. */
+        final SqueakImageCache cache = image.options.isImageCache ? SqueakImageCache.create(tracedClasses) : null;
+        if (isBackground()) {
+            final long pauseMillis = MiscUtils.currentTimeMillis() - start;
+            final Thread writerThread = new Thread(() -> {
+                try {
+                    complete(start, pauseMillis, semaphoreIndex, cache);
+                } catch (final RuntimeException e) {
+                    image.printToStdErr("Failed to write image in background:", e.getMessage());
+                }
+            }, "TruffleSqueak image writer");
+            image.setBackgroundSnapshotThread(writerThread);
+            writerThread.start();
+        } else {
+            complete(start, -1, semaphoreIndex, cache);
+        }
+    }
+
+    /* Writes pending data, if any, and finishes the image file. */
+    private void complete(final long start, final long pauseMillis, final int semaphoreIndex, final SqueakImageCache cache) {
+        boolean isComplete = false;
+        try {
+            try {
+                if (pendingWrites != null) {
+                    for (final PendingWrite pendingWrite : pendingWrites) {
+                        writeFully(pendingWrite.data, pendingWrite.filePosition);
+                    }
+                    pendingWrites.clear();
+                }
+                finalizeImageHeader();
+            } finally {
+                closeChannel();
+            }
+            if (cache != null) {
+                cache.write(image);
+            }
+            isComplete = true;
+        } finally {
+            /* Waiting processes must resume even if the image could not be written. */
+            signalCompletion(semaphoreIndex, isComplete);
         }
         final double fileSize = Math.ceil((double) position / 1024 / 1024 * 100) / 100;
-        image.printToStdOut("Image saved in " + (MiscUtils.currentTimeMillis() - start) + "ms (" + fileSize + "MiB).");
+        final String pauseInfo = pauseMillis < 0 ? "" : ", paused for " + pauseMillis + "ms";
+        image.printToStdOut("Image saved in " + (MiscUtils.currentTimeMillis() - start) + "ms (" + fileSize + "MiB" + pauseInfo + ").");
+    }
+
+    /* Records the outcome (see primitiveLastSnapshotFailed) before the semaphore is signaled. */
+    private void signalCompletion(final int semaphoreIndex, final boolean isComplete) {
+        image.setLastSnapshotFailed(!isComplete);
+        if (semaphoreIndex != NO_SEMAPHORE) {
+            image.interrupt.signalSemaphoreWithIndex(semaphoreIndex);
+        }
+    }
+
+    /*
+     * Appends a section with all objects modified or created since the last snapshot to the delta
+     * file. Sections are usually small, so they are always written synchronously.
+     */
+    private void runDelta(final ContextObject thisContext, final int semaphoreIndex) {
+        final long start = MiscUtils.currentTimeMillis();
+        /* nil, false, and true are the first objects of every image. */
+        nilOop = image.flags.getOldBaseAddress();
+        falseOop = nilOop + 2 * SqueakImageConstants.WORD_SIZE;
+        trueOop = falseOop + 2 * SqueakImageConstants.WORD_SIZE;
+        nextChunk = delta.getEndAddress();
+        position = delta.getFileSize();
+        final PointersObject activeProcess = image.getActiveProcessSlow();
+        final ArrayList<AbstractSqueakObjectWithClassAndHash> modifiedObjects = new ArrayList<>();
+        boolean isWritten = false;
+        image.instanceRegistry.pause();
+        try {
+            /* Mark thisContext as suspended, which also marks the active process as modified. */
+            AbstractPointersObjectWriteNode.getUncached().execute(activeProcess, PROCESS.SUSPENDED_CONTEXT, thisContext);
+            traceModifiedObjects(modifiedObjects);
+            writeDeltaSection(modifiedObjects);
+            isWritten = true;
+        } finally {
+            /* Unmark thisContext as suspended (the next delta snapshot writes the process again). */
+            AbstractPointersObjectWriteNode.getUncached().executeNil(activeProcess, PROCESS.SUSPENDED_CONTEXT);
+            image.instanceRegistry.resume();
+            closeChannel();
+            if (!isWritten) {
+                /* Modifications have already been drained, so the next snapshot must be a full one. */
+                image.setImageDelta(null);
+            }
+            signalCompletion(semaphoreIndex, isWritten);
+        }
+        final long sectionSize = position - delta.getFileSize();
+        delta.update(nextChunk, position);
+        final int numObjects = modifiedObjects.size() + allTracedObjects.size() + additionalBoxedObjects.size();
+        image.printToStdOut("Delta snapshot saved in " + (MiscUtils.currentTimeMillis() - start) + "ms (" + numObjects + " objects, " + (sectionSize + 1023) / 1024 + "KiB).");
+    }
+
+    /*
+     * Collects all objects of the image on disk that have been modified since the last snapshot and
+     * traces them to reserve oops for all new objects they refer to. Tracing itself may modify
+     * objects (e.g., class table pages or materialized senders), so this continues until no more
+     * objects are modified.
+     */
+    private void traceModifiedObjects(final ArrayList<AbstractSqueakObjectWithClassAndHash> modifiedObjects) {
+        final long firstNewOop = nextChunk;
+        final SqueakImageOopTable modifiedOops = new SqueakImageOopTable(1024);
+        AbstractSqueakObjectWithClassAndHash[] objects;
+        while ((objects = image.drainModifiedObjects()).length > 0) {
+            for (final AbstractSqueakObjectWithClassAndHash object : objects) {
+                addModifiedObject(object, firstNewOop, modifiedOops, modifiedObjects);
+            }
+            AbstractSqueakObjectWithClassAndHash currentObject;
+            while ((currentObject = traceQueue.pollFirst()) != null) {
+                currentObject.trace(this);
+            }
+        }
+        nextChunkAfterTracing = nextChunk;
+    }
+
+    private void addModifiedObject(final AbstractSqueakObjectWithClassAndHash object, final long firstNewOop, final SqueakImageOopTable modifiedOops,
+                    final ArrayList<AbstractSqueakObjectWithClassAndHash> modifiedObjects) {
+        final long oop = oopTable.get(object);
+        if (oop == SqueakImageOopTable.NO_OOP || oop >= firstNewOop || modifiedOops.containsKey(object)) {
+            return; /* New objects are written anyway, all others are not part of the image. */
+        }
+        modifiedOops.put(object, oop);
+        modifiedObjects.add(object);
+        object.trace(this);
+        if (object.getSqueakClass() == image.processClass) {
+            /*
+             * Contexts are modified through their frames without write barriers, so write all
+             * contexts of processes that have been running since the last snapshot.
+             */
+            Object context = ((PointersObject) object).instVarAt0Slow(PROCESS.SUSPENDED_CONTEXT);
+            while (context instanceof ContextObject && ((ContextObject) context).hasTruffleFrame()) {
+                final ContextObject contextObject = (ContextObject) context;
+                traceIfNecessary(contextObject);
+                addModifiedObject(contextObject, firstNewOop, modifiedOops, modifiedObjects);
+                context = contextObject.getSender();
+            }
+        }
+    }
+
+    private void writeDeltaSection(final ArrayList<AbstractSqueakObjectWithClassAndHash> modifiedObjects) {
+        final long sectionStart = position;
+        final ArrayObject hiddenRoots = image.getHiddenRoots();
+        SqueakImageDelta.writeSectionHeader(this, image, toWord(image.specialObjectsArray), toWord(hiddenRoots));
+        for (final AbstractSqueakObjectWithClassAndHash object : modifiedObjects) {
+            writeLong(oopTable.get(object));
+            if (object == hiddenRoots) {
+                hiddenRoots.writeAsHiddenRoots(this);
+            } else {
+                object.write(this);
+            }
+        }
+        for (final AbstractSqueakObjectWithClassAndHash object : allTracedObjects) {
+            writeLong(oopTable.get(object));
+            object.write(this);
+        }
+        /* Boxed objects are reserved consecutively while objects are written (see reserveBoxed). */
+        long boxedOop = nextChunkAfterTracing;
+        for (int i = 0; i < additionalBoxedObjects.size(); i++) {
+            final AbstractSqueakObjectWithClassAndHash boxedObject = additionalBoxedObjects.get(i);
+            final int numSlots = boxedObject.getNumSlots();
+            final int headerSlots = numSlots < SqueakImageConstants.OVERFLOW_SLOTS ? 1 : 2;
+            writeLong(boxedOop);
+            boxedObject.write(this);
+            boxedOop += (long) (headerSlots + numSlots) * SqueakImageConstants.WORD_SIZE;
+        }
+        assert boxedOop == nextChunk;
+        flush();
+        /* Complete the section header, which makes the section valid. */
+        final ByteBuffer header = ByteBuffer.allocate(3 * Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        header.putLong(0, nextChunk);
+        header.putLong(Long.BYTES, modifiedObjects.size() + allTracedObjects.size() + additionalBoxedObjects.size());
+        header.putLong(2 * Long.BYTES, position - sectionStart - SqueakImageDelta.SECTION_HEADER_SIZE);
+        writeFully(header, sectionStart + SqueakImageDelta.SECTION_END_ADDRESS_POSITION);
     }
 
     private void writeImageHeader() {
@@ -152,13 +453,13 @@ public final class SqueakImageWriter {
     }
 
     public void traceIfNecessary(final AbstractSqueakObjectWithClassAndHash object) {
-        if (object != null && !oopMap.containsKey(object)) {
+        if (object != null && !oopTable.containsKey(object)) {
             reserve(object);
         }
     }
 
     public void traceIfNecessary(final Object object) {
-        if (object instanceof AbstractSqueakObjectWithClassAndHash && !oopMap.containsKey(object)) {
+        if (object instanceof AbstractSqueakObjectWithClassAndHash && !oopTable.containsKey(object)) {
             reserve((AbstractSqueakObjectWithClassAndHash) object);
         }
     }
@@ -182,12 +483,8 @@ public final class SqueakImageWriter {
         assert currentOop() == hiddenRootsOop - SqueakImageConstants.WORD_SIZE;
         image.getHiddenRoots().writeAsHiddenRoots(this);
         assert currentOop() == specialObjectOop : "First objects not written correctly";
-        AbstractSqueakObjectWithClassAndHash previousObject = image.getHiddenRoots();
-        for (final AbstractSqueakObjectWithClassAndHash currentObject : allTracedObjects) {
-            assert correctPosition(currentObject) : "Previous object was not written correctly: " + previousObject;
-            currentObject.write(this);
-            previousObject = currentObject;
-        }
+        flush();
+        writeTracedObjects();
         assert currentOop() == nextChunkAfterTracing;
         /* Write additional large integers and boxed floats. */
         for (final AbstractSqueakObjectWithClassAndHash value : additionalBoxedObjects) {
@@ -197,11 +494,100 @@ public final class SqueakImageWriter {
 
         /* Write last bridge. */
         writePadding(SqueakImageConstants.IMAGE_BRIDGE_SIZE);
+        flush();
+    }
+
+    /*
+     * Serializes traced objects in batches of up to BUFFER_SIZE bytes on worker threads and writes
+     * finished batches in order. The number of pending batches is limited, so that only a few
+     * buffers are needed, which are reused. Objects that do not fit into a buffer on their own are
+     * written from a separate buffer.
+     */
+    private void writeTracedObjects() {
+        final int numObjects = allTracedObjects.size();
+        final ArrayDeque<CompletableFuture<SqueakImageWriter>> pendingBatches = new ArrayDeque<>(MAX_PENDING_BATCHES);
+        final ArrayDeque<ByteBuffer> freeBuffers = new ArrayDeque<>(MAX_PENDING_BATCHES);
+        int batchStart = 0;
+        long batchChunk = chunkStartOf(0);
+        while (batchStart < numObjects || !pendingBatches.isEmpty()) {
+            if (batchStart < numObjects && pendingBatches.size() < MAX_PENDING_BATCHES) {
+                int batchEnd = batchStart + 1;
+                while (batchEnd < numObjects && chunkStartOf(batchEnd + 1) - batchChunk <= BUFFER_SIZE) {
+                    batchEnd++;
+                }
+                final long nextBatchChunk = chunkStartOf(batchEnd);
+                final int batchSize = Math.toIntExact(nextBatchChunk - batchChunk);
+                final ByteBuffer batchBuffer;
+                if (isBackground()) {
+                    batchBuffer = newBuffer(batchSize, false);
+                } else if (batchSize <= BUFFER_SIZE) {
+                    final ByteBuffer freeBuffer = freeBuffers.pollFirst();
+                    batchBuffer = freeBuffer != null ? freeBuffer : newBuffer(BUFFER_SIZE, true);
+                    batchBuffer.limit(batchSize);
+                } else {
+                    batchBuffer = newBuffer(batchSize, true);
+                }
+                final SqueakImageWriter batchWriter = new SqueakImageWriter(this, batchBuffer, toFilePosition(batchChunk));
+                final int from = batchStart;
+                final int to = batchEnd;
+                pendingBatches.addLast(CompletableFuture.supplyAsync(() -> batchWriter.writeBatch(from, to)));
+                batchStart = batchEnd;
+                batchChunk = nextBatchChunk;
+            } else {
+                final SqueakImageWriter batchWriter = joinBatch(pendingBatches.removeFirst());
+                batchWriter.flush();
+                position = batchWriter.position;
+                if (!isBackground() && batchWriter.buffer.capacity() == BUFFER_SIZE) {
+                    freeBuffers.addLast(batchWriter.buffer);
+                }
+            }
+        }
+    }
+
+    private SqueakImageWriter writeBatch(final int from, final int to) {
+        AbstractSqueakObjectWithClassAndHash previousObject = null;
+        for (int i = from; i < to; i++) {
+            final AbstractSqueakObjectWithClassAndHash currentObject = root.allTracedObjects.get(i);
+            assert correctPosition(currentObject) : "Previous object was not written correctly: " + previousObject;
+            currentObject.write(this);
+            previousObject = currentObject;
+        }
+        assert !buffer.hasRemaining() : "Last object was not written correctly: " + previousObject;
+        return this;
+    }
+
+    private static SqueakImageWriter joinBatch(final CompletableFuture<SqueakImageWriter> batch) {
+        try {
+            return batch.join();
+        } catch (final CompletionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            } else {
+                throw e;
+            }
+        }
+    }
+
+    /* Returns the address of the first header word of the object at index (or the end address). */
+    private long chunkStartOf(final int index) {
+        if (index == allTracedObjects.size()) {
+            return nextChunkAfterTracing;
+        }
+        final AbstractSqueakObjectWithClassAndHash object = allTracedObjects.get(index);
+        final int offset = object.getNumSlots() < SqueakImageConstants.OVERFLOW_SLOTS ? 0 : SqueakImageConstants.WORD_SIZE;
+        return oopTable.get(object) - offset;
+    }
+
+    private long toFilePosition(final long address) {
+        return address - image.flags.getOldBaseAddress() + SqueakImageConstants.IMAGE_HEADER_SIZE;
     }
 
     private boolean correctPosition(final AbstractSqueakObjectWithClassAndHash currentObject) {
         final int offset = currentObject.getNumSlots() < SqueakImageConstants.OVERFLOW_SLOTS ? 0 : SqueakImageConstants.WORD_SIZE;
-        return currentOop() + offset == oopMap.get(currentObject);
+        return currentOop() + offset == oopTable.get(currentObject);
     }
 
     /*
@@ -209,20 +595,10 @@ public final class SqueakImageWriter {
      * the image header is written. This updates both values in the header accordingly.
      */
     private void finalizeImageHeader() {
-        final TruffleFile truffleFile = image.env.getPublicTruffleFile(image.getImagePath());
-        assert truffleFile.exists();
-        try {
-            final EnumSet<StandardOpenOption> options = EnumSet.of(StandardOpenOption.WRITE, StandardOpenOption.READ);
-            try (SeekableByteChannel channel = truffleFile.newByteChannel(options)) {
-                UnsafeUtils.putLong(byteArrayBuffer, 0, position - SqueakImageConstants.IMAGE_HEADER_SIZE);
-                channel.position(SqueakImageConstants.IMAGE_HEADER_MEMORY_SIZE_POSITION);
-                channel.write(ByteBuffer.wrap(byteArrayBuffer));
-                channel.position(SqueakImageConstants.IMAGE_HEADER_FIRST_FRAGMENT_SIZE_POSITION);
-                channel.write(ByteBuffer.wrap(byteArrayBuffer));
-            }
-        } catch (final IOException e) {
-            e.printStackTrace();
-        }
+        final ByteBuffer memorySize = ByteBuffer.allocate(Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        memorySize.putLong(0, position - SqueakImageConstants.IMAGE_HEADER_SIZE);
+        writeFully(memorySize.duplicate(), SqueakImageConstants.IMAGE_HEADER_MEMORY_SIZE_POSITION);
+        writeFully(memorySize.duplicate(), SqueakImageConstants.IMAGE_HEADER_FIRST_FRAGMENT_SIZE_POSITION);
     }
 
     private long currentOop() {
@@ -244,8 +620,8 @@ public final class SqueakImageWriter {
         } else if (object instanceof Double) {
             return toTaggedSmallFloat((double) object);
         } else if (object instanceof AbstractSqueakObject) {
-            final Long oop = oopMap.get(object);
-            if (oop != null) {
+            final long oop = oopTable.get(object);
+            if (oop != SqueakImageOopTable.NO_OOP) {
                 return oop;
             } else {
                 image.printToStdErr("Unreserved object detected: " + object + ". Replacing with nil.");
@@ -302,87 +678,122 @@ public final class SqueakImageWriter {
     }
 
     private long reserve(final AbstractSqueakObjectWithClassAndHash object) {
+        assert root == this : "Objects must be traced by the root writer";
         final int numSlots = object.getNumSlots();
         final int padding = SqueakImageReader.calculateObjectPadding(object.getSqueakClass().getInstanceSpecification());
 
         final int headerSlots = numSlots < SqueakImageConstants.OVERFLOW_SLOTS ? 1 : 2;
         final int offset = (headerSlots - 1) * SqueakImageConstants.WORD_SIZE;
         final long oop = nextChunk + offset;
-        nextChunk += (headerSlots + Math.max(numSlots, 1 /* at least an alignment word */)) * SqueakImageConstants.WORD_SIZE + padding;
+        nextChunk += (long) (headerSlots + Math.max(numSlots, 1 /* at least an alignment word */)) * SqueakImageConstants.WORD_SIZE + padding;
 
-        assert !oopMap.containsKey(object);
-        oopMap.put(object, oop);
+        assert !oopTable.containsKey(object);
+        oopTable.put(object, oop);
         allTracedObjects.add(object);
         traceQueue.addLast(object);
 
         if (object instanceof ClassObject) {
             insertIntoClassTable((ClassObject) object);
+            tracedClasses.add((ClassObject) object);
         }
         return oop;
     }
 
     private long reserveLargeInteger(final long value) {
-        final LargeIntegerObject largeIntegerObject = new LargeIntegerObject(image, BigInteger.valueOf(value));
-        final long oop = nextChunk;
-        final int numSlots = largeIntegerObject.getNumSlots();
-        final int headerSlots = numSlots < 255 ? 1 : 2;
-        nextChunk += (headerSlots + numSlots) * SqueakImageConstants.WORD_SIZE /* No padding */;
-
-        additionalBoxedObjects.add(largeIntegerObject);
-        return oop;
+        return root.reserveBoxed(new LargeIntegerObject(image, BigInteger.valueOf(value)));
     }
 
     private long reserveBoxedFloat(final double value) {
-        final FloatObject floatObject = new FloatObject(image, value);
+        return root.reserveBoxed(new FloatObject(image, value));
+    }
+
+    /*
+     * Boxed objects are reserved while batches are written in parallel. Synchronization keeps oops
+     * and the order of additionalBoxedObjects consistent.
+     */
+    private synchronized long reserveBoxed(final AbstractSqueakObjectWithClassAndHash boxedObject) {
+        assert root == this;
         final long oop = nextChunk;
-        final int numSlots = floatObject.getNumSlots();
-        final int headerSlots = numSlots < 255 ? 1 : 2;
-        nextChunk += (headerSlots + numSlots) * SqueakImageConstants.WORD_SIZE /* No padding */;
+        final int numSlots = boxedObject.getNumSlots();
+        final int headerSlots = numSlots < SqueakImageConstants.OVERFLOW_SLOTS ? 1 : 2;
+        nextChunk += (long) (headerSlots + numSlots) * SqueakImageConstants.WORD_SIZE /* No padding */;
 
-        additionalBoxedObjects.add(floatObject);
+        additionalBoxedObjects.add(boxedObject);
         return oop;
     }
 
-    public void writeBytes(final byte[] bytes) {
+    private void ensureRemaining(final int numberOfBytes) {
+        if (buffer.remaining() < numberOfBytes) {
+            flush();
+        }
+    }
+
+    /* Writes the buffer to the file position it corresponds to (or defers writing it). */
+    private void flush() {
+        buffer.flip();
+        final long filePosition = position - buffer.limit();
+        if (!isBackground()) {
+            writeFully(buffer, filePosition);
+        } else if (root != this) {
+            /* Batch buffers are not reused. */
+            root.pendingWrites.add(new PendingWrite(buffer, filePosition));
+            return;
+        } else if (buffer.hasRemaining()) {
+            final ByteBuffer copy = newBuffer(buffer.remaining(), false);
+            copy.put(buffer).flip();
+            pendingWrites.add(new PendingWrite(copy, filePosition));
+        }
+        buffer.clear();
+    }
+
+    private void writeFully(final ByteBuffer source, final long filePosition) {
         try {
-            stream.write(bytes);
+            long currentPosition = filePosition;
+            while (source.hasRemaining()) {
+                currentPosition += channel.write(source, currentPosition);
+            }
         } catch (final IOException e) {
             throw SqueakException.create("Failed to write bytes:", e.getMessage());
         }
+    }
+
+    public void writeBytes(final byte[] bytes) {
+        ensureRemaining(bytes.length);
+        if (bytes.length > buffer.remaining()) {
+            /* Too large for buffer, write directly. */
+            if (isBackground()) {
+                root.pendingWrites.add(new PendingWrite(ByteBuffer.wrap(bytes.clone()), position));
+            } else {
+                writeFully(ByteBuffer.wrap(bytes), position);
+            }
+        } else {
+            buffer.put(bytes);
+        }
         position += bytes.length;
     }
 
     public void writeShort(final short value) {
-        UnsafeUtils.putShort(byteArrayBuffer, 0, value);
-        position += writeBytesFromBuffer(Short.BYTES);
+        ensureRemaining(Short.BYTES);
+        buffer.putShort(value);
+        position += Short.BYTES;
     }
 
     public void writeInt(final int value) {
-        UnsafeUtils.putInt(byteArrayBuffer, 0, value);
-        position += writeBytesFromBuffer(Integer.BYTES);
+        ensureRemaining(Integer.BYTES);
+        buffer.putInt(value);
+        position += Integer.BYTES;
     }
 
     public void writeLong(final long value) {
-        UnsafeUtils.putLong(byteArrayBuffer, 0, value);
-        position += writeBytesFromBuffer(Long.BYTES);
-    }
-
-    private int writeBytesFromBuffer(final int numberOfBytes) {
-        try {
-            stream.write(byteArrayBuffer, 0, numberOfBytes);
-        } catch (final IOException e) {
-            throw SqueakException.create("Failed to write bytes:", e.getMessage());
-        }
-        return numberOfBytes;
+        ensureRemaining(Long.BYTES);
+        buffer.putLong(value);
+        position += Long.BYTES;
     }
 
     public void writePadding(final int byteLength) {
-        try {
-            for (int i = 0; i < byteLength; i++) {
-                stream.write(0);
-            }
-        } catch (final IOException e) {
-            throw SqueakException.create("Failed to write padding bytes:", e);
+        ensureRemaining(byteLength);
+        for (int i = 0; i < byteLength; i++) {
+            buffer.put((byte) 0);
         }
         position += byteLength;
     }
@@ -432,7 +843,7 @@ public final class SqueakImageWriter {
     }
 
     public void writeObjectIfTracedElseNil(final Object object) {
-        writeLong(toWord(oopMap.containsKey(object) ? object : NilObject.SINGLETON));
+        writeLong(toWord(oopTable.containsKey(object) ? object : NilObject.SINGLETON));
     }
 
     private static long toTaggedCharacter(final long value) {
@@ -468,9 +879,9 @@ public final class SqueakImageWriter {
         }
     }
 
-    private void closeStream() {
+    private void closeChannel() {
         try {
-            stream.close();
+            channel.close();
         } catch (final IOException e) {
             throw SqueakException.create("Failed to close file:", e.getMessage());
         }
@@ -20,7 +20,7 @@ public final class SqueakFileDetector implements TruffleFile.FileTypeDetector {
         final String fileName = file.getName();
         if (fileName == null) {
             return null;
-        } else if (fileName.endsWith(".image")) {
+        } else if (fileName.endsWith(".image") || fileName.endsWith(".image.gz")) {
             return SqueakLanguageConfig.MIME_TYPE;
         } else if (fileName.endsWith(".st")) {
             return SqueakLanguageConfig.ST_MIME_TYPE;
@@ -100,6 +100,7 @@ public abstract class AbstractPointersObject extends AbstractSqueakObjectWithCla
 
     public final void copyLayoutValuesFrom(final AbstractPointersObject anotherObject) {
         assert layout == anotherObject.layout;
+        markModified();
         primitiveUsedMap = anotherObject.primitiveUsedMap;
         primitive0 = anotherObject.primitive0;
         primitive1 = anotherObject.primitive1;
@@ -322,26 +323,34 @@ public abstract class AbstractPointersObject extends AbstractSqueakObjectWithCla
     }
 
     protected final void layoutValuesBecomeOneWay(final Object[] from, final Object[] to) {
+        boolean changed = false;
         for (int i = 0; i < from.length; i++) {
             final Object fromPointer = from[i];
             if (object0 == fromPointer) {
                 object0 = to[i];
+                changed = true;
             }
             if (object1 == fromPointer) {
                 object1 = to[i];
+                changed = true;
             }
             if (object2 == fromPointer) {
                 object2 = to[i];
+                changed = true;
             }
             if (objectExtension != null) {
                 for (int j = 0; j < objectExtension.length; j++) {
                     final Object object = objectExtension[j];
                     if (object == fromPointer) {
                         objectExtension[j] = to[i];
+                        changed = true;
                     }
                 }
             }
         }
+        if (changed) {
+            markModified();
+        }
     }
 
     @Override
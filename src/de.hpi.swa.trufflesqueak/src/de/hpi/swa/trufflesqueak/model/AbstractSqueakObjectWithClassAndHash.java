@@ -6,6 +6,9 @@
  */
 package de.hpi.swa.trufflesqueak.model;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
 import com.oracle.truffle.api.CompilerAsserts;
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.profiles.BranchProfile;
@@ -18,6 +21,7 @@ import de.hpi.swa.trufflesqueak.image.SqueakImageWriter;
 import de.hpi.swa.trufflesqueak.interop.LookupMethodByStringNode;
 import de.hpi.swa.trufflesqueak.nodes.dispatch.DispatchUneagerlyNode;
 import de.hpi.swa.trufflesqueak.util.ArrayUtils;
+import de.hpi.swa.trufflesqueak.util.InstanceRegistry;
 import de.hpi.swa.trufflesqueak.util.ObjectGraphUtils.ObjectTracer;
 
 public abstract class AbstractSqueakObjectWithClassAndHash extends AbstractSqueakObject {
@@ -25,9 +29,26 @@ public abstract class AbstractSqueakObjectWithClassAndHash extends AbstractSquea
     /* Generate new hash if hash is 0 (see SpurMemoryManager>>#hashBitsOf:). */
     public static final int HASH_UNINITIALIZED = 0;
 
+    /* For marking objects from multiple threads (see ObjectGraphUtils). */
+    private static final VarHandle MARKING_FLAG;
+    /* For recording modified objects exactly once without locking (see markModified). */
+    private static final VarHandle IS_MODIFIED;
+
+    static {
+        try {
+            MARKING_FLAG = MethodHandles.lookup().findVarHandle(AbstractSqueakObjectWithClassAndHash.class, "markingFlag", boolean.class);
+            IS_MODIFIED = MethodHandles.lookup().findVarHandle(AbstractSqueakObjectWithClassAndHash.class, "isModified", boolean.class);
+        } catch (final ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
     private int squeakHash;
     private ClassObject squeakClass;
     private boolean markingFlag;
+    private boolean isModified;
+    /* Target of a lazy one-way become (see ForwardingPointers), null if not forwarded. */
+    private Object forwardedTo;
 
     // For special/well-known objects only.
     protected AbstractSqueakObjectWithClassAndHash(final SqueakImageContext image) {
@@ -48,12 +69,14 @@ public abstract class AbstractSqueakObjectWithClassAndHash extends AbstractSquea
         squeakHash = hash;
         squeakClass = klass;
         this.markingFlag = markingFlag;
+        InstanceRegistry.register(this);
     }
 
     protected AbstractSqueakObjectWithClassAndHash(final AbstractSqueakObjectWithClassAndHash original) {
         squeakHash = HASH_UNINITIALIZED;
         squeakClass = original.squeakClass;
         markingFlag = original.markingFlag;
+        InstanceRegistry.register(this);
     }
 
     @Override
@@ -75,7 +98,11 @@ public abstract class AbstractSqueakObjectWithClassAndHash extends AbstractSquea
     }
 
     public final void setSqueakClass(final ClassObject newClass) {
-        squeakClass = newClass;
+        markModified();
+        if (squeakClass != newClass) {
+            squeakClass = newClass;
+            InstanceRegistry.register(this);
+        }
     }
 
     public final void becomeOtherClass(final AbstractSqueakObjectWithClassAndHash other) {
@@ -93,7 +120,11 @@ public abstract class AbstractSqueakObjectWithClassAndHash extends AbstractSquea
     @Override
     public final long getSqueakHash() {
         if (needsSqueakHash()) {
-            /** Lazily initialize squeakHash and derive value from hashCode. */
+            /*
+             * Lazily initialize squeakHash and derive value from hashCode. This is not a write:
+             * snapshots write the hashes of all objects, so only objects that are not on disk yet
+             * can have an uninitialized hash, and those are written as new objects.
+             */
             squeakHash = System.identityHashCode(this) & IDENTITY_HASH_MASK;
         }
         return squeakHash;
@@ -101,7 +132,7 @@ public abstract class AbstractSqueakObjectWithClassAndHash extends AbstractSquea
 
     public final long getSqueakHash(final BranchProfile needsHashProfile) {
         if (needsSqueakHash()) {
-            /** Lazily initialize squeakHash and derive value from hashCode. */
+            /* Lazily initialize squeakHash and derive value from hashCode (not a write, see above). */
             needsHashProfile.enter();
             squeakHash = System.identityHashCode(this) & IDENTITY_HASH_MASK;
         }
@@ -113,6 +144,7 @@ public abstract class AbstractSqueakObjectWithClassAndHash extends AbstractSquea
     }
 
     public final void setSqueakHash(final int newHash) {
+        markModified();
         squeakHash = newHash;
     }
 
@@ -124,6 +156,36 @@ public abstract class AbstractSqueakObjectWithClassAndHash extends AbstractSquea
         return markingFlag == currentMarkingFlag;
     }
 
+    public final boolean isForwarded() {
+        return forwardedTo != null;
+    }
+
+    public final Object getForwardedTo() {
+        return forwardedTo;
+    }
+
+    public final void setForwardedTo(final Object target) {
+        forwardedTo = target;
+    }
+
+    /* Write barrier, must be called by all operations that change the state of an object. */
+    public final void markModified() {
+        if (!isModified && squeakClass != null && squeakClass.getImage().isTrackingModifications()) {
+            markModifiedSlow();
+        }
+    }
+
+    @TruffleBoundary
+    private void markModifiedSlow() {
+        if (IS_MODIFIED.compareAndSet(this, false, true)) {
+            squeakClass.getImage().addModifiedObject(this);
+        }
+    }
+
+    public final void unmarkModified() {
+        isModified = false;
+    }
+
     @Override
     public String toString() {
         CompilerAsserts.neverPartOfCompilation();
@@ -160,12 +222,24 @@ public abstract class AbstractSqueakObjectWithClassAndHash extends AbstractSquea
         }
     }
 
+    /**
+     * Thread-safe variant of {@link #tryToMark(boolean)}: exactly one of multiple threads marking
+     * the same object succeeds.
+     *
+     * @return <tt>false</tt> if already marked, <tt>true</tt> otherwise
+     */
+    public final boolean tryToMarkAtomically(final boolean currentMarkingFlag) {
+        return markingFlag != currentMarkingFlag && MARKING_FLAG.compareAndSet(this, !currentMarkingFlag, currentMarkingFlag);
+    }
+
     @SuppressWarnings("unused")
     public void pointersBecomeOneWay(final Object[] from, final Object[] to) {
         // Do nothing by default.
     }
 
-    protected static final void pointersBecomeOneWay(final Object[] target, final Object[] from, final Object[] to) {
+    /* Returns true if at least one pointer has been replaced. */
+    protected static final boolean pointersBecomeOneWay(final Object[] target, final Object[] from, final Object[] to) {
+        boolean changed = false;
         for (int i = 0; i < from.length; i++) {
             final Object fromPointer = from[i];
             for (int j = 0; j < target.length; j++) {
@@ -173,9 +247,11 @@ public abstract class AbstractSqueakObjectWithClassAndHash extends AbstractSquea
                 if (newPointer == fromPointer) {
                     final Object toPointer = to[i];
                     target[j] = toPointer;
+                    changed = true;
                 }
             }
         }
+        return changed;
     }
 
     public void tracePointers(@SuppressWarnings("unused") final ObjectTracer objectTracer) {
@@ -19,6 +19,7 @@ import de.hpi.swa.trufflesqueak.image.SqueakImageWriter;
 import de.hpi.swa.trufflesqueak.nodes.accessing.ArrayObjectNodes.ArrayObjectSizeNode;
 import de.hpi.swa.trufflesqueak.nodes.accessing.ArrayObjectNodes.ArrayObjectWriteNode;
 import de.hpi.swa.trufflesqueak.util.ArrayUtils;
+import de.hpi.swa.trufflesqueak.util.ForwardingPointers;
 import de.hpi.swa.trufflesqueak.util.LogUtils;
 import de.hpi.swa.trufflesqueak.util.ObjectGraphUtils.ObjectTracer;
 import de.hpi.swa.trufflesqueak.util.UnsafeUtils;
@@ -106,11 +107,12 @@ public final class ArrayObject extends AbstractSqueakObjectWithClassAndHash {
 
     public void setByte(final long index, final byte value) {
         assert isBooleanType();
+        markModified();
         UnsafeUtils.putByte((byte[]) storage, index, value);
     }
 
     public int getBooleanLength() {
-        return getBooleanStorage().length;
+        return ((byte[]) storage).length;
     }
 
     public byte[] getBooleanStorage() {
@@ -125,11 +127,12 @@ public final class ArrayObject extends AbstractSqueakObjectWithClassAndHash {
 
     public void setChar(final long index, final char value) {
         assert isCharType();
+        markModified();
         UnsafeUtils.putChar((char[]) storage, index, value);
     }
 
     public int getCharLength() {
-        return getCharStorage().length;
+        return ((char[]) storage).length;
     }
 
     public char[] getCharStorage() {
@@ -144,11 +147,12 @@ public final class ArrayObject extends AbstractSqueakObjectWithClassAndHash {
 
     public void setDouble(final long index, final double value) {
         assert isDoubleType();
+        markModified();
         UnsafeUtils.putDouble((double[]) storage, index, value);
     }
 
     public int getDoubleLength() {
-        return getDoubleStorage().length;
+        return ((double[]) storage).length;
     }
 
     public double[] getDoubleStorage() {
@@ -172,11 +176,12 @@ public final class ArrayObject extends AbstractSqueakObjectWithClassAndHash {
 
     public void setLong(final long index, final long value) {
         assert isLongType();
+        markModified();
         UnsafeUtils.putLong((long[]) storage, index, value);
     }
 
     public int getLongLength() {
-        return getLongStorage().length;
+        return ((long[]) storage).length;
     }
 
     public long[] getLongStorage() {
@@ -186,16 +191,17 @@ public final class ArrayObject extends AbstractSqueakObjectWithClassAndHash {
 
     public Object getObject(final long index) {
         assert isObjectType();
-        return UnsafeUtils.getObject((Object[]) storage, index);
+        return ForwardingPointers.resolve(UnsafeUtils.getObject((Object[]) storage, index));
     }
 
     public void setObject(final long index, final Object value) {
         assert isObjectType();
+        markModified();
         UnsafeUtils.putObject((Object[]) storage, index, value);
     }
 
     public int getObjectLength() {
-        return getObjectStorage().length;
+        return ((Object[]) storage).length;
     }
 
     public Object[] getObjectStorage() {
@@ -255,6 +261,7 @@ public final class ArrayObject extends AbstractSqueakObjectWithClassAndHash {
     }
 
     public void setStorage(final Object newStorage) {
+        markModified();
         storage = newStorage;
     }
 
@@ -284,7 +291,7 @@ public final class ArrayObject extends AbstractSqueakObjectWithClassAndHash {
 
     public void transitionFromBooleansToObjects(final BranchProfile isNilTagProfile) {
         LogUtils.ARRAY_STATEGIES.finer("transition from Booleans to Objects");
-        final byte[] booleans = getBooleanStorage();
+        final byte[] booleans = (byte[]) storage;
         final Object[] objects = new Object[booleans.length];
         for (int i = 0; i < booleans.length; i++) {
             objects[i] = toObjectFromBoolean(booleans[i], isNilTagProfile);
@@ -294,7 +301,7 @@ public final class ArrayObject extends AbstractSqueakObjectWithClassAndHash {
 
     public void transitionFromCharsToObjects(final ConditionProfile isNilTagProfile) {
         LogUtils.ARRAY_STATEGIES.finer("transition from Chars to Objects");
-        final char[] chars = getCharStorage();
+        final char[] chars = (char[]) storage;
         final Object[] objects = new Object[chars.length];
         for (int i = 0; i < chars.length; i++) {
             objects[i] = toObjectFromChar(chars[i], isNilTagProfile);
@@ -304,7 +311,7 @@ public final class ArrayObject extends AbstractSqueakObjectWithClassAndHash {
 
     public void transitionFromDoublesToObjects(final ConditionProfile isNilTagProfile) {
         LogUtils.ARRAY_STATEGIES.finer("transition from Doubles to Objects");
-        final double[] doubles = getDoubleStorage();
+        final double[] doubles = (double[]) storage;
         final Object[] objects = new Object[doubles.length];
         for (int i = 0; i < doubles.length; i++) {
             objects[i] = toObjectFromDouble(doubles[i], isNilTagProfile);
@@ -341,7 +348,7 @@ public final class ArrayObject extends AbstractSqueakObjectWithClassAndHash {
 
     public void transitionFromLongsToObjects(final ConditionProfile isNilTagProfile) {
         LogUtils.ARRAY_STATEGIES.finer("transition from Longs to Objects");
-        final long[] longs = getLongStorage();
+        final long[] longs = (long[]) storage;
         final Object[] objects = new Object[longs.length];
         for (int i = 0; i < longs.length; i++) {
             objects[i] = toObjectFromLong(longs[i], isNilTagProfile);
@@ -351,15 +358,15 @@ public final class ArrayObject extends AbstractSqueakObjectWithClassAndHash {
 
     @Override
     public void pointersBecomeOneWay(final Object[] from, final Object[] to) {
-        if (isObjectType()) {
-            pointersBecomeOneWay(getObjectStorage(), from, to);
+        if (isObjectType() && pointersBecomeOneWay((Object[]) storage, from, to)) {
+            markModified();
         }
     }
 
     @Override
     public void tracePointers(final ObjectTracer tracer) {
         if (isObjectType()) {
-            for (final Object value : getObjectStorage()) {
+            for (final Object value : (Object[]) storage) {
                 tracer.addIfUnmarked(value);
             }
         }
@@ -369,7 +376,7 @@ public final class ArrayObject extends AbstractSqueakObjectWithClassAndHash {
     public void trace(final SqueakImageWriter writer) {
         super.trace(writer);
         if (isObjectType()) {
-            writer.traceAllIfNecessary(getObjectStorage());
+            writer.traceAllIfNecessary((Object[]) storage);
         }
     }
 
@@ -383,7 +390,7 @@ public final class ArrayObject extends AbstractSqueakObjectWithClassAndHash {
                 writer.writeNil();
             }
         } else if (isBooleanType()) {
-            for (final byte item : getBooleanStorage()) {
+            for (final byte item : (byte[]) storage) {
                 if (item == BOOLEAN_FALSE_TAG) {
                     writer.writeFalse();
                 } else if (item == BOOLEAN_TRUE_TAG) {
@@ -394,7 +401,7 @@ public final class ArrayObject extends AbstractSqueakObjectWithClassAndHash {
                 }
             }
         } else if (isCharType()) {
-            for (final char item : getCharStorage()) {
+            for (final char item : (char[]) storage) {
                 if (isCharNilTag(item)) {
                     writer.writeNil();
                 } else {
@@ -402,7 +409,7 @@ public final class ArrayObject extends AbstractSqueakObjectWithClassAndHash {
                 }
             }
         } else if (isDoubleType()) {
-            for (final double item : getDoubleStorage()) {
+            for (final double item : (double[]) storage) {
                 if (isDoubleNilTag(item)) {
                     writer.writeNil();
                 } else {
@@ -410,7 +417,7 @@ public final class ArrayObject extends AbstractSqueakObjectWithClassAndHash {
                 }
             }
         } else if (isLongType()) {
-            for (final long item : getLongStorage()) {
+            for (final long item : (long[]) storage) {
                 if (isLongNilTag(item)) {
                     writer.writeNil();
                 } else {
@@ -418,7 +425,7 @@ public final class ArrayObject extends AbstractSqueakObjectWithClassAndHash {
                 }
             }
         } else if (isObjectType()) {
-            writer.writeObjects(getObjectStorage());
+            writer.writeObjects((Object[]) storage);
         }
     }
 
@@ -430,7 +437,7 @@ public final class ArrayObject extends AbstractSqueakObjectWithClassAndHash {
         writer.writeLong(numSlots | SqueakImageConstants.SLOTS_MASK);
         writer.writeObjectHeader(SqueakImageConstants.OVERFLOW_SLOTS, 0, getSqueakClass().getInstanceSpecification(), 0, SqueakImageConstants.ARRAY_CLASS_INDEX_PUN);
         /* Write content. */
-        for (final Object item : getObjectStorage()) {
+        for (final Object item : (Object[]) storage) {
             writer.writeObject(item);
         }
     }
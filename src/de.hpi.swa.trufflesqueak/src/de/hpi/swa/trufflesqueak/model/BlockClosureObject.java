@@ -18,6 +18,7 @@ import de.hpi.swa.trufflesqueak.image.SqueakImageContext;
 import de.hpi.swa.trufflesqueak.image.SqueakImageWriter;
 import de.hpi.swa.trufflesqueak.model.layout.ObjectLayouts.BLOCK_CLOSURE;
 import de.hpi.swa.trufflesqueak.util.ArrayUtils;
+import de.hpi.swa.trufflesqueak.util.ForwardingPointers;
 import de.hpi.swa.trufflesqueak.util.ObjectGraphUtils.ObjectTracer;
 
 public final class BlockClosureObject extends AbstractSqueakObjectWithClassAndHash {
@@ -111,10 +112,11 @@ public final class BlockClosureObject extends AbstractSqueakObjectWithClassAndHa
     }
 
     public Object getCopiedValue(final int index) {
-        return copiedValues[index];
+        return ForwardingPointers.resolve(copiedValues[index]);
     }
 
     public Object[] getCopiedValues() {
+        ForwardingPointers.resolveAll(copiedValues);
         return copiedValues;
     }
 
@@ -127,45 +129,53 @@ public final class BlockClosureObject extends AbstractSqueakObjectWithClassAndHa
             CompilerDirectives.transferToInterpreterAndInvalidate();
             receiver = getOuterContextOrNull().getReceiver();
         }
-        return receiver;
+        return ForwardingPointers.resolve(receiver);
     }
 
     public void setReceiver(final Object value) {
         CompilerDirectives.transferToInterpreterAndInvalidate();
+        markModified();
         receiver = value;
     }
 
     public void setOuterContext(final ContextObject outerContext) {
         CompilerDirectives.transferToInterpreterAndInvalidate();
+        markModified();
         this.outerContext = outerContext;
     }
 
     public void removeOuterContext() {
         CompilerDirectives.transferToInterpreterAndInvalidate();
+        markModified();
         outerContext = null;
     }
 
     public void setStartPC(final int pc) {
         CompilerDirectives.transferToInterpreterAndInvalidate();
+        markModified();
         startPC = pc;
     }
 
     public void setBlock(final CompiledCodeObject value) {
         CompilerDirectives.transferToInterpreterAndInvalidate();
+        markModified();
         block = value;
     }
 
     public void setNumArgs(final int numArgs) {
         CompilerDirectives.transferToInterpreterAndInvalidate();
+        markModified();
         this.numArgs = numArgs;
     }
 
     public void setCopiedValue(final int index, final Object value) {
+        markModified();
         copiedValues[index] = value;
     }
 
     public void setCopiedValues(final Object[] copied) {
         CompilerDirectives.transferToInterpreterAndInvalidate();
+        markModified();
         copiedValues = copied;
     }
 
@@ -277,10 +287,10 @@ public final class BlockClosureObject extends AbstractSqueakObjectWithClassAndHa
         for (int i = 0; i < from.length; i++) {
             final Object fromPointer = from[i];
             if (receiver == fromPointer) {
-                receiver = to[i];
+                setReceiver(to[i]);
             }
             if (block == fromPointer && to[i] instanceof CompiledCodeObject) {
-                block = (CompiledCodeObject) to[i];
+                setBlock((CompiledCodeObject) to[i]);
             }
             if (outerContext == fromPointer && fromPointer != to[i] && to[i] instanceof ContextObject) {
                 setOuterContext((ContextObject) to[i]);
@@ -288,7 +298,7 @@ public final class BlockClosureObject extends AbstractSqueakObjectWithClassAndHa
             for (int j = 0; j < copiedValues.length; j++) {
                 final Object copiedValue = copiedValues[j];
                 if (copiedValue == fromPointer) {
-                    copiedValues[j] = to[i];
+                    setCopiedValue(j, to[i]);
                 }
             }
         }
@@ -7,6 +7,7 @@
 package de.hpi.swa.trufflesqueak.model;
 
 import java.util.Arrays;
+import java.util.IdentityHashMap;
 
 import com.oracle.truffle.api.Assumption;
 import com.oracle.truffle.api.CompilerDirectives;
@@ -28,6 +29,8 @@ import de.hpi.swa.trufflesqueak.model.layout.ObjectLayouts.METHOD_DICT;
 import de.hpi.swa.trufflesqueak.model.layout.ObjectLayouts.SPECIAL_OBJECT;
 import de.hpi.swa.trufflesqueak.nodes.accessing.AbstractPointersObjectNodes.AbstractPointersObjectReadNode;
 import de.hpi.swa.trufflesqueak.util.ArrayUtils;
+import de.hpi.swa.trufflesqueak.util.ForwardingPointers;
+import de.hpi.swa.trufflesqueak.util.InstanceRegistry.ClassInstances;
 import de.hpi.swa.trufflesqueak.util.ObjectGraphUtils.ObjectTracer;
 
 /*
@@ -50,6 +53,11 @@ public final class ClassObject extends AbstractSqueakObjectWithClassAndHash {
     private Object[] pointers;
 
     @CompilationFinal private ObjectLayout layout;
+    /* Only used if the instance registry is enabled. */
+    private ClassInstances registeredInstances;
+    /* Only used for large method dictionaries (see lookupInMethodDictSlow). */
+    private MethodDictIndex methodDictIndex;
+    private int unindexedLookupEpoch = -1;
 
     public ClassObject(final SqueakImageContext image) {
         super(image);
@@ -282,6 +290,7 @@ public final class ClassObject extends AbstractSqueakObjectWithClassAndHash {
 
     public void setFormat(final long format) {
         classFormatStable().invalidate();
+        markModified();
         this.format = format;
     }
 
@@ -344,6 +353,7 @@ public final class ClassObject extends AbstractSqueakObjectWithClassAndHash {
     }
 
     public void setInstanceVariables(final ArrayObject instanceVariables) {
+        markModified();
         this.instanceVariables = instanceVariables;
     }
 
@@ -356,14 +366,16 @@ public final class ClassObject extends AbstractSqueakObjectWithClassAndHash {
     }
 
     public void setOrganization(final PointersObject organization) {
+        markModified();
         this.organization = organization;
     }
 
     public Object getOtherPointer(final int index) {
-        return pointers[index - CLASS_DESCRIPTION.SIZE];
+        return ForwardingPointers.resolve(pointers[index - CLASS_DESCRIPTION.SIZE]);
     }
 
     public void setOtherPointer(final int index, final Object value) {
+        markModified();
         pointers[index - CLASS_DESCRIPTION.SIZE] = value;
     }
 
@@ -372,6 +384,7 @@ public final class ClassObject extends AbstractSqueakObjectWithClassAndHash {
     }
 
     private void setOtherPointers(final Object[] pointers) {
+        markModified();
         this.pointers = pointers;
     }
 
@@ -379,13 +392,22 @@ public final class ClassObject extends AbstractSqueakObjectWithClassAndHash {
         return format;
     }
 
+    public synchronized ClassInstances getRegisteredInstances() {
+        if (registeredInstances == null) {
+            registeredInstances = image.instanceRegistry.createClassInstances(this);
+        }
+        return registeredInstances;
+    }
+
     public void setSuperclass(final ClassObject superclass) {
         classHierarchyStable().invalidate();
+        markModified();
         this.superclass = superclass;
     }
 
     public void setMethodDict(final VariablePointersObject methodDict) {
         methodDictStable().invalidate();
+        markModified();
         this.methodDict = methodDict;
     }
 
@@ -395,11 +417,9 @@ public final class ClassObject extends AbstractSqueakObjectWithClassAndHash {
         ClassObject lookupClass = this;
         while (lookupClass != null) {
             final VariablePointersObject methodDictionary = lookupClass.getMethodDict();
-            final Object[] methodDictVariablePart = methodDictionary.getVariablePart();
-            for (int i = 0; i < methodDictVariablePart.length; i++) {
-                if (selector == methodDictVariablePart[i]) {
-                    return readValuesNode.executeArray(methodDictionary, METHOD_DICT.VALUES).getObjectStorage()[i];
-                }
+            final int index = lookupClass.indexOfSelector(methodDictionary.getVariablePart(), selector);
+            if (index >= 0) {
+                return readValuesNode.executeArray(methodDictionary, METHOD_DICT.VALUES).getObjectStorage()[index];
             }
             lookupClass = lookupClass.getSuperclassOrNull();
         }
@@ -407,6 +427,36 @@ public final class ClassObject extends AbstractSqueakObjectWithClassAndHash {
         return null; /* Signals a doesNotUnderstand. */
     }
 
+    /* Returns the index of selector in the keys of the method dictionary, or -1 if absent. */
+    private int indexOfSelector(final Object[] keys, final NativeObject selector) {
+        if (keys.length < MethodDictIndex.MIN_SIZE) {
+            return ArrayUtils.indexOf(keys, selector);
+        }
+        final int epoch = image.getMethodLookupEpoch();
+        MethodDictIndex index = methodDictIndex;
+        if (index == null || !index.isValidFor(keys, epoch)) {
+            if (unindexedLookupEpoch != epoch) {
+                /* Only (re)build the index once lookups happen without cache flushes in between. */
+                unindexedLookupEpoch = epoch;
+                return ArrayUtils.indexOf(keys, selector);
+            }
+            index = methodDictIndex = new MethodDictIndex(keys, getMethodDictStable(), epoch);
+        }
+        final int i = index.get(selector);
+        if (i >= 0 && keys[i] == selector) {
+            return i;
+        }
+        /*
+         * Misses are verified, because keys may have been added or rearranged in place without a
+         * cache flush (e.g. through MethodDictionary>>at:put:).
+         */
+        final int actual = ArrayUtils.indexOf(keys, selector);
+        if (actual >= 0) {
+            methodDictIndex = null;
+        }
+        return actual;
+    }
+
     public CompiledCodeObject lookupMethodInMethodDictSlow(final NativeObject selector) {
         return (CompiledCodeObject) lookupInMethodDictSlow(selector);
     }
@@ -535,7 +585,9 @@ public final class ClassObject extends AbstractSqueakObjectWithClassAndHash {
                 setOrganization((PointersObject) to[i]);
             }
         }
-        pointersBecomeOneWay(getOtherPointers(), from, to);
+        if (pointersBecomeOneWay(getOtherPointers(), from, to)) {
+            markModified();
+        }
     }
 
     @Override
@@ -571,4 +623,41 @@ public final class ClassObject extends AbstractSqueakObjectWithClassAndHash {
         writer.writeObject(getOrganization());
         writer.writeObjects(getOtherPointers());
     }
+
+    /**
+     * Maps the selectors of a method dictionary to their indices, so that successful lookups in
+     * large method dictionaries need a single probe. Indices are rebuilt when the method
+     * dictionary stability assumption is invalidated, when its keys are replaced (e.g. on grow),
+     * and when the method cache is flushed (the image flushes the cache by selector whenever it
+     * adds or removes a method). Misses are verified with a linear scan.
+     */
+    private static final class MethodDictIndex {
+        private static final int MIN_SIZE = 32;
+
+        private final Object[] keys;
+        private final Assumption methodDictStable;
+        private final int epoch;
+        private final IdentityHashMap<Object, Integer> indices;
+
+        private MethodDictIndex(final Object[] keys, final Assumption methodDictStable, final int epoch) {
+            this.keys = keys;
+            this.methodDictStable = methodDictStable;
+            this.epoch = epoch;
+            indices = new IdentityHashMap<>(keys.length);
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] instanceof NativeObject) {
+                    indices.putIfAbsent(keys[i], i);
+                }
+            }
+        }
+
+        private boolean isValidFor(final Object[] currentKeys, final int currentEpoch) {
+            return keys == currentKeys && epoch == currentEpoch && methodDictStable.isValid();
+        }
+
+        private int get(final NativeObject selector) {
+            final Integer index = indices.get(selector);
+            return index == null ? -1 : index;
+        }
+    }
 }
@@ -46,6 +46,7 @@ import de.hpi.swa.trufflesqueak.nodes.primitives.PrimitiveNodeFactory;
 import de.hpi.swa.trufflesqueak.nodes.primitives.PrimitiveNodeFactory.ArgumentsLocation;
 import de.hpi.swa.trufflesqueak.shared.SqueakLanguageConfig;
 import de.hpi.swa.trufflesqueak.util.ArrayUtils;
+import de.hpi.swa.trufflesqueak.util.ForwardingPointers;
 import de.hpi.swa.trufflesqueak.util.MiscUtils;
 import de.hpi.swa.trufflesqueak.util.ObjectGraphUtils.ObjectTracer;
 import de.hpi.swa.trufflesqueak.util.UnsafeUtils;
@@ -88,6 +89,11 @@ public final class CompiledCodeObject extends AbstractSqueakObjectWithClassAndHa
     @CompilationFinal private Assumption doesNotNeedSender;
     @CompilationFinal private RootCallTarget resumptionCallTarget;
 
+    /* Usage tracking for the IdleCodeEvictor. */
+    private boolean usedSinceLastSweep;
+    private boolean isRegisteredForEviction;
+    private int lastUsedEpoch;
+
     @TruffleBoundary
     public CompiledCodeObject(final SqueakImageContext image, final int hash, final ClassObject classObject) {
         super(image, hash, classObject);
@@ -159,6 +165,7 @@ public final class CompiledCodeObject extends AbstractSqueakObjectWithClassAndHa
 
     private void setLiteralsAndBytes(final Object[] literals, final byte[] bytes) {
         CompilerDirectives.transferToInterpreterAndInvalidate();
+        markModified();
         this.literals = literals;
         decodeHeader();
         this.bytes = bytes;
@@ -212,7 +219,8 @@ public final class CompiledCodeObject extends AbstractSqueakObjectWithClassAndHa
 
     private void initializeCallTargetUnsafe() {
         CompilerAsserts.neverPartOfCompilation();
-        final SqueakLanguage language = SqueakImageContext.getSlow().getLanguage();
+        final SqueakImageContext image = SqueakImageContext.getSlow();
+        final SqueakLanguage language = image.getLanguage();
         final RootNode rootNode;
         if (hasPrimitive() && PrimitiveNodeFactory.isNonFailing(this)) {
             final AbstractPrimitiveNode primitiveNode = PrimitiveNodeFactory.getOrCreateIndexedOrNamed(this, ArgumentsLocation.IN_FRAME_ARGUMENTS);
@@ -222,6 +230,42 @@ public final class CompiledCodeObject extends AbstractSqueakObjectWithClassAndHa
             rootNode = new StartContextRootNode(language, this);
         }
         callTarget = rootNode.getCallTarget();
+        registerForEviction(image);
+    }
+
+    private void registerForEviction(final SqueakImageContext image) {
+        if (!isRegisteredForEviction && image.getCodeEvictor() != null) {
+            isRegisteredForEviction = true;
+            lastUsedEpoch = image.getCodeEvictor().register(this);
+        }
+    }
+
+    /* Only writes the flag once per sweep, so that hot activations do not store on every call. */
+    public void markUsed() {
+        if (!usedSinceLastSweep) {
+            usedSinceLastSweep = true;
+        }
+    }
+
+    /*
+     * Drops the call targets if this code has not been used for maxIdleEpochs sweeps of the
+     * IdleCodeEvictor. Invalidating callTargetStable releases the call targets from the caches of
+     * all callers, and the call targets are rebuilt on demand. Activations on the stack keep their
+     * ASTs until they return.
+     */
+    public boolean evictCallTargetsIfIdle(final int epoch, final int maxIdleEpochs) {
+        CompilerAsserts.neverPartOfCompilation();
+        if (usedSinceLastSweep) {
+            usedSinceLastSweep = false;
+            lastUsedEpoch = epoch;
+            return false;
+        } else if (epoch - lastUsedEpoch < maxIdleEpochs) {
+            return false;
+        }
+        invalidateCallTarget();
+        resumptionCallTarget = null;
+        isRegisteredForEviction = false;
+        return true;
     }
 
     public void flushCache() {
@@ -253,7 +297,9 @@ public final class CompiledCodeObject extends AbstractSqueakObjectWithClassAndHa
     public RootCallTarget getResumptionCallTarget(final ContextObject context) {
         if (resumptionCallTarget == null) {
             CompilerDirectives.transferToInterpreterAndInvalidate();
-            resumptionCallTarget = ResumeContextRootNode.create(SqueakImageContext.getSlow().getLanguage(), context).getCallTarget();
+            final SqueakImageContext image = SqueakImageContext.getSlow();
+            resumptionCallTarget = ResumeContextRootNode.create(image.getLanguage(), context).getCallTarget();
+            registerForEviction(image);
         } else {
             final ResumeContextRootNode resumeNode = (ResumeContextRootNode) resumptionCallTarget.getRootNode();
             if (resumeNode.getActiveContext() != context) {
@@ -327,6 +373,14 @@ public final class CompiledCodeObject extends AbstractSqueakObjectWithClassAndHa
         return getDecoder().decodeBytecode(frame, this, pc);
     }
 
+    public int bytecodeNumBytesAt(final int pc) {
+        return getDecoder().decodeNumBytes(this, pc);
+    }
+
+    public boolean isStackDependentBytecodeAt(final int pc) {
+        return getDecoder().isStackDependent(this, pc);
+    }
+
     public int findLineNumber(final int index) {
         return getDecoder().findLineNumber(this, index);
     }
@@ -374,6 +428,7 @@ public final class CompiledCodeObject extends AbstractSqueakObjectWithClassAndHa
         final int index = (int) longIndex;
         assert index >= 0;
         CompilerDirectives.transferToInterpreterAndInvalidate();
+        markModified();
         if (index < getBytecodeOffset()) {
             assert index % SqueakImageConstants.WORD_SIZE == 0;
             setLiteral(index / SqueakImageConstants.WORD_SIZE, obj);
@@ -392,12 +447,13 @@ public final class CompiledCodeObject extends AbstractSqueakObjectWithClassAndHa
     }
 
     public Object getLiteral(final long longIndex) {
-        return literals[(int) (1 + longIndex)]; // +1 for skipping header.
+        return ForwardingPointers.resolve(literals[(int) (1 + longIndex)]); // +1 for skipping header.
     }
 
     public void setLiteral(final long longIndex, final Object obj) {
         final int index = (int) longIndex;
         CompilerDirectives.transferToInterpreterAndInvalidate();
+        markModified();
         if (index == 0) {
             assert obj instanceof Long;
             final int oldNumLiterals = numLiterals;
@@ -608,6 +664,7 @@ public final class CompiledCodeObject extends AbstractSqueakObjectWithClassAndHa
     }
 
     public void setHeader(final long header) {
+        markModified();
         numLiterals = CompiledCodeHeaderDecoder.getNumLiterals(header);
         literals = ArrayUtils.withAll(1 + numLiterals, NilObject.SINGLETON);
         // keep negative method headers in SmallInteger range
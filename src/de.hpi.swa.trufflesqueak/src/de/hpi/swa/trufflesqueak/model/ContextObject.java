@@ -8,6 +8,7 @@ package de.hpi.swa.trufflesqueak.model;
 
 import java.util.Arrays;
 
+import com.oracle.truffle.api.Assumption;
 import com.oracle.truffle.api.CallTarget;
 import com.oracle.truffle.api.CompilerAsserts;
 import com.oracle.truffle.api.CompilerDirectives;
@@ -31,6 +32,8 @@ import de.hpi.swa.trufflesqueak.nodes.accessing.AbstractPointersObjectNodes.Abst
 import de.hpi.swa.trufflesqueak.nodes.accessing.AbstractPointersObjectNodes.AbstractPointersObjectWriteNode;
 import de.hpi.swa.trufflesqueak.nodes.bytecodes.MiscellaneousBytecodes.CallPrimitiveNode;
 import de.hpi.swa.trufflesqueak.nodes.process.GetActiveProcessNode;
+import de.hpi.swa.trufflesqueak.util.ContextMaterializationProfiler;
+import de.hpi.swa.trufflesqueak.util.ContextMaterializationProfiler.Cause;
 import de.hpi.swa.trufflesqueak.util.FrameAccess;
 import de.hpi.swa.trufflesqueak.util.MiscUtils;
 import de.hpi.swa.trufflesqueak.util.ObjectGraphUtils.ObjectTracer;
@@ -254,7 +257,11 @@ public final class ContextObject extends AbstractSqueakObjectWithClassAndHash {
              * opened, example: `1/0`), except if the method is unwind marked or marked as exception
              * handler.
              */
-            methodOrBlock.getDoesNotNeedSenderAssumption().invalidate("Sender requested");
+            final Assumption doesNotNeedSender = methodOrBlock.getDoesNotNeedSenderAssumption();
+            if (doesNotNeedSender.isValid()) {
+                ContextMaterializationProfiler.record(methodOrBlock.getSqueakClass().getImage(), methodOrBlock, Cause.DOES_NOT_NEED_SENDER);
+                doesNotNeedSender.invalidate("Sender requested");
+            }
         }
         final ContextObject previousContext = value.getMaterializedContext();
         FrameAccess.setSender(getTruffleFrame(), previousContext);
@@ -288,10 +295,12 @@ public final class ContextObject extends AbstractSqueakObjectWithClassAndHash {
     }
 
     public void setSenderUnsafe(final AbstractSqueakObject value) {
+        markModified();
         FrameAccess.setSender(getOrCreateTruffleFrame(), value);
     }
 
     public void removeSender() {
+        markModified();
         if (hasModifiedSender) {
             hasModifiedSender = false;
         }
@@ -312,10 +321,12 @@ public final class ContextObject extends AbstractSqueakObjectWithClassAndHash {
     }
 
     public void setInstructionPointer(final int value) {
+        markModified();
         FrameAccess.setInstructionPointer(getTruffleFrame(), value);
     }
 
     public void removeInstructionPointer() {
+        markModified();
         FrameAccess.setInstructionPointer(getTruffleFrame(), NIL_PC_VALUE);
     }
 
@@ -325,6 +336,7 @@ public final class ContextObject extends AbstractSqueakObjectWithClassAndHash {
 
     public void setStackPointer(final int value) {
         assert 0 <= value && value <= getCodeObject().getSqueakContextSize() : value + " not between 0 and " + getCodeObject().getSqueakContextSize() + " in " + toString();
+        markModified();
         FrameAccess.setStackPointer(getOrCreateTruffleFrame(), value);
     }
 
@@ -337,6 +349,7 @@ public final class ContextObject extends AbstractSqueakObjectWithClassAndHash {
     }
 
     public void setCodeObject(final CompiledCodeObject value) {
+        markModified();
         FrameAccess.setCodeObject(getOrCreateTruffleFrame(value), value);
         methodOrBlock = value;
     }
@@ -357,6 +370,7 @@ public final class ContextObject extends AbstractSqueakObjectWithClassAndHash {
 
     @TruffleBoundary
     public void setClosure(final BlockClosureObject value) {
+        markModified();
         final MaterializedFrame oldFrame = getOrCreateTruffleFrame();
         final int pc = FrameAccess.getInstructionPointer(oldFrame);
         final int sp = FrameAccess.getStackPointer(oldFrame);
@@ -390,6 +404,7 @@ public final class ContextObject extends AbstractSqueakObjectWithClassAndHash {
     }
 
     public void setReceiver(final Object value) {
+        markModified();
         FrameAccess.setReceiver(getOrCreateTruffleFrame(), value);
     }
 
@@ -405,6 +420,7 @@ public final class ContextObject extends AbstractSqueakObjectWithClassAndHash {
 
     @TruffleBoundary
     public void atTempPut(final int index, final Object value) {
+        markModified();
         final Object[] args = getOrCreateTruffleFrame().getArguments();
         if (FrameAccess.getArgumentStartIndex() + index < args.length) {
             args[FrameAccess.getArgumentStartIndex() + index] = value;
@@ -508,6 +524,7 @@ public final class ContextObject extends AbstractSqueakObjectWithClassAndHash {
     private void setFields(final MaterializedFrame otherTruffleFrame, final CompiledCodeObject otherMethodOrBlock, final int otherSize, final boolean otherHasModifiedSender,
                     final boolean otherEscaped) {
         CompilerDirectives.transferToInterpreterAndInvalidate();
+        markModified();
         truffleFrame = otherTruffleFrame;
         methodOrBlock = otherMethodOrBlock;
         size = otherSize;
@@ -614,6 +631,7 @@ public final class ContextObject extends AbstractSqueakObjectWithClassAndHash {
                     final Object argument = arguments[j];
                     if (argument == fromPointer) {
                         arguments[j] = toPointer;
+                        markModified();
                     }
                 }
 
@@ -623,6 +641,7 @@ public final class ContextObject extends AbstractSqueakObjectWithClassAndHash {
                         final Object stackValue = truffleFrame.getObject(slotIndex);
                         if (fromPointer == stackValue) {
                             truffleFrame.setObject(slotIndex, toPointer);
+                            markModified();
                         }
                     }
                 });
@@ -59,11 +59,13 @@ public final class FloatObject extends AbstractSqueakObjectWithClassAndHash {
 
     public void setHigh(final long value) {
         assert 0 <= value && value <= NativeObject.INTEGER_MAX;
+        markModified();
         setWords(value, getLow());
     }
 
     public void setLow(final long value) {
         assert 0 <= value && value <= NativeObject.INTEGER_MAX;
+        markModified();
         setWords(getHigh(), value);
     }
 
@@ -77,6 +79,7 @@ public final class FloatObject extends AbstractSqueakObjectWithClassAndHash {
 
     public void setBytes(final byte[] bytes) {
         assert bytes.length == WORD_LENGTH * 4;
+        markModified();
         final int high = (bytes[3] & 0xff) << 24 | (bytes[2] & 0xff) << 16 | (bytes[1] & 0xff) << 8 | bytes[0] & 0xff;
         final int low = (bytes[7] & 0xff) << 24 | (bytes[6] & 0xff) << 16 | (bytes[5] & 0xff) << 8 | bytes[4] & 0xff;
         setWords(high, low);
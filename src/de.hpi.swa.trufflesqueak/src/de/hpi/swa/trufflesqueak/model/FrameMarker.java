@@ -9,6 +9,9 @@ package de.hpi.swa.trufflesqueak.model;
 import com.oracle.truffle.api.CompilerAsserts;
 import com.oracle.truffle.api.frame.MaterializedFrame;
 
+import de.hpi.swa.trufflesqueak.image.SqueakImageContext;
+import de.hpi.swa.trufflesqueak.util.ContextMaterializationProfiler;
+import de.hpi.swa.trufflesqueak.util.ContextMaterializationProfiler.Cause;
 import de.hpi.swa.trufflesqueak.util.FrameAccess;
 
 public final class FrameMarker {
@@ -27,7 +30,9 @@ public final class FrameMarker {
         } else {
             assert this == FrameAccess.getMarker(targetFrame) : "Frame does not match";
             final CompiledCodeObject code = FrameAccess.getMethodOrBlock(targetFrame);
-            return ContextObject.create(code.getSqueakClass().getImage(), targetFrame, code);
+            final SqueakImageContext image = code.getSqueakClass().getImage();
+            ContextMaterializationProfiler.record(image, code, Cause.SENDER);
+            return ContextObject.create(image, targetFrame, code);
         }
     }
 }
@@ -106,6 +106,7 @@ public final class LargeIntegerObject extends AbstractSqueakObjectWithClassAndHa
     @TruffleBoundary
     public void setNativeAt0(final SqueakImageContext image, final long index, final long value) {
         assert index < size() : "Illegal index: " + index;
+        markModified();
         assert 0 <= value && value <= NativeObject.BYTE_MAX : "Illegal value for LargeIntegerObject: " + value;
         final byte[] bytes;
         final byte[] bigIntegerBytes = toBigEndianBytes(integer);
@@ -131,6 +132,7 @@ public final class LargeIntegerObject extends AbstractSqueakObjectWithClassAndHa
     @TruffleBoundary
     public void replaceInternalValue(final LargeIntegerObject other) {
         assert size() == other.size();
+        markModified();
         integer = other.getSqueakClass() == getSqueakClass() ? other.integer : other.integer.negate();
         bitLength = integer.bitLength();
     }
@@ -138,12 +140,14 @@ public final class LargeIntegerObject extends AbstractSqueakObjectWithClassAndHa
     @TruffleBoundary
     public void setBytes(final SqueakImageContext image, final byte[] bytes) {
         assert size() == bytes.length;
+        markModified();
         integer = new BigInteger(isPositive(image) ? 1 : -1, ArrayUtils.swapOrderCopy(bytes));
         bitLength = integer.bitLength();
     }
 
     @TruffleBoundary
     public void setBytes(final SqueakImageContext image, final LargeIntegerObject src, final int srcPos, final int destPos, final int length) {
+        markModified();
         final byte[] bytes;
         final byte[] srcBytes = toBigEndianBytes(src.integer);
         final byte[] bigIntegerBytes = toBigEndianBytes(integer);
@@ -162,6 +166,7 @@ public final class LargeIntegerObject extends AbstractSqueakObjectWithClassAndHa
 
     @TruffleBoundary
     public void setBytes(final SqueakImageContext image, final byte[] srcBytes, final int srcPos, final int destPos, final int length) {
+        markModified();
         // destination bytes are big-endian, source bytes are not
         final byte[] bytes;
         final byte[] bigIntegerBytes = toBigEndianBytes(integer);
@@ -27,6 +27,7 @@ import de.hpi.swa.trufflesqueak.nodes.accessing.SqueakObjectClassNode;
 import de.hpi.swa.trufflesqueak.nodes.context.frame.GetOrCreateContextNode;
 import de.hpi.swa.trufflesqueak.nodes.dispatch.DispatchUneagerlyNode;
 import de.hpi.swa.trufflesqueak.util.ArrayUtils;
+import de.hpi.swa.trufflesqueak.util.ContextMaterializationProfiler.Cause;
 import de.hpi.swa.trufflesqueak.util.UnsafeUtils;
 
 public final class NativeObject extends AbstractSqueakObjectWithClassAndHash {
@@ -115,9 +116,9 @@ public final class NativeObject extends AbstractSqueakObjectWithClassAndHash {
             setStorage(chunk.getBytes());
         } else if (chunk.getImage().isHeadless() && isByteType()) {
             final SqueakImageContext image = chunk.getImage();
-            if (image.getDebugErrorSelector() == null && Arrays.equals(SqueakImageContext.DEBUG_ERROR_SELECTOR_NAME, getByteStorage())) {
+            if (image.getDebugErrorSelector() == null && Arrays.equals(SqueakImageContext.DEBUG_ERROR_SELECTOR_NAME, (byte[]) storage)) {
                 image.setDebugErrorSelector(this);
-            } else if (image.getDebugSyntaxErrorSelector() == null && Arrays.equals(SqueakImageContext.DEBUG_SYNTAX_ERROR_SELECTOR_NAME, getByteStorage())) {
+            } else if (image.getDebugSyntaxErrorSelector() == null && Arrays.equals(SqueakImageContext.DEBUG_SYNTAX_ERROR_SELECTOR_NAME, (byte[]) storage)) {
                 image.setDebugSyntaxErrorSelector(this);
             }
         }
@@ -162,7 +163,7 @@ public final class NativeObject extends AbstractSqueakObjectWithClassAndHash {
     }
 
     public NativeObject shallowCopyBytes() {
-        return new NativeObject(this, getByteStorage());
+        return new NativeObject(this, (byte[]) storage);
     }
 
     public void convertToBytesStorage(final byte[] bytes) {
@@ -196,6 +197,7 @@ public final class NativeObject extends AbstractSqueakObjectWithClassAndHash {
 
     public void setByte(final long index, final byte value) {
         assert isByteType();
+        markModified();
         UnsafeUtils.putByte((byte[]) storage, index, value);
     }
 
@@ -205,7 +207,7 @@ public final class NativeObject extends AbstractSqueakObjectWithClassAndHash {
     }
 
     public int getByteLength() {
-        return getByteStorage().length;
+        return ((byte[]) storage).length;
     }
 
     public byte[] getByteStorage() {
@@ -220,11 +222,12 @@ public final class NativeObject extends AbstractSqueakObjectWithClassAndHash {
 
     public void setInt(final long index, final int value) {
         assert isIntType();
+        markModified();
         UnsafeUtils.putInt((int[]) storage, index, value);
     }
 
     public int getIntLength() {
-        return getIntStorage().length;
+        return ((int[]) storage).length;
     }
 
     public int[] getIntStorage() {
@@ -239,11 +242,12 @@ public final class NativeObject extends AbstractSqueakObjectWithClassAndHash {
 
     public void setLong(final long index, final long value) {
         assert isLongType();
+        markModified();
         UnsafeUtils.putLong((long[]) storage, index, value);
     }
 
     public int getLongLength() {
-        return getLongStorage().length;
+        return ((long[]) storage).length;
     }
 
     public long[] getLongStorage() {
@@ -258,11 +262,12 @@ public final class NativeObject extends AbstractSqueakObjectWithClassAndHash {
 
     public void setShort(final long index, final short value) {
         assert isShortType();
+        markModified();
         UnsafeUtils.putShort((short[]) storage, index, value);
     }
 
     public int getShortLength() {
-        return getShortStorage().length;
+        return ((short[]) storage).length;
     }
 
     public short[] getShortStorage() {
@@ -288,6 +293,7 @@ public final class NativeObject extends AbstractSqueakObjectWithClassAndHash {
 
     public void setStorage(final Object storage) {
         CompilerDirectives.transferToInterpreterAndInvalidate();
+        markModified();
         this.storage = storage;
     }
 
@@ -298,7 +304,7 @@ public final class NativeObject extends AbstractSqueakObjectWithClassAndHash {
 
     @TruffleBoundary
     public String asStringFromWideString() {
-        final int[] ints = getIntStorage();
+        final int[] ints = (int[]) storage;
         return new String(ints, 0, ints.length);
     }
 
@@ -355,7 +361,7 @@ public final class NativeObject extends AbstractSqueakObjectWithClassAndHash {
         assert SqueakImageContext.getSlow().isByteSymbolClass(getSqueakClass());
         final Object method = LookupMethodNode.getUncached().executeLookup(SqueakObjectClassNode.getUncached().executeLookup(receiverAndArguments[0]), this);
         if (method instanceof CompiledCodeObject) {
-            return DispatchUneagerlyNode.getUncached().executeDispatch((CompiledCodeObject) method, receiverAndArguments, GetOrCreateContextNode.getOrCreateUncached(frame));
+            return DispatchUneagerlyNode.getUncached().executeDispatch((CompiledCodeObject) method, receiverAndArguments, GetOrCreateContextNode.getOrCreateUncached(frame, Cause.SENDER));
         } else {
             throw SqueakException.create("Illegal uncached message send");
         }
@@ -377,7 +383,7 @@ public final class NativeObject extends AbstractSqueakObjectWithClassAndHash {
             final int formatOffset = numSlots * BYTE_TO_WORD - getByteLength();
             assert 0 <= formatOffset && formatOffset <= 7 : "too many odd bits (see instSpec)";
             if (writeHeader(writer, formatOffset)) {
-                writer.writeBytes(getByteStorage());
+                writer.writeBytes((byte[]) storage);
                 writePaddingIfAny(writer, getByteLength());
             }
         } else if (isShortType()) {
@@ -385,7 +391,7 @@ public final class NativeObject extends AbstractSqueakObjectWithClassAndHash {
             final int formatOffset = numSlots * SHORT_TO_WORD - getShortLength();
             assert 0 <= formatOffset && formatOffset <= 3 : "too many odd bits (see instSpec)";
             if (writeHeader(writer, formatOffset)) {
-                for (final short value : getShortStorage()) {
+                for (final short value : (short[]) storage) {
                     writer.writeShort(value);
                 }
                 writePaddingIfAny(writer, getShortLength() * Short.BYTES);
@@ -395,7 +401,7 @@ public final class NativeObject extends AbstractSqueakObjectWithClassAndHash {
             final int formatOffset = numSlots * INTEGER_TO_WORD - getIntLength();
             assert 0 <= formatOffset && formatOffset <= 1 : "too many odd bits (see instSpec)";
             if (writeHeader(writer, formatOffset)) {
-                for (final int value : getIntStorage()) {
+                for (final int value : (int[]) storage) {
                     writer.writeInt(value);
                 }
                 writePaddingIfAny(writer, getIntLength() * Integer.BYTES);
@@ -404,7 +410,7 @@ public final class NativeObject extends AbstractSqueakObjectWithClassAndHash {
             if (!writeHeader(writer)) {
                 return;
             }
-            for (final long value : getLongStorage()) {
+            for (final long value : (long[]) storage) {
                 writer.writeLong(value);
             }
             /* Padding not required. */
@@ -428,7 +434,7 @@ public final class NativeObject extends AbstractSqueakObjectWithClassAndHash {
             /* Free list is of format 9 and pinned. */
             writer.writeLong(SqueakImageConstants.ObjectHeader.getHeader(numSlots, getSqueakHash(), 9, SqueakImageConstants.WORD_SIZE_CLASS_INDEX_PUN, true));
             /* Write content. */
-            for (final long value : getLongStorage()) {
+            for (final long value : (long[]) storage) {
                 writer.writeLong(value);
             }
         } else {
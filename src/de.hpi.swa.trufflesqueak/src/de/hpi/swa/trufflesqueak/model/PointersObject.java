@@ -57,6 +57,7 @@ public final class PointersObject extends AbstractPointersObject {
     }
 
     public void setHiddenObject(final Object value) {
+        markModified();
         object2 = value;
     }
 
@@ -72,6 +72,7 @@ public final class VariablePointersObject extends AbstractPointersObject {
     }
 
     public void putIntoVariablePart(final long index, final Object value) {
+        markModified();
         UnsafeUtils.putObject(variablePart, index, value);
     }
 
@@ -106,6 +106,7 @@ public final class WeakVariablePointersObject extends AbstractPointersObject {
     }
 
     public void putIntoVariablePart(final long index, final Object value, final ConditionProfile profile) {
+        markModified();
         UnsafeUtils.putObject(variablePart, index, profile.profile(value instanceof AbstractSqueakObject) ? new WeakRef((AbstractSqueakObject) value, weakPointersQueue) : value);
     }
 
@@ -152,7 +152,7 @@ public final class ObjectLayout {
         return maxPrimitiveField;
     }
 
-    private static boolean slotLocationsAreConsecutive(final SlotLocation[] locations) {
+    public static boolean slotLocationsAreConsecutive(final SlotLocation[] locations) {
         CompilerAsserts.neverPartOfCompilation();
         final int maxPrimitiveField = getHighestPrimitiveField(locations);
         final int maxObjectField = getHighestObjectField(locations);
@@ -18,6 +18,7 @@ import com.oracle.truffle.api.nodes.SlowPathException;
 import com.oracle.truffle.api.profiles.BranchProfile;
 import com.oracle.truffle.api.profiles.IntValueProfile;
 
+import de.hpi.swa.trufflesqueak.exceptions.SqueakExceptions.SqueakException;
 import de.hpi.swa.trufflesqueak.model.AbstractPointersObject;
 import de.hpi.swa.trufflesqueak.model.NilObject;
 import de.hpi.swa.trufflesqueak.util.ArrayUtils;
@@ -74,6 +75,59 @@ public abstract class SlotLocation {
         }
     }
 
+    /* Location kinds used by encode and decode. */
+    private static final int KIND_UNINITIALIZED = 0;
+    private static final int KIND_BOOL = 1;
+    private static final int KIND_CHAR = 2;
+    private static final int KIND_LONG = 3;
+    private static final int KIND_DOUBLE = 4;
+    private static final int KIND_OBJECT = 5;
+    private static final int KIND_BITS = 3;
+    private static final int KIND_MASK = (1 << KIND_BITS) - 1;
+
+    /**
+     * Encodes the kind and field index of a location as an int (used to persist layouts, see
+     * SqueakImageCache).
+     */
+    public static int encode(final SlotLocation location) {
+        final int kind;
+        if (location.isUninitialized()) {
+            return KIND_UNINITIALIZED;
+        } else if (location.isBool()) {
+            kind = KIND_BOOL;
+        } else if (location.isChar()) {
+            kind = KIND_CHAR;
+        } else if (location.isLong()) {
+            kind = KIND_LONG;
+        } else if (location.isDouble()) {
+            kind = KIND_DOUBLE;
+        } else {
+            assert location.isGeneric();
+            kind = KIND_OBJECT;
+        }
+        return location.getFieldIndex() << KIND_BITS | kind;
+    }
+
+    public static SlotLocation decode(final int encodedLocation) {
+        final int index = encodedLocation >>> KIND_BITS;
+        switch (encodedLocation & KIND_MASK) {
+            case KIND_UNINITIALIZED:
+                return UNINITIALIZED_LOCATION;
+            case KIND_BOOL:
+                return BOOL_LOCATIONS[index];
+            case KIND_CHAR:
+                return CHAR_LOCATIONS[index];
+            case KIND_LONG:
+                return LONG_LOCATIONS[index];
+            case KIND_DOUBLE:
+                return DOUBLE_LOCATIONS[index];
+            case KIND_OBJECT:
+                return getObjectLocation(index);
+            default:
+                throw SqueakException.create("Unknown slot location kind:", encodedLocation & KIND_MASK);
+        }
+    }
+
     public static SlotLocation getObjectLocation(final int index) {
         SlotLocation location = OBJECT_LOCATIONS.get(index);
         if (location == null) {
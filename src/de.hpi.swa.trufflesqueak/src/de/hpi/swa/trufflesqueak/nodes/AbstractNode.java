@@ -32,6 +32,11 @@ public abstract class AbstractNode extends Node {
         return SqueakImageContext.get(this);
     }
 
+    /* Limit of the inline caches of send sites (see --send-inline-cache-size). */
+    protected final int getSendInlineCacheSize() {
+        return getContext().options.sendInlineCacheSize;
+    }
+
     protected final boolean isBitmap(final NativeObject object) {
         return getContext().isBitmapClass(object.getSqueakClass());
     }
@@ -8,9 +8,11 @@ package de.hpi.swa.trufflesqueak.nodes;
 
 import com.oracle.truffle.api.CompilerAsserts;
 import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
 import com.oracle.truffle.api.frame.VirtualFrame;
 import com.oracle.truffle.api.instrumentation.StandardTags;
 import com.oracle.truffle.api.instrumentation.Tag;
+import com.oracle.truffle.api.nodes.BytecodeOSRNode;
 import com.oracle.truffle.api.nodes.ExplodeLoop;
 import com.oracle.truffle.api.nodes.LoopNode;
 import com.oracle.truffle.api.source.Source;
@@ -31,12 +33,14 @@ import de.hpi.swa.trufflesqueak.util.ArrayUtils;
 import de.hpi.swa.trufflesqueak.util.FrameAccess;
 import de.hpi.swa.trufflesqueak.util.LogUtils;
 
-public final class ExecuteBytecodeNode extends AbstractExecuteContextNode {
+public final class ExecuteBytecodeNode extends AbstractExecuteContextNode implements BytecodeOSRNode {
     private static final int LOCAL_RETURN_PC = -2;
 
     private final CompiledCodeObject code;
     private final int initialPC;
     private SourceSection section;
+    @CompilationFinal private Object osrMetadata;
+    @CompilationFinal private boolean needsEagerDecoding;
 
     @Child private AbstractPrimitiveNode primitiveNode;
     @Child private HandlePrimitiveFailedNode handlePrimitiveFailedNode;
@@ -47,6 +51,7 @@ public final class ExecuteBytecodeNode extends AbstractExecuteContextNode {
         this.code = code;
         initialPC = code.getInitialPC();
         bytecodeNodes = code.asBytecodeNodesEmpty();
+        needsEagerDecoding = code.getSqueakClass().getImage().options.isEagerBytecodeDecoding;
         if (code.hasPrimitive()) {
             primitiveNode = PrimitiveNodeFactory.getOrCreateIndexedOrNamed(code, ArgumentsLocation.IN_FRAME_ARGUMENTS);
             if (primitiveNode == null) {
@@ -65,6 +70,11 @@ public final class ExecuteBytecodeNode extends AbstractExecuteContextNode {
     @Override
     public Object execute(final VirtualFrame frame, final int startPC) {
         CompilerAsserts.partialEvaluationConstant(startPC);
+        if (needsEagerDecoding) {
+            CompilerDirectives.transferToInterpreterAndInvalidate();
+            needsEagerDecoding = false;
+            decodeEagerly(frame, startPC);
+        }
         try {
             if (primitiveNode != null && startPC == initialPC) {
                 try {
@@ -128,6 +138,14 @@ public final class ExecuteBytecodeNode extends AbstractExecuteContextNode {
                 final int successor = ((UnconditionalJumpNode) node).getSuccessorIndex();
                 if (CompilerDirectives.hasNextTier() && successor <= pc) {
                     backJumpCounter.value++;
+                    if (CompilerDirectives.inInterpreter() && canTransferToOSR(frame) && BytecodeOSRNode.pollOSRBackEdge(this)) {
+                        final Object osrReturnValue = BytecodeOSRNode.tryOSR(this, successor, null, null, frame);
+                        if (osrReturnValue != null) {
+                            returnValue = osrReturnValue;
+                            pc = LOCAL_RETURN_PC;
+                            continue bytecode_loop;
+                        }
+                    }
                 }
                 pc = successor;
                 continue bytecode_loop;
@@ -151,6 +169,32 @@ public final class ExecuteBytecodeNode extends AbstractExecuteContextNode {
         return returnValue;
     }
 
+    /*
+     * On-stack replacement: hot back jumps continue the activation in a compiled version of this
+     * node starting at the jump target. The OSR frame is a copy of the interpreter frame, which is
+     * restored once the activation returns or unwinds. Contexts reference the frame they were
+     * created for, so only activations without a context can be transferred. Contexts created
+     * during OSR reference the OSR frame, which remains consistent with the restored frame.
+     */
+    private static boolean canTransferToOSR(final VirtualFrame frame) {
+        return FrameAccess.getContext(frame) == null;
+    }
+
+    @Override
+    public Object executeOSR(final VirtualFrame osrFrame, final int target, final Object interpreterState) {
+        return interpretBytecode(osrFrame, target);
+    }
+
+    @Override
+    public Object getOSRMetadata() {
+        return osrMetadata;
+    }
+
+    @Override
+    public void setOSRMetadata(final Object osrMetadata) {
+        this.osrMetadata = osrMetadata;
+    }
+
     /**
      * Smaller than int[1], does not kill int[] on write and doesn't need bounds checks.
      */
@@ -170,6 +214,43 @@ public final class ExecuteBytecodeNode extends AbstractExecuteContextNode {
         return bytecodeNodes[pcZeroBased];
     }
 
+    /*
+     * Decodes all bytecodes reachable from startPC at once, so that the first execution of each
+     * bytecode does not need to invalidate. The decoding of some bytecodes depends on the values on
+     * the stack (see AbstractSqueakBytecodeDecoder#isStackDependent), these are still decoded when
+     * they are executed first.
+     */
+    private void decodeEagerly(final VirtualFrame frame, final int startPC) {
+        final int numBytecodes = bytecodeNodes.length;
+        final boolean[] visited = new boolean[numBytecodes];
+        final int[] worklist = new int[2 * numBytecodes + 1];
+        int worklistSize = 0;
+        worklist[worklistSize++] = startPC - initialPC;
+        while (worklistSize > 0) {
+            final int pc = worklist[--worklistSize];
+            if (pc < 0 || pc >= numBytecodes || visited[pc]) {
+                continue;
+            }
+            visited[pc] = true;
+            if (code.isStackDependentBytecodeAt(pc)) {
+                worklist[worklistSize++] = pc + code.bytecodeNumBytesAt(pc);
+                continue;
+            }
+            if (bytecodeNodes[pc] == null) {
+                bytecodeNodes[pc] = insert(code.bytecodeNodeAt(frame, pc));
+                notifyInserted(bytecodeNodes[pc]);
+            }
+            final AbstractBytecodeNode node = bytecodeNodes[pc];
+            if (node instanceof AbstractReturnNode) {
+                continue;
+            }
+            if (node instanceof ConditionalJumpNode) {
+                worklist[worklistSize++] = ((ConditionalJumpNode) node).getJumpSuccessorIndex() - initialPC;
+            }
+            worklist[worklistSize++] = node.getSuccessorIndex() - initialPC;
+        }
+    }
+
     private HandlePrimitiveFailedNode getHandlePrimitiveFailedNode() {
         if (handlePrimitiveFailedNode == null) {
             CompilerDirectives.transferToInterpreterAndInvalidate();
@@ -22,17 +22,22 @@ import de.hpi.swa.trufflesqueak.shared.SqueakLanguageConfig;
 @NodeInfo(language = SqueakLanguageConfig.ID, cost = NodeCost.NONE)
 public final class ExecuteNonFailingPrimitiveRootNode extends RootNode {
     private final CompiledCodeObject code;
+    private final boolean isEvictable;
 
     @Child private AbstractPrimitiveNode primitiveNode;
 
     public ExecuteNonFailingPrimitiveRootNode(final SqueakLanguage language, final CompiledCodeObject code, final AbstractPrimitiveNode primitiveNode) {
         super(language, code.getFrameDescriptor());
         this.code = code;
+        isEvictable = code.getSqueakClass().getImage().getCodeEvictor() != null;
         this.primitiveNode = primitiveNode;
     }
 
     @Override
     public Object execute(final VirtualFrame frame) {
+        if (isEvictable) {
+            code.markUsed();
+        }
         try {
             return primitiveNode.execute(frame);
         } catch (final PrimitiveFailed pf) {
@@ -89,6 +89,10 @@ public final class ExecuteTopLevelContextNode extends RootNode {
             assert activeContext.hasMaterializedSender() : "Context must have materialized sender: " + activeContext;
             final AbstractSqueakObject sender = activeContext.getSender();
             assert sender == NilObject.SINGLETON || ((ContextObject) sender).hasTruffleFrame();
+            if (image.forwardingPointers.hasForwarders()) {
+                /* Suspended contexts and their senders are not patched on lazy become. */
+                image.forwardingPointers.flush();
+            }
             try {
                 image.lastSeenContext = null;  // Reset materialization mechanism.
                 final Object result = callNode.call(activeContext.getCallTarget());
@@ -7,6 +7,7 @@
 package de.hpi.swa.trufflesqueak.nodes;
 
 import com.oracle.truffle.api.dsl.Cached;
+import com.oracle.truffle.api.dsl.ImportStatic;
 import com.oracle.truffle.api.dsl.Specialization;
 import com.oracle.truffle.api.frame.VirtualFrame;
 import com.oracle.truffle.api.profiles.ConditionProfile;
@@ -14,8 +15,10 @@ import com.oracle.truffle.api.profiles.ConditionProfile;
 import de.hpi.swa.trufflesqueak.image.SqueakImageContext;
 import de.hpi.swa.trufflesqueak.model.ContextObject;
 import de.hpi.swa.trufflesqueak.nodes.context.frame.GetOrCreateContextNode;
+import de.hpi.swa.trufflesqueak.util.ContextMaterializationProfiler.Cause;
 import de.hpi.swa.trufflesqueak.util.FrameAccess;
 
+@ImportStatic(Cause.class)
 public abstract class MaterializeContextOnMethodExitNode extends AbstractNode {
     public static MaterializeContextOnMethodExitNode create() {
         return MaterializeContextOnMethodExitNodeGen.create();
@@ -32,7 +35,7 @@ public abstract class MaterializeContextOnMethodExitNode extends AbstractNode {
     protected final void doMaterialize(final VirtualFrame frame,
                     @Cached final ConditionProfile isNotLastSeenContextProfile,
                     @Cached final ConditionProfile continueProfile,
-                    @Cached final GetOrCreateContextNode getOrCreateContextNode) {
+                    @Cached("create(ESCAPED_CALLEE)") final GetOrCreateContextNode getOrCreateContextNode) {
         final SqueakImageContext image = getContext();
         final ContextObject lastSeenContext = image.lastSeenContext;
         final ContextObject context = getOrCreateContextNode.executeGet(frame);
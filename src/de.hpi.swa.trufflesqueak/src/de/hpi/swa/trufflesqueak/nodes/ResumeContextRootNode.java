@@ -22,6 +22,7 @@ import de.hpi.swa.trufflesqueak.model.ContextObject;
 @NodeInfo(cost = NodeCost.NONE)
 public final class ResumeContextRootNode extends RootNode {
     private ContextObject activeContext;
+    private final boolean isEvictable;
     private final IntValueProfile instructionPointerProfile = IntValueProfile.createIdentityProfile();
 
     @Child private AbstractExecuteContextNode executeBytecodeNode;
@@ -29,6 +30,7 @@ public final class ResumeContextRootNode extends RootNode {
     protected ResumeContextRootNode(final SqueakLanguage language, final ContextObject context) {
         super(language, context.getTruffleFrame().getFrameDescriptor());
         activeContext = context;
+        isEvictable = SqueakImageContext.getSlow().getCodeEvictor() != null;
         assert !context.isDead() : "Terminated contexts cannot be resumed";
         executeBytecodeNode = new ExecuteBytecodeNode(context.getMethodOrBlock());
     }
@@ -41,6 +43,9 @@ public final class ResumeContextRootNode extends RootNode {
     public Object execute(final VirtualFrame frame) {
         try {
             assert !activeContext.isDead() : "Terminated contexts cannot be resumed";
+            if (isEvictable) {
+                activeContext.getMethodOrBlock().markUsed();
+            }
             final int pc = instructionPointerProfile.profile(activeContext.getInstructionPointerForBytecodeLoop());
             if (CompilerDirectives.isPartialEvaluationConstant(pc)) {
                 return executeBytecodeNode.execute(activeContext.getTruffleFrame(), pc);
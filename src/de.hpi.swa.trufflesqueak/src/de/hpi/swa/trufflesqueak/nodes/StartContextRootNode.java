@@ -26,37 +26,48 @@ import de.hpi.swa.trufflesqueak.nodes.context.frame.FrameStackWriteNode.FrameSlo
 import de.hpi.swa.trufflesqueak.nodes.context.frame.GetOrCreateContextNode;
 import de.hpi.swa.trufflesqueak.nodes.interrupts.CheckForInterruptsQuickNode;
 import de.hpi.swa.trufflesqueak.shared.SqueakLanguageConfig;
+import de.hpi.swa.trufflesqueak.util.ContextMaterializationProfiler.Cause;
 import de.hpi.swa.trufflesqueak.util.FrameAccess;
 
 @NodeInfo(language = SqueakLanguageConfig.ID, cost = NodeCost.NONE)
 public final class StartContextRootNode extends RootNode {
     private final CompiledCodeObject code;
+    private final boolean isEvictable;
     @CompilationFinal private int initialPC;
     @CompilationFinal private int initialSP;
 
     @Children private FrameStackWriteNode[] writeTempNodes;
     @Child private CheckForInterruptsQuickNode interruptHandlerNode;
     @Child private AbstractExecuteContextNode executeBytecodeNode;
-    @Child private GetOrCreateContextNode getOrCreateContextNode;
+    @Child private GetOrCreateContextNode getOrCreateContextOnNonVirtualReturnNode;
+    @Child private GetOrCreateContextNode getOrCreateContextOnProcessSwitchNode;
     @Child private MaterializeContextOnMethodExitNode materializeContextOnMethodExitNode = MaterializeContextOnMethodExitNode.create();
 
     public StartContextRootNode(final SqueakLanguage language, final CompiledCodeObject code) {
         super(language, code.getFrameDescriptor());
         this.code = code;
+        isEvictable = code.getSqueakClass().getImage().getCodeEvictor() != null;
         interruptHandlerNode = CheckForInterruptsQuickNode.create(code);
         executeBytecodeNode = new ExecuteBytecodeNode(code);
     }
 
     @Override
     public Object execute(final VirtualFrame frame) {
+        if (isEvictable) {
+            code.markUsed();
+        }
         initializeFrame(frame);
         try {
             interruptHandlerNode.execute(frame);
             return executeBytecodeNode.execute(frame, initialPC);
-        } catch (final NonVirtualReturn | ProcessSwitch nvr) {
-            /** {@link getGetOrCreateContextNode()} acts as {@link BranchProfile} */
-            getGetOrCreateContextNode().executeGet(frame).markEscaped();
+        } catch (final NonVirtualReturn nvr) {
+            /** {@link getGetOrCreateContextOnNonVirtualReturnNode()} acts as {@link BranchProfile} */
+            getGetOrCreateContextOnNonVirtualReturnNode().executeGet(frame).markEscaped();
             throw nvr;
+        } catch (final ProcessSwitch ps) {
+            /** {@link getGetOrCreateContextOnProcessSwitchNode()} acts as {@link BranchProfile} */
+            getGetOrCreateContextOnProcessSwitchNode().executeGet(frame).markEscaped();
+            throw ps;
         } finally {
             materializeContextOnMethodExitNode.execute(frame);
         }
@@ -93,12 +104,20 @@ public final class StartContextRootNode extends RootNode {
         }
     }
 
-    private GetOrCreateContextNode getGetOrCreateContextNode() {
-        if (getOrCreateContextNode == null) {
+    private GetOrCreateContextNode getGetOrCreateContextOnNonVirtualReturnNode() {
+        if (getOrCreateContextOnNonVirtualReturnNode == null) {
+            CompilerDirectives.transferToInterpreterAndInvalidate();
+            getOrCreateContextOnNonVirtualReturnNode = insert(GetOrCreateContextNode.create(Cause.NON_LOCAL_RETURN));
+        }
+        return getOrCreateContextOnNonVirtualReturnNode;
+    }
+
+    private GetOrCreateContextNode getGetOrCreateContextOnProcessSwitchNode() {
+        if (getOrCreateContextOnProcessSwitchNode == null) {
             CompilerDirectives.transferToInterpreterAndInvalidate();
-            getOrCreateContextNode = insert(GetOrCreateContextNode.create());
+            getOrCreateContextOnProcessSwitchNode = insert(GetOrCreateContextNode.create(Cause.PROCESS_SWITCH));
         }
-        return getOrCreateContextNode;
+        return getOrCreateContextOnProcessSwitchNode;
     }
 
     @Override
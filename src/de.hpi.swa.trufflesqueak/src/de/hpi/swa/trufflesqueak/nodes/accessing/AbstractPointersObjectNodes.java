@@ -30,6 +30,7 @@ import de.hpi.swa.trufflesqueak.model.layout.SlotLocation.IllegalWriteException;
 import de.hpi.swa.trufflesqueak.nodes.AbstractNode;
 import de.hpi.swa.trufflesqueak.nodes.accessing.AbstractPointersObjectNodesFactory.AbstractPointersObjectReadNodeGen;
 import de.hpi.swa.trufflesqueak.nodes.accessing.AbstractPointersObjectNodesFactory.AbstractPointersObjectWriteNodeGen;
+import de.hpi.swa.trufflesqueak.util.ForwardingPointers;
 import de.hpi.swa.trufflesqueak.util.MiscUtils;
 
 public class AbstractPointersObjectNodes {
@@ -70,13 +71,13 @@ public class AbstractPointersObjectNodes {
                         @Cached("index") final long cachedIndex,
                         @Cached("object.getLayout()") final ObjectLayout cachedLayout,
                         @Cached("create(cachedLayout.getLocation(index), true)") final AbstractSlotLocationAccessorNode accessorNode) {
-            return accessorNode.executeRead(object);
+            return ForwardingPointers.resolve(accessorNode.executeRead(object));
         }
 
         @TruffleBoundary
         @Specialization(replaces = "doReadCached")
         protected static final Object doReadUncached(final AbstractPointersObject object, final long index) {
-            return object.getLayout().getLocation(index).read(object);
+            return ForwardingPointers.resolve(object.getLayout().getLocation(index).read(object));
         }
     }
 
@@ -106,6 +107,7 @@ public class AbstractPointersObjectNodes {
                         @Cached("index") final long cachedIndex,
                         @Cached("object.getLayout()") final ObjectLayout cachedLayout,
                         @Cached("create(cachedLayout.getLocation(index), false)") final AbstractSlotLocationAccessorNode accessorNode) {
+            object.markModified();
             if (!accessorNode.canStore(value)) {
                 /*
                  * Update layout in interpreter if it is not stable yet. This will also invalidate
@@ -128,6 +130,7 @@ public class AbstractPointersObjectNodes {
         @TruffleBoundary
         @Specialization(replaces = "doWriteCached")
         protected static final void doWriteUncached(final AbstractPointersObject object, final long index, final Object value) {
+            object.markModified();
             try {
                 object.getLayout().getLocation(index).write(object, value);
             } catch (final IllegalWriteException e) {
@@ -187,19 +190,19 @@ public class AbstractPointersObjectNodes {
         protected static final Object doReadFromVariablePartCachedIndex(final VariablePointersObject object, @SuppressWarnings("unused") final long index,
                         @Cached("index") final long cachedIndex,
                         @Cached("object.getLayout()") final ObjectLayout cachedLayout) {
-            return object.getFromVariablePart(cachedIndex - cachedLayout.getInstSize());
+            return ForwardingPointers.resolve(object.getFromVariablePart(cachedIndex - cachedLayout.getInstSize()));
         }
 
         @Specialization(guards = {"object.getLayout() == cachedLayout", "index >= cachedLayout.getInstSize()"}, assumptions = "cachedLayout.getValidAssumption()", //
                         replaces = "doReadFromVariablePartCachedIndex", limit = "VARIABLE_PART_LAYOUT_CACHE_LIMIT")
         protected static final Object doReadFromVariablePartCachedLayout(final VariablePointersObject object, final long index,
                         @Cached("object.getLayout()") final ObjectLayout cachedLayout) {
-            return object.getFromVariablePart(index - cachedLayout.getInstSize());
+            return ForwardingPointers.resolve(object.getFromVariablePart(index - cachedLayout.getInstSize()));
         }
 
         @Specialization(guards = "index >= object.instsize()", replaces = {"doReadFromVariablePartCachedIndex", "doReadFromVariablePartCachedLayout"})
         protected static final Object doReadFromVariablePart(final VariablePointersObject object, final long index) {
-            return object.getFromVariablePart(index - object.instsize());
+            return ForwardingPointers.resolve(object.getFromVariablePart(index - object.instsize()));
         }
     }
 
@@ -274,7 +277,7 @@ public class AbstractPointersObjectNodes {
                         @Cached("index") final long cachedIndex,
                         @Cached("object.getLayout()") final ObjectLayout cachedLayout,
                         @Cached final ConditionProfile weakRefProfile) {
-            return object.getFromVariablePart(cachedIndex - cachedLayout.getInstSize(), weakRefProfile);
+            return ForwardingPointers.resolve(object.getFromVariablePart(cachedIndex - cachedLayout.getInstSize(), weakRefProfile));
         }
 
         @Specialization(guards = {"object.getLayout() == cachedLayout", "index >= cachedLayout.getInstSize()"}, assumptions = "cachedLayout.getValidAssumption()", //
@@ -282,13 +285,13 @@ public class AbstractPointersObjectNodes {
         protected static final Object doReadFromVariablePartCachedLayout(final WeakVariablePointersObject object, final long index,
                         @Cached("object.getLayout()") final ObjectLayout cachedLayout,
                         @Cached final ConditionProfile weakRefProfile) {
-            return object.getFromVariablePart(index - cachedLayout.getInstSize(), weakRefProfile);
+            return ForwardingPointers.resolve(object.getFromVariablePart(index - cachedLayout.getInstSize(), weakRefProfile));
         }
 
         @Specialization(guards = "index >= object.instsize()", replaces = {"doReadFromVariablePartCachedIndex", "doReadFromVariablePartCachedLayout"})
         protected static final Object doReadFromVariablePart(final WeakVariablePointersObject object, final long index,
                         @Cached final ConditionProfile weakRefProfile) {
-            return object.getFromVariablePart(index - object.instsize(), weakRefProfile);
+            return ForwardingPointers.resolve(object.getFromVariablePart(index - object.instsize(), weakRefProfile));
         }
     }
 
@@ -27,6 +27,7 @@ import de.hpi.swa.trufflesqueak.nodes.accessing.ArrayObjectNodesFactory.ArrayObj
 import de.hpi.swa.trufflesqueak.nodes.accessing.ArrayObjectNodesFactory.ArrayObjectToObjectArrayWithFirstNodeGen;
 import de.hpi.swa.trufflesqueak.nodes.accessing.ArrayObjectNodesFactory.ArrayObjectWriteNodeGen;
 import de.hpi.swa.trufflesqueak.util.ArrayUtils;
+import de.hpi.swa.trufflesqueak.util.ForwardingPointers;
 import de.hpi.swa.trufflesqueak.util.FrameAccess;
 
 public final class ArrayObjectNodes {
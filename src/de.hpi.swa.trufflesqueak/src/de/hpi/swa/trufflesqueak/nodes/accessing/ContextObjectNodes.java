@@ -18,6 +18,7 @@ import de.hpi.swa.trufflesqueak.model.ContextObject;
 import de.hpi.swa.trufflesqueak.model.NilObject;
 import de.hpi.swa.trufflesqueak.model.layout.ObjectLayouts.CONTEXT;
 import de.hpi.swa.trufflesqueak.nodes.AbstractNode;
+import de.hpi.swa.trufflesqueak.util.ForwardingPointers;
 
 public final class ContextObjectNodes {
     @GenerateUncached
@@ -61,12 +62,12 @@ public final class ContextObjectNodes {
 
         @Specialization(guards = "index == RECEIVER")
         protected static final Object doReceiver(final ContextObject context, @SuppressWarnings("unused") final long index) {
-            return context.getReceiver();
+            return ForwardingPointers.resolve(context.getReceiver());
         }
 
         @Specialization(guards = "index >= TEMP_FRAME_START")
         protected static final Object doTemp(final ContextObject context, final long index) {
-            return context.atTemp((int) (index - CONTEXT.TEMP_FRAME_START));
+            return ForwardingPointers.resolve(context.atTemp((int) (index - CONTEXT.TEMP_FRAME_START)));
         }
     }
 
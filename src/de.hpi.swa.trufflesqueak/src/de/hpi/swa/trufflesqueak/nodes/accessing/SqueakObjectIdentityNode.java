@@ -18,6 +18,7 @@ import de.hpi.swa.trufflesqueak.model.AbstractSqueakObject;
 import de.hpi.swa.trufflesqueak.model.BooleanObject;
 import de.hpi.swa.trufflesqueak.model.CharacterObject;
 import de.hpi.swa.trufflesqueak.nodes.AbstractNode;
+import de.hpi.swa.trufflesqueak.util.ForwardingPointers;
 
 @NodeInfo(cost = NodeCost.NONE)
 public abstract class SqueakObjectIdentityNode extends AbstractNode {
@@ -64,7 +65,7 @@ public abstract class SqueakObjectIdentityNode extends AbstractNode {
 
     @Specialization(guards = "!isCharacterObject(left)")
     protected static final boolean doAbstractSqueakObject(final AbstractSqueakObject left, final Object right) {
-        return BooleanObject.wrap(left == right);
+        return BooleanObject.wrap(ForwardingPointers.resolve(left) == ForwardingPointers.resolve(right));
     }
 
     @Specialization
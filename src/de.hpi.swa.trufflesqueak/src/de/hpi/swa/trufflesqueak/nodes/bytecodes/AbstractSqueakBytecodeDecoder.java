@@ -16,9 +16,19 @@ public abstract class AbstractSqueakBytecodeDecoder {
 
     public abstract String decodeToString(CompiledCodeObject code);
 
+    public abstract int decodeNumBytes(CompiledCodeObject code, int index);
+
+    /* Returns true if decoding the bytecode at index depends on the stack of the frame. */
+    public abstract boolean isStackDependent(CompiledCodeObject code, int index);
+
     public abstract int findLineNumber(CompiledCodeObject code, int targetIndex);
 
     public abstract int trailerPosition(CompiledCodeObject code);
 
     public abstract boolean hasStoreIntoTemp1AfterCallPrimitive(CompiledCodeObject code);
+
+    /* Returns true if the bytecode at index is immediately followed by nextBytecode. */
+    protected static final boolean isFollowedBy(final byte[] bytecode, final int index, final int nextBytecode) {
+        return index + 1 < bytecode.length && Byte.toUnsignedInt(bytecode[index + 1]) == nextBytecode;
+    }
 }
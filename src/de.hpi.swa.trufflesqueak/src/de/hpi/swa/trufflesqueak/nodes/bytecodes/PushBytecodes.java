@@ -31,6 +31,8 @@ import de.hpi.swa.trufflesqueak.nodes.context.frame.FrameStackPushNode;
 import de.hpi.swa.trufflesqueak.nodes.context.frame.FrameStackReadNode;
 import de.hpi.swa.trufflesqueak.nodes.context.frame.GetOrCreateContextNode;
 import de.hpi.swa.trufflesqueak.util.ArrayUtils;
+import de.hpi.swa.trufflesqueak.util.ContextMaterializationProfiler.Cause;
+import de.hpi.swa.trufflesqueak.util.ForwardingPointers;
 import de.hpi.swa.trufflesqueak.util.FrameAccess;
 
 public final class PushBytecodes {
@@ -85,7 +87,7 @@ public final class PushBytecodes {
 
         private final int blockSize;
 
-        @Child private GetOrCreateContextNode getOrCreateContextNode = GetOrCreateContextNode.create();
+        @Child private GetOrCreateContextNode getOrCreateContextNode = GetOrCreateContextNode.create(Cause.CLOSURE);
 
         private PushClosureNode(final CompiledCodeObject code, final int index, final int numBytecodes, final int numArgs, final int numCopied, final int blockSize) {
             super(code, index, numBytecodes + blockSize, numCopied);
@@ -190,7 +192,7 @@ public final class PushBytecodes {
         }
 
         private static final class PushFullClosureOnStackReceiverWithOuterContextNode extends AbstractPushFullClosureNode {
-            @Child private GetOrCreateContextNode getOrCreateContextNode = GetOrCreateContextNode.create();
+            @Child private GetOrCreateContextNode getOrCreateContextNode = GetOrCreateContextNode.create(Cause.CLOSURE);
             @Child private FrameStackPopNode popReceiverNode = FrameStackPopNode.create();
 
             private PushFullClosureOnStackReceiverWithOuterContextNode(final CompiledCodeObject code, final int index, final int numBytecodes, final int literalIndex, final int numCopied) {
@@ -206,7 +208,7 @@ public final class PushBytecodes {
         }
 
         private static final class PushFullClosureFrameReceiverWithOuterContextNode extends AbstractPushFullClosureNode {
-            @Child private GetOrCreateContextNode getOrCreateContextNode = GetOrCreateContextNode.create();
+            @Child private GetOrCreateContextNode getOrCreateContextNode = GetOrCreateContextNode.create(Cause.CLOSURE);
 
             private PushFullClosureFrameReceiverWithOuterContextNode(final CompiledCodeObject code, final int index, final int numBytecodes, final int literalIndex, final int numCopied) {
                 super(code, index, numBytecodes, literalIndex, numCopied);
@@ -249,7 +251,7 @@ public final class PushBytecodes {
 
     @NodeInfo(cost = NodeCost.NONE)
     public static final class PushActiveContextNode extends AbstractPushNode {
-        @Child private GetOrCreateContextNode getContextNode = GetOrCreateContextNode.create();
+        @Child private GetOrCreateContextNode getContextNode = GetOrCreateContextNode.create(Cause.THIS_CONTEXT);
 
         public PushActiveContextNode(final CompiledCodeObject code, final int index) {
             super(code, index);
@@ -375,7 +377,7 @@ public final class PushBytecodes {
 
         @Override
         public void executeVoid(final VirtualFrame frame) {
-            pushNode.execute(frame, literal);
+            pushNode.execute(frame, ForwardingPointers.resolve(literal));
         }
 
         @Override
@@ -422,7 +424,7 @@ public final class PushBytecodes {
 
             @Override
             public void executeVoid(final VirtualFrame frame) {
-                pushNode.execute(frame, valueProfile.profile(at0Node.execute(literal, ASSOCIATION.VALUE)));
+                pushNode.execute(frame, valueProfile.profile(at0Node.execute(ForwardingPointers.resolve(literal), ASSOCIATION.VALUE)));
             }
         }
 
@@ -18,8 +18,12 @@ import de.hpi.swa.trufflesqueak.model.CompiledCodeObject;
 import de.hpi.swa.trufflesqueak.model.ContextObject;
 import de.hpi.swa.trufflesqueak.model.NilObject;
 import de.hpi.swa.trufflesqueak.nodes.AbstractNode;
+import de.hpi.swa.trufflesqueak.nodes.accessing.SqueakObjectAt0Node;
 import de.hpi.swa.trufflesqueak.nodes.context.frame.FrameStackPopNode;
+import de.hpi.swa.trufflesqueak.nodes.context.frame.FrameStackReadNode;
 import de.hpi.swa.trufflesqueak.nodes.context.frame.GetOrCreateContextNode;
+import de.hpi.swa.trufflesqueak.util.ContextMaterializationProfiler.Cause;
+import de.hpi.swa.trufflesqueak.util.ForwardingPointers;
 import de.hpi.swa.trufflesqueak.util.FrameAccess;
 
 public final class ReturnBytecodes {
@@ -29,6 +33,10 @@ public final class ReturnBytecodes {
             super(code, index);
         }
 
+        protected AbstractReturnNode(final CompiledCodeObject code, final int index, final int numBytecodes) {
+            super(code, index, numBytecodes);
+        }
+
         @Override
         public final void executeVoid(final VirtualFrame frame) {
             throw SqueakException.create("executeReturn() should be called instead");
@@ -47,7 +55,11 @@ public final class ReturnBytecodes {
         @Child private AbstractReturnKindNode returnNode;
 
         protected AbstractNormalReturnNode(final VirtualFrame frame, final CompiledCodeObject code, final int index) {
-            super(code, index);
+            this(frame, code, index, 1);
+        }
+
+        protected AbstractNormalReturnNode(final VirtualFrame frame, final CompiledCodeObject code, final int index, final int numBytecodes) {
+            super(code, index, numBytecodes);
             returnNode = FrameAccess.hasClosure(frame) ? new ReturnFromClosureNode() : new ReturnFromMethodNode();
         }
 
@@ -86,7 +98,7 @@ public final class ReturnBytecodes {
                 throw new NonLocalReturn(returnValue, homeContext.getFrameSender());
             } else {
                 CompilerDirectives.transferToInterpreter();
-                final ContextObject contextObject = GetOrCreateContextNode.getOrCreateUncached(frame);
+                final ContextObject contextObject = GetOrCreateContextNode.getOrCreateUncached(frame, Cause.NON_LOCAL_RETURN);
                 getContext().cannotReturn.executeAsSymbolSlow(frame, contextObject, returnValue);
                 throw CompilerDirectives.shouldNotReachHere();
             }
@@ -171,7 +183,7 @@ public final class ReturnBytecodes {
                     throw new NonLocalReturn(getReturnValue(frame), homeContext.getFrameSender());
                 } else {
                     CompilerDirectives.transferToInterpreter();
-                    final ContextObject contextObject = GetOrCreateContextNode.getOrCreateUncached(frame);
+                    final ContextObject contextObject = GetOrCreateContextNode.getOrCreateUncached(frame, Cause.NON_LOCAL_RETURN);
                     getContext().cannotReturn.executeAsSymbolSlow(frame, contextObject, getReturnValue(frame));
                     throw CompilerDirectives.shouldNotReachHere();
                 }
@@ -235,4 +247,77 @@ public final class ReturnBytecodes {
             return "returnTop";
         }
     }
+
+    /*
+     * Superinstructions for "push x. returnTop" sequences, which are the entire bodies of accessor
+     * and constant methods (e.g., `^ name` or `^ #(1 2 3)`). Each covers both bytecodes and returns
+     * the value directly instead of pushing it onto the stack and popping it off again. The
+     * returnTop bytecode is still decoded on its own if it is the target of a jump.
+     */
+
+    public static final class ReturnReceiverVariableNode extends AbstractNormalReturnNode {
+        @Child private SqueakObjectAt0Node at0Node = SqueakObjectAt0Node.create();
+        private final int variableIndex;
+
+        protected ReturnReceiverVariableNode(final VirtualFrame frame, final CompiledCodeObject code, final int index, final int variableIndex) {
+            super(frame, code, index, 2);
+            this.variableIndex = variableIndex;
+        }
+
+        @Override
+        protected Object getReturnValue(final VirtualFrame frame) {
+            return at0Node.execute(FrameAccess.getReceiver(frame), variableIndex);
+        }
+
+        @Override
+        public String toString() {
+            CompilerAsserts.neverPartOfCompilation();
+            return "pushRcvr: " + variableIndex + "; returnTop";
+        }
+    }
+
+    public static final class ReturnTemporaryLocationNode extends AbstractNormalReturnNode {
+        @Child private FrameStackReadNode tempNode;
+        private final int tempIndex;
+
+        protected ReturnTemporaryLocationNode(final VirtualFrame frame, final CompiledCodeObject code, final int index, final int tempIndex) {
+            super(frame, code, index, 2);
+            this.tempIndex = tempIndex;
+        }
+
+        @Override
+        protected Object getReturnValue(final VirtualFrame frame) {
+            if (tempNode == null) {
+                CompilerDirectives.transferToInterpreterAndInvalidate();
+                tempNode = insert(FrameStackReadNode.create(frame, tempIndex, false));
+            }
+            return tempNode.executeRead(frame);
+        }
+
+        @Override
+        public String toString() {
+            CompilerAsserts.neverPartOfCompilation();
+            return "pushTemp: " + tempIndex + "; returnTop";
+        }
+    }
+
+    public static final class ReturnLiteralConstantNode extends AbstractNormalReturnNode {
+        private final Object literal;
+
+        protected ReturnLiteralConstantNode(final VirtualFrame frame, final CompiledCodeObject code, final int index, final int literalIndex) {
+            super(frame, code, index, 2);
+            literal = code.getLiteral(literalIndex);
+        }
+
+        @Override
+        protected Object getReturnValue(final VirtualFrame frame) {
+            return ForwardingPointers.resolve(literal);
+        }
+
+        @Override
+        public String toString() {
+            CompilerAsserts.neverPartOfCompilation();
+            return "pushConstant: " + literal + "; returnTop";
+        }
+    }
 }
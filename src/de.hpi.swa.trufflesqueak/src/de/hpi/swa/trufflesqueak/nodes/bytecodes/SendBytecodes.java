@@ -39,10 +39,13 @@ import de.hpi.swa.trufflesqueak.nodes.primitives.PrimitiveNodeFactory;
 import de.hpi.swa.trufflesqueak.nodes.primitives.PrimitiveNodeFactory.ArgumentsLocation;
 import de.hpi.swa.trufflesqueak.nodes.primitives.impl.ControlPrimitives.PrimExitToDebuggerNode;
 import de.hpi.swa.trufflesqueak.util.FrameAccess;
+import de.hpi.swa.trufflesqueak.util.SendSiteProfiler;
+import de.hpi.swa.trufflesqueak.util.SendSiteProfiler.SiteProfile;
 
 public final class SendBytecodes {
     public abstract static class AbstractSendNode extends AbstractInstrumentableBytecodeNode {
         protected final int argumentCount;
+        protected final SiteProfile profile;
         @CompilationFinal private int stackPointer = -1;
 
         @Child private FrameStackPushNode pushNode;
@@ -50,13 +53,17 @@ public final class SendBytecodes {
         private final ConditionProfile nlrProfile = ConditionProfile.createBinaryProfile();
         private final ConditionProfile nvrProfile = ConditionProfile.createBinaryProfile();
 
-        private AbstractSendNode(final CompiledCodeObject code, final int index, final int numBytecodes, final int numArgs) {
+        private AbstractSendNode(final CompiledCodeObject code, final int index, final int numBytecodes, final NativeObject selector, final int numArgs) {
             super(code, index, numBytecodes);
             argumentCount = numArgs;
+            final SendSiteProfiler profiler = code.getSqueakClass().getImage().getSendSiteProfiler();
+            profile = profiler == null ? null : profiler.register(code, this.index, selector);
         }
 
         protected AbstractSendNode(final AbstractSendNode original) {
-            this(original.code, original.index, original.getNumBytecodes(), original.argumentCount);
+            super(original.code, original.index, original.getNumBytecodes());
+            argumentCount = original.argumentCount;
+            profile = original.profile;
         }
 
         @Override
@@ -121,15 +128,13 @@ public final class SendBytecodes {
     }
 
     public static final class SelfSendNode extends AbstractSendNode {
-        public static final int INLINE_CACHE_SIZE = 6;
-
         @Child private FrameStackReadNode peekAtReceiverNode;
         @Child private LookupClassNode lookupClassNode = LookupClassNode.create();
         @Child private LookupSelectorNode lookupSelectorNode;
         @Child private DispatchLookupResultNode dispatchNode;
 
         private SelfSendNode(final CompiledCodeObject code, final int index, final int numBytecodes, final NativeObject selector, final int numArgs) {
-            super(code, index, numBytecodes, numArgs);
+            super(code, index, numBytecodes, selector, numArgs);
             lookupSelectorNode = LookupSelectorNode.create(selector);
             dispatchNode = DispatchLookupResultNode.create(selector, numArgs);
         }
@@ -143,6 +148,9 @@ public final class SendBytecodes {
             final Object receiver = peekAtReceiver(frame);
             final ClassObject receiverClass = lookupClassNode.execute(receiver);
             final Object lookupResult = lookupSelectorNode.execute(receiverClass);
+            if (profile != null) {
+                profile.record(receiverClass, lookupResult);
+            }
             return dispatchNode.execute(frame, receiver, receiverClass, lookupResult);
         }
 
@@ -169,7 +177,7 @@ public final class SendBytecodes {
         }
 
         public SuperSendNode(final CompiledCodeObject code, final int index, final int numBytecodes, final int literalIndex, final int numArgs) {
-            super(code, index, numBytecodes, numArgs);
+            super(code, index, numBytecodes, (NativeObject) code.getLiteral(literalIndex), numArgs);
             final NativeObject selector = (NativeObject) code.getLiteral(literalIndex);
             dispatchNode = DispatchSuperSendNode.create(code, selector, numArgs);
         }
@@ -201,7 +209,7 @@ public final class SendBytecodes {
         @Child private DispatchLookupResultNode dispatchNode;
 
         public DirectedSuperSendNode(final CompiledCodeObject code, final int index, final int numBytecodes, final int selectorLiteralIndex, final int numArgs) {
-            super(code, index, numBytecodes, numArgs);
+            super(code, index, numBytecodes, (NativeObject) code.getLiteral(selectorLiteralIndex), numArgs);
             assert 0 <= selectorLiteralIndex && selectorLiteralIndex < 65535 : "selectorLiteralIndex out of range";
             assert 0 <= numArgs && numArgs <= 31 : "numArgs out of range";
             final NativeObject selector = (NativeObject) code.getLiteral(selectorLiteralIndex);
@@ -214,6 +222,9 @@ public final class SendBytecodes {
             final ClassObject superclass = popDirectedClass(frame).getSuperclassOrNull();
             assert superclass != null;
             final Object lookupResult = lookupSelectorNode.execute(superclass);
+            if (profile != null) {
+                profile.record(superclass, lookupResult);
+            }
             final Object receiver = peekAtReceiver(frame);
             return dispatchNode.execute(frame, receiver, superclass, lookupResult);
         }
@@ -98,6 +98,9 @@ public final class SqueakBytecodeSistaV1Decoder extends AbstractSqueakBytecodeDe
         switch (b) {
             case 0x00: case 0x01: case 0x02: case 0x03: case 0x04: case 0x05: case 0x06: case 0x07:
             case 0x08: case 0x09: case 0x0A: case 0x0B: case 0x0C: case 0x0D: case 0x0E: case 0x0F:
+                if (extBytes == 0 && isFollowedBy(bytecode, index, 0x5C)) {
+                    return new ReturnBytecodes.ReturnReceiverVariableNode(frame, code, index, b & 0xF);
+                }
                 return PushBytecodes.PushReceiverVariableNode.create(code, index, 1, b & 0xF);
             case 0x10: case 0x11: case 0x12: case 0x13: case 0x14: case 0x15: case 0x16: case 0x17:
             case 0x18: case 0x19: case 0x1A: case 0x1B: case 0x1C: case 0x1D: case 0x1E: case 0x1F:
@@ -106,10 +109,19 @@ public final class SqueakBytecodeSistaV1Decoder extends AbstractSqueakBytecodeDe
             case 0x28: case 0x29: case 0x2A: case 0x2B: case 0x2C: case 0x2D: case 0x2E: case 0x2F:
             case 0x30: case 0x31: case 0x32: case 0x33: case 0x34: case 0x35: case 0x36: case 0x37:
             case 0x38: case 0x39: case 0x3A: case 0x3B: case 0x3C: case 0x3D: case 0x3E: case 0x3F:
+                if (extBytes == 0 && isFollowedBy(bytecode, index, 0x5C)) {
+                    return new ReturnBytecodes.ReturnLiteralConstantNode(frame, code, index, b & 0x1F);
+                }
                 return new PushBytecodes.PushLiteralConstantNode(code, index, 1, b & 0x1F);
             case 0x40: case 0x41: case 0x42: case 0x43: case 0x44: case 0x45: case 0x46: case 0x47:
+                if (extBytes == 0 && isFollowedBy(bytecode, index, 0x5C)) {
+                    return new ReturnBytecodes.ReturnTemporaryLocationNode(frame, code, index, b & 0x7);
+                }
                 return new PushBytecodes.PushTemporaryLocationNode(code, index, 1, b & 0x7);
             case 0x48: case 0x49: case 0x4A: case 0x4B:
+                if (extBytes == 0 && isFollowedBy(bytecode, index, 0x5C)) {
+                    return new ReturnBytecodes.ReturnTemporaryLocationNode(frame, code, index, (b & 3) + 8);
+                }
                 return new PushBytecodes.PushTemporaryLocationNode(code, index, 1, (b & 3) + 8);
             case 0x4C:
                 return PushBytecodes.PushReceiverNode.create(code, index);
@@ -564,7 +576,15 @@ public final class SqueakBytecodeSistaV1Decoder extends AbstractSqueakBytecodeDe
         //@formatter:on
     }
 
-    private static int decodeNumBytes(final CompiledCodeObject code, final int index) {
+    @Override
+    public boolean isStackDependent(final CompiledCodeObject code, final int index) {
+        /* Arithmetic special selector sends peek at the receiver on the stack when decoded. */
+        final int b = Byte.toUnsignedInt(code.getBytes()[index]);
+        return 0x60 <= b && b <= 0x6F;
+    }
+
+    @Override
+    public int decodeNumBytes(final CompiledCodeObject code, final int index) {
         final int b = Byte.toUnsignedInt(code.getBytes()[index]);
         if (b <= 223) {
             return 1;
@@ -20,6 +20,7 @@ import de.hpi.swa.trufflesqueak.nodes.context.TemporaryWriteMarkContextsNode;
 import de.hpi.swa.trufflesqueak.nodes.context.frame.FrameStackPopNode;
 import de.hpi.swa.trufflesqueak.nodes.context.frame.FrameStackReadNode;
 import de.hpi.swa.trufflesqueak.nodes.context.frame.FrameStackTopNode;
+import de.hpi.swa.trufflesqueak.util.ForwardingPointers;
 import de.hpi.swa.trufflesqueak.util.FrameAccess;
 
 public final class StoreBytecodes {
@@ -131,7 +132,7 @@ public final class StoreBytecodes {
 
         @Override
         public void executeVoid(final VirtualFrame frame) {
-            storeNode.executeWrite(literalVariable, popNode.execute(frame));
+            storeNode.executeWrite(ForwardingPointers.resolve(literalVariable), popNode.execute(frame));
         }
 
         @Override
@@ -203,7 +204,7 @@ public final class StoreBytecodes {
 
         @Override
         public void executeVoid(final VirtualFrame frame) {
-            storeNode.executeWrite(literalVariable, topNode.execute(frame));
+            storeNode.executeWrite(ForwardingPointers.resolve(literalVariable), topNode.execute(frame));
         }
 
         @Override
@@ -13,6 +13,7 @@ import com.oracle.truffle.api.nodes.NodeInfo;
 
 import de.hpi.swa.trufflesqueak.nodes.AbstractNode;
 import de.hpi.swa.trufflesqueak.nodes.context.frame.FrameStackReadNode;
+import de.hpi.swa.trufflesqueak.util.ForwardingPointers;
 import de.hpi.swa.trufflesqueak.util.FrameAccess;
 
 public final class ArgumentNodes {
@@ -59,7 +60,7 @@ public final class ArgumentNodes {
 
         @Override
         public Object execute(final VirtualFrame frame) {
-            return frame.getArguments()[argumentIndex];
+            return ForwardingPointers.resolve(frame.getArguments()[argumentIndex]);
         }
     }
 }
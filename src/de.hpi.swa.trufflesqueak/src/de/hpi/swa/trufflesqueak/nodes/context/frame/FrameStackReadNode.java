@@ -22,6 +22,7 @@ import de.hpi.swa.trufflesqueak.model.BlockClosureObject;
 import de.hpi.swa.trufflesqueak.nodes.AbstractNode;
 import de.hpi.swa.trufflesqueak.nodes.context.frame.FrameStackReadNodeFactory.FrameSlotReadClearNodeGen;
 import de.hpi.swa.trufflesqueak.nodes.context.frame.FrameStackReadNodeFactory.FrameSlotReadNoClearNodeGen;
+import de.hpi.swa.trufflesqueak.util.ForwardingPointers;
 import de.hpi.swa.trufflesqueak.util.FrameAccess;
 
 @ImportStatic(FrameSlotKind.class)
@@ -62,7 +63,7 @@ public abstract class FrameStackReadNode extends AbstractNode {
     public final Object executeRead(final Frame frame) {
         final Object value = executeReadUnsafe(frame);
         assert value != null : "Unexpected `null` value";
-        return value;
+        return ForwardingPointers.resolve(value);
     }
 
     /* Unsafe as it may return `null` values. */
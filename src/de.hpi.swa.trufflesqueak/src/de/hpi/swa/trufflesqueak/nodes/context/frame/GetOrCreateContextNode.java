@@ -13,25 +13,36 @@ import com.oracle.truffle.api.frame.Frame;
 import com.oracle.truffle.api.frame.VirtualFrame;
 import com.oracle.truffle.api.profiles.ConditionProfile;
 
+import de.hpi.swa.trufflesqueak.image.SqueakImageContext;
 import de.hpi.swa.trufflesqueak.model.CompiledCodeObject;
 import de.hpi.swa.trufflesqueak.model.ContextObject;
 import de.hpi.swa.trufflesqueak.nodes.AbstractNode;
+import de.hpi.swa.trufflesqueak.util.ContextMaterializationProfiler;
+import de.hpi.swa.trufflesqueak.util.ContextMaterializationProfiler.Cause;
 import de.hpi.swa.trufflesqueak.util.FrameAccess;
 
 public abstract class GetOrCreateContextNode extends AbstractNode {
+    /* Why the context is needed, only used for profiling. */
+    protected final Cause cause;
 
-    public static GetOrCreateContextNode create() {
-        return GetOrCreateContextNodeGen.create();
+    protected GetOrCreateContextNode(final Cause cause) {
+        this.cause = cause;
     }
 
-    public static final ContextObject getOrCreateUncached(final Frame frame) {
+    public static GetOrCreateContextNode create(final Cause cause) {
+        return GetOrCreateContextNodeGen.create(cause);
+    }
+
+    public static final ContextObject getOrCreateUncached(final Frame frame, final Cause cause) {
         CompilerAsserts.neverPartOfCompilation();
         final ContextObject context = FrameAccess.getContext(frame);
         if (context != null) {
             return context;
         } else {
             final CompiledCodeObject code = FrameAccess.getMethodOrBlock(frame);
-            return ContextObject.create(code.getSqueakClass().getImage(), frame.materialize(), code);
+            final SqueakImageContext image = code.getSqueakClass().getImage();
+            ContextMaterializationProfiler.record(image, code, cause);
+            return ContextObject.create(image, frame.materialize(), code);
         }
     }
 
@@ -45,7 +56,9 @@ public abstract class GetOrCreateContextNode extends AbstractNode {
         if (hasContextProfile.profile(context != null)) {
             return context;
         } else {
-            return ContextObject.create(getContext(), frame.materialize(), code);
+            final SqueakImageContext image = getContext();
+            ContextMaterializationProfiler.record(image, code, cause);
+            return ContextObject.create(image, frame.materialize(), code);
         }
     }
 }
@@ -30,6 +30,7 @@ import de.hpi.swa.trufflesqueak.nodes.dispatch.CreateFrameArgumentNodes.CreateFr
 import de.hpi.swa.trufflesqueak.nodes.primitives.AbstractPrimitiveNode;
 import de.hpi.swa.trufflesqueak.nodes.primitives.PrimitiveNodeFactory;
 import de.hpi.swa.trufflesqueak.nodes.primitives.PrimitiveNodeFactory.ArgumentsLocation;
+import de.hpi.swa.trufflesqueak.util.ContextMaterializationProfiler.Cause;
 import de.hpi.swa.trufflesqueak.util.FrameAccess;
 import de.hpi.swa.trufflesqueak.util.PrimitiveFailedCounter;
 
@@ -173,7 +174,7 @@ public abstract class CachedDispatchNode extends AbstractNode {
     }
 
     protected static final class CachedDispatchMethodWithSenderNode extends AbstractCachedDispatchMethodNode {
-        @Child private GetOrCreateContextNode getOrCreateContextNode = GetOrCreateContextNode.create();
+        @Child private GetOrCreateContextNode getOrCreateContextNode = GetOrCreateContextNode.create(Cause.SENDER);
 
         private CachedDispatchMethodWithSenderNode(final VirtualFrame frame, final int argumentCount, final CompiledCodeObject method) {
             super(frame, argumentCount, method);
@@ -223,7 +224,7 @@ public abstract class CachedDispatchNode extends AbstractNode {
     }
 
     protected static final class CachedDispatchDoesNotUnderstandWithSenderNode extends AbstractCachedDispatchDoesNotUnderstandNode {
-        @Child private GetOrCreateContextNode getOrCreateContextNode = GetOrCreateContextNode.create();
+        @Child private GetOrCreateContextNode getOrCreateContextNode = GetOrCreateContextNode.create(Cause.SENDER);
 
         private CachedDispatchDoesNotUnderstandWithSenderNode(final VirtualFrame frame, final NativeObject selector, final int argumentCount, final CompiledCodeObject method) {
             super(frame, selector, argumentCount, method);
@@ -276,7 +277,7 @@ public abstract class CachedDispatchNode extends AbstractNode {
     }
 
     protected static final class CachedDispatchObjectAsMethodWithSenderNode extends AbstractCachedDispatchObjectAsMethodNode {
-        @Child private GetOrCreateContextNode getOrCreateContextNode = GetOrCreateContextNode.create();
+        @Child private GetOrCreateContextNode getOrCreateContextNode = GetOrCreateContextNode.create(Cause.SENDER);
 
         private CachedDispatchObjectAsMethodWithSenderNode(final VirtualFrame frame, final NativeObject selector, final int argumentCount, final Object object, final CompiledCodeObject method) {
             super(frame, selector, argumentCount, object, method);
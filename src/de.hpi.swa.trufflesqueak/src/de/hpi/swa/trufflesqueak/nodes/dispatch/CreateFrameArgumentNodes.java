@@ -31,6 +31,7 @@ import de.hpi.swa.trufflesqueak.nodes.context.frame.GetContextOrMarkerNode;
 import de.hpi.swa.trufflesqueak.nodes.context.frame.GetOrCreateContextNode;
 import de.hpi.swa.trufflesqueak.nodes.dispatch.CreateFrameArgumentNodesFactory.CreateFrameArgumentsForIndirectCallNodeGen;
 import de.hpi.swa.trufflesqueak.nodes.dispatch.CreateFrameArgumentNodesFactory.GetOrCreateContextOrMarkerNodeGen;
+import de.hpi.swa.trufflesqueak.util.ContextMaterializationProfiler.Cause;
 import de.hpi.swa.trufflesqueak.util.FrameAccess;
 
 public final class CreateFrameArgumentNodes {
@@ -163,6 +164,7 @@ public final class CreateFrameArgumentNodes {
     }
 
     @NodeInfo(cost = NodeCost.NONE)
+    @ImportStatic(Cause.class)
     protected abstract static class GetOrCreateContextOrMarkerNode extends AbstractNode {
 
         protected static GetOrCreateContextOrMarkerNode create() {
@@ -181,7 +183,7 @@ public final class CreateFrameArgumentNodes {
         @Specialization(guards = "!doesNotNeedSender(code, assumptionProfile)", limit = "1")
         protected static final ContextObject doGetOrCreateContext(final VirtualFrame frame, @SuppressWarnings("unused") final CompiledCodeObject code,
                         @SuppressWarnings("unused") @Shared("assumptionProfile") @Cached("createClassProfile()") final ValueProfile assumptionProfile,
-                        @Cached final GetOrCreateContextNode getOrCreateContextNode) {
+                        @Cached("create(SENDER)") final GetOrCreateContextNode getOrCreateContextNode) {
             return getOrCreateContextNode.executeGet(frame);
         }
 
@@ -7,7 +7,6 @@
 package de.hpi.swa.trufflesqueak.nodes.dispatch;
 
 import com.oracle.truffle.api.dsl.Cached;
-import com.oracle.truffle.api.dsl.ImportStatic;
 import com.oracle.truffle.api.dsl.ReportPolymorphism;
 import com.oracle.truffle.api.dsl.Specialization;
 import com.oracle.truffle.api.frame.VirtualFrame;
@@ -16,11 +15,9 @@ import com.oracle.truffle.api.nodes.IndirectCallNode;
 import de.hpi.swa.trufflesqueak.model.ClassObject;
 import de.hpi.swa.trufflesqueak.model.CompiledCodeObject;
 import de.hpi.swa.trufflesqueak.model.NativeObject;
-import de.hpi.swa.trufflesqueak.nodes.bytecodes.SendBytecodes.SelfSendNode;
 import de.hpi.swa.trufflesqueak.nodes.dispatch.CreateFrameArgumentNodes.CreateFrameArgumentsForIndirectCallNode;
 
 @ReportPolymorphism
-@ImportStatic(SelfSendNode.class)
 public abstract class DispatchLookupResultNode extends AbstractDispatchNode {
     public DispatchLookupResultNode(final NativeObject selector, final int argumentCount) {
         super(selector, argumentCount);
@@ -33,7 +30,7 @@ public abstract class DispatchLookupResultNode extends AbstractDispatchNode {
     public abstract Object execute(VirtualFrame frame, Object receiver, ClassObject receiverClass, Object lookupResult);
 
     @SuppressWarnings("unused")
-    @Specialization(guards = "lookupResult == cachedLookupResult", limit = "INLINE_CACHE_SIZE", assumptions = {"dispatchNode.getCallTargetStable()"})
+    @Specialization(guards = "lookupResult == cachedLookupResult", limit = "getSendInlineCacheSize()", assumptions = {"dispatchNode.getCallTargetStable()"})
     protected static final Object doCached(final VirtualFrame frame, final Object receiver, final ClassObject receiverClass, final Object lookupResult,
                     @Cached("lookupResult") final Object cachedLookupResult,
                     @Cached("create(frame, selector, argumentCount, receiverClass, lookupResult)") final CachedDispatchNode dispatchNode) {
@@ -7,15 +7,12 @@
 package de.hpi.swa.trufflesqueak.nodes.dispatch;
 
 import com.oracle.truffle.api.dsl.Cached;
-import com.oracle.truffle.api.dsl.ImportStatic;
 import com.oracle.truffle.api.dsl.Specialization;
 
 import de.hpi.swa.trufflesqueak.model.ClassObject;
 import de.hpi.swa.trufflesqueak.nodes.AbstractNode;
 import de.hpi.swa.trufflesqueak.nodes.accessing.SqueakObjectClassNode;
-import de.hpi.swa.trufflesqueak.nodes.bytecodes.SendBytecodes.SelfSendNode;
 
-@ImportStatic(SelfSendNode.class)
 public abstract class LookupClassNode extends AbstractNode {
 
     public static LookupClassNode create() {
@@ -24,7 +21,7 @@ public abstract class LookupClassNode extends AbstractNode {
 
     public abstract ClassObject execute(Object receiver);
 
-    @Specialization(guards = "guard.check(receiver)", assumptions = "guard.getIsValidAssumption()", limit = "INLINE_CACHE_SIZE")
+    @Specialization(guards = "guard.check(receiver)", assumptions = "guard.getIsValidAssumption()", limit = "getSendInlineCacheSize()")
     protected final ClassObject doCached(@SuppressWarnings("unused") final Object receiver,
                     @SuppressWarnings("unused") @Cached("create(receiver)") final LookupClassGuard guard) {
         return guard.getSqueakClass(getContext());
@@ -10,17 +10,13 @@ import java.util.ArrayList;
 
 import com.oracle.truffle.api.Assumption;
 import com.oracle.truffle.api.dsl.Cached;
-import com.oracle.truffle.api.dsl.ImportStatic;
 import com.oracle.truffle.api.dsl.Specialization;
 
 import de.hpi.swa.trufflesqueak.model.ClassObject;
 import de.hpi.swa.trufflesqueak.model.CompiledCodeObject;
 import de.hpi.swa.trufflesqueak.model.NativeObject;
 import de.hpi.swa.trufflesqueak.nodes.AbstractNode;
-import de.hpi.swa.trufflesqueak.nodes.bytecodes.SendBytecodes.SelfSendNode;
-import de.hpi.swa.trufflesqueak.util.MethodCacheEntry;
 
-@ImportStatic(SelfSendNode.class)
 public abstract class LookupSelectorNode extends AbstractNode {
     protected final NativeObject selector;
 
@@ -35,7 +31,7 @@ public abstract class LookupSelectorNode extends AbstractNode {
     public abstract Object execute(ClassObject receiverClass);
 
     @SuppressWarnings("unused")
-    @Specialization(limit = "INLINE_CACHE_SIZE", guards = {"receiverClass == cachedClass"}, //
+    @Specialization(limit = "getSendInlineCacheSize()", guards = {"receiverClass == cachedClass"}, //
                     assumptions = {"cachedClass.getClassHierarchyStable()", "methodDictStableAssumptions"})
     protected static final Object doCached(final ClassObject receiverClass,
                     @Cached("receiverClass") final ClassObject cachedClass,
@@ -71,11 +67,8 @@ public abstract class LookupSelectorNode extends AbstractNode {
     }
 
     @Specialization(replaces = "doCached")
-    protected final Object doUncached(final ClassObject receiverClass) {
-        final MethodCacheEntry cachedEntry = getContext().findMethodCacheEntry(receiverClass, selector);
-        if (cachedEntry.getResult() == null) {
-            cachedEntry.setResult(receiverClass.lookupInMethodDictSlow(selector));
-        }
-        return cachedEntry.getResult();
+    protected static final Object doMegamorphic(final ClassObject receiverClass,
+                    @Cached("create(selector, getContext().options.megamorphicCacheSize)") final MegamorphicLookupNode lookupNode) {
+        return lookupNode.execute(receiverClass);
     }
 }
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2017-2022 Software Architecture Group, Hasso Plattner Institute
+ * Copyright (c) 2021-2022 Oracle and/or its affiliates
+ *
+ * Licensed under the MIT License.
+ */
+package de.hpi.swa.trufflesqueak.nodes.dispatch;
+
+import java.util.Arrays;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.nodes.ExplodeLoop;
+
+import de.hpi.swa.trufflesqueak.image.SqueakImageContext;
+import de.hpi.swa.trufflesqueak.model.ClassObject;
+import de.hpi.swa.trufflesqueak.model.NativeObject;
+import de.hpi.swa.trufflesqueak.nodes.AbstractNode;
+import de.hpi.swa.trufflesqueak.util.MethodCacheEntry;
+
+/**
+ * Lookup cache of a megamorphic send site, i.e. of a send that has seen more receiver classes than
+ * its inline cache holds (see {@code --send-inline-cache-size}). Receiver classes are mapped to
+ * lookup results in a small open-addressed table local to the send site (see
+ * {@code --megamorphic-cache-size}), so that sends over heterogeneous collections do not go through
+ * the global method cache on every execution. The table is cleared whenever the global method cache
+ * is flushed.
+ */
+public final class MegamorphicLookupNode extends AbstractNode {
+    private static final int PROBES = 4;
+    private static final int MAX_SIZE = 1 << 10;
+
+    private final NativeObject selector;
+    private final Entry[] entries;
+    private int epoch = -1;
+
+    private static final class Entry {
+        private final ClassObject receiverClass;
+        private final Object lookupResult;
+
+        private Entry(final ClassObject receiverClass, final Object lookupResult) {
+            this.receiverClass = receiverClass;
+            this.lookupResult = lookupResult;
+        }
+    }
+
+    private MegamorphicLookupNode(final NativeObject selector, final int size) {
+        this.selector = selector;
+        entries = new Entry[size <= 0 ? 0 : Integer.highestOneBit(Math.min(MAX_SIZE, Math.max(PROBES, size)))];
+    }
+
+    public static MegamorphicLookupNode create(final NativeObject selector, final int size) {
+        return new MegamorphicLookupNode(selector, size);
+    }
+
+    @ExplodeLoop
+    public Object execute(final ClassObject receiverClass) {
+        final SqueakImageContext image = getContext();
+        if (entries.length > 0 && epoch == image.getMethodLookupEpoch()) {
+            final int mask = entries.length - 1;
+            int probe = System.identityHashCode(receiverClass) & mask;
+            for (int i = 0; i < PROBES; i++) {
+                final Entry entry = entries[probe];
+                if (entry != null && entry.receiverClass == receiverClass) {
+                    return entry.lookupResult;
+                }
+                probe = probe + 1 & mask;
+            }
+        }
+        return lookupAndInsert(image, receiverClass);
+    }
+
+    @TruffleBoundary
+    private Object lookupAndInsert(final SqueakImageContext image, final ClassObject receiverClass) {
+        final MethodCacheEntry cachedEntry = image.findMethodCacheEntry(receiverClass, selector);
+        if (cachedEntry.getResult() == null) {
+            cachedEntry.setResult(receiverClass.lookupInMethodDictSlow(selector));
+        }
+        final Object lookupResult = cachedEntry.getResult();
+        if (entries.length == 0) {
+            return lookupResult;
+        }
+        final int currentEpoch = image.getMethodLookupEpoch();
+        if (epoch != currentEpoch) {
+            Arrays.fill(entries, null);
+            epoch = currentEpoch;
+        }
+        final int mask = entries.length - 1;
+        final int home = System.identityHashCode(receiverClass) & mask;
+        int probe = home;
+        for (int i = 0; i < PROBES; i++) {
+            if (entries[probe] == null) {
+                entries[probe] = new Entry(receiverClass, lookupResult);
+                return lookupResult;
+            }
+            probe = probe + 1 & mask;
+        }
+        /* All probes are taken, evict the entry in the home slot. */
+        entries[home] = new Entry(receiverClass, lookupResult);
+        return lookupResult;
+    }
+}
@@ -27,6 +27,7 @@ public final class CheckForInterruptsNode extends Node {
     private final BranchProfile nextWakeupTickProfile = BranchProfile.create();
     private final BranchProfile pendingFinalizationSignalsProfile = BranchProfile.create();
     private final BranchProfile hasSemaphoresToSignalProfile = BranchProfile.create();
+    private final BranchProfile codeEvictionPendingProfile = BranchProfile.create();
 
     private CheckForInterruptsNode(final SqueakImageContext image) {
         specialObjects = image.specialObjectsArray.getObjectStorage();
@@ -62,6 +63,11 @@ public final class CheckForInterruptsNode extends Node {
             istate.setPendingFinalizations(false);
             signalSemaporeNode.executeSignal(frame, specialObjects[SPECIAL_OBJECT.THE_FINALIZATION_SEMAPHORE]);
         }
+        if (istate.codeEvictionPending()) {
+            codeEvictionPendingProfile.enter();
+            LogUtils.INTERRUPTS.fine("Idle code eviction");
+            istate.sweepIdleCode();
+        }
         if (istate.hasSemaphoresToSignal()) {
             hasSemaphoresToSignalProfile.enter();
             LogUtils.INTERRUPTS.fine("Semaphore interrupt");
@@ -92,6 +92,10 @@ public abstract class CheckForInterruptsQuickNode extends Node {
                 istate.setPendingFinalizations(false);
                 signalSemaporeNode.executeSignal(frame, specialObjects[SPECIAL_OBJECT.THE_FINALIZATION_SEMAPHORE]);
             }
+            if (istate.codeEvictionPending()) {
+                LogUtils.INTERRUPTS.fine("Idle code eviction");
+                istate.sweepIdleCode();
+            }
             if (istate.hasSemaphoresToSignal()) {
                 LogUtils.INTERRUPTS.fine("Semaphore interrupt");
                 final ArrayObject externalObjects = (ArrayObject) specialObjects[SPECIAL_OBJECT.EXTERNAL_OBJECTS_ARRAY];
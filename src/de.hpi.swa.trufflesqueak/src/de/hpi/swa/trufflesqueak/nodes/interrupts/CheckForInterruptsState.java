@@ -6,7 +6,7 @@
  */
 package de.hpi.swa.trufflesqueak.nodes.interrupts;
 
-import java.util.ArrayDeque;
+import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
@@ -20,6 +20,7 @@ import de.hpi.swa.trufflesqueak.image.SqueakImageContext;
 import de.hpi.swa.trufflesqueak.model.NilObject;
 import de.hpi.swa.trufflesqueak.model.PointersObject;
 import de.hpi.swa.trufflesqueak.model.layout.ObjectLayouts.SPECIAL_OBJECT;
+import de.hpi.swa.trufflesqueak.util.IdleCodeEvictor;
 import de.hpi.swa.trufflesqueak.util.LogUtils;
 import de.hpi.swa.trufflesqueak.util.MiscUtils;
 
@@ -30,12 +31,15 @@ public final class CheckForInterruptsState {
 
     private final SqueakImageContext image;
     private ScheduledExecutorService executor;
-    private final ArrayDeque<Integer> semaphoresToSignal = new ArrayDeque<>();
+    /* Background image writers signal from their own thread. */
+    private final ConcurrentLinkedDeque<Integer> semaphoresToSignal = new ConcurrentLinkedDeque<>();
 
     private boolean isActive = true;
     protected long nextWakeupTick;
     protected boolean interruptPending;
     private boolean pendingFinalizationSignals;
+    private IdleCodeEvictor codeEvictor;
+    protected boolean codeEvictionPending;
 
     /**
      * `shouldTrigger` is set to `true` by a dedicated thread. To guarantee atomicity, it would be
@@ -52,14 +56,13 @@ public final class CheckForInterruptsState {
 
     public CheckForInterruptsState(final SqueakImageContext image) {
         this.image = image;
-        if (image.options.disableInterruptHandler) {
-            image.printToStdOut("Interrupt handler disabled...");
-        }
     }
 
+    /* Options are only read here, so that pre-initialized contexts use their patched options. */
     @TruffleBoundary
     public void start() {
         if (image.options.disableInterruptHandler) {
+            image.printToStdOut("Interrupt handler disabled...");
             return;
         }
         final Object interruptSema = image.getSpecialObject(SPECIAL_OBJECT.THE_INTERRUPT_SEMAPHORE);
@@ -74,6 +77,7 @@ public final class CheckForInterruptsState {
         } else {
             assert timerSema == NilObject.SINGLETON;
         }
+        codeEvictor = image.getCodeEvictor();
         executor = Executors.newSingleThreadScheduledExecutor(r -> {
             final Thread t = new Thread(r, CHECK_FOR_INTERRUPTS_THREAD_NAME);
             t.setDaemon(true);
@@ -81,8 +85,13 @@ public final class CheckForInterruptsState {
         });
         interruptChecks = executor.scheduleWithFixedDelay(() -> {
             if (!shouldTrigger) {
-                shouldTrigger = isActive && (nextWakeUpTickTrigger() || pendingFinalizationSignals() || hasSemaphoresToSignal());
-                shouldTriggerNoTimer = isActive && (pendingFinalizationSignals() || hasSemaphoresToSignal());
+                shouldTrigger = isActive && (nextWakeUpTickTrigger() || pendingFinalizationSignals() || hasSemaphoresToSignal() || codeEvictionPending);
+                shouldTriggerNoTimer = isActive && (pendingFinalizationSignals() || hasSemaphoresToSignal() || codeEvictionPending);
+            }
+            if (isActive && codeEvictor != null && !codeEvictionPending && codeEvictor.isSweepDue()) {
+                codeEvictionPending = true;
+                shouldTrigger = true;
+                shouldTriggerNoTimer = true;
             }
         }, INTERRUPT_CHECKS_EVERY_N_MILLISECONDS, INTERRUPT_CHECKS_EVERY_N_MILLISECONDS, TimeUnit.MILLISECONDS);
     }
@@ -151,6 +160,16 @@ public final class CheckForInterruptsState {
         return pendingFinalizationSignals;
     }
 
+    protected boolean codeEvictionPending() {
+        return codeEvictionPending;
+    }
+
+    @TruffleBoundary
+    protected void sweepIdleCode() {
+        codeEvictionPending = false;
+        codeEvictor.sweep();
+    }
+
     protected boolean hasSemaphoresToSignal() {
         return !semaphoresToSignal.isEmpty();
     }
@@ -211,6 +230,7 @@ public final class CheckForInterruptsState {
         shutdown();
         interruptPending = false;
         pendingFinalizationSignals = false;
+        codeEvictionPending = false;
         clearWeakPointersQueue();
         semaphoresToSignal.clear();
     }
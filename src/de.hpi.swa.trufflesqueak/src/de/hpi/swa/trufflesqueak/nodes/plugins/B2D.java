@@ -4001,6 +4001,7 @@ public final class B2D {
             return GEF_CLASS_MISMATCH;
         }
         /* Leave last entry unused to avoid complications */
+        spanOop.markModified();
         spanBuffer = spanOop.getIntStorage();
         final int value = slotSizeOf(spanOop) - 1;
         spanSizePut(value);
@@ -4852,6 +4853,7 @@ public final class B2D {
             PrimitiveFailed.andTransferToInterpreter(GEF_SIZE_MISMATCH);
         }
         final int[] src = workBuffer;
+        buf2.markModified();
         final int[] dst = buf2.getIntStorage();
         for (int i = 0, iLimiT = wbTopGet() - 1; i <= iLimiT; i++) {
             dst[i] = src[i];
@@ -4947,6 +4949,7 @@ public final class B2D {
         if (failureCode != 0) {
             PrimitiveFailed.andTransferToInterpreter(failureCode);
         }
+        statOop.markModified();
         final int[] stats = statOop.getIntStorage();
         stats[0] += workBuffer[GW_BEZIER_MONOTON_SUBDIVISIONS];
         stats[1] += workBuffer[GW_BEZIER_HEIGHT_SUBDIVISIONS];
@@ -4972,6 +4975,7 @@ public final class B2D {
         if (failureCode != 0) {
             PrimitiveFailed.andTransferToInterpreter(failureCode);
         }
+        statOop.markModified();
         final int[] stats = statOop.getIntStorage();
         stats[0] += workBuffer[GW_COUNT_INITIALIZING];
         stats[1] += workBuffer[GW_COUNT_FINISH_TEST];
@@ -5028,6 +5032,7 @@ public final class B2D {
         if (failureCode != 0) {
             PrimitiveFailed.andTransferToInterpreter(failureCode);
         }
+        statsArray.markModified();
         final int[] stats = statsArray.getIntStorage();
         stats[0] += workBuffer[GW_TIME_INITIALIZING];
         stats[1] += workBuffer[GW_TIME_FINISH_TEST];
@@ -7202,6 +7207,7 @@ public final class B2D {
 
     /* BalloonEngineBase>>#workBufferPut: */
     private void workBufferPut(final NativeObject wbOop) {
+        wbOop.markModified();
         workBuffer = wbOop.getIntStorage();
     }
 
@@ -31,6 +31,7 @@ public final class BMPReadWriterPlugin extends AbstractPrimitiveFactoryHolder {
     protected abstract static class PrimRead24BmpLineNode extends AbstractBMPPluginNode implements QuinaryPrimitiveFallback {
         @Specialization(guards = {"pixelLine.isByteType()", "formBits.isIntType()", "inBounds(formBitsIndex, width, formBits, pixelLine)"})
         protected static final Object doRead(final Object receiver, final NativeObject pixelLine, final NativeObject formBits, final long formBitsIndex, final long width) {
+            formBits.markModified();
             final byte[] bytes = pixelLine.getByteStorage();
             final int[] ints = formBits.getIntStorage();
             final int bitsStartIndex = (int) formBitsIndex - 1;
@@ -48,6 +49,7 @@ public final class BMPReadWriterPlugin extends AbstractPrimitiveFactoryHolder {
     protected abstract static class PrimWrite24BmpLineNode extends AbstractBMPPluginNode implements QuinaryPrimitiveFallback {
         @Specialization(guards = {"pixelLine.isByteType()", "formBits.isIntType()", "inBounds(formBitsIndex, width, formBits, pixelLine)"})
         protected static final Object doWrite(final Object receiver, final NativeObject pixelLine, final NativeObject formBits, final long formBitsIndex, final long width) {
+            pixelLine.markModified();
             final byte[] bytes = pixelLine.getByteStorage();
             final int[] ints = formBits.getIntStorage();
             final int bitsStartIndex = (int) formBitsIndex - 1;
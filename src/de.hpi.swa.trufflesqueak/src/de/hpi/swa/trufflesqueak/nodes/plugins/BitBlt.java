@@ -1625,6 +1625,7 @@ public final class BitBlt {
         destPitch = div(destWidth + destPPW - 1, destPPW) * 4;
         final NativeObject destBitsNative = (NativeObject) destBitsValue;
         final long destBitsSize;
+        destBitsNative.markModified();
         if (isWords(destBitsNative)) {
             destBits = destBitsNative.getIntStorage();
             destBitsSize = destBitsNative.getIntLength() * Integer.BYTES;
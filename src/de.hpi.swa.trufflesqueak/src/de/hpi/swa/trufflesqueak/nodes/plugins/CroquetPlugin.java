@@ -29,6 +29,7 @@ public final class CroquetPlugin extends AbstractPrimitiveFactoryHolder {
 
         @Specialization(guards = "byteArray.isByteType()")
         protected static final boolean doGather(@SuppressWarnings("unused") final Object receiver, final NativeObject byteArray) {
+            byteArray.markModified();
             ArrayUtils.fillRandomly(byteArray.getByteStorage());
             return BooleanObject.TRUE;
         }
@@ -41,6 +42,7 @@ public final class CroquetPlugin extends AbstractPrimitiveFactoryHolder {
         @Specialization(guards = {"buffer.isIntType()", "hash.isIntType()", "buffer.getIntLength() == 16", "hash.getIntLength() == 4"})
         protected static final NativeObject doMD5(@SuppressWarnings("unused") final Object receiver, final NativeObject buffer, final NativeObject hash) {
             final int[] in = buffer.getIntStorage();
+            hash.markModified();
             final int[] hashInts = hash.getIntStorage();
             int a = hashInts[0];
             int b = hashInts[1];
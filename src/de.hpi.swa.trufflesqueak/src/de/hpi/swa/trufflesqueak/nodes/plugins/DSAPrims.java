@@ -52,6 +52,7 @@ public final class DSAPrims extends AbstractPrimitiveFactoryHolder {
     protected abstract static class PrimHashBlockNode extends AbstractPrimitiveNode implements TernaryPrimitiveFallback {
         @Specialization(guards = {"buf.isIntType()", "state.isIntType()", "state.getIntLength() == 5", "buf.getIntLength() == 80"})
         protected static final Object doHash(final Object receiver, final NativeObject buf, final NativeObject state) {
+            state.markModified();
             final int[] statePtr = state.getIntStorage();
             final int[] bufPtr = buf.getIntStorage();
 
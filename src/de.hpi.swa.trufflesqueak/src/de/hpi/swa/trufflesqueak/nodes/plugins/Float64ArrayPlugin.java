@@ -38,6 +38,7 @@ public class Float64ArrayPlugin extends AbstractPrimitiveFactoryHolder {
 
         @Specialization(guards = {"receiver.isLongType()", "floatArray.isLongType()", "receiver.getLongLength() == floatArray.getLongLength()"})
         protected static final NativeObject doAdd(final NativeObject receiver, final NativeObject floatArray) {
+            receiver.markModified();
             final long[] longs1 = receiver.getLongStorage();
             final long[] longs2 = floatArray.getLongStorage();
             for (int i = 0; i < longs1.length; i++) {
@@ -54,6 +55,7 @@ public class Float64ArrayPlugin extends AbstractPrimitiveFactoryHolder {
 
         @Specialization(guards = {"receiver.isLongType()"})
         protected static final NativeObject doAdd(final NativeObject receiver, final double scalarValue) {
+            receiver.markModified();
             final long[] longs = receiver.getLongStorage();
             for (int i = 0; i < longs.length; i++) {
                 longs[i] = Double.doubleToRawLongBits(Double.longBitsToDouble(longs[i]) + (float) scalarValue);
@@ -100,6 +102,7 @@ public class Float64ArrayPlugin extends AbstractPrimitiveFactoryHolder {
 
         @Specialization(guards = {"receiver.isLongType()", "floatArray.isLongType()", "receiver.getLongLength() == floatArray.getLongLength()"})
         protected static final NativeObject doDiv(final NativeObject receiver, final NativeObject floatArray) {
+            receiver.markModified();
             final long[] longs1 = receiver.getLongStorage();
             final long[] longs2 = floatArray.getLongStorage();
             /* "Check if any of the argument's values is zero". */
@@ -122,6 +125,7 @@ public class Float64ArrayPlugin extends AbstractPrimitiveFactoryHolder {
 
         @Specialization(guards = {"receiver.isLongType()"})
         protected static final NativeObject doDiv(final NativeObject receiver, final double scalarValue) {
+            receiver.markModified();
             final long[] longs = receiver.getLongStorage();
             for (int i = 0; i < longs.length; i++) {
                 longs[i] = Double.doubleToRawLongBits((float) (Double.longBitsToDouble(longs[i]) / scalarValue));
@@ -171,6 +175,7 @@ public class Float64ArrayPlugin extends AbstractPrimitiveFactoryHolder {
 
         @Specialization(guards = {"receiver.isLongType()", "other.isIntType()", "receiver.getLongLength() == other.getIntLength()"})
         protected static final NativeObject doFromFloatArray(final NativeObject receiver, final NativeObject other) {
+            receiver.markModified();
             final long[] longs = receiver.getLongStorage();
             final int[] ints = other.getIntStorage();
             for (int i = 0; i < longs.length; i++) {
@@ -204,6 +209,7 @@ public class Float64ArrayPlugin extends AbstractPrimitiveFactoryHolder {
         @Specialization(guards = {"receiver.isLongType()", "floatArray.isLongType()",
                         "receiver.getLongLength() == floatArray.getLongLength()"})
         protected static final NativeObject doMul(final NativeObject receiver, final NativeObject floatArray) {
+            receiver.markModified();
             final long[] longs1 = receiver.getLongStorage();
             final long[] longs2 = floatArray.getLongStorage();
 
@@ -221,6 +227,7 @@ public class Float64ArrayPlugin extends AbstractPrimitiveFactoryHolder {
 
         @Specialization(guards = {"receiver.isLongType()"})
         protected static final NativeObject doMul(final NativeObject receiver, final double scalarValue) {
+            receiver.markModified();
             final long[] longs = receiver.getLongStorage();
             for (int i = 0; i < longs.length; i++) {
                 longs[i] = Double.doubleToRawLongBits(Double.longBitsToDouble(longs[i]) * (float) scalarValue);
@@ -242,6 +249,7 @@ public class Float64ArrayPlugin extends AbstractPrimitiveFactoryHolder {
 
         @Specialization(guards = {"receiver.isLongType()", "floatArray.isLongType()", "receiver.getLongLength() == floatArray.getLongLength()"})
         protected static final NativeObject doSub(final NativeObject receiver, final NativeObject floatArray) {
+            receiver.markModified();
             final long[] longs1 = receiver.getLongStorage();
             final long[] longs2 = floatArray.getLongStorage();
 
@@ -259,6 +267,7 @@ public class Float64ArrayPlugin extends AbstractPrimitiveFactoryHolder {
 
         @Specialization(guards = {"receiver.isLongType()"})
         protected static final NativeObject doSub(final NativeObject receiver, final double scalarValue) {
+            receiver.markModified();
             final long[] longs = receiver.getLongStorage();
             for (int i = 0; i < longs.length; i++) {
                 longs[i] = Double.doubleToRawLongBits(Double.longBitsToDouble(longs[i]) - (float) scalarValue);
@@ -39,6 +39,7 @@ public class FloatArrayPlugin extends AbstractPrimitiveFactoryHolder {
         @Specialization(guards = {"receiver.isIntType()", "floatArray.isIntType()",
                         "receiver.getIntLength() == floatArray.getIntLength()"})
         protected static final NativeObject doAdd(final NativeObject receiver, final NativeObject floatArray) {
+            receiver.markModified();
             final int[] ints1 = receiver.getIntStorage();
             final int[] ints2 = floatArray.getIntStorage();
             for (int i = 0; i < ints1.length; i++) {
@@ -55,6 +56,7 @@ public class FloatArrayPlugin extends AbstractPrimitiveFactoryHolder {
 
         @Specialization(guards = {"receiver.isIntType()"})
         protected static final NativeObject doAdd(final NativeObject receiver, final double scalarValue) {
+            receiver.markModified();
             final int[] ints = receiver.getIntStorage();
             for (int i = 0; i < ints.length; i++) {
                 ints[i] = Float.floatToRawIntBits(Float.intBitsToFloat(ints[i]) + (float) scalarValue);
@@ -102,6 +104,7 @@ public class FloatArrayPlugin extends AbstractPrimitiveFactoryHolder {
         @Specialization(guards = {"receiver.isIntType()", "floatArray.isIntType()",
                         "receiver.getIntLength() == floatArray.getIntLength()"})
         protected static final NativeObject doDiv(final NativeObject receiver, final NativeObject floatArray) {
+            receiver.markModified();
             final int[] ints1 = receiver.getIntStorage();
             final int[] ints2 = floatArray.getIntStorage();
             /* "Check if any of the argument's values is zero". */
@@ -124,6 +127,7 @@ public class FloatArrayPlugin extends AbstractPrimitiveFactoryHolder {
 
         @Specialization(guards = {"receiver.isIntType()"})
         protected static final NativeObject doDiv(final NativeObject receiver, final double scalarValue) {
+            receiver.markModified();
             final int[] ints = receiver.getIntStorage();
             for (int i = 0; i < ints.length; i++) {
                 ints[i] = Float.floatToRawIntBits((float) (Float.intBitsToFloat(ints[i]) / scalarValue));
@@ -173,6 +177,7 @@ public class FloatArrayPlugin extends AbstractPrimitiveFactoryHolder {
 
         @Specialization(guards = {"receiver.isIntType()", "other.isLongType()", "receiver.getIntLength() == other.getLongLength()"})
         protected static final NativeObject doFromFloat64Array(final NativeObject receiver, final NativeObject other) {
+            receiver.markModified();
             final int[] ints = receiver.getIntStorage();
             final long[] longs = other.getLongStorage();
             for (int i = 0; i < ints.length; i++) {
@@ -206,6 +211,7 @@ public class FloatArrayPlugin extends AbstractPrimitiveFactoryHolder {
         @Specialization(guards = {"receiver.isIntType()", "floatArray.isIntType()",
                         "receiver.getIntLength() == floatArray.getIntLength()"})
         protected static final NativeObject doMul(final NativeObject receiver, final NativeObject floatArray) {
+            receiver.markModified();
             final int[] ints1 = receiver.getIntStorage();
             final int[] ints2 = floatArray.getIntStorage();
 
@@ -223,6 +229,7 @@ public class FloatArrayPlugin extends AbstractPrimitiveFactoryHolder {
 
         @Specialization(guards = {"receiver.isIntType()"})
         protected static final NativeObject doMul(final NativeObject receiver, final double scalarValue) {
+            receiver.markModified();
             final int[] ints = receiver.getIntStorage();
             for (int i = 0; i < ints.length; i++) {
                 ints[i] = Float.floatToRawIntBits(Float.intBitsToFloat(ints[i]) * (float) scalarValue);
@@ -241,6 +248,7 @@ public class FloatArrayPlugin extends AbstractPrimitiveFactoryHolder {
         @Specialization(guards = {"receiver.isIntType()", "floatArray.isIntType()",
                         "receiver.getIntLength() == floatArray.getIntLength()"})
         protected static final NativeObject doSub(final NativeObject receiver, final NativeObject floatArray) {
+            receiver.markModified();
             final int[] ints1 = receiver.getIntStorage();
             final int[] ints2 = floatArray.getIntStorage();
 
@@ -258,6 +266,7 @@ public class FloatArrayPlugin extends AbstractPrimitiveFactoryHolder {
 
         @Specialization(guards = {"receiver.isIntType()"})
         protected static final NativeObject doSub(final NativeObject receiver, final double scalarValue) {
+            receiver.markModified();
             final int[] ints = receiver.getIntStorage();
             for (int i = 0; i < ints.length; i++) {
                 ints[i] = Float.floatToRawIntBits(Float.intBitsToFloat(ints[i]) - (float) scalarValue);
@@ -112,6 +112,7 @@ public final class JPEGReadWriter2Plugin extends AbstractPrimitiveFactoryHolder
                 throw PrimitiveFailed.GENERIC_ERROR;
             }
             final BufferedImage image = readImageOrPrimFail(source);
+            aJPEGDecompressStruct.markModified();
             UnsafeUtils.putLong(aJPEGDecompressStruct.getByteStorage(), 0, image.getHeight());
             UnsafeUtils.putLong(aJPEGDecompressStruct.getByteStorage(), 1, image.getWidth());
             return receiver;
@@ -154,6 +155,7 @@ public final class JPEGReadWriter2Plugin extends AbstractPrimitiveFactoryHolder
         private static void readImageOrPrimFail(final NativeObject source, final NativeObject bits, final int width, final int height) {
             try {
                 final BufferedImage image = ImageIO.read(new ByteArrayInputStream(source.getByteStorage()));
+                bits.markModified();
                 image.getRGB(0, 0, width, height, bits.getIntStorage(), 0, width);
             } catch (final IOException e) {
                 e.printStackTrace();
@@ -180,6 +182,7 @@ public final class JPEGReadWriter2Plugin extends AbstractPrimitiveFactoryHolder
             if (!bits.isIntType() || depth != 32) {
                 throw PrimitiveFailed.andTransferToInterpreter();
             }
+            destination.markModified();
             final WrappedByteArray output = new WrappedByteArray(destination.getByteStorage());
             final BufferedImage image = MiscUtils.new32BitBufferedImage(bits.getIntStorage(), width, height, false);
             writeImage(output, image);
@@ -383,7 +383,9 @@ public final class JPEGReader {
     @TruffleBoundary(transferToInterpreterOnException = false)
     public void primitiveColorConvertGrayscaleMCU(final ArrayObject componentArray, final NativeObject bits, final NativeObject residualArray, final long mask) {
         ditherMask = (int) mask;
+        residualArray.markModified();
         residuals = residualArray.getIntStorage();
+        bits.markModified();
         jpegBits = bits.getIntStorage();
         jpegBitsSize = jpegBits.length;
         if (!yColorComponentFrom(componentArray)) {
@@ -413,7 +415,9 @@ public final class JPEGReader {
     @TruffleBoundary(transferToInterpreterOnException = false)
     public void primitiveColorConvertMCU(final PointersObject componentArray, final NativeObject bits, final NativeObject residualArray, final long mask) {
         ditherMask = (int) mask;
+        residualArray.markModified();
         residuals = residualArray.getIntStorage();
+        bits.markModified();
         jpegBits = bits.getIntStorage();
         jpegBitsSize = jpegBits.length;
         if (!yColorComponentFrom(fetchPointerofObject(0, componentArray))) {
@@ -499,6 +503,7 @@ public final class JPEGReader {
         if (!colorComponentfrom(yComponent, comp)) {
             throw PrimitiveFailed.GENERIC_ERROR;
         }
+        sampleBuffer.markModified();
         decodeBlockIntocomponent(sampleBuffer.getIntStorage(), yComponent);
         if (failed()) {
             return;
@@ -537,6 +542,7 @@ public final class JPEGReader {
         int z5;
 
         qt = qtValue.getIntStorage();
+        anArrayValue.markModified();
         anArray = anArrayValue.getIntStorage();
         /* begin idctBlockInt:qt: */
         for (int i = 0; i < DCTSize; i += 1) {
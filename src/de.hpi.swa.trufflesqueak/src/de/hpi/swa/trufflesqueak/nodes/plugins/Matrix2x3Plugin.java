@@ -147,6 +147,7 @@ public class Matrix2x3Plugin extends AbstractPrimitiveFactoryHolder {
         protected final Object doCompose(final NativeObject receiver, final NativeObject aTransformation, final NativeObject result) {
             final float[] m1 = loadMatrixAsFloat(receiver);
             final float[] m2 = loadMatrixAsFloat(aTransformation);
+            result.markModified();
             final int[] m3 = loadMatrix(result);
             m3[0] = Float.floatToRawIntBits(m1[0] * m2[0] + m1[1] * m2[3]);
             m3[1] = Float.floatToRawIntBits(m1[0] * m2[1] + m1[1] * m2[4]);
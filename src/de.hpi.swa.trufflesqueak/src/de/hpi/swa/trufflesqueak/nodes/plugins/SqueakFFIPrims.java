@@ -333,6 +333,7 @@ public final class SqueakFFIPrims extends AbstractPrimitiveFactoryHolder {
     protected abstract static class PrimFFIDoubleAtPutNode extends AbstractPrimitiveNode implements TernaryPrimitiveFallback {
         @Specialization(guards = {"byteArray.isByteType()", "byteOffsetLong > 0"})
         protected static final double doFloatAtPut(final NativeObject byteArray, final long byteOffsetLong, final double value) {
+            byteArray.markModified();
             UnsafeUtils.putDoubleIntoBytes(byteArray.getByteStorage(), byteOffsetLong, value);
             return value;
         }
@@ -352,6 +353,7 @@ public final class SqueakFFIPrims extends AbstractPrimitiveFactoryHolder {
     protected abstract static class PrimFFIFloatAtPutNode extends AbstractPrimitiveNode implements TernaryPrimitiveFallback {
         @Specialization(guards = {"byteArray.isByteType()", "byteOffsetLong > 0"})
         protected static final double doFloatAtPut(final NativeObject byteArray, final long byteOffsetLong, final double value) {
+            byteArray.markModified();
             UnsafeUtils.putFloatIntoBytes(byteArray.getByteStorage(), byteOffsetLong, (float) value);
             return value;
         }
@@ -423,6 +425,7 @@ public final class SqueakFFIPrims extends AbstractPrimitiveFactoryHolder {
         @SuppressWarnings("unused")
         @Specialization(guards = {"byteArray.isByteType()", "byteOffsetLong > 0", "byteSize == 1", "!isSigned", "inUnsignedBounds(value, MAX_VALUE_UNSIGNED_1)"})
         protected static final Object doAtPut1Unsigned(final NativeObject byteArray, final long byteOffsetLong, final long value, final long byteSize, final boolean isSigned) {
+            byteArray.markModified();
             byteArray.getByteStorage()[(int) byteOffsetLong - 1] = (byte) value;
             return value;
         }
@@ -436,6 +439,7 @@ public final class SqueakFFIPrims extends AbstractPrimitiveFactoryHolder {
         @SuppressWarnings("unused")
         @Specialization(guards = {"byteArray.isByteType()", "byteOffsetLong > 0", "byteSize == 2", "!isSigned", "inUnsignedBounds(value, MAX_VALUE_UNSIGNED_2)"})
         protected static final Object doAtPut2Unsigned(final NativeObject byteArray, final long byteOffsetLong, final long value, final long byteSize, final boolean isSigned) {
+            byteArray.markModified();
             UnsafeUtils.putShortIntoBytes(byteArray.getByteStorage(), byteOffsetLong - 1, (short) value);
             return value;
         }
@@ -449,6 +453,7 @@ public final class SqueakFFIPrims extends AbstractPrimitiveFactoryHolder {
         @SuppressWarnings("unused")
         @Specialization(guards = {"byteArray.isByteType()", "byteOffsetLong > 0", "byteSize == 4", "!isSigned", "inUnsignedBounds(value, MAX_VALUE_UNSIGNED_4)"})
         protected static final Object doAtPut4Unsigned(final NativeObject byteArray, final long byteOffsetLong, final long value, final long byteSize, final boolean isSigned) {
+            byteArray.markModified();
             UnsafeUtils.putIntIntoBytes(byteArray.getByteStorage(), byteOffsetLong - 1, (int) value);
             return value;
         }
@@ -465,6 +470,7 @@ public final class SqueakFFIPrims extends AbstractPrimitiveFactoryHolder {
         @ExplodeLoop
         protected static final Object doAtPut4UnsignedLarge(final NativeObject byteArray, final long byteOffsetLong, final LargeIntegerObject value, final long byteSize, final boolean isSigned) {
             final int byteOffset = (int) byteOffsetLong - 1;
+            byteArray.markModified();
             final byte[] targetBytes = byteArray.getByteStorage();
             final byte[] sourceBytes = value.getBytes();
             final int numSourceBytes = sourceBytes.length;
@@ -483,6 +489,7 @@ public final class SqueakFFIPrims extends AbstractPrimitiveFactoryHolder {
         @SuppressWarnings("unused")
         @Specialization(guards = {"byteArray.isByteType()", "byteOffsetLong > 0", "byteSize == 8", "!isSigned", "value >= 0"})
         protected static final Object doAtPut8Unsigned(final NativeObject byteArray, final long byteOffsetLong, final long value, final long byteSize, final boolean isSigned) {
+            byteArray.markModified();
             UnsafeUtils.putLongIntoBytes(byteArray.getByteStorage(), byteOffsetLong - 1, value);
             return value;
         }
@@ -498,6 +505,7 @@ public final class SqueakFFIPrims extends AbstractPrimitiveFactoryHolder {
         @ExplodeLoop
         protected static final Object doAtPut8UnsignedLarge(final NativeObject byteArray, final long byteOffsetLong, final LargeIntegerObject value, final long byteSize, final boolean isSigned) {
             final int byteOffset = (int) byteOffsetLong - 1;
+            byteArray.markModified();
             final byte[] targetBytes = byteArray.getByteStorage();
             final byte[] sourceBytes = value.getBytes();
             final int numSourceBytes = sourceBytes.length;
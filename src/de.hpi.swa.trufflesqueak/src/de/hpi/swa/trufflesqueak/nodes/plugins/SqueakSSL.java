@@ -329,6 +329,7 @@ public final class SqueakSSL extends AbstractPrimitiveFactoryHolder {
      */
     @TruffleBoundary
     private static ByteBuffer asWriteBuffer(final NativeObject buffer) {
+        buffer.markModified();
         return ByteBuffer.wrap(buffer.getByteStorage());
     }
 
@@ -6,9 +6,11 @@
  */
 package de.hpi.swa.trufflesqueak.nodes.plugins;
 
+import java.io.IOException;
 import java.util.List;
 
 import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.Truffle;
 import com.oracle.truffle.api.dsl.Cached;
 import com.oracle.truffle.api.dsl.GenerateNodeFactory;
@@ -19,6 +21,8 @@ import com.oracle.truffle.api.dsl.Specialization;
 import de.hpi.swa.trufflesqueak.exceptions.PrimitiveExceptions.PrimitiveFailed;
 import de.hpi.swa.trufflesqueak.image.SqueakImageContext;
 import de.hpi.swa.trufflesqueak.interop.JavaObjectWrapper;
+import de.hpi.swa.trufflesqueak.model.ArrayObject;
+import de.hpi.swa.trufflesqueak.model.BooleanObject;
 import de.hpi.swa.trufflesqueak.model.NativeObject;
 import de.hpi.swa.trufflesqueak.model.PointersObject;
 import de.hpi.swa.trufflesqueak.model.layout.ObjectLayouts.FORM;
@@ -27,6 +31,7 @@ import de.hpi.swa.trufflesqueak.nodes.primitives.AbstractPrimitiveFactoryHolder;
 import de.hpi.swa.trufflesqueak.nodes.primitives.AbstractPrimitiveNode;
 import de.hpi.swa.trufflesqueak.nodes.primitives.PrimitiveFallbacks.BinaryPrimitiveFallback;
 import de.hpi.swa.trufflesqueak.nodes.primitives.SqueakPrimitive;
+import de.hpi.swa.trufflesqueak.util.HeapCensus;
 import de.hpi.swa.trufflesqueak.util.MiscUtils;
 
 public final class TruffleSqueakPlugin extends AbstractPrimitiveFactoryHolder {
@@ -78,6 +83,60 @@ public final class TruffleSqueakPlugin extends AbstractPrimitiveFactoryHolder {
         }
     }
 
+    @GenerateNodeFactory
+    @SqueakPrimitive(names = "primitiveHeapCensus")
+    protected abstract static class PrimHeapCensus1Node extends AbstractPrimitiveNode {
+        @Specialization
+        protected final ArrayObject doCensus(@SuppressWarnings("unused") final Object receiver) {
+            final SqueakImageContext image = getContext();
+            return HeapCensus.take(image).toArray(image);
+        }
+    }
+
+    /* Like PrimHeapCensus1Node, but also writes the census to a CSV or JSON file. */
+    @GenerateNodeFactory
+    @SqueakPrimitive(names = "primitiveHeapCensus")
+    protected abstract static class PrimHeapCensus2Node extends AbstractPrimitiveNode implements BinaryPrimitiveFallback {
+        @Specialization(guards = "path.isByteType()")
+        protected final ArrayObject doCensus(@SuppressWarnings("unused") final Object receiver, final NativeObject path) {
+            final SqueakImageContext image = getContext();
+            final HeapCensus census = HeapCensus.take(image);
+            writeCensus(image, census, path.asStringUnsafe());
+            return census.toArray(image);
+        }
+
+        @TruffleBoundary
+        private static void writeCensus(final SqueakImageContext image, final HeapCensus census, final String path) {
+            try {
+                census.write(image.env.getPublicTruffleFile(path));
+            } catch (final IOException | SecurityException | UnsupportedOperationException e) {
+                image.printToStdErr("Failed to write heap census:", e.getMessage());
+                throw PrimitiveFailed.GENERIC_ERROR;
+            }
+        }
+    }
+
+    /* Answers {size. misses. evictions} of the global method cache. */
+    @GenerateNodeFactory
+    @SqueakPrimitive(names = "primitiveMethodCacheStatistics")
+    protected abstract static class PrimMethodCacheStatisticsNode extends AbstractPrimitiveNode {
+        @Specialization
+        protected final ArrayObject doStatistics(@SuppressWarnings("unused") final Object receiver) {
+            final SqueakImageContext image = getContext();
+            return image.asArrayOfLongs(image.getMethodCacheStatistics());
+        }
+    }
+
+    /* Answers whether the last snapshot, which may have been written in the background, failed. */
+    @GenerateNodeFactory
+    @SqueakPrimitive(names = "primitiveLastSnapshotFailed")
+    protected abstract static class PrimLastSnapshotFailedNode extends AbstractPrimitiveNode {
+        @Specialization
+        protected final boolean doFailed(@SuppressWarnings("unused") final Object receiver) {
+            return BooleanObject.wrap(getContext().isLastSnapshotFailed());
+        }
+    }
+
     @GenerateNodeFactory
     @ImportStatic(FORM.class)
     @SqueakPrimitive(names = "primitiveFormToBufferedImage")
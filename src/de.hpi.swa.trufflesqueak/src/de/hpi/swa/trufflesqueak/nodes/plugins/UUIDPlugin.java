@@ -31,6 +31,7 @@ public final class UUIDPlugin extends AbstractPrimitiveFactoryHolder {
     protected abstract static class PrimMakeUUIDNode extends AbstractPrimitiveNode implements UnaryPrimitiveFallback {
         @Specialization(guards = {"receiver.isByteType()", "receiver.getByteLength() == 16"})
         protected static final Object doUUID(final NativeObject receiver) {
+            receiver.markModified();
             ArrayUtils.fillRandomly(receiver.getByteStorage());
             // Version 4
             receiver.setByte(6, receiver.getByte(6) & 0x0F | 0x40);
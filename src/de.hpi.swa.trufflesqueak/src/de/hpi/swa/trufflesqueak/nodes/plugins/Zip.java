@@ -496,6 +496,7 @@ public final class Zip {
 
     /* DeflatePlugin>>#primitiveDeflateUpdateHashTable */
     public static void primitiveDeflateUpdateHashTable(final NativeObject table, final int delta) {
+        table.markModified();
         final int[] tableInts = table.getIntStorage();
         final int tableSize = tableInts.length;
         for (int i = 0; i < tableSize; i++) {
@@ -847,6 +848,8 @@ public final class Zip {
         if (!isBytes(oop)) {
             throw PrimitiveFailed.GENERIC_ERROR;
         }
+        /* Streams and their tables are updated in place. */
+        ((NativeObject) oop).markModified();
         return ((NativeObject) oop).getByteStorage();
     }
 
@@ -855,6 +858,7 @@ public final class Zip {
         if (!isWords(oop)) {
             throw PrimitiveFailed.GENERIC_ERROR;
         }
+        ((NativeObject) oop).markModified();
         return ((NativeObject) oop).getIntStorage();
     }
 
@@ -863,6 +867,7 @@ public final class Zip {
         if (!(isWords(oop) && ((NativeObject) oop).getIntLength() == expectedLength)) {
             throw PrimitiveFailed.GENERIC_ERROR;
         }
+        ((NativeObject) oop).markModified();
         return ((NativeObject) oop).getIntStorage();
     }
 
@@ -187,6 +187,7 @@ public final class SocketPlugin extends AbstractPrimitiveFactoryHolder {
     protected abstract static class PrimResolverHostNameResultNode extends AbstractPrimitiveNode implements BinaryPrimitiveFallback {
         @Specialization(guards = {"targetString.isByteType()", "targetString.getByteLength() >= LOCAL_HOST_NAME.length"})
         protected static final Object doResult(@SuppressWarnings("unused") final Object receiver, final NativeObject targetString) {
+            targetString.markModified();
             System.arraycopy(LOCAL_HOST_NAME, 0, targetString.getByteStorage(), 0, LOCAL_HOST_NAME.length);
             return receiver;
         }
@@ -554,6 +555,7 @@ public final class SocketPlugin extends AbstractPrimitiveFactoryHolder {
                         @SuppressWarnings("unused") final Object receiver, final PointersObject sd,
                         final NativeObject buffer, final long startIndex, final long count) {
             try {
+                buffer.markModified();
                 return receiveData(sd, buffer.getByteStorage(), (int) startIndex - 1, (int) count);
             } catch (final IOException e) {
                 LogUtils.SOCKET.log(Level.FINE, "Receiving data failed", e);
@@ -206,6 +206,7 @@ public final class ArrayStreamPrimitives extends AbstractPrimitiveFactoryHolder
 
         @Specialization(guards = {"receiver.isIntType()", "inBounds1(index, receiver.getIntLength(), 2)", "inShortRange(value)"})
         protected static final long doNativeInts(final NativeObject receiver, final long index, final long value) {
+            receiver.markModified();
             UnsafeUtils.putShort(receiver.getIntStorage(), index - 1, (short) value);
             return value;
         }
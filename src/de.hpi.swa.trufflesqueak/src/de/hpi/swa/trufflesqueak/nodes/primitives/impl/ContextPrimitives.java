@@ -37,6 +37,8 @@ import de.hpi.swa.trufflesqueak.nodes.primitives.PrimitiveFallbacks.TernaryPrimi
 import de.hpi.swa.trufflesqueak.nodes.primitives.PrimitiveFallbacks.UnaryPrimitiveFallback;
 import de.hpi.swa.trufflesqueak.nodes.primitives.SqueakPrimitive;
 import de.hpi.swa.trufflesqueak.shared.SqueakLanguageConfig;
+import de.hpi.swa.trufflesqueak.util.ContextMaterializationProfiler;
+import de.hpi.swa.trufflesqueak.util.ContextMaterializationProfiler.Cause;
 import de.hpi.swa.trufflesqueak.util.FrameAccess;
 
 public class ContextPrimitives extends AbstractPrimitiveFactoryHolder {
@@ -99,6 +101,7 @@ public class ContextPrimitives extends AbstractPrimitiveFactoryHolder {
                         if (context != null) {
                             return context;
                         } else {
+                            ContextMaterializationProfiler.record(getContext(), FrameAccess.getMethodOrBlock(current), Cause.HANDLER_SEARCH);
                             return ContextObject.create(getContext(), frameInstance);
                         }
                     }
@@ -246,6 +249,7 @@ public class ContextPrimitives extends AbstractPrimitiveFactoryHolder {
                         if (context != null) {
                             return context;
                         } else {
+                            ContextMaterializationProfiler.record(getContext(), FrameAccess.getMethodOrBlock(current), Cause.HANDLER_SEARCH);
                             return ContextObject.create(getContext(), frameInstance);
                         }
                     } else {
@@ -742,13 +742,15 @@ public final class ControlPrimitives extends AbstractPrimitiveFactoryHolder {
 
         @Specialization
         protected final long doGC(@SuppressWarnings("unused") final Object receiver) {
+            final SqueakImageContext image = getContext();
+            /* Release the snapshot of an abandoned enumeration, if any (see HeapEnumeration). */
+            image.heapEnumeration.invalidate();
             if (TruffleOptions.AOT) {
                 /* System.gc() triggers full GC by default in SVM (see https://git.io/JvY7g). */
                 MiscUtils.systemGC();
             } else {
                 forceFullGC();
             }
-            final SqueakImageContext image = getContext();
             final boolean hasPendingFinalizations = LogUtils.GC_IS_LOGGABLE_FINE ? hasPendingFinalizationsWithLogging(image) : hasPendingFinalizations(image);
             if (hasPendingFinalizations) {
                 image.interrupt.setPendingFinalizations(true);
@@ -791,6 +793,7 @@ public final class ControlPrimitives extends AbstractPrimitiveFactoryHolder {
     public static final class PrimIncrementalGCNode extends AbstractSingletonPrimitiveNode {
         @Override
         public Object execute() {
+            getContext().heapEnumeration.invalidate();
             /* Cannot force incremental GC in Java, suggesting a normal GC instead. */
             MiscUtils.systemGC();
             return MiscUtils.runtimeFreeMemory();
@@ -16,6 +16,7 @@ import com.oracle.truffle.api.dsl.Cached;
 import com.oracle.truffle.api.dsl.Cached.Shared;
 import com.oracle.truffle.api.dsl.Fallback;
 import com.oracle.truffle.api.dsl.GenerateNodeFactory;
+import com.oracle.truffle.api.dsl.ImportStatic;
 import com.oracle.truffle.api.dsl.NodeFactory;
 import com.oracle.truffle.api.dsl.Specialization;
 import com.oracle.truffle.api.frame.VirtualFrame;
@@ -67,6 +68,7 @@ import de.hpi.swa.trufflesqueak.nodes.primitives.PrimitiveFallbacks.SeptenaryPri
 import de.hpi.swa.trufflesqueak.nodes.primitives.PrimitiveFallbacks.TernaryPrimitiveFallback;
 import de.hpi.swa.trufflesqueak.nodes.primitives.PrimitiveFallbacks.UnaryPrimitiveFallback;
 import de.hpi.swa.trufflesqueak.nodes.primitives.SqueakPrimitive;
+import de.hpi.swa.trufflesqueak.util.ContextMaterializationProfiler.Cause;
 import de.hpi.swa.trufflesqueak.util.UnsafeUtils;
 
 public final class IOPrimitives extends AbstractPrimitiveFactoryHolder {
@@ -129,12 +131,13 @@ public final class IOPrimitives extends AbstractPrimitiveFactoryHolder {
     /** Primitive 96 (primitiveCopyBits) not in use anymore. */
 
     @GenerateNodeFactory
+    @ImportStatic(Cause.class)
     @SqueakPrimitive(indices = 97)
     protected abstract static class PrimSnapshotNode extends AbstractPrimitiveNode implements UnaryPrimitiveFallback {
 
         @Specialization
         public final boolean doSnapshot(final VirtualFrame frame, @SuppressWarnings("unused") final PointersObject receiver,
-                        @Cached final GetOrCreateContextNode getOrCreateContextNode) {
+                        @Cached("create(THIS_CONTEXT)") final GetOrCreateContextNode getOrCreateContextNode) {
             writeImage(getOrCreateContextNode.executeGet(frame));
             /* Return false to signal that the image is not resuming. */
             return BooleanObject.FALSE;
@@ -150,6 +153,39 @@ public final class IOPrimitives extends AbstractPrimitiveFactoryHolder {
         }
     }
 
+    /**
+     * TruffleSqueak-specific variant of primitive 97 that signals the external semaphore at
+     * semaphoreIndex once the image file is complete (useful with background snapshots). Fails
+     * unless semaphoreIndex is a valid index into the external objects array.
+     */
+    @GenerateNodeFactory
+    @ImportStatic(Cause.class)
+    @SqueakPrimitive(indices = 97)
+    protected abstract static class PrimSnapshotWithSemaphoreNode extends AbstractPrimitiveNode implements BinaryPrimitiveFallback {
+
+        @Specialization
+        public final boolean doSnapshot(final VirtualFrame frame, @SuppressWarnings("unused") final PointersObject receiver, final long semaphoreIndex,
+                        @Cached("create(THIS_CONTEXT)") final GetOrCreateContextNode getOrCreateContextNode) {
+            writeImage(getOrCreateContextNode.executeGet(frame), semaphoreIndex);
+            /* Return false to signal that the image is not resuming. */
+            return BooleanObject.FALSE;
+        }
+
+        @TruffleBoundary
+        private void writeImage(final ContextObject thisContext, final long semaphoreIndex) {
+            final Object externalObjects = getContext().getSpecialObject(SPECIAL_OBJECT.EXTERNAL_OBJECTS_ARRAY);
+            if (!(externalObjects instanceof ArrayObject && ((ArrayObject) externalObjects).isObjectType() && 1 <= semaphoreIndex &&
+                            semaphoreIndex <= ((ArrayObject) externalObjects).getObjectLength())) {
+                throw PrimitiveFailed.BAD_INDEX;
+            }
+            /* Push true on stack for saved snapshot. */
+            thisContext.push(BooleanObject.TRUE);
+            SqueakImageWriter.write(getContext(), thisContext, (int) semaphoreIndex);
+            /* Pop true again. */
+            thisContext.pop();
+        }
+    }
+
     @GenerateNodeFactory
     @SqueakPrimitive(indices = 98)
     protected abstract static class PrimStoreImageSegmentNode extends AbstractPrimitiveNode implements QuaternaryPrimitiveFallback {
@@ -412,6 +448,7 @@ public final class IOPrimitives extends AbstractPrimitiveFactoryHolder {
             protected static final void doArraysOfBooleans(final ArrayObject rcvr, final long start, final long stop, final ArrayObject repl, final long replStart,
                             @Shared("errorProfile") @Cached final BranchProfile errorProfile) {
                 if (inBounds(rcvr.getBooleanLength(), start, stop, repl.getBooleanLength(), replStart)) {
+                    rcvr.markModified();
                     UnsafeUtils.copyBytes(repl.getBooleanStorage(), replStart - 1, rcvr.getBooleanStorage(), start - 1, 1 + stop - start);
                 } else {
                     errorProfile.enter();
@@ -423,6 +460,7 @@ public final class IOPrimitives extends AbstractPrimitiveFactoryHolder {
             protected static final void doArraysOfChars(final ArrayObject rcvr, final long start, final long stop, final ArrayObject repl, final long replStart,
                             @Shared("errorProfile") @Cached final BranchProfile errorProfile) {
                 if (inBounds(rcvr.getCharLength(), start, stop, repl.getCharLength(), replStart)) {
+                    rcvr.markModified();
                     UnsafeUtils.copyChars(repl.getCharStorage(), replStart - 1, rcvr.getCharStorage(), start - 1, 1 + stop - start);
                 } else {
                     errorProfile.enter();
@@ -434,6 +472,7 @@ public final class IOPrimitives extends AbstractPrimitiveFactoryHolder {
             protected static final void doArraysOfLongs(final ArrayObject rcvr, final long start, final long stop, final ArrayObject repl, final long replStart,
                             @Shared("errorProfile") @Cached final BranchProfile errorProfile) {
                 if (inBounds(rcvr.getLongLength(), start, stop, repl.getLongLength(), replStart)) {
+                    rcvr.markModified();
                     UnsafeUtils.copyLongs(repl.getLongStorage(), replStart - 1, rcvr.getLongStorage(), start - 1, 1 + stop - start);
                 } else {
                     errorProfile.enter();
@@ -445,6 +484,7 @@ public final class IOPrimitives extends AbstractPrimitiveFactoryHolder {
             protected static final void doArraysOfDoubles(final ArrayObject rcvr, final long start, final long stop, final ArrayObject repl, final long replStart,
                             @Shared("errorProfile") @Cached final BranchProfile errorProfile) {
                 if (inBounds(rcvr.getDoubleLength(), start, stop, repl.getDoubleLength(), replStart)) {
+                    rcvr.markModified();
                     UnsafeUtils.copyDoubles(repl.getDoubleStorage(), replStart - 1, rcvr.getDoubleStorage(), start - 1, 1 + stop - start);
                 } else {
                     errorProfile.enter();
@@ -456,6 +496,7 @@ public final class IOPrimitives extends AbstractPrimitiveFactoryHolder {
             protected static final void doArraysOfObjects(final ArrayObject rcvr, final long start, final long stop, final ArrayObject repl, final long replStart,
                             @Shared("errorProfile") @Cached final BranchProfile errorProfile) {
                 try {
+                    rcvr.markModified();
                     System.arraycopy(repl.getObjectStorage(), (int) replStart - 1, rcvr.getObjectStorage(), (int) start - 1, (int) (1 + stop - start));
                 } catch (final IndexOutOfBoundsException e) {
                     errorProfile.enter();
@@ -593,6 +634,7 @@ public final class IOPrimitives extends AbstractPrimitiveFactoryHolder {
             protected static final void doNativeBytes(final NativeObject rcvr, final long start, final long stop, final NativeObject repl, final long replStart,
                             @Shared("errorProfile") @Cached final BranchProfile errorProfile) {
                 if (inBounds(rcvr.getByteLength(), start, stop, repl.getByteLength(), replStart)) {
+                    rcvr.markModified();
                     UnsafeUtils.copyBytes(repl.getByteStorage(), replStart - 1, rcvr.getByteStorage(), start - 1, 1 + stop - start);
                 } else {
                     errorProfile.enter();
@@ -604,6 +646,7 @@ public final class IOPrimitives extends AbstractPrimitiveFactoryHolder {
             protected static final void doNativeShorts(final NativeObject rcvr, final long start, final long stop, final NativeObject repl, final long replStart,
                             @Shared("errorProfile") @Cached final BranchProfile errorProfile) {
                 if (inBounds(rcvr.getShortLength(), start, stop, repl.getShortLength(), replStart)) {
+                    rcvr.markModified();
                     UnsafeUtils.copyShorts(repl.getShortStorage(), replStart - 1, rcvr.getShortStorage(), start - 1, 1 + stop - start);
                 } else {
                     errorProfile.enter();
@@ -615,6 +658,7 @@ public final class IOPrimitives extends AbstractPrimitiveFactoryHolder {
             protected static final void doNativeInts(final NativeObject rcvr, final long start, final long stop, final NativeObject repl, final long replStart,
                             @Shared("errorProfile") @Cached final BranchProfile errorProfile) {
                 if (inBounds(rcvr.getIntLength(), start, stop, repl.getIntLength(), replStart)) {
+                    rcvr.markModified();
                     UnsafeUtils.copyInts(repl.getIntStorage(), replStart - 1, rcvr.getIntStorage(), start - 1, 1 + stop - start);
                 } else {
                     errorProfile.enter();
@@ -626,6 +670,7 @@ public final class IOPrimitives extends AbstractPrimitiveFactoryHolder {
             protected static final void doNativeLongs(final NativeObject rcvr, final long start, final long stop, final NativeObject repl, final long replStart,
                             @Shared("errorProfile") @Cached final BranchProfile errorProfile) {
                 if (inBounds(rcvr.getLongLength(), start, stop, repl.getLongLength(), replStart)) {
+                    rcvr.markModified();
                     UnsafeUtils.copyLongs(repl.getLongStorage(), replStart - 1, rcvr.getLongStorage(), start - 1, 1 + stop - start);
                 } else {
                     errorProfile.enter();
@@ -637,6 +682,7 @@ public final class IOPrimitives extends AbstractPrimitiveFactoryHolder {
             protected static final void doNativeLargeInteger(final NativeObject rcvr, final long start, final long stop, final LargeIntegerObject repl, final long replStart,
                             @Shared("errorProfile") @Cached final BranchProfile errorProfile) {
                 if (inBounds(rcvr.getByteLength(), start, stop, repl.getBytes().length, replStart)) {
+                    rcvr.markModified();
                     UnsafeUtils.copyBytes(repl.getBytes(), replStart - 1, rcvr.getByteStorage(), start - 1, 1 + stop - start);
                 } else {
                     errorProfile.enter();
@@ -516,48 +516,56 @@ public final class MiscellaneousPrimitives extends AbstractPrimitiveFactoryHolde
 
         @Specialization(guards = "receiver.isByteType()")
         protected static final NativeObject doNativeBytes(final NativeObject receiver, final long value) {
+            receiver.markModified();
             Arrays.fill(receiver.getByteStorage(), (byte) value);
             return receiver;
         }
 
         @Specialization(guards = "receiver.isShortType()")
         protected static final NativeObject doNativeShorts(final NativeObject receiver, final long value) {
+            receiver.markModified();
             Arrays.fill(receiver.getShortStorage(), (short) value);
             return receiver;
         }
 
         @Specialization(guards = "receiver.isIntType()")
         protected static final NativeObject doNativeInts(final NativeObject receiver, final long value) {
+            receiver.markModified();
             Arrays.fill(receiver.getIntStorage(), (int) value);
             return receiver;
         }
 
         @Specialization(guards = {"receiver.isIntType()"}, rewriteOn = ArithmeticException.class)
         protected static final NativeObject doNativeInts(final NativeObject receiver, final LargeIntegerObject value) {
+            receiver.markModified();
             Arrays.fill(receiver.getIntStorage(), value.intValueExact());
             return receiver;
         }
 
         @Specialization(guards = {"receiver.isIntType()", "value.lessThanOrEqualTo(INTEGER_MAX)"}, replaces = "doNativeInts")
         protected static final NativeObject doNativeIntsFallback(final NativeObject receiver, final LargeIntegerObject value) {
+            receiver.markModified();
             Arrays.fill(receiver.getIntStorage(), value.intValueExact());
             return receiver;
         }
 
         @Specialization(guards = "receiver.isLongType()")
         protected static final NativeObject doNativeLongs(final NativeObject receiver, final long value) {
+            receiver.markModified();
             Arrays.fill(receiver.getLongStorage(), value);
             return receiver;
         }
 
         @Specialization(guards = {"receiver.isLongType()"}, rewriteOn = ArithmeticException.class)
         protected static final NativeObject doNativeLongs(final NativeObject receiver, final LargeIntegerObject value) {
+            receiver.markModified();
             Arrays.fill(receiver.getLongStorage(), value.longValueExact());
             return receiver;
         }
 
         @Specialization(guards = {"receiver.isLongType()", "value.fitsIntoLong()"}, replaces = "doNativeLongs")
         protected static final NativeObject doNativeLongsFallback(final NativeObject receiver, final LargeIntegerObject value) {
+            receiver.markModified();
             Arrays.fill(receiver.getLongStorage(), value.longValueExact());
             return receiver;
         }
@@ -673,6 +681,7 @@ public final class MiscellaneousPrimitives extends AbstractPrimitiveFactoryHolde
         @Specialization(guards = {"receiver.getSqueakClass() == anotherObject.getSqueakClass()",
                         "receiver.isByteType()", "anotherObject.isByteType()", "receiver.getByteLength() == anotherObject.getByteLength()"})
         protected static final NativeObject doCopyNativeByte(final NativeObject receiver, final NativeObject anotherObject) {
+            receiver.markModified();
             final byte[] destStorage = receiver.getByteStorage();
             UnsafeUtils.copyBytes(anotherObject.getByteStorage(), 0L, destStorage, 0L, destStorage.length);
             return receiver;
@@ -681,6 +690,7 @@ public final class MiscellaneousPrimitives extends AbstractPrimitiveFactoryHolde
         @Specialization(guards = {"receiver.getSqueakClass() == anotherObject.getSqueakClass()",
                         "receiver.isShortType()", "anotherObject.isShortType()", "receiver.getShortLength() == anotherObject.getShortLength()"})
         protected static final NativeObject doCopyNativeShort(final NativeObject receiver, final NativeObject anotherObject) {
+            receiver.markModified();
             final short[] destStorage = receiver.getShortStorage();
             UnsafeUtils.copyShorts(anotherObject.getShortStorage(), 0L, destStorage, 0L, destStorage.length);
             return receiver;
@@ -689,6 +699,7 @@ public final class MiscellaneousPrimitives extends AbstractPrimitiveFactoryHolde
         @Specialization(guards = {"receiver.getSqueakClass() == anotherObject.getSqueakClass()",
                         "receiver.isIntType()", "anotherObject.isIntType()", "receiver.getIntLength() == anotherObject.getIntLength()"})
         protected static final NativeObject doCopyNativeInt(final NativeObject receiver, final NativeObject anotherObject) {
+            receiver.markModified();
             final int[] destStorage = receiver.getIntStorage();
             UnsafeUtils.copyInts(anotherObject.getIntStorage(), 0L, destStorage, 0L, destStorage.length);
             return receiver;
@@ -697,6 +708,7 @@ public final class MiscellaneousPrimitives extends AbstractPrimitiveFactoryHolde
         @Specialization(guards = {"receiver.getSqueakClass() == anotherObject.getSqueakClass()",
                         "receiver.isLongType()", "anotherObject.isLongType()", "receiver.getLongLength() == anotherObject.getLongLength()"})
         protected static final NativeObject doCopyNativeLong(final NativeObject receiver, final NativeObject anotherObject) {
+            receiver.markModified();
             final long[] destStorage = receiver.getLongStorage();
             UnsafeUtils.copyLongs(anotherObject.getLongStorage(), 0L, destStorage, 0L, destStorage.length);
             return receiver;
@@ -7,20 +7,16 @@
 package de.hpi.swa.trufflesqueak.nodes.primitives.impl;
 
 import java.util.Arrays;
-import java.util.Collection;
 import java.util.List;
 
 import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
-import com.oracle.truffle.api.Truffle;
 import com.oracle.truffle.api.dsl.Cached;
 import com.oracle.truffle.api.dsl.Fallback;
 import com.oracle.truffle.api.dsl.GenerateNodeFactory;
 import com.oracle.truffle.api.dsl.ImportStatic;
 import com.oracle.truffle.api.dsl.NodeFactory;
 import com.oracle.truffle.api.dsl.Specialization;
-import com.oracle.truffle.api.frame.Frame;
-import com.oracle.truffle.api.frame.FrameInstance;
 import com.oracle.truffle.api.nodes.NodeCost;
 import com.oracle.truffle.api.nodes.NodeInfo;
 import com.oracle.truffle.api.profiles.BranchProfile;
@@ -37,7 +33,6 @@ import de.hpi.swa.trufflesqueak.model.BooleanObject;
 import de.hpi.swa.trufflesqueak.model.CharacterObject;
 import de.hpi.swa.trufflesqueak.model.ClassObject;
 import de.hpi.swa.trufflesqueak.model.CompiledCodeObject;
-import de.hpi.swa.trufflesqueak.model.ContextObject;
 import de.hpi.swa.trufflesqueak.model.NilObject;
 import de.hpi.swa.trufflesqueak.nodes.accessing.ArrayObjectNodes.ArrayObjectReadNode;
 import de.hpi.swa.trufflesqueak.nodes.accessing.ArrayObjectNodes.ArrayObjectSizeNode;
@@ -55,7 +50,6 @@ import de.hpi.swa.trufflesqueak.nodes.primitives.PrimitiveFallbacks.TernaryPrimi
 import de.hpi.swa.trufflesqueak.nodes.primitives.PrimitiveFallbacks.UnaryPrimitiveFallback;
 import de.hpi.swa.trufflesqueak.nodes.primitives.SqueakPrimitive;
 import de.hpi.swa.trufflesqueak.util.ArrayUtils;
-import de.hpi.swa.trufflesqueak.util.FrameAccess;
 import de.hpi.swa.trufflesqueak.util.MiscUtils;
 import de.hpi.swa.trufflesqueak.util.ObjectGraphUtils;
 
@@ -78,9 +72,17 @@ public final class StoragePrimitives extends AbstractPrimitiveFactoryHolder {
             }
             // Need to operate on copy of `fromPointers` because itself will also be changed.
             final Object[] fromPointersClone = fromPointers.clone();
-            ObjectGraphUtils.pointersBecomeOneWay(image, fromPointersClone, toPointers);
-            patchTruffleFrames(fromPointersClone, toPointers);
-            image.flushMethodCacheAfterBecome();
+            /*
+             * Forwarders are never classes or methods, so the method cache remains valid. Frames are
+             * only patched once forwarders are flushed, reads from frames resolve them until then.
+             */
+            if (!image.options.isLazyBecome || !image.forwardingPointers.forward(fromPointersClone, toPointers)) {
+                image.forwardingPointers.flush();
+                ObjectGraphUtils.pointersBecomeOneWay(image, fromPointersClone, toPointers);
+                ObjectGraphUtils.patchTruffleFrames(fromPointersClone, toPointers);
+                image.flushMethodCacheAfterBecome();
+            }
+            image.heapEnumeration.invalidate();
             return fromArray;
         }
 
@@ -93,65 +95,6 @@ public final class StoragePrimitives extends AbstractPrimitiveFactoryHolder {
                 }
             }
         }
-
-        @TruffleBoundary
-        private static void patchTruffleFrames(final Object[] fromPointers, final Object[] toPointers) {
-            final int fromPointersLength = fromPointers.length;
-
-            Truffle.getRuntime().iterateFrames((frameInstance) -> {
-                final Frame current = frameInstance.getFrame(FrameInstance.FrameAccess.READ_WRITE);
-                if (!FrameAccess.isTruffleSqueakFrame(current)) {
-                    return null;
-                }
-                final Object[] arguments = current.getArguments();
-                for (int i = 0; i < arguments.length; i++) {
-                    final Object argument = arguments[i];
-                    for (int j = 0; j < fromPointersLength; j++) {
-                        final Object fromPointer = fromPointers[j];
-                        if (argument == fromPointer) {
-                            final Object toPointer = toPointers[j];
-                            arguments[i] = toPointer;
-                        } else if (argument instanceof AbstractSqueakObjectWithClassAndHash) {
-                            ((AbstractSqueakObjectWithClassAndHash) argument).pointersBecomeOneWay(fromPointers, toPointers);
-                        }
-                    }
-                }
-
-                final ContextObject context = FrameAccess.getContext(current);
-                if (context != null) {
-                    for (int j = 0; j < fromPointersLength; j++) {
-                        final Object fromPointer = fromPointers[j];
-                        if (context == fromPointer) {
-                            final Object toPointer = toPointers[j];
-                            FrameAccess.setContext(current, (ContextObject) toPointer);
-                        } else {
-                            context.pointersBecomeOneWay(fromPointers, toPointers);
-                        }
-                    }
-                }
-
-                /*
-                 * Iterate over all stack slots here instead of stackPointer because in rare cases,
-                 * the stack is accessed behind the stackPointer.
-                 */
-                FrameAccess.iterateStackSlots(current, slotIndex -> {
-                    if (current.isObject(slotIndex)) {
-                        final Object stackObject = current.getObject(slotIndex);
-                        for (int j = 0; j < fromPointersLength; j++) {
-                            final Object fromPointer = fromPointers[j];
-                            if (stackObject == fromPointer) {
-                                final Object toPointer = toPointers[j];
-                                assert toPointer != null : "Unexpected `null` value";
-                                current.setObject(slotIndex, toPointer);
-                            } else if (stackObject instanceof AbstractSqueakObjectWithClassAndHash) {
-                                ((AbstractSqueakObjectWithClassAndHash) stackObject).pointersBecomeOneWay(fromPointers, toPointers);
-                            }
-                        }
-                    }
-                });
-                return null;
-            });
-        }
     }
 
     @GenerateNodeFactory
@@ -389,7 +332,9 @@ public final class StoragePrimitives extends AbstractPrimitiveFactoryHolder {
                     throw PrimitiveFailed.GENERIC_ERROR;
                 }
             }
-            getContext().flushMethodCacheAfterBecome();
+            final SqueakImageContext image = getContext();
+            image.flushMethodCacheAfterBecome();
+            image.heapEnumeration.invalidate();
             return receiver;
         }
 
@@ -426,7 +371,7 @@ public final class StoragePrimitives extends AbstractPrimitiveFactoryHolder {
     public static final class PrimSomeObjectNode extends AbstractSingletonPrimitiveNode {
         @Override
         public Object execute() {
-            return NilObject.SINGLETON;
+            return getContext().heapEnumeration.someObject();
         }
     }
 
@@ -435,21 +380,8 @@ public final class StoragePrimitives extends AbstractPrimitiveFactoryHolder {
     protected abstract static class PrimNextObjectNode extends AbstractPrimitiveNode implements UnaryPrimitiveFallback {
 
         @Specialization
-        protected final AbstractSqueakObject doNext(final AbstractSqueakObjectWithClassAndHash receiver) {
-            return getNext(receiver, ObjectGraphUtils.allInstances(getContext()));
-        }
-
-        @TruffleBoundary
-        private static AbstractSqueakObject getNext(final AbstractSqueakObjectWithClassAndHash receiver, final Collection<AbstractSqueakObjectWithClassAndHash> allInstances) {
-            boolean foundMyself = false;
-            for (final AbstractSqueakObjectWithClassAndHash instance : allInstances) {
-                if (instance == receiver) {
-                    foundMyself = true;
-                } else if (foundMyself) {
-                    return instance;
-                }
-            }
-            return allInstances.iterator().next(); // first
+        protected final Object doNext(final AbstractSqueakObjectWithClassAndHash receiver) {
+            return getContext().heapEnumeration.nextObject(receiver);
         }
     }
 
@@ -7,6 +7,7 @@
 package de.hpi.swa.trufflesqueak.nodes.process;
 
 import com.oracle.truffle.api.dsl.Cached;
+import com.oracle.truffle.api.dsl.ImportStatic;
 import com.oracle.truffle.api.dsl.Specialization;
 import com.oracle.truffle.api.frame.VirtualFrame;
 
@@ -16,7 +17,9 @@ import de.hpi.swa.trufflesqueak.nodes.AbstractNode;
 import de.hpi.swa.trufflesqueak.nodes.accessing.AbstractPointersObjectNodes.AbstractPointersObjectReadNode;
 import de.hpi.swa.trufflesqueak.nodes.accessing.AbstractPointersObjectNodes.AbstractPointersObjectWriteNode;
 import de.hpi.swa.trufflesqueak.nodes.context.frame.GetOrCreateContextNode;
+import de.hpi.swa.trufflesqueak.util.ContextMaterializationProfiler.Cause;
 
+@ImportStatic(Cause.class)
 public abstract class ResumeProcessNode extends AbstractNode {
     @Child private AbstractPointersObjectReadNode pointersReadNode = AbstractPointersObjectReadNode.create();
     @Child private PutToSleepNode putToSleepNode = PutToSleepNode.create();
@@ -27,7 +30,7 @@ public abstract class ResumeProcessNode extends AbstractNode {
     @Specialization(guards = "hasHigherPriority(newProcess)")
     protected final void doTransferTo(final VirtualFrame frame, final PointersObject newProcess,
                     @Cached final AbstractPointersObjectWriteNode pointersWriteNode,
-                    @Cached final GetOrCreateContextNode contextNode) {
+                    @Cached("create(PROCESS_SWITCH)") final GetOrCreateContextNode contextNode) {
         putToSleepNode.executePutToSleep(getActiveProcessNode.execute());
         contextNode.executeGet(frame).transferTo(getContext(), newProcess, pointersReadNode, pointersWriteNode, getActiveProcessNode);
     }
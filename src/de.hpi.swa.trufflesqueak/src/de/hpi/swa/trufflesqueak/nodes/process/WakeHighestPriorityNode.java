@@ -7,6 +7,7 @@
 package de.hpi.swa.trufflesqueak.nodes.process;
 
 import com.oracle.truffle.api.dsl.Cached;
+import com.oracle.truffle.api.dsl.ImportStatic;
 import com.oracle.truffle.api.dsl.Specialization;
 import com.oracle.truffle.api.frame.VirtualFrame;
 
@@ -23,7 +24,9 @@ import de.hpi.swa.trufflesqueak.nodes.accessing.AbstractPointersObjectNodes.Abst
 import de.hpi.swa.trufflesqueak.nodes.accessing.ArrayObjectNodes.ArrayObjectReadNode;
 import de.hpi.swa.trufflesqueak.nodes.accessing.ArrayObjectNodes.ArrayObjectSizeNode;
 import de.hpi.swa.trufflesqueak.nodes.context.frame.GetOrCreateContextNode;
+import de.hpi.swa.trufflesqueak.util.ContextMaterializationProfiler.Cause;
 
+@ImportStatic(Cause.class)
 public abstract class WakeHighestPriorityNode extends AbstractNode {
 
     public static WakeHighestPriorityNode create() {
@@ -38,7 +41,7 @@ public abstract class WakeHighestPriorityNode extends AbstractNode {
                     @Cached final ArrayObjectSizeNode arraySizeNode,
                     @Cached final AbstractPointersObjectReadNode pointersReadNode,
                     @Cached final AbstractPointersObjectWriteNode pointersWriteNode,
-                    @Cached final GetOrCreateContextNode contextNode,
+                    @Cached("create(PROCESS_SWITCH)") final GetOrCreateContextNode contextNode,
                     @Cached final GetActiveProcessNode getActiveProcessNode) {
         final SqueakImageContext image = getContext();
         // Return the highest priority process that is ready to run.
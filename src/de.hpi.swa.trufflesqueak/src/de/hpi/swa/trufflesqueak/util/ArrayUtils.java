@@ -108,6 +108,15 @@ public final class ArrayUtils {
         MiscUtils.getSecureRandom().nextBytes(bytes);
     }
 
+    public static int indexOf(final Object[] array, final Object value) {
+        for (int i = 0; i < array.length; i++) {
+            if (array[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
     public static int indexOf(final long[] array, final long value) {
         for (int i = 0; i < array.length; i++) {
             if (array[i] == value) {
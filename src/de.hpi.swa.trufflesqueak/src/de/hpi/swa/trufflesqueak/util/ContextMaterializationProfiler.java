@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2017-2022 Software Architecture Group, Hasso Plattner Institute
+ * Copyright (c) 2021-2022 Oracle and/or its affiliates
+ *
+ * Licensed under the MIT License.
+ */
+package de.hpi.swa.trufflesqueak.util;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+
+import de.hpi.swa.trufflesqueak.image.SqueakImageContext;
+import de.hpi.swa.trufflesqueak.model.CompiledCodeObject;
+
+/**
+ * Counts the {@link de.hpi.swa.trufflesqueak.model.ContextObject}s materialized for the frames of
+ * each method or block, grouped by cause (see {@code --context-materialization-profiling}). Every
+ * materialization moves a frame to the heap and prevents escape analysis of it, so methods with
+ * many materializations are worth rewriting. Invalidations of the doesNotNeedSender assumption are
+ * also counted. They are not materializations, but after one, every send to the method passes a
+ * materialized sender. The report is printed as part of the resource summary.
+ */
+public final class ContextMaterializationProfiler {
+    private static final int MAX_REPORTED_METHODS = 50;
+
+    public enum Cause {
+        THIS_CONTEXT("thisCtx"),
+        CLOSURE("closure"),
+        SENDER("sender"),
+        ESCAPED_CALLEE("callee"),
+        NON_LOCAL_RETURN("NLR"),
+        PROCESS_SWITCH("process"),
+        HANDLER_SEARCH("handler"),
+        DOES_NOT_NEED_SENDER("dnns");
+
+        private final String label;
+
+        Cause(final String label) {
+            this.label = label;
+        }
+
+        private boolean isMaterialization() {
+            return this != DOES_NOT_NEED_SENDER;
+        }
+    }
+
+    private static final Cause[] CAUSES = Cause.values();
+
+    private final IdentityHashMap<CompiledCodeObject, long[]> countsByCode = new IdentityHashMap<>();
+
+    /* Records a materialization of a frame of code if profiling is enabled. */
+    public static void record(final SqueakImageContext image, final CompiledCodeObject code, final Cause cause) {
+        final ContextMaterializationProfiler profiler = image.getContextMaterializationProfiler();
+        if (profiler != null) {
+            profiler.record(code, cause);
+        }
+    }
+
+    @TruffleBoundary
+    public synchronized void record(final CompiledCodeObject code, final Cause cause) {
+        countsByCode.computeIfAbsent(code, c -> new long[CAUSES.length])[cause.ordinal()]++;
+    }
+
+    private static long countMaterializations(final long[] counts) {
+        long total = 0;
+        for (final Cause cause : CAUSES) {
+            if (cause.isMaterialization()) {
+                total += counts[cause.ordinal()];
+            }
+        }
+        return total;
+    }
+
+    /* Prints the methods with the most materializations first. */
+    @TruffleBoundary
+    public void printReport(final SqueakImageContext image) {
+        final ArrayList<Map.Entry<CompiledCodeObject, long[]>> entries;
+        synchronized (this) {
+            entries = new ArrayList<>(countsByCode.entrySet());
+        }
+        entries.sort((a, b) -> {
+            final int byMaterializations = Long.compare(countMaterializations(b.getValue()), countMaterializations(a.getValue()));
+            return byMaterializations != 0 ? byMaterializations : Long.compare(b.getValue()[Cause.DOES_NOT_NEED_SENDER.ordinal()], a.getValue()[Cause.DOES_NOT_NEED_SENDER.ordinal()]);
+        });
+        final long[] totals = new long[CAUSES.length];
+        for (final Map.Entry<CompiledCodeObject, long[]> entry : entries) {
+            for (int i = 0; i < totals.length; i++) {
+                totals[i] += entry.getValue()[i];
+            }
+        }
+        image.printToStdOut(String.format("# Context Materialization Profile (%s materializations in %s methods)", countMaterializations(totals), entries.size()));
+        final StringBuilder header = new StringBuilder(String.format("> %10s", "total"));
+        final StringBuilder totalsRow = new StringBuilder(String.format("> %10s", countMaterializations(totals)));
+        for (final Cause cause : CAUSES) {
+            header.append(String.format(" %8s", cause.label));
+            totalsRow.append(String.format(" %8s", totals[cause.ordinal()]));
+        }
+        image.printToStdOut(header.append("  method").toString());
+        image.printToStdOut(totalsRow.append("  (all methods)").toString());
+        for (int i = 0; i < Math.min(MAX_REPORTED_METHODS, entries.size()); i++) {
+            final long[] counts = entries.get(i).getValue();
+            final StringBuilder row = new StringBuilder(String.format("> %10s", countMaterializations(counts)));
+            for (final Cause cause : CAUSES) {
+                row.append(String.format(" %8s", counts[cause.ordinal()]));
+            }
+            image.printToStdOut(row.append("  ").append(entries.get(i).getKey()).toString());
+        }
+    }
+}
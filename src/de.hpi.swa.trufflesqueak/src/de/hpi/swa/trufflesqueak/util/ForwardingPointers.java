@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2017-2022 Software Architecture Group, Hasso Plattner Institute
+ * Copyright (c) 2021-2022 Oracle and/or its affiliates
+ *
+ * Licensed under the MIT License.
+ */
+package de.hpi.swa.trufflesqueak.util;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+
+import com.oracle.truffle.api.Assumption;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.Truffle;
+
+import de.hpi.swa.trufflesqueak.image.SqueakImageContext;
+import de.hpi.swa.trufflesqueak.model.AbstractPointersObject;
+import de.hpi.swa.trufflesqueak.model.AbstractSqueakObjectWithClassAndHash;
+import de.hpi.swa.trufflesqueak.model.ArrayObject;
+import de.hpi.swa.trufflesqueak.model.NativeObject;
+
+/**
+ * Lazy one-way become (see {@code --lazy-become}). Instead of tracing the object graph on every
+ * become, the old objects are turned into forwarders and all references to them are replaced in a
+ * single trace later on (see {@link #flush()}): before the next trace of the object graph, before a
+ * context is resumed from the top level (e.g. after a process switch), or once the number of
+ * forwarders exceeds {@link #FLUSH_THRESHOLD}. In between, forwarders are resolved when reading
+ * from objects (by the accessing nodes, and by the getters of arrays, closures, classes, and
+ * literals) and from frames (receivers, stack slots, and primitive arguments). Primitives therefore
+ * never operate on the storage of a forwarder. Truffle frames are only patched when forwarders are
+ * flushed, so a become only costs time proportional to the number of objects it forwards.
+ *
+ * Only plain objects can be forwarded. Classes, methods, contexts, closures, symbols, method
+ * dictionaries, and special objects are also referenced from caches, frames, and Java fields, so
+ * becomes involving them fall back to the eager implementation.
+ */
+public final class ForwardingPointers {
+    private static final int FLUSH_THRESHOLD = 1 << 12;
+    private static final String METHOD_DICTIONARY_CLASS_NAME = "MethodDictionary";
+
+    /*
+     * Invalidated when the first forwarder is created and never reset, so that reads only check
+     * for forwarders once lazy become is in use. Forwarders themselves are per image.
+     */
+    private static final Assumption NO_FORWARDERS_CREATED = Truffle.getRuntime().createAssumption("No forwarders created assumption");
+
+    private final SqueakImageContext image;
+    private final ArrayList<AbstractSqueakObjectWithClassAndHash> forwarders = new ArrayList<>();
+    private volatile boolean hasForwarders;
+
+    public ForwardingPointers(final SqueakImageContext image) {
+        this.image = image;
+    }
+
+    public boolean hasForwarders() {
+        return !NO_FORWARDERS_CREATED.isValid() && hasForwarders;
+    }
+
+    /* Returns the object value has been forwarded to, or value itself if it is no forwarder. */
+    public static Object resolve(final Object value) {
+        if (!NO_FORWARDERS_CREATED.isValid() && value instanceof AbstractSqueakObjectWithClassAndHash && ((AbstractSqueakObjectWithClassAndHash) value).isForwarded()) {
+            return resolveForwarder((AbstractSqueakObjectWithClassAndHash) value);
+        }
+        return value;
+    }
+
+    /* Replaces all forwarders in values with the objects they have been forwarded to. */
+    public static void resolveAll(final Object[] values) {
+        if (!NO_FORWARDERS_CREATED.isValid()) {
+            for (int i = 0; i < values.length; i++) {
+                values[i] = resolve(values[i]);
+            }
+        }
+    }
+
+    private static Object resolveForwarder(final AbstractSqueakObjectWithClassAndHash value) {
+        Object current = value;
+        while (current instanceof AbstractSqueakObjectWithClassAndHash && ((AbstractSqueakObjectWithClassAndHash) current).isForwarded()) {
+            current = ((AbstractSqueakObjectWithClassAndHash) current).getForwardedTo();
+        }
+        return current;
+    }
+
+    /**
+     * Turns all fromPointers into forwarders to the corresponding toPointers.
+     *
+     * @return <tt>false</tt> if at least one object cannot be forwarded, in which case nothing has
+     *         been forwarded and the become must be performed eagerly
+     */
+    @TruffleBoundary
+    public boolean forward(final Object[] fromPointers, final Object[] toPointers) {
+        final int numPointers = fromPointers.length;
+        final IdentityHashMap<Object, Object> targets = new IdentityHashMap<>(numPointers);
+        for (int i = 0; i < numPointers; i++) {
+            if (!canForward(fromPointers[i]) || targets.put(fromPointers[i], resolve(toPointers[i])) != null) {
+                return false;
+            }
+        }
+        for (final Object target : targets.values()) {
+            if (targets.containsKey(target)) {
+                return false; /* Forwarding chains and cycles within one become are left to the eager implementation. */
+            }
+        }
+        final boolean needsFlush;
+        synchronized (forwarders) {
+            NO_FORWARDERS_CREATED.invalidate();
+            for (int i = 0; i < numPointers; i++) {
+                final AbstractSqueakObjectWithClassAndHash from = (AbstractSqueakObjectWithClassAndHash) fromPointers[i];
+                from.setForwardedTo(targets.get(from));
+                forwarders.add(from);
+            }
+            hasForwarders = true;
+            needsFlush = forwarders.size() >= FLUSH_THRESHOLD;
+        }
+        if (needsFlush) {
+            flush();
+        }
+        return true;
+    }
+
+    private boolean canForward(final Object object) {
+        if (!(object instanceof AbstractPointersObject || object instanceof ArrayObject || object instanceof NativeObject)) {
+            return false;
+        }
+        final AbstractSqueakObjectWithClassAndHash from = (AbstractSqueakObjectWithClassAndHash) object;
+        if (from.isForwarded() || from == image.specialObjectsArray || from == image.getHiddenRoots() || image.isByteSymbolClass(from.getSqueakClass()) ||
+                        METHOD_DICTIONARY_CLASS_NAME.equals(from.getSqueakClassName())) {
+            return false;
+        }
+        return !image.specialObjectsArray.isObjectType() || !ArrayUtils.contains(image.specialObjectsArray.getObjectStorage(), from);
+    }
+
+    /* Replaces all references to forwarders in a single trace of the object graph. */
+    @TruffleBoundary
+    public void flush() {
+        if (!hasForwarders()) {
+            return;
+        }
+        synchronized (forwarders) {
+            final int numForwarders = forwarders.size();
+            final Object[] fromPointers = forwarders.toArray();
+            final Object[] toPointers = new Object[numForwarders];
+            for (int i = 0; i < numForwarders; i++) {
+                toPointers[i] = resolveForwarder(forwarders.get(i));
+            }
+            ObjectGraphUtils.pointersBecomeOneWay(image, fromPointers, toPointers);
+            ObjectGraphUtils.patchTruffleFrames(fromPointers, toPointers);
+            for (final AbstractSqueakObjectWithClassAndHash forwarder : forwarders) {
+                forwarder.setForwardedTo(null);
+            }
+            forwarders.clear();
+            hasForwarders = false;
+        }
+    }
+}
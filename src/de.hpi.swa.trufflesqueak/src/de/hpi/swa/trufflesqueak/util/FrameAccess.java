@@ -140,7 +140,7 @@ public final class FrameAccess {
     }
 
     public static Object getReceiver(final Frame frame) {
-        return frame.getArguments()[ArgumentIndicies.RECEIVER.ordinal()];
+        return ForwardingPointers.resolve(frame.getArguments()[ArgumentIndicies.RECEIVER.ordinal()]);
     }
 
     public static void setReceiver(final Frame frame, final Object receiver) {
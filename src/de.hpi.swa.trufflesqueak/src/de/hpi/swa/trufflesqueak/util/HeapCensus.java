@@ -0,0 +1,209 @@
+/*
+ * Copyright (c) 2017-2022 Software Architecture Group, Hasso Plattner Institute
+ * Copyright (c) 2021-2022 Oracle and/or its affiliates
+ *
+ * Licensed under the MIT License.
+ */
+package de.hpi.swa.trufflesqueak.util;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.TruffleFile;
+
+import de.hpi.swa.trufflesqueak.image.SqueakImageContext;
+import de.hpi.swa.trufflesqueak.model.AbstractPointersObject;
+import de.hpi.swa.trufflesqueak.model.AbstractSqueakObjectWithClassAndHash;
+import de.hpi.swa.trufflesqueak.model.ArrayObject;
+import de.hpi.swa.trufflesqueak.model.ClassObject;
+import de.hpi.swa.trufflesqueak.model.NativeObject;
+import de.hpi.swa.trufflesqueak.model.NilObject;
+import de.hpi.swa.trufflesqueak.model.VariablePointersObject;
+import de.hpi.swa.trufflesqueak.model.WeakVariablePointersObject;
+
+/**
+ * Heap census of all reachable objects (see {@link ObjectGraphUtils#allInstances}), grouped by
+ * class and, for {@link ArrayObject}s and {@link NativeObject}s, by storage strategy. The byte
+ * counts are estimates of the shallow JVM sizes of all instances (assuming compressed oops), which
+ * include the storage arrays owned by the instances but not other objects referenced by them.
+ */
+public final class HeapCensus {
+    private static final int OBJECT_BYTES = 32; /* Header and fields of all objects. */
+    private static final int POINTERS_OBJECT_BYTES = OBJECT_BYTES + 56; /* Inline slots. */
+    private static final int ARRAY_HEADER_BYTES = 16;
+    private static final int REFERENCE_BYTES = 4;
+    private static final int WEAK_REFERENCE_BYTES = 32;
+
+    private final ArrayList<Entry> entries;
+
+    private HeapCensus(final ArrayList<Entry> entries) {
+        this.entries = entries;
+    }
+
+    private static final class Entry {
+        private final ClassObject squeakClass;
+        private final String strategy;
+        private long count;
+        private long bytes;
+
+        private Entry(final ClassObject squeakClass, final String strategy) {
+            this.squeakClass = squeakClass;
+            this.strategy = strategy;
+        }
+    }
+
+    @TruffleBoundary
+    public static HeapCensus take(final SqueakImageContext image) {
+        final IdentityHashMap<ClassObject, HashMap<String, Entry>> entriesByClass = new IdentityHashMap<>();
+        final ArrayList<Entry> entries = new ArrayList<>();
+        for (final AbstractSqueakObjectWithClassAndHash object : ObjectGraphUtils.allInstances(image)) {
+            final ClassObject squeakClass = object.getSqueakClass();
+            if (squeakClass == null) {
+                continue;
+            }
+            final String strategy = getStrategy(object);
+            final Entry entry = entriesByClass.computeIfAbsent(squeakClass, c -> new HashMap<>()).computeIfAbsent(strategy, s -> {
+                final Entry newEntry = new Entry(squeakClass, s);
+                entries.add(newEntry);
+                return newEntry;
+            });
+            entry.count++;
+            entry.bytes += estimateBytes(object);
+        }
+        entries.sort((a, b) -> Long.compare(b.bytes, a.bytes));
+        return new HeapCensus(entries);
+    }
+
+    /* Returns the name of the storage strategy of arrays and native objects, null otherwise. */
+    private static String getStrategy(final AbstractSqueakObjectWithClassAndHash object) {
+        if (object instanceof ArrayObject) {
+            final ArrayObject array = (ArrayObject) object;
+            if (array.isEmptyType()) {
+                return "empty";
+            } else if (array.isBooleanType()) {
+                return "boolean";
+            } else if (array.isCharType()) {
+                return "char";
+            } else if (array.isLongType()) {
+                return "long";
+            } else if (array.isDoubleType()) {
+                return "double";
+            } else {
+                return "object";
+            }
+        } else if (object instanceof NativeObject) {
+            final NativeObject nativeObject = (NativeObject) object;
+            if (nativeObject.isByteType()) {
+                return "byte";
+            } else if (nativeObject.isShortType()) {
+                return "short";
+            } else if (nativeObject.isIntType()) {
+                return "int";
+            } else {
+                return "long";
+            }
+        } else {
+            return null;
+        }
+    }
+
+    private static long estimateBytes(final AbstractSqueakObjectWithClassAndHash object) {
+        if (object instanceof ArrayObject) {
+            final ArrayObject array = (ArrayObject) object;
+            if (array.isEmptyType()) {
+                return OBJECT_BYTES;
+            } else if (array.isBooleanType()) {
+                return OBJECT_BYTES + arrayBytes(Byte.BYTES, array.getBooleanLength());
+            } else if (array.isCharType()) {
+                return OBJECT_BYTES + arrayBytes(Character.BYTES, array.getCharLength());
+            } else if (array.isLongType()) {
+                return OBJECT_BYTES + arrayBytes(Long.BYTES, array.getLongLength());
+            } else if (array.isDoubleType()) {
+                return OBJECT_BYTES + arrayBytes(Double.BYTES, array.getDoubleLength());
+            } else {
+                return OBJECT_BYTES + arrayBytes(REFERENCE_BYTES, array.getObjectLength());
+            }
+        } else if (object instanceof NativeObject) {
+            final NativeObject nativeObject = (NativeObject) object;
+            if (nativeObject.isByteType()) {
+                return OBJECT_BYTES + arrayBytes(Byte.BYTES, nativeObject.getByteLength());
+            } else if (nativeObject.isShortType()) {
+                return OBJECT_BYTES + arrayBytes(Short.BYTES, nativeObject.getShortLength());
+            } else if (nativeObject.isIntType()) {
+                return OBJECT_BYTES + arrayBytes(Integer.BYTES, nativeObject.getIntLength());
+            } else {
+                return OBJECT_BYTES + arrayBytes(Long.BYTES, nativeObject.getLongLength());
+            }
+        } else if (object instanceof AbstractPointersObject) {
+            final AbstractPointersObject pointersObject = (AbstractPointersObject) object;
+            long bytes = POINTERS_OBJECT_BYTES;
+            if (pointersObject.primitiveExtension != null) {
+                bytes += arrayBytes(Long.BYTES, pointersObject.primitiveExtension.length);
+            }
+            if (pointersObject.objectExtension != null) {
+                bytes += arrayBytes(REFERENCE_BYTES, pointersObject.objectExtension.length);
+            }
+            if (object instanceof VariablePointersObject) {
+                bytes += arrayBytes(REFERENCE_BYTES, ((VariablePointersObject) object).getVariablePartSize());
+            } else if (object instanceof WeakVariablePointersObject) {
+                final int size = ((WeakVariablePointersObject) object).getVariablePartSize();
+                bytes += arrayBytes(REFERENCE_BYTES, size) + (long) size * WEAK_REFERENCE_BYTES;
+            }
+            return bytes;
+        } else {
+            return OBJECT_BYTES + arrayBytes(REFERENCE_BYTES, object.getNumSlots());
+        }
+    }
+
+    private static long arrayBytes(final int elementBytes, final int length) {
+        return ARRAY_HEADER_BYTES + (((long) elementBytes * length + 7) & ~7L);
+    }
+
+    /* Returns an Array of {class. strategy or nil. instance count. estimated bytes} Arrays. */
+    public ArrayObject toArray(final SqueakImageContext image) {
+        final Object[] rows = new Object[entries.size()];
+        for (int i = 0; i < rows.length; i++) {
+            final Entry entry = entries.get(i);
+            final Object strategy = entry.strategy == null ? NilObject.SINGLETON : image.asByteString(entry.strategy);
+            rows[i] = image.asArrayOfObjects(entry.squeakClass, strategy, entry.count, entry.bytes);
+        }
+        return image.asArrayOfObjects(rows);
+    }
+
+    /* Writes the census as JSON if the path ends with ".json", and as CSV otherwise. */
+    @TruffleBoundary
+    public void write(final TruffleFile file) throws IOException {
+        final boolean asJSON = file.getName() != null && file.getName().endsWith(".json");
+        try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(file.newOutputStream(), StandardCharsets.UTF_8))) {
+            if (asJSON) {
+                writer.write("[\n");
+            } else {
+                writer.write("class,strategy,instances,bytes\n");
+            }
+            for (int i = 0; i < entries.size(); i++) {
+                final Entry entry = entries.get(i);
+                final String className = entry.squeakClass.getClassName();
+                final String strategy = entry.strategy == null ? "" : entry.strategy;
+                if (asJSON) {
+                    writer.write(String.format("  {\"class\": \"%s\", \"strategy\": %s, \"instances\": %d, \"bytes\": %d}%s\n", escapeJSON(className),
+                                    entry.strategy == null ? "null" : '"' + strategy + '"', entry.count, entry.bytes, i + 1 < entries.size() ? "," : ""));
+                } else {
+                    writer.write(String.format("\"%s\",%s,%d,%d\n", className.replace("\"", "\"\""), strategy, entry.count, entry.bytes));
+                }
+            }
+            if (asJSON) {
+                writer.write("]\n");
+            }
+        }
+    }
+
+    private static String escapeJSON(final String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+}
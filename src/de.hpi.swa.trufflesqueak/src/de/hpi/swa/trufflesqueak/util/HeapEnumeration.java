@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2017-2022 Software Architecture Group, Hasso Plattner Institute
+ * Copyright (c) 2021-2022 Oracle and/or its affiliates
+ *
+ * Licensed under the MIT License.
+ */
+package de.hpi.swa.trufflesqueak.util;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+
+import de.hpi.swa.trufflesqueak.image.SqueakImageContext;
+import de.hpi.swa.trufflesqueak.model.AbstractSqueakObjectWithClassAndHash;
+import de.hpi.swa.trufflesqueak.model.NilObject;
+
+/**
+ * Cursor for enumerating all objects with someObject/nextObject (primitives 138 and 139). Instead
+ * of tracing the object graph on every step, someObject takes a snapshot of all objects, which
+ * nextObject then walks in constant time per step. Objects allocated during an enumeration are
+ * appended once the end of the snapshot is reached (enumerations usually stop at a marker object
+ * allocated right after someObject). Become invalidates the snapshot, so that the next step
+ * takes a new one and continues after the receiver. The snapshot keeps all objects alive, so it is
+ * also released at the end of an enumeration, when a new one starts, and by the GC primitives (in
+ * case an enumeration is abandoned).
+ */
+public final class HeapEnumeration {
+    /* Answered by nextObject after the last object (see SpurMemoryManager>>#objectAfter:). */
+    private static final long END_OF_ENUMERATION = 0L;
+
+    private final SqueakImageContext image;
+    private Object[] objects;
+    private int lastIndex;
+    /* Maps objects to their index, only built if an enumeration does not proceed in order. */
+    private IdentityHashMap<Object, Integer> indices;
+    private boolean isExtended;
+
+    public HeapEnumeration(final SqueakImageContext image) {
+        this.image = image;
+    }
+
+    @TruffleBoundary
+    public Object someObject() {
+        takeSnapshot();
+        return objects.length > 0 ? objects[0] : NilObject.SINGLETON;
+    }
+
+    @TruffleBoundary
+    public Object nextObject(final AbstractSqueakObjectWithClassAndHash receiver) {
+        if (objects == null) {
+            takeSnapshot();
+        }
+        int index = indexOf(receiver);
+        if (index < 0 && !isExtended) {
+            extendSnapshot(); /* Receiver has been allocated after the snapshot. */
+            index = indexOf(receiver);
+        }
+        if (index < 0) {
+            return END_OF_ENUMERATION;
+        }
+        if (index + 1 == objects.length && !isExtended) {
+            extendSnapshot();
+        }
+        if (index + 1 < objects.length) {
+            lastIndex = index + 1;
+            return objects[lastIndex];
+        } else {
+            invalidate(); /* Do not keep all objects alive. */
+            return END_OF_ENUMERATION;
+        }
+    }
+
+    @TruffleBoundary
+    public void invalidate() {
+        objects = null;
+        indices = null;
+    }
+
+    private void takeSnapshot() {
+        invalidate(); /* Do not keep the previous snapshot alive while tracing. */
+        objects = ObjectGraphUtils.allInstances(image).toArray();
+        lastIndex = 0;
+        indices = null;
+        isExtended = false;
+    }
+
+    /* Appends all objects that are not part of the snapshot yet. */
+    private void extendSnapshot() {
+        isExtended = true;
+        final IdentityHashMap<Object, Integer> knownIndices = getIndices();
+        final Object[] allObjects = ObjectGraphUtils.allInstances(image).toArray();
+        final int oldLength = objects.length;
+        objects = Arrays.copyOf(objects, oldLength + allObjects.length);
+        int length = oldLength;
+        for (final Object object : allObjects) {
+            if (!knownIndices.containsKey(object)) {
+                knownIndices.put(object, length);
+                objects[length++] = object;
+            }
+        }
+        objects = Arrays.copyOf(objects, length);
+    }
+
+    private int indexOf(final Object object) {
+        if (lastIndex < objects.length && objects[lastIndex] == object) {
+            return lastIndex; /* Common case: enumeration proceeds in order. */
+        }
+        final Integer index = getIndices().get(object);
+        return index == null ? -1 : index;
+    }
+
+    private IdentityHashMap<Object, Integer> getIndices() {
+        if (indices == null) {
+            indices = new IdentityHashMap<>(objects.length);
+            for (int i = 0; i < objects.length; i++) {
+                indices.put(objects[i], i);
+            }
+        }
+        return indices;
+    }
+}
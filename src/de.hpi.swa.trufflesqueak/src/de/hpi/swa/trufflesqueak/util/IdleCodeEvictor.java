@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2017-2022 Software Architecture Group, Hasso Plattner Institute
+ * Copyright (c) 2021-2022 Oracle and/or its affiliates
+ *
+ * Licensed under the MIT License.
+ */
+package de.hpi.swa.trufflesqueak.util;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+
+import de.hpi.swa.trufflesqueak.image.SqueakImageContext;
+import de.hpi.swa.trufflesqueak.model.CompiledCodeObject;
+
+/**
+ * Evicts the call targets, and with them the ASTs and primitive nodes, of code that has not been
+ * executed for a while (see {@code --ast-eviction-idle-time}), so that methods only used during
+ * startup do not stay decoded forever. Sweeps are requested by the interrupt checks thread and run
+ * on the interpreter thread. Each sweep advances an epoch, which becomes the last-used epoch of all
+ * code activated since the previous sweep. Code not activated for {@link #IDLE_SWEEPS} sweeps is
+ * evicted and rebuilt on its next activation.
+ */
+public final class IdleCodeEvictor {
+    private static final int IDLE_SWEEPS = 4;
+    private static final long MIN_SWEEP_INTERVAL_MILLIS = 1000;
+
+    private final long sweepIntervalMillis;
+    private final ArrayList<WeakReference<CompiledCodeObject>> codes = new ArrayList<>();
+    private volatile long nextSweepMillis;
+    private int epoch;
+
+    private long sweeps;
+    private long evictions;
+
+    public IdleCodeEvictor(final int idleSeconds) {
+        sweepIntervalMillis = Math.max(MIN_SWEEP_INTERVAL_MILLIS, idleSeconds * 1000L / IDLE_SWEEPS);
+        nextSweepMillis = System.currentTimeMillis() + sweepIntervalMillis;
+    }
+
+    /* Called by the interrupt checks thread. */
+    public boolean isSweepDue() {
+        return System.currentTimeMillis() >= nextSweepMillis;
+    }
+
+    /* Registers code with a new call target, and returns the epoch to use as its last-used epoch. */
+    @TruffleBoundary
+    public synchronized int register(final CompiledCodeObject code) {
+        codes.add(new WeakReference<>(code));
+        return epoch;
+    }
+
+    @TruffleBoundary
+    public synchronized void sweep() {
+        epoch++;
+        sweeps++;
+        int numRegistered = 0;
+        for (int i = 0; i < codes.size(); i++) {
+            final WeakReference<CompiledCodeObject> reference = codes.get(i);
+            final CompiledCodeObject code = reference.get();
+            if (code == null) {
+                continue;
+            }
+            if (code.evictCallTargetsIfIdle(epoch, IDLE_SWEEPS)) {
+                evictions++;
+            } else {
+                codes.set(numRegistered++, reference);
+            }
+        }
+        codes.subList(numRegistered, codes.size()).clear();
+        nextSweepMillis = System.currentTimeMillis() + sweepIntervalMillis;
+    }
+
+    @TruffleBoundary
+    public synchronized void printSummary(final SqueakImageContext image) {
+        image.printToStdOut(String.format("> %s ASTs evicted in %s sweeps (%s methods with call targets remaining)", evictions, sweeps, codes.size()));
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2017-2022 Software Architecture Group, Hasso Plattner Institute
+ * Copyright (c) 2021-2022 Oracle and/or its affiliates
+ *
+ * Licensed under the MIT License.
+ */
+package de.hpi.swa.trufflesqueak.util;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+import com.oracle.truffle.api.Assumption;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.Truffle;
+
+import de.hpi.swa.trufflesqueak.model.AbstractSqueakObject;
+import de.hpi.swa.trufflesqueak.model.AbstractSqueakObjectWithClassAndHash;
+import de.hpi.swa.trufflesqueak.model.ClassObject;
+import de.hpi.swa.trufflesqueak.model.NilObject;
+
+/**
+ * Weak registry of the instances of each class of an image, so that allInstances, allInstancesOf,
+ * and someInstanceOf answer in time proportional to the result instead of tracing the entire
+ * object graph (see {@link ObjectGraphUtils}). Once enabled, all objects loaded from the image are
+ * registered with their class and new objects register themselves when they are created or change
+ * their class.
+ *
+ * The instances of a class are referenced by the class itself, and the registry only references
+ * them weakly, so neither classes nor instances are kept alive by it. Objects remain registered
+ * with their previous class after changing class, so entries are filtered by their current class
+ * and deduplicated when enumerated. Enumerations may include objects that are no longer reachable
+ * but have not been collected yet.
+ */
+public final class InstanceRegistry {
+    private static final int MIN_PURGE_THRESHOLD = 16;
+
+    private final Assumption notEnabled = Truffle.getRuntime().createAssumption("Instance registry not enabled assumption");
+    private final ArrayList<WeakReference<ClassInstances>> allClassInstances = new ArrayList<>();
+    /* Objects created while paused (e.g., boxed objects of the image writer) are not registered. */
+    private volatile boolean isPaused;
+
+    public boolean isEnabled() {
+        return !notEnabled.isValid();
+    }
+
+    /* Objects created from now on register themselves, all others must be registered explicitly. */
+    public void enable() {
+        notEnabled.invalidate();
+    }
+
+    public void pause() {
+        isPaused = true;
+    }
+
+    public void resume() {
+        isPaused = false;
+    }
+
+    public static void register(final AbstractSqueakObjectWithClassAndHash object) {
+        final ClassObject squeakClass = object.getSqueakClass();
+        if (squeakClass != null && squeakClass.getImage() != null) {
+            final InstanceRegistry registry = squeakClass.getImage().instanceRegistry;
+            if (registry != null && registry.isEnabled()) {
+                registry.registerSlow(squeakClass, object);
+            }
+        }
+    }
+
+    @TruffleBoundary
+    private void registerSlow(final ClassObject squeakClass, final AbstractSqueakObjectWithClassAndHash object) {
+        if (!isPaused) {
+            squeakClass.getRegisteredInstances().add(object);
+        }
+    }
+
+    @TruffleBoundary
+    public ClassInstances createClassInstances(final ClassObject owner) {
+        final ClassInstances instances = new ClassInstances(owner);
+        synchronized (allClassInstances) {
+            allClassInstances.removeIf(reference -> reference.get() == null);
+            allClassInstances.add(new WeakReference<>(instances));
+        }
+        return instances;
+    }
+
+    @TruffleBoundary
+    public void allInstances(final Collection<AbstractSqueakObjectWithClassAndHash> result) {
+        final ArrayList<ClassInstances> classInstances = new ArrayList<>();
+        synchronized (allClassInstances) {
+            for (final WeakReference<ClassInstances> reference : allClassInstances) {
+                final ClassInstances instances = reference.get();
+                if (instances != null) {
+                    classInstances.add(instances);
+                }
+            }
+        }
+        final Set<AbstractSqueakObjectWithClassAndHash> seen = newIdentitySet();
+        for (final ClassInstances instances : classInstances) {
+            instances.allInstances(seen, result, Integer.MAX_VALUE);
+        }
+    }
+
+    @TruffleBoundary
+    public static Object[] allInstancesOf(final ClassObject classObject) {
+        final ArrayList<AbstractSqueakObjectWithClassAndHash> result = new ArrayList<>();
+        classObject.getRegisteredInstances().allInstances(newIdentitySet(), result, Integer.MAX_VALUE);
+        return result.toArray();
+    }
+
+    @TruffleBoundary
+    public static AbstractSqueakObject someInstanceOf(final ClassObject classObject) {
+        final ArrayList<AbstractSqueakObjectWithClassAndHash> result = new ArrayList<>(1);
+        classObject.getRegisteredInstances().allInstances(newIdentitySet(), result, 1);
+        return result.isEmpty() ? NilObject.SINGLETON : result.get(0);
+    }
+
+    private static Set<AbstractSqueakObjectWithClassAndHash> newIdentitySet() {
+        return Collections.newSetFromMap(new IdentityHashMap<>());
+    }
+
+    /* The registered instances of a single class, referenced by the class only. */
+    public static final class ClassInstances {
+        private final ClassObject owner;
+        private final ArrayList<WeakReference<AbstractSqueakObjectWithClassAndHash>> references = new ArrayList<>();
+        /* Stale references are purged when the number of references reaches this threshold. */
+        private int purgeThreshold = MIN_PURGE_THRESHOLD;
+
+        private ClassInstances(final ClassObject owner) {
+            this.owner = owner;
+        }
+
+        private synchronized void add(final AbstractSqueakObjectWithClassAndHash object) {
+            if (references.size() >= purgeThreshold) {
+                purge();
+                purgeThreshold = Math.max(MIN_PURGE_THRESHOLD, references.size() * 2);
+            }
+            references.add(new WeakReference<>(object));
+        }
+
+        private void purge() {
+            references.removeIf(reference -> {
+                final AbstractSqueakObjectWithClassAndHash object = reference.get();
+                return object == null || object.getSqueakClass() != owner;
+            });
+        }
+
+        private synchronized void allInstances(final Set<AbstractSqueakObjectWithClassAndHash> seen, final Collection<AbstractSqueakObjectWithClassAndHash> result, final int maxResults) {
+            for (final WeakReference<AbstractSqueakObjectWithClassAndHash> reference : references) {
+                final AbstractSqueakObjectWithClassAndHash object = reference.get();
+                if (object != null && object.getSqueakClass() == owner && seen.add(object)) {
+                    result.add(object);
+                    if (result.size() >= maxResults) {
+                        return;
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2017-2022 Software Architecture Group, Hasso Plattner Institute
+ * Copyright (c) 2021-2022 Oracle and/or its affiliates
+ *
+ * Licensed under the MIT License.
+ */
+package de.hpi.swa.trufflesqueak.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.nodes.ExplodeLoop;
+
+import de.hpi.swa.trufflesqueak.model.ClassObject;
+import de.hpi.swa.trufflesqueak.model.CompiledCodeObject;
+import de.hpi.swa.trufflesqueak.model.NativeObject;
+
+/**
+ * Global method cache for lookups that are not cached in the AST (see {@link MethodCacheEntry}).
+ * The initial size is configurable ({@code --method-cache-size}) and the cache doubles in size
+ * (up to {@link #MAX_SIZE}) whenever too many misses evict entries that were filled only recently,
+ * which means that the working set does not fit. Entries are indexed by selector, so that selective
+ * flushes do not need to scan the entire cache. Statistics are only kept on the miss path, so that
+ * hits do not write to the cache.
+ */
+public final class MethodCache {
+    private static final int REPROBES = 4;
+    private static final int MIN_SIZE = 1 << 4;
+    private static final int MAX_SIZE = 1 << 20;
+    /* Grow if more than one in EVICTION_RATIO misses evicts an entry filled recently. */
+    private static final int EVICTION_RATIO = 8;
+
+    private MethodCacheEntry[] entries;
+    private final IdentityHashMap<NativeObject, ArrayList<MethodCacheEntry>> entriesBySelector = new IdentityHashMap<>();
+    private int randomish;
+
+    private long misses;
+    private long evictions;
+    /* Statistics since the last time the cache considered growing. */
+    private int windowMisses;
+    private int windowRecentEvictions;
+
+    public MethodCache(final int initialSize) {
+        allocate(Integer.highestOneBit(Math.max(MIN_SIZE, Math.min(MAX_SIZE, initialSize))));
+    }
+
+    private void allocate(final int size) {
+        entries = new MethodCacheEntry[size];
+        for (int i = 0; i < size; i++) {
+            entries[i] = new MethodCacheEntry();
+        }
+        entriesBySelector.clear();
+        windowMisses = 0;
+        windowRecentEvictions = 0;
+    }
+
+    /*
+     * Probe the cache, and return the matching entry if found. Otherwise return one that can be
+     * used (selector and class set) with method == null. Initial probe is class xor selector,
+     * reprobe delta is selector. We do not try to optimize probe time -- all are equally 'fast'
+     * compared to lookup. Instead we randomize the reprobe so two or three very active conflicting
+     * entries will not keep dislodging each other.
+     */
+    @ExplodeLoop
+    public MethodCacheEntry find(final ClassObject classObject, final NativeObject selector) {
+        final MethodCacheEntry[] cache = entries;
+        final int mask = cache.length - 1;
+        randomish = randomish + 1 & 3;
+        final int selectorHash = System.identityHashCode(selector);
+        int firstProbe = (System.identityHashCode(classObject) ^ selectorHash) & mask;
+        int probe = firstProbe;
+        for (int i = 0; i < REPROBES; i++) {
+            final MethodCacheEntry entry = cache[probe];
+            if (entry.getClassObject() == classObject && entry.getSelector() == selector) {
+                return entry;
+            }
+            if (i == randomish) {
+                firstProbe = probe;
+            }
+            probe = probe + selectorHash & mask;
+        }
+        return reuse(cache[firstProbe], classObject, selector);
+    }
+
+    @TruffleBoundary
+    private MethodCacheEntry reuse(final MethodCacheEntry entry, final ClassObject classObject, final NativeObject selector) {
+        misses++;
+        windowMisses++;
+        final NativeObject previousSelector = entry.getSelector();
+        if (previousSelector != null) {
+            if (entry.getResult() != null) {
+                evictions++;
+                /* The entry was filled during the last cache-size misses, so it is still hot. */
+                if (misses - entry.getMissStamp() <= entries.length) {
+                    windowRecentEvictions++;
+                }
+            }
+            removeFromIndex(previousSelector, entry);
+        }
+        entry.reuseFor(classObject, selector, misses);
+        entriesBySelector.computeIfAbsent(selector, s -> new ArrayList<>(2)).add(entry);
+        if (windowMisses >= entries.length) {
+            considerGrowing();
+        }
+        return entry;
+    }
+
+    private void considerGrowing() {
+        if (entries.length < MAX_SIZE && (long) windowRecentEvictions * EVICTION_RATIO > windowMisses) {
+            /* Entries are dropped, this is cheaper than rehashing them and rare. */
+            allocate(entries.length * 2);
+        } else {
+            windowMisses = 0;
+            windowRecentEvictions = 0;
+        }
+    }
+
+    private void removeFromIndex(final NativeObject selector, final MethodCacheEntry entry) {
+        final ArrayList<MethodCacheEntry> selectorEntries = entriesBySelector.get(selector);
+        if (selectorEntries != null) {
+            for (int i = 0; i < selectorEntries.size(); i++) {
+                if (selectorEntries.get(i) == entry) {
+                    selectorEntries.set(i, selectorEntries.get(selectorEntries.size() - 1));
+                    selectorEntries.remove(selectorEntries.size() - 1);
+                    break;
+                }
+            }
+            if (selectorEntries.isEmpty()) {
+                entriesBySelector.remove(selector);
+            }
+        }
+    }
+
+    /* Clear all cache entries (prim 89). */
+    @TruffleBoundary
+    public void flush() {
+        for (final MethodCacheEntry entry : entries) {
+            entry.freeAndRelease();
+        }
+        entriesBySelector.clear();
+    }
+
+    /* Clear cache entries for selector (prim 119). */
+    @TruffleBoundary
+    public void flushForSelector(final NativeObject selector) {
+        final ArrayList<MethodCacheEntry> selectorEntries = entriesBySelector.remove(selector);
+        if (selectorEntries != null) {
+            for (final MethodCacheEntry entry : selectorEntries) {
+                assert entry.getSelector() == selector : "Inconsistent method cache index";
+                entry.freeAndRelease();
+            }
+        }
+    }
+
+    /* Clear cache entries for method (prim 116). */
+    @TruffleBoundary
+    public void flushForMethod(final CompiledCodeObject method) {
+        for (final MethodCacheEntry entry : entries) {
+            if (entry.getResult() == method) {
+                removeFromIndex(entry.getSelector(), entry);
+                entry.freeAndRelease();
+            }
+        }
+    }
+
+    /* Checks that entriesBySelector indexes each entry in use exactly once, under its selector. */
+    @TruffleBoundary
+    public boolean isIndexConsistent() {
+        final Set<MethodCacheEntry> indexed = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (final Map.Entry<NativeObject, ArrayList<MethodCacheEntry>> selectorEntries : entriesBySelector.entrySet()) {
+            for (final MethodCacheEntry entry : selectorEntries.getValue()) {
+                if (entry.getSelector() != selectorEntries.getKey() || !indexed.add(entry)) {
+                    return false;
+                }
+            }
+        }
+        int numInUse = 0;
+        for (final MethodCacheEntry entry : entries) {
+            if (entry.getSelector() != null) {
+                numInUse++;
+            }
+        }
+        return numInUse == indexed.size();
+    }
+
+    /* Returns {size. misses. evictions}. */
+    public long[] getStatistics() {
+        return new long[]{entries.length, misses, evictions};
+    }
+}
@@ -15,12 +15,14 @@ public final class MethodCacheEntry {
     private ClassObject classObject;
     private NativeObject selector;
     private Object result;
+    /* Number of cache misses when the entry was (re)used (see MethodCache). */
+    private long missStamp;
 
     public ClassObject getClassObject() {
         return classObject;
     }
 
-    public Object getSelector() {
+    public NativeObject getSelector() {
         return selector;
     }
 
@@ -28,6 +30,10 @@ public final class MethodCacheEntry {
         return result;
     }
 
+    public long getMissStamp() {
+        return missStamp;
+    }
+
     public void setResult(final Object object) {
         result = object;
     }
@@ -37,10 +43,11 @@ public final class MethodCacheEntry {
         result = null; /* Release the method. */
     }
 
-    public MethodCacheEntry reuseFor(final ClassObject lookupClass, final NativeObject lookupSelector) {
+    public MethodCacheEntry reuseFor(final ClassObject lookupClass, final NativeObject lookupSelector, final long currentMisses) {
         classObject = lookupClass;
         selector = lookupSelector;
         result = null;
+        missStamp = currentMisses;
         return this;
     }
 
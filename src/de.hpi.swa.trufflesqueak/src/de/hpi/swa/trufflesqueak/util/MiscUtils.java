@@ -275,6 +275,15 @@ public final class MiscUtils {
         }
         final double totalGCSeconds = millisToSeconds(totalGCTime);
         image.printToStdOut(String.format("> %8.4fs (%5.2f%% of total time) in %4s GCs in total", totalGCSeconds, totalGCSeconds / totalProcessTimeSeconds * 100, totalGCCount));
+        if (image.getCodeEvictor() != null) {
+            image.getCodeEvictor().printSummary(image);
+        }
+        if (image.getSendSiteProfiler() != null) {
+            image.getSendSiteProfiler().printReport(image);
+        }
+        if (image.getContextMaterializationProfiler() != null) {
+            image.getContextMaterializationProfiler().printReport(image);
+        }
     }
 
     @TruffleBoundary
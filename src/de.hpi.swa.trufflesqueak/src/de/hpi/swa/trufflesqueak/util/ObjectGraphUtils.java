@@ -8,6 +8,10 @@ package de.hpi.swa.trufflesqueak.util;
 
 import java.util.AbstractCollection;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Predicate;
 
 import com.oracle.truffle.api.CompilerAsserts;
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
@@ -19,6 +23,7 @@ import de.hpi.swa.trufflesqueak.image.SqueakImageContext;
 import de.hpi.swa.trufflesqueak.model.AbstractSqueakObject;
 import de.hpi.swa.trufflesqueak.model.AbstractSqueakObjectWithClassAndHash;
 import de.hpi.swa.trufflesqueak.model.ClassObject;
+import de.hpi.swa.trufflesqueak.model.ContextObject;
 import de.hpi.swa.trufflesqueak.model.NilObject;
 
 public final class ObjectGraphUtils {
@@ -35,6 +40,25 @@ public final class ObjectGraphUtils {
 
     @TruffleBoundary
     public static AbstractCollection<AbstractSqueakObjectWithClassAndHash> allInstances(final SqueakImageContext image) {
+        image.forwardingPointers.flush();
+        if (image.instanceRegistry.isEnabled()) {
+            final ArrayDeque<AbstractSqueakObjectWithClassAndHash> seen = new ArrayDeque<>(lastSeenObjects + ADDITIONAL_SPACE);
+            image.instanceRegistry.allInstances(seen);
+            lastSeenObjects = seen.size();
+            return seen;
+        }
+        return allInstances(image, image.options.isParallelObjectTracing);
+    }
+
+    /* Traces the object graph to find all reachable objects, either in parallel or sequentially. */
+    @TruffleBoundary
+    public static AbstractCollection<AbstractSqueakObjectWithClassAndHash> allInstances(final SqueakImageContext image, final boolean inParallel) {
+        image.forwardingPointers.flush();
+        if (inParallel) {
+            final ArrayList<AbstractSqueakObjectWithClassAndHash> seen = traceInParallel(image, object -> true);
+            lastSeenObjects = seen.size();
+            return seen;
+        }
         final ArrayDeque<AbstractSqueakObjectWithClassAndHash> seen = new ArrayDeque<>(lastSeenObjects + ADDITIONAL_SPACE);
         final ObjectTracer pending = new ObjectTracer(image);
         AbstractSqueakObjectWithClassAndHash currentObject;
@@ -50,6 +74,13 @@ public final class ObjectGraphUtils {
 
     @TruffleBoundary
     public static void pointersBecomeOneWay(final SqueakImageContext image, final Object[] fromPointers, final Object[] toPointers) {
+        if (image.options.isParallelObjectTracing) {
+            traceInParallel(image, object -> {
+                object.pointersBecomeOneWay(fromPointers, toPointers);
+                return false;
+            });
+            return;
+        }
         final ObjectTracer pending = new ObjectTracer(image);
         AbstractSqueakObjectWithClassAndHash currentObject;
         while ((currentObject = pending.getNextPending()) != null) {
@@ -60,8 +91,75 @@ public final class ObjectGraphUtils {
         }
     }
 
+    /* Replaces fromPointers in the arguments, contexts, and stack slots of all TruffleSqueak frames. */
+    @TruffleBoundary
+    public static void patchTruffleFrames(final Object[] fromPointers, final Object[] toPointers) {
+        final int fromPointersLength = fromPointers.length;
+
+        Truffle.getRuntime().iterateFrames((frameInstance) -> {
+            final Frame current = frameInstance.getFrame(FrameInstance.FrameAccess.READ_WRITE);
+            if (!FrameAccess.isTruffleSqueakFrame(current)) {
+                return null;
+            }
+            final Object[] arguments = current.getArguments();
+            for (int i = 0; i < arguments.length; i++) {
+                final Object argument = arguments[i];
+                for (int j = 0; j < fromPointersLength; j++) {
+                    final Object fromPointer = fromPointers[j];
+                    if (argument == fromPointer) {
+                        final Object toPointer = toPointers[j];
+                        arguments[i] = toPointer;
+                    } else if (argument instanceof AbstractSqueakObjectWithClassAndHash) {
+                        ((AbstractSqueakObjectWithClassAndHash) argument).pointersBecomeOneWay(fromPointers, toPointers);
+                    }
+                }
+            }
+
+            final ContextObject context = FrameAccess.getContext(current);
+            if (context != null) {
+                for (int j = 0; j < fromPointersLength; j++) {
+                    final Object fromPointer = fromPointers[j];
+                    if (context == fromPointer) {
+                        final Object toPointer = toPointers[j];
+                        FrameAccess.setContext(current, (ContextObject) toPointer);
+                    } else {
+                        context.pointersBecomeOneWay(fromPointers, toPointers);
+                    }
+                }
+            }
+
+            /*
+             * Iterate over all stack slots here instead of stackPointer because in rare cases,
+             * the stack is accessed behind the stackPointer.
+             */
+            FrameAccess.iterateStackSlots(current, slotIndex -> {
+                if (current.isObject(slotIndex)) {
+                    final Object stackObject = current.getObject(slotIndex);
+                    for (int j = 0; j < fromPointersLength; j++) {
+                        final Object fromPointer = fromPointers[j];
+                        if (stackObject == fromPointer) {
+                            final Object toPointer = toPointers[j];
+                            assert toPointer != null : "Unexpected `null` value";
+                            current.setObject(slotIndex, toPointer);
+                        } else if (stackObject instanceof AbstractSqueakObjectWithClassAndHash) {
+                            ((AbstractSqueakObjectWithClassAndHash) stackObject).pointersBecomeOneWay(fromPointers, toPointers);
+                        }
+                    }
+                }
+            });
+            return null;
+        });
+    }
+
     @TruffleBoundary
     public static Object[] allInstancesOf(final SqueakImageContext image, final ClassObject classObj) {
+        image.forwardingPointers.flush();
+        if (image.instanceRegistry.isEnabled()) {
+            return InstanceRegistry.allInstancesOf(classObj);
+        }
+        if (image.options.isParallelObjectTracing) {
+            return traceInParallel(image, object -> classObj == object.getSqueakClass()).toArray();
+        }
         final ArrayDeque<AbstractSqueakObjectWithClassAndHash> result = new ArrayDeque<>();
         final ObjectTracer pending = new ObjectTracer(image);
         AbstractSqueakObjectWithClassAndHash currentObject;
@@ -78,6 +176,10 @@ public final class ObjectGraphUtils {
 
     @TruffleBoundary
     public static AbstractSqueakObject someInstanceOf(final SqueakImageContext image, final ClassObject classObj) {
+        image.forwardingPointers.flush();
+        if (image.instanceRegistry.isEnabled()) {
+            return InstanceRegistry.someInstanceOf(classObj);
+        }
         final ObjectTracer pending = new ObjectTracer(image);
         AbstractSqueakObjectWithClassAndHash currentObject;
         while ((currentObject = pending.getNextPending()) != null) {
@@ -91,14 +193,69 @@ public final class ObjectGraphUtils {
         return NilObject.SINGLETON;
     }
 
+    /*
+     * Traces the object graph on all workers of the common pool and returns all newly marked
+     * objects for which filter answers true. Roots are collected on the current thread, filter is
+     * called on worker threads exactly once for each reachable object, before its pointers are
+     * traced.
+     */
+    private static ArrayList<AbstractSqueakObjectWithClassAndHash> traceInParallel(final SqueakImageContext image, final Predicate<AbstractSqueakObjectWithClassAndHash> filter) {
+        return ForkJoinPool.commonPool().invoke(new TraceTask(new ObjectTracer(image), filter));
+    }
+
+    /**
+     * Drains the mark stack of its tracer. Whenever the mark stack grows large while other workers
+     * are idle, half of it is split off into a new task that can be stolen by other workers. Objects
+     * are marked atomically, so that each object is traced exactly once.
+     */
+    private static final class TraceTask extends RecursiveTask<ArrayList<AbstractSqueakObjectWithClassAndHash>> {
+        private static final long serialVersionUID = 1L;
+        private static final int SPLIT_THRESHOLD = 1 << 10;
+        private static final int MAX_SURPLUS_TASKS = 2;
+
+        private final transient ObjectTracer tracer;
+        private final transient Predicate<AbstractSqueakObjectWithClassAndHash> filter;
+
+        private TraceTask(final ObjectTracer tracer, final Predicate<AbstractSqueakObjectWithClassAndHash> filter) {
+            this.tracer = tracer;
+            this.filter = filter;
+        }
+
+        @Override
+        protected ArrayList<AbstractSqueakObjectWithClassAndHash> compute() {
+            final ArrayList<AbstractSqueakObjectWithClassAndHash> result = new ArrayList<>();
+            final ArrayList<TraceTask> forkedTasks = new ArrayList<>();
+            final boolean currentMarkingFlag = tracer.getCurrentMarkingFlag();
+            AbstractSqueakObjectWithClassAndHash currentObject;
+            while ((currentObject = tracer.getNextPending()) != null) {
+                if (currentObject.tryToMarkAtomically(currentMarkingFlag)) {
+                    if (filter.test(currentObject)) {
+                        result.add(currentObject);
+                    }
+                    tracer.tracePointers(currentObject);
+                    if (tracer.size() > SPLIT_THRESHOLD && getSurplusQueuedTaskCount() < MAX_SURPLUS_TASKS) {
+                        final TraceTask task = new TraceTask(tracer.split(), filter);
+                        task.fork();
+                        forkedTasks.add(task);
+                    }
+                }
+            }
+            for (final TraceTask task : forkedTasks) {
+                result.addAll(task.join());
+            }
+            return result;
+        }
+    }
+
     public static final class ObjectTracer {
         /* Power of two, large enough to avoid resizing. */
         private static final int PENDING_INITIAL_SIZE = 1 << 17;
 
         private final boolean currentMarkingFlag;
-        private final ArrayDeque<AbstractSqueakObjectWithClassAndHash> deque = new ArrayDeque<>(PENDING_INITIAL_SIZE);
+        private final ArrayDeque<AbstractSqueakObjectWithClassAndHash> deque;
 
         private ObjectTracer(final SqueakImageContext image) {
+            deque = new ArrayDeque<>(PENDING_INITIAL_SIZE);
             // Flip the marking flag
             currentMarkingFlag = image.toggleCurrentMarkingFlag();
             // Add roots
@@ -106,6 +263,25 @@ public final class ObjectGraphUtils {
             addObjectsFromTruffleFrames();
         }
 
+        private ObjectTracer(final boolean currentMarkingFlag, final int initialSize) {
+            deque = new ArrayDeque<>(initialSize);
+            this.currentMarkingFlag = currentMarkingFlag;
+        }
+
+        /* Moves half of the pending objects to a new tracer. */
+        private ObjectTracer split() {
+            final int numObjects = deque.size() / 2;
+            final ObjectTracer other = new ObjectTracer(currentMarkingFlag, numObjects * 2);
+            for (int i = 0; i < numObjects; i++) {
+                other.deque.add(deque.pollLast());
+            }
+            return other;
+        }
+
+        private int size() {
+            return deque.size();
+        }
+
         private void addObjectsFromTruffleFrames() {
             CompilerAsserts.neverPartOfCompilation();
             Truffle.getRuntime().iterateFrames(frameInstance -> {
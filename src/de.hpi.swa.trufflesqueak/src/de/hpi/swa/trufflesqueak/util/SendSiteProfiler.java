@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2017-2022 Software Architecture Group, Hasso Plattner Institute
+ * Copyright (c) 2021-2022 Oracle and/or its affiliates
+ *
+ * Licensed under the MIT License.
+ */
+package de.hpi.swa.trufflesqueak.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+
+import de.hpi.swa.trufflesqueak.image.SqueakImageContext;
+import de.hpi.swa.trufflesqueak.model.ClassObject;
+import de.hpi.swa.trufflesqueak.model.CompiledCodeObject;
+import de.hpi.swa.trufflesqueak.model.NativeObject;
+
+/**
+ * Records receiver classes, inline cache transitions, and doesNotUnderstands per send site (see
+ * {@code --send-site-profiling}). Send sites move from monomorphic to polymorphic to megamorphic
+ * as they observe more receiver classes than their inline caches hold (see
+ * {@code --send-inline-cache-size}). A transition is also recorded whenever the lookup result for
+ * an already observed receiver class changes, which causes the inline cache to be rewritten. The
+ * report is printed as part of the resource summary.
+ *
+ * Profiles are keyed by code and bytecode index, so that copies of send nodes and ASTs rebuilt
+ * after eviction share them. They only keep the selector and a description of their code, which
+ * itself is held weakly.
+ */
+public final class SendSiteProfiler {
+    private static final int MAX_REPORTED_SITES = 50;
+    private static final int MAX_REPORTED_CLASSES = 5;
+
+    private final int inlineCacheSize;
+    private final ArrayList<SiteProfile> sites = new ArrayList<>();
+    private final WeakHashMap<CompiledCodeObject, HashMap<Integer, SiteProfile>> sitesByCode = new WeakHashMap<>();
+
+    public SendSiteProfiler(final int inlineCacheSize) {
+        this.inlineCacheSize = inlineCacheSize;
+    }
+
+    public enum State {
+        UNINITIALIZED,
+        MONOMORPHIC,
+        POLYMORPHIC,
+        MEGAMORPHIC
+    }
+
+    public final class SiteProfile {
+        private final String code;
+        private final int index;
+        private final String selector;
+        private final IdentityHashMap<ClassObject, long[]> receiverClassCounts = new IdentityHashMap<>();
+        private final IdentityHashMap<ClassObject, Object> lookupResults = new IdentityHashMap<>();
+        private State state = State.UNINITIALIZED;
+        private long sends;
+        private long transitions;
+        private long doesNotUnderstands;
+
+        private SiteProfile(final String code, final int index, final String selector) {
+            this.code = code;
+            this.index = index;
+            this.selector = selector;
+        }
+
+        public String getSelector() {
+            return selector;
+        }
+
+        public State getState() {
+            return state;
+        }
+
+        public int getNumReceiverClasses() {
+            return receiverClassCounts.size();
+        }
+
+        @TruffleBoundary
+        public void record(final ClassObject receiverClass, final Object lookupResult) {
+            sends++;
+            if (lookupResult == null) {
+                doesNotUnderstands++;
+            }
+            final long[] count = receiverClassCounts.get(receiverClass);
+            if (count == null) {
+                receiverClassCounts.put(receiverClass, new long[]{1});
+                lookupResults.put(receiverClass, lookupResult);
+                final int numClasses = receiverClassCounts.size();
+                final State newState = numClasses == 1 ? State.MONOMORPHIC : numClasses <= inlineCacheSize ? State.POLYMORPHIC : State.MEGAMORPHIC;
+                if (newState != state) {
+                    if (state != State.UNINITIALIZED) {
+                        transitions++;
+                    }
+                    state = newState;
+                }
+            } else {
+                count[0]++;
+                if (lookupResults.put(receiverClass, lookupResult) != lookupResult) {
+                    transitions++; /* Cached lookup result was invalidated. */
+                }
+            }
+        }
+
+        private boolean isInteresting() {
+            return state.ordinal() > State.MONOMORPHIC.ordinal() || transitions > 0 || doesNotUnderstands > 0;
+        }
+
+        private String receiverClassesToString() {
+            final ArrayList<Map.Entry<ClassObject, long[]>> entries = new ArrayList<>(receiverClassCounts.entrySet());
+            entries.sort((a, b) -> Long.compare(b.getValue()[0], a.getValue()[0]));
+            final StringBuilder b = new StringBuilder();
+            for (int i = 0; i < Math.min(MAX_REPORTED_CLASSES, entries.size()); i++) {
+                if (i > 0) {
+                    b.append(", ");
+                }
+                b.append(entries.get(i).getKey().getClassName()).append(" (").append(entries.get(i).getValue()[0]).append(')');
+            }
+            if (entries.size() > MAX_REPORTED_CLASSES) {
+                b.append(", ...");
+            }
+            return b.toString();
+        }
+    }
+
+    @TruffleBoundary
+    public SiteProfile register(final CompiledCodeObject code, final int index, final NativeObject selector) {
+        synchronized (sites) {
+            final HashMap<Integer, SiteProfile> codeSites = sitesByCode.computeIfAbsent(code, c -> new HashMap<>());
+            SiteProfile profile = codeSites.get(index);
+            if (profile == null) {
+                profile = new SiteProfile(code.toString(), index, selector.asStringUnsafe());
+                codeSites.put(index, profile);
+                sites.add(profile);
+            }
+            return profile;
+        }
+    }
+
+    @TruffleBoundary
+    public SiteProfile getProfile(final CompiledCodeObject code, final int index) {
+        synchronized (sites) {
+            final HashMap<Integer, SiteProfile> codeSites = sitesByCode.get(code);
+            return codeSites == null ? null : codeSites.get(index);
+        }
+    }
+
+    /* Prints the most polymorphic send sites first. */
+    @TruffleBoundary
+    public void printReport(final SqueakImageContext image) {
+        final ArrayList<SiteProfile> interestingSites = new ArrayList<>();
+        final int numSites;
+        synchronized (sites) {
+            numSites = sites.size();
+            for (final SiteProfile profile : sites) {
+                if (profile.isInteresting()) {
+                    interestingSites.add(profile);
+                }
+            }
+        }
+        interestingSites.sort((a, b) -> {
+            final int byClasses = Integer.compare(b.receiverClassCounts.size(), a.receiverClassCounts.size());
+            if (byClasses != 0) {
+                return byClasses;
+            }
+            final int byTransitions = Long.compare(b.transitions, a.transitions);
+            return byTransitions != 0 ? byTransitions : Long.compare(b.sends, a.sends);
+        });
+        image.printToStdOut(String.format("# Send Site Profile (%s of %s send sites polymorphic, rewritten, or with DNUs)", interestingSites.size(), numSites));
+        image.printToStdOut(String.format("> %-11s %7s %5s %10s %10s  %s", "state", "classes", "trans", "DNUs", "sends", "site"));
+        for (int i = 0; i < Math.min(MAX_REPORTED_SITES, interestingSites.size()); i++) {
+            final SiteProfile profile = interestingSites.get(i);
+            image.printToStdOut(String.format("> %-11s %7s %5s %10s %10s  %s @%s: #%s", profile.state.name().toLowerCase(), profile.receiverClassCounts.size(), profile.transitions,
+                            profile.doesNotUnderstands, profile.sends, profile.code, profile.index, profile.selector));
+            image.printToStdOut(">     " + profile.receiverClassesToString());
+        }
+    }
+}